@@ -25,6 +25,7 @@ import org.apache.lucene.util.IOUtils;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.request.CoreAdminRequest;
 import org.apache.solr.client.solrj.response.CoreAdminResponse;
+import org.apache.solr.core.SolrCore;
 import org.apache.solr.embedded.JettyConfig;
 import org.apache.solr.embedded.JettySolrRunner;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -34,6 +35,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -42,7 +44,8 @@ import org.openjdk.jmh.annotations.Threads;
 
 /**
  * A simple JMH benchmark that attempts to measure approximate Solr startup behavior by measuring
- * {@link JettySolrRunner#start()}
+ * {@link JettySolrRunner#start()}, for a varying number of cores and with or without opening their
+ * first searchers in the background (see {@link SolrCore#OPEN_SEARCHER_IN_BACKGROUND_PROP}).
  */
 @BenchmarkMode(Mode.Throughput)
 @OutputTimeUnit(TimeUnit.SECONDS)
@@ -60,13 +63,19 @@ public class SolrStartup {
   @State(Scope.Thread)
   public static class PerThreadState {
 
-    private static final int NUM_CORES = 10;
+    @Param({"10", "100"})
+    public int numCores;
+
+    @Param({"false", "true"})
+    public boolean openSearcherInBackground;
 
     public Path tmpSolrHome;
     public JettySolrRunner solrRunner;
 
     @Setup(Level.Trial)
     public void bootstrapJettyServer() throws Exception {
+      System.setProperty(
+          SolrCore.OPEN_SEARCHER_IN_BACKGROUND_PROP, Boolean.toString(openSearcherInBackground));
       tmpSolrHome = Files.createTempDirectory("solrstartup-perthreadstate-jsr").toAbsolutePath();
 
       final Path configsetsDir = tmpSolrHome.resolve("configsets");
@@ -79,7 +88,7 @@ public class SolrStartup {
       solrRunner = new JettySolrRunner(tmpSolrHome.toString(), buildJettyConfig());
       solrRunner.start(false);
       try (SolrClient client = solrRunner.newClient()) {
-        for (int i = 0; i < NUM_CORES; i++) {
+        for (int i = 0; i < numCores; i++) {
           createCore(client, "core-prefix-" + i);
         }
       }
@@ -111,6 +120,7 @@ public class SolrStartup {
       }
 
       IOUtils.rm(tmpSolrHome);
+      System.clearProperty(SolrCore.OPEN_SEARCHER_IN_BACKGROUND_PROP);
     }
 
     private static JettyConfig buildJettyConfig() {
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.ltr;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.apache.solr.core.SolrResourceLoader;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.feature.ValueFeature;
+import org.apache.solr.ltr.model.LTRScoringModel;
+import org.apache.solr.ltr.model.LinearModel;
+import org.apache.solr.ltr.model.MultipleAdditiveTreesModel;
+import org.apache.solr.ltr.model.NeuralNetworkModel;
+import org.apache.solr.ltr.norm.IdentityNormalizer;
+import org.apache.solr.ltr.norm.Normalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares scoring the documents of a rerank window one at a time with {@link
+ * LTRScoringModel#score(float[])} to scoring them at once with {@link
+ * LTRScoringModel#score(float[][], int, float[])}, for the models that come with Solr. Feature
+ * extraction is left out, so this only measures the models.
+ */
+@Fork(value = 1)
+@Warmup(time = 1, iterations = 5)
+@Measurement(time = 1, iterations = 5)
+@Threads(value = 1)
+public class ModelScoring {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"linear", "trees", "neuralNetwork"})
+    String model;
+
+    /** Size of the rerank window */
+    @Param({"100", "1000"})
+    int numDocs;
+
+    @Param("50")
+    int numFeatures;
+
+    /** Number of trees of the trees model */
+    @Param("300")
+    int numTrees;
+
+    /** Depth of the trees of the trees model */
+    @Param("6")
+    int treeDepth;
+
+    /** Number of units of the hidden layer of the neural network model */
+    @Param("64")
+    int hiddenUnits;
+
+    LTRScoringModel ltrScoringModel;
+    float[][] featureMatrix;
+    float[][] featureVectors;
+    float[] scores;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+      final List<Feature> features = new ArrayList<>();
+      for (int i = 0; i < numFeatures; i++) {
+        features.add(new ValueFeature("feature" + i, Map.of("value", 1f)));
+      }
+      final List<Normalizer> norms =
+          new ArrayList<>(Collections.nCopies(numFeatures, IdentityNormalizer.INSTANCE));
+
+      final Map<String, Object> params = new HashMap<>();
+      final String className;
+      switch (model) {
+        case "linear" -> {
+          className = LinearModel.class.getName();
+          final Map<String, Object> weights = new HashMap<>();
+          for (Feature feature : features) {
+            weights.put(feature.getName(), random.nextDouble());
+          }
+          params.put("weights", weights);
+        }
+        case "trees" -> {
+          className = MultipleAdditiveTreesModel.class.getName();
+          final List<Object> trees = new ArrayList<>();
+          for (int i = 0; i < numTrees; i++) {
+            trees.add(Map.of("weight", "1", "root", createTreeNode(treeDepth)));
+          }
+          params.put("trees", trees);
+        }
+        case "neuralNetwork" -> {
+          className = NeuralNetworkModel.class.getName();
+          params.put(
+              "layers",
+              List.of(
+                  createLayer(hiddenUnits, numFeatures, "relu"),
+                  createLayer(1, hiddenUnits, "identity")));
+        }
+        default -> throw new IllegalArgumentException("Unknown model: " + model);
+      }
+
+      try (SolrResourceLoader loader = new SolrResourceLoader(Path.of("."))) {
+        ltrScoringModel =
+            LTRScoringModel.getInstance(
+                loader, className, model, features, norms, "store", features, params);
+      }
+
+      featureMatrix = new float[numFeatures][numDocs];
+      featureVectors = new float[numDocs][numFeatures];
+      for (int doc = 0; doc < numDocs; doc++) {
+        for (int i = 0; i < numFeatures; i++) {
+          float value = (float) random.nextDouble();
+          featureMatrix[i][doc] = value;
+          featureVectors[doc][i] = value;
+        }
+      }
+      scores = new float[numDocs];
+    }
+
+    private Map<String, Object> createTreeNode(int depth) {
+      final Map<String, Object> node = new HashMap<>();
+      if (depth == 0) {
+        node.put("value", Double.toString(random.nextDouble()));
+      } else {
+        node.put("feature", "feature" + random.nextInt(numFeatures));
+        node.put("threshold", Double.toString(random.nextDouble()));
+        node.put("left", createTreeNode(depth - 1));
+        node.put("right", createTreeNode(depth - 1));
+      }
+      return node;
+    }
+
+    private Map<String, Object> createLayer(int rows, int cols, String activation) {
+      final List<List<Double>> matrix = new ArrayList<>();
+      for (int i = 0; i < rows; i++) {
+        final List<Double> row = new ArrayList<>();
+        for (int j = 0; j < cols; j++) {
+          row.add(random.nextDouble() - 0.5);
+        }
+        matrix.add(row);
+      }
+      final List<Double> bias = new ArrayList<>();
+      for (int i = 0; i < rows; i++) {
+        bias.add(random.nextDouble() - 0.5);
+      }
+      return Map.of("matrix", matrix, "bias", bias, "activation", activation);
+    }
+  }
+
+  @Benchmark
+  public void scoreOneByOne(BenchState state, Blackhole bh) {
+    for (int doc = 0; doc < state.numDocs; doc++) {
+      bh.consume(state.ltrScoringModel.score(state.featureVectors[doc]));
+    }
+  }
+
+  @Benchmark
+  public float[] scoreBatch(BenchState state) {
+    state.ltrScoringModel.score(state.featureMatrix, state.numDocs, state.scores);
+    return state.scores;
+  }
+}
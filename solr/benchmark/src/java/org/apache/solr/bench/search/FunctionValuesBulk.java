@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FloatDocValuesField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.queries.function.FunctionValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.valuesource.ConstValueSource;
+import org.apache.lucene.queries.function.valuesource.FloatFieldSource;
+import org.apache.lucene.queries.function.valuesource.LongFieldSource;
+import org.apache.lucene.queries.function.valuesource.SimpleFloatFunction;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.solr.search.function.BulkValueSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares computing a function of every document of an index one document at a time with {@link
+ * FunctionValues#floatVal(int)} to computing it for blocks of documents with {@link
+ * BulkValueSource}, as facet stats like <code>sum(...)</code> do.
+ */
+@Fork(value = 1)
+@Warmup(time = 1, iterations = 5)
+@Measurement(time = 1, iterations = 5)
+@Threads(value = 1)
+public class FunctionValuesBulk {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /**
+     * The function: "recip" is the date boost <code>recip(ms(NOW,date),3.16e-11,1,1)</code>, and
+     * "arithmetic" is <code>sum(product(popularity,2),linear(price,0.5,1),div(price,popularity))
+     * </code>
+     */
+    @Param({"recip", "arithmetic"})
+    String function;
+
+    @Param("1000000")
+    int numDocs;
+
+    @Param("256")
+    int blockSize;
+
+    Directory directory;
+    DirectoryReader reader;
+    ValueSource valueSource;
+    int[] docs;
+    float[] values;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+      final SplittableRandom random = new SplittableRandom(42);
+      final long now = System.currentTimeMillis();
+      directory = new ByteBuffersDirectory();
+      try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+        for (int i = 0; i < numDocs; i++) {
+          final Document doc = new Document();
+          final long age = random.nextLong(365L * 24 * 3600 * 1000);
+          doc.add(new NumericDocValuesField("date", now - age));
+          doc.add(new FloatDocValuesField("price", (float) random.nextDouble(1000)));
+          doc.add(new FloatDocValuesField("popularity", 1 + random.nextInt(10)));
+          writer.addDocument(doc);
+        }
+        writer.forceMerge(1);
+      }
+      reader = DirectoryReader.open(directory);
+
+      final ValueSource price = new FloatFieldSource("price");
+      final ValueSource popularity = new FloatFieldSource("popularity");
+      switch (function) {
+        case "recip" -> {
+          // ms(NOW,date), which has no bulk values
+          final ValueSource age =
+              new SimpleFloatFunction(new LongFieldSource("date")) {
+                @Override
+                protected String name() {
+                  return "ms";
+                }
+
+                @Override
+                protected float func(int doc, FunctionValues vals) throws IOException {
+                  return now - vals.longVal(doc);
+                }
+              };
+          valueSource = BulkValueSource.recip(age, 3.16e-11f, 1f, 1f);
+        }
+        case "arithmetic" ->
+            valueSource =
+                BulkValueSource.sum(
+                    new ValueSource[] {
+                      BulkValueSource.product(
+                          new ValueSource[] {popularity, new ConstValueSource(2f)}),
+                      BulkValueSource.linear(price, 0.5f, 1f),
+                      BulkValueSource.div(price, popularity)
+                    });
+        default -> throw new IllegalArgumentException("Unknown function: " + function);
+      }
+      docs = new int[blockSize];
+      values = new float[blockSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void teardownTrial() throws IOException {
+      reader.close();
+      directory.close();
+    }
+  }
+
+  @Benchmark
+  public double perDocument(BenchState state) throws IOException {
+    final Map<Object, Object> context = new HashMap<>();
+    double sum = 0;
+    for (LeafReaderContext leaf : state.reader.leaves()) {
+      // the per document values of the wrapped function
+      final FunctionValues values = state.valueSource.getValues(context, leaf);
+      final int maxDoc = leaf.reader().maxDoc();
+      for (int doc = 0; doc < maxDoc; doc++) {
+        sum += values.floatVal(doc);
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double bulk(BenchState state) throws IOException {
+    final Map<Object, Object> context = new HashMap<>();
+    final int[] docs = state.docs;
+    final float[] values = state.values;
+    double sum = 0;
+    for (LeafReaderContext leaf : state.reader.leaves()) {
+      final BulkValueSource.BulkValues bulkValues =
+          BulkValueSource.getBulkValues(state.valueSource, context, leaf);
+      final int maxDoc = leaf.reader().maxDoc();
+      for (int start = 0; start < maxDoc; start += docs.length) {
+        final int count = Math.min(docs.length, maxDoc - start);
+        for (int i = 0; i < count; i++) {
+          docs[i] = start + i;
+        }
+        bulkValues.floatVals(docs, count, values);
+        for (int i = 0; i < count; i++) {
+          sum += values[i];
+        }
+      }
+    }
+    return sum;
+  }
+}
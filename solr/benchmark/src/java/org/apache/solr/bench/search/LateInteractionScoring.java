@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LateInteractionField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.DoubleValues;
+import org.apache.lucene.search.DoubleValuesSource;
+import org.apache.lucene.search.LateInteractionFloatValuesSource;
+import org.apache.lucene.search.LateInteractionFloatValuesSource.ScoreFunction;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.solr.search.function.LateInteractionMaxSimValuesSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the ColBERT style re-ranking of candidate documents with the multi-vectors of a {@link
+ * LateInteractionField} by {@link LateInteractionFloatValuesSource}, which decodes the multi-vector
+ * of each document, to {@link LateInteractionMaxSimValuesSource}, which scores the packed doc
+ * values, optionally only the first <code>maxDocTokens</code> token vectors of each document.
+ */
+@Fork(value = 1)
+@Warmup(time = 1, iterations = 5)
+@Measurement(time = 1, iterations = 5)
+@Threads(value = 1)
+public class LateInteractionScoring {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param("128")
+    int dimension;
+
+    /** The number of token vectors of the documents */
+    @Param("180")
+    int docTokens;
+
+    @Param("32")
+    int queryTokens;
+
+    @Param("100000")
+    int numDocs;
+
+    /** The number of candidate documents to re-rank */
+    @Param("500")
+    int numCandidates;
+
+    /** The number of token vectors of each document scored by the Solr values source */
+    @Param({"2147483647", "64"})
+    int maxDocTokens;
+
+    Path path;
+    Directory directory;
+    DirectoryReader reader;
+    DoubleValuesSource lucene;
+    DoubleValuesSource solr;
+    int[] candidates;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+      final SplittableRandom random = new SplittableRandom(42);
+      path = Files.createTempDirectory("lateInteraction");
+      directory = new MMapDirectory(path);
+      try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+        for (int i = 0; i < numDocs; i++) {
+          final Document doc = new Document();
+          doc.add(new LateInteractionField("vectors", randomMultiVector(random, docTokens)));
+          writer.addDocument(doc);
+        }
+        writer.forceMerge(1);
+      }
+      reader = DirectoryReader.open(directory);
+
+      final float[][] query = randomMultiVector(random, queryTokens);
+      lucene =
+          new LateInteractionFloatValuesSource(
+              "vectors", query, VectorSimilarityFunction.DOT_PRODUCT, ScoreFunction.SUM_MAX_SIM);
+      solr =
+          new LateInteractionMaxSimValuesSource(
+              "vectors", query, VectorSimilarityFunction.DOT_PRODUCT, maxDocTokens);
+      // increasing random candidates, like the top documents of a first pass query
+      candidates = random.ints(numCandidates, 0, numDocs).sorted().distinct().toArray();
+    }
+
+    private float[][] randomMultiVector(SplittableRandom random, int tokens) {
+      final float[][] vectors = new float[tokens][dimension];
+      for (float[] vector : vectors) {
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+          vector[i] = (float) (random.nextDouble() * 2 - 1);
+          norm += vector[i] * vector[i];
+        }
+        // dot_product requires unit vectors
+        final float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+          vector[i] *= scale;
+        }
+      }
+      return vectors;
+    }
+
+    @TearDown(Level.Trial)
+    public void teardownTrial() throws IOException {
+      IOUtils.close(reader, directory);
+      IOUtils.rm(path);
+    }
+  }
+
+  @Benchmark
+  public double lucene(BenchState state) throws IOException {
+    return rerank(state, state.lucene);
+  }
+
+  @Benchmark
+  public double solr(BenchState state) throws IOException {
+    return rerank(state, state.solr);
+  }
+
+  private static double rerank(BenchState state, DoubleValuesSource source) throws IOException {
+    // the index is force merged to a single segment
+    final LeafReaderContext leaf = state.reader.leaves().get(0);
+    final DoubleValues values = source.getValues(leaf, null);
+    double sum = 0;
+    for (int doc : state.candidates) {
+      if (values.advanceExact(doc)) {
+        sum += values.doubleValue();
+      }
+    }
+    return sum;
+  }
+}
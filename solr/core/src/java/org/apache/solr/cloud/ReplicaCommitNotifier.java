@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Set;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.EnvUtils;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.ReplicationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lets the TLOG and PULL replicas of a shard know that their leader has a new commit point, so
+ * that they fetch it right away instead of on their next scheduled poll (see {@link
+ * ReplicateFromLeader}). Notifications are fire-and-forget: a replica that misses one still picks
+ * the commit up when it next polls.
+ *
+ * <p>Disabled unless the {@value #ENABLED_PROP} system property is set to true.
+ */
+public class ReplicaCommitNotifier {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final String ENABLED_PROP = "solr.replication.notifyReplicasOnCommit";
+
+  private ReplicaCommitNotifier() {}
+
+  public static boolean isEnabled() {
+    return EnvUtils.getPropertyAsBool(ENABLED_PROP, false);
+  }
+
+  /**
+   * Sends a {@link ReplicationHandler#CMD_NOTIFY_COMMIT} request to the active TLOG and PULL
+   * replicas of {@code core}'s shard. Does nothing unless {@code core} is the shard leader.
+   */
+  public static void notifyReplicas(SolrCore core) {
+    CoreContainer cc = core.getCoreContainer();
+    ZkController zkController = cc.getZkController();
+    CloudDescriptor cloudDesc = core.getCoreDescriptor().getCloudDescriptor();
+    if (zkController == null || cloudDesc == null || !cloudDesc.isLeader()) {
+      return;
+    }
+    ClusterState clusterState = zkController.getClusterState();
+    DocCollection coll = clusterState.getCollectionOrNull(cloudDesc.getCollectionName());
+    Slice slice = coll == null ? null : coll.getSlice(cloudDesc.getShardId());
+    if (slice == null) {
+      return;
+    }
+    Set<String> liveNodes = clusterState.getLiveNodes();
+    for (Replica replica : slice.getReplicas()) {
+      // NRT replicas index on their own
+      if (replica.getType() == Replica.Type.NRT
+          || replica.getName().equals(cloudDesc.getCoreNodeName())
+          || !replica.isActive(liveNodes)) {
+        continue;
+      }
+      notifyReplica(cc, replica);
+    }
+  }
+
+  private static void notifyReplica(CoreContainer cc, Replica replica) {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(ReplicationHandler.COMMAND, ReplicationHandler.CMD_NOTIFY_COMMIT);
+    GenericSolrRequest request =
+        new GenericSolrRequest(
+            SolrRequest.METHOD.POST,
+            ReplicationHandler.PATH,
+            SolrRequest.SolrRequestType.ADMIN,
+            params);
+    // send as the node itself, so PKI auth works from the autoCommit thread too
+    boolean serverThread = ExecutorUtil.isSolrServerThread();
+    ExecutorUtil.setServerThreadFlag(true);
+    try {
+      cc.getDefaultHttpSolrClient()
+          .requestWithBaseUrl(
+              replica.getBaseUrl(), c -> c.requestAsync(request, replica.getCoreName()))
+          .whenComplete(
+              (rsp, t) -> {
+                if (t != null) {
+                  log.debug("Could not notify replica {} of the new commit", replica.getName(), t);
+                }
+              });
+    } catch (Exception e) {
+      log.debug("Could not notify replica {} of the new commit", replica.getName(), e);
+    } finally {
+      ExecutorUtil.setServerThreadFlag(serverThread ? Boolean.TRUE : null);
+    }
+  }
+}
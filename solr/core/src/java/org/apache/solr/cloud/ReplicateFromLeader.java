@@ -183,6 +183,16 @@ public class ReplicateFromLeader {
     return hour + ":" + min + ":" + sec;
   }
 
+  /**
+   * Polls the leader right away instead of at the next scheduled poll.
+   *
+   * @return false if replication is not running
+   */
+  public boolean pollNow() {
+    ReplicationHandler replicationProcess = this.replicationProcess;
+    return replicationProcess != null && replicationProcess.pollNow();
+  }
+
   public void stopReplication() {
     if (replicationProcess != null) {
       replicationProcess.shutdown();
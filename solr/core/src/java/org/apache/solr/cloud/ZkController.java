@@ -1604,6 +1604,17 @@ public class ZkController implements Closeable {
     }
   }
 
+  /**
+   * Makes the background replication from leader of the given core poll right away, e.g. because
+   * the leader announced a new commit.
+   *
+   * @return false if the core does not replicate from its leader
+   */
+  public boolean pollReplicationFromLeader(String coreName) {
+    ReplicateFromLeader replicateFromLeader = replicateFromLeaders.get(coreName);
+    return replicateFromLeader != null && replicateFromLeader.pollNow();
+  }
+
   // timeoutms is the timeout for the first call to get the leader - there is then
   // a longer wait to make sure that leader matches our local state
   private String getLeader(final CloudDescriptor cloudDesc, int timeoutms) {
@@ -306,6 +306,9 @@ public class SolrConfig implements MapSerializable {
               this, get("query").get("featureVectorCache"), "query/featureVectorCache");
       documentCacheConfig =
           CacheConfig.getConfig(this, get("query").get("documentCache"), "query/documentCache");
+      segmentDocumentCacheConfig =
+          CacheConfig.getConfig(
+              this, get("query").get("segmentDocumentCache"), "query/segmentDocumentCache");
       CacheConfig conf =
           CacheConfig.getConfig(this, get("query").get("fieldValueCache"), "query/fieldValueCache");
       if (conf == null) {
@@ -656,6 +659,7 @@ public class SolrConfig implements MapSerializable {
   public final CacheConfig filterCacheConfig;
   public final CacheConfig queryResultCacheConfig;
   public final CacheConfig documentCacheConfig;
+  public final CacheConfig segmentDocumentCacheConfig;
   public final CacheConfig fieldValueCacheConfig;
   public final CacheConfig featureVectorCacheConfig;
   public final Map<String, CacheConfig> userCacheConfigs;
@@ -998,6 +1002,7 @@ public class SolrConfig implements MapSerializable {
         filterCacheConfig,
         queryResultCacheConfig,
         documentCacheConfig,
+        segmentDocumentCacheConfig,
         fieldValueCacheConfig,
         featureVectorCacheConfig);
     m = new LinkedHashMap<>();
@@ -96,6 +96,7 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.CommonParams.EchoParamStyle;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.EnvUtils;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.NamedList;
@@ -137,10 +138,14 @@ import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.ManagedIndexSchema;
 import org.apache.solr.schema.SimilarityFactory;
+import org.apache.solr.search.CaffeineCache;
 import org.apache.solr.search.QParserPlugin;
+import org.apache.solr.search.SegmentDocumentCache;
+import org.apache.solr.search.SolrCache;
 import org.apache.solr.search.SolrFieldCacheBean;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.ValueSourceParser;
+import org.apache.solr.search.join.JoinKeyFilter;
 import org.apache.solr.search.stats.LocalStatsCache;
 import org.apache.solr.search.stats.StatsCache;
 import org.apache.solr.update.DefaultSolrCoreState;
@@ -187,6 +192,14 @@ public class SolrCore implements SolrInfoBean, Closeable {
 
   public static final String version = "1.0";
 
+  /**
+   * If true, cores loaded while the node starts up open their first searcher in the background
+   * rather than in the constructor, so that many cores become available sooner. A request that
+   * needs a searcher before it is ready opens one on demand.
+   */
+  public static final String OPEN_SEARCHER_IN_BACKGROUND_PROP =
+      "solr.core.openSearcherInBackgroundOnStartup";
+
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final Logger requestLog =
       LoggerFactory.getLogger(
@@ -241,6 +254,16 @@ public class SolrCore implements SolrInfoBean, Closeable {
 
   private final CircuitBreakerRegistry circuitBreakerRegistry;
 
+  private final SegmentDocumentCache segmentDocumentCache;
+
+  /** Maximum memory used by the cached join key filters of a core, in MB. */
+  public static final String JOIN_KEY_FILTER_CACHE_MAX_RAM_MB_PROP =
+      "solr.join.keyFilterCacheMaxRamMB";
+
+  private final JoinKeyFilter.SegmentCache joinKeyFilterCache =
+      new JoinKeyFilter.SegmentCache(
+          EnvUtils.getPropertyAsLong(JOIN_KEY_FILTER_CACHE_MAX_RAM_MB_PROP, 64L) * 1024 * 1024);
+
   private final List<Runnable> confListeners = new CopyOnWriteArrayList<>();
 
   private final ReentrantLock ruleExpiryLock;
@@ -249,6 +272,8 @@ public class SolrCore implements SolrInfoBean, Closeable {
 
   private volatile boolean newSearcherReady = false;
 
+  private volatile boolean firstSearcherOpenedInBackground = false;
+
   private Attributes coreAttributes;
   private AttributedLongCounter newSearcherCounter;
   private AttributedLongCounter newSearcherMaxReachedCounter;
@@ -1123,6 +1148,9 @@ public class SolrCore implements SolrInfoBean, Closeable {
       // initialize core metrics
       initializeMetrics(solrMetricsContext, coreAttributes);
 
+      // unlike the searcher caches, this one lives as long as the core
+      this.segmentDocumentCache = initSegmentDocumentCache();
+
       // init pluggable circuit breakers, after metrics because some circuit breakers use metrics
       initPlugins(null, CircuitBreaker.class);
 
@@ -1174,18 +1202,30 @@ public class SolrCore implements SolrInfoBean, Closeable {
         jerseyAppHandler = null;
       }
 
+      final boolean openSearcherInBackground =
+          prev == null
+              && !coreContainer.isStatusLoadComplete()
+              && EnvUtils.getPropertyAsBool(OPEN_SEARCHER_IN_BACKGROUND_PROP, false);
+
       // cause the executor to stall so firstSearcher events won't fire
       // until after inform() has been called for all components.
       // searchExecutor must be single-threaded for this to work
       searcherExecutor.submit(
           () -> {
             latch.await();
+            if (openSearcherInBackground && !isClosed()) {
+              // only now is the core fully constructed. Not on the searcherExecutor itself:
+              // registering the searcher is queued there.
+              runAsync(this::openFirstSearcher);
+            }
             return null;
           });
 
       this.updateHandler = initUpdateHandler(updateHandler);
 
-      initSearcher(prev);
+      if (!openSearcherInBackground) {
+        initSearcher(prev);
+      }
 
       // Initialize the RestManager
       restManager = initRestManager();
@@ -1291,6 +1331,22 @@ public class SolrCore implements SolrInfoBean, Closeable {
     }
   }
 
+  private void openFirstSearcher() {
+    firstSearcherOpenedInBackground = true;
+    try {
+      getSearcher(false, false, null, true);
+    } catch (Exception e) {
+      if (!isClosed()) {
+        log.error("Failed to open the first searcher in the background", e);
+      }
+    }
+  }
+
+  /** Whether this core opened its first searcher in the background; for tests. */
+  boolean isFirstSearcherOpenedInBackground() {
+    return firstSearcherOpenedInBackground;
+  }
+
   private UpdateHandler initUpdateHandler(UpdateHandler updateHandler) {
     String updateHandlerClass = solrConfig.getUpdateHandlerInfo().className;
     if (updateHandlerClass == null) {
@@ -1752,6 +1808,40 @@ public class SolrCore implements SolrInfoBean, Closeable {
     return circuitBreakerRegistry;
   }
 
+  /**
+   * Returns the core-wide, segment keyed document cache, or null if none is configured.
+   *
+   * @see SegmentDocumentCache
+   */
+  public SegmentDocumentCache getSegmentDocumentCache() {
+    return segmentDocumentCache;
+  }
+
+  /**
+   * Returns the segment filters used by joins with {@code prefilter=true}, shared by the searchers
+   * of this core.
+   *
+   * @see JoinKeyFilter
+   */
+  public JoinKeyFilter.SegmentCache getJoinKeyFilterCache() {
+    return joinKeyFilterCache;
+  }
+
+  private SegmentDocumentCache initSegmentDocumentCache() {
+    SegmentDocumentCache segmentDocumentCache = SegmentDocumentCache.create(solrConfig);
+    if (segmentDocumentCache != null) {
+      SolrCache<?, ?> cache = segmentDocumentCache.getCache();
+      infoRegistry.put(cache.name(), cache);
+      if (cache instanceof CaffeineCache<?, ?> caffeineCache) {
+        caffeineCache.initializeMetrics(
+            solrMetricsContext,
+            coreAttributes.toBuilder().put(NAME_ATTR, cache.name()).build(),
+            "solr_core_segment_document_cache");
+      }
+    }
+    return segmentDocumentCache;
+  }
+
   // this core current usage count
   private final AtomicInteger refCount = new AtomicInteger(1);
 
@@ -1818,6 +1908,17 @@ public class SolrCore implements SolrInfoBean, Closeable {
       }
     }
 
+    if (segmentDocumentCache != null) {
+      try {
+        segmentDocumentCache.close();
+      } catch (Throwable e) {
+        log.error("Exception closing segmentDocumentCache", e);
+        if (e instanceof Error) {
+          throw (Error) e;
+        }
+      }
+    }
+
     // stop reporting metrics
     try {
       coreMetricManager.close();
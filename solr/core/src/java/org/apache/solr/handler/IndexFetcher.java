@@ -26,6 +26,7 @@ import static org.apache.solr.handler.ReplicationHandler.CMD_INDEX_VERSION;
 import static org.apache.solr.handler.ReplicationHandler.COMMAND;
 import static org.apache.solr.handler.ReplicationHandler.CONF_FILES;
 import static org.apache.solr.handler.ReplicationHandler.FETCH_FROM_LEADER;
+import static org.apache.solr.handler.ReplicationHandler.FETCH_THREADS;
 import static org.apache.solr.handler.ReplicationHandler.LEADER_URL;
 import static org.apache.solr.handler.ReplicationHandler.SIZE;
 import static org.apache.solr.handler.ReplicationHandler.SKIP_COMMIT_ON_LEADER_VERSION_ZERO;
@@ -66,13 +67,16 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.zip.Adler32;
 import java.util.zip.Checksum;
@@ -104,6 +108,7 @@ import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.EnvUtils;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.IOUtils;
@@ -141,6 +146,9 @@ public class IndexFetcher {
 
   public static final String INDEX_PROPERTIES = "index.properties";
 
+  /** Default for the number of index files fetched concurrently, if not configured. */
+  public static final String FETCH_THREADS_PROP = "solr.replication.fetchThreads";
+
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private String leaderCoreUrl;
@@ -163,12 +171,20 @@ public class IndexFetcher {
 
   private volatile List<Map<String, Object>> confFilesDownloaded;
 
+  /** The conf file being downloaded; index files are tracked in {@link #activeFileFetchers}. */
   private volatile Map<String, Object> currentFile;
 
-  private volatile DirectoryFileFetcher dirFileFetcher;
-
   private volatile LocalFsFileFetcher localFileFetcher;
 
+  /**
+   * The index file fetchers currently downloading, with the details of their file; more than one if
+   * fetchThreads &gt; 1.
+   */
+  private final Map<DirectoryFileFetcher, Map<String, Object>> activeFileFetchers =
+      new ConcurrentHashMap<>();
+
+  private final int fetchThreads;
+
   private volatile ExecutorService fsyncService;
 
   private volatile boolean stop = false;
@@ -287,6 +303,7 @@ public class IndexFetcher {
     useInternalCompression = ReplicationHandler.INTERNAL.equals(compress);
     useExternalCompression = ReplicationHandler.EXTERNAL.equals(compress);
     soTimeout = getParameter(initArgs, SolrHttpConstants.PROP_SO_TIMEOUT, 120000, null);
+    this.fetchThreads = parseFetchThreads(initArgs.get(FETCH_THREADS));
 
     String httpBasicAuthUser = (String) initArgs.get(SolrHttpConstants.PROP_BASIC_AUTH_USER);
     String httpBasicAuthPassword = (String) initArgs.get(SolrHttpConstants.PROP_BASIC_AUTH_PASS);
@@ -329,6 +346,29 @@ public class IndexFetcher {
     }
   }
 
+  static int parseFetchThreads(Object configured) {
+    String value =
+        configured != null ? configured.toString() : EnvUtils.getProperty(FETCH_THREADS_PROP, "1");
+    int fetchThreads;
+    try {
+      fetchThreads = Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      fetchThreads = 0;
+    }
+    if (fetchThreads < 1) {
+      throw new SolrException(
+          ErrorCode.SERVER_ERROR,
+          "Invalid "
+              + FETCH_THREADS
+              + " (or "
+              + FETCH_THREADS_PROP
+              + "): "
+              + value
+              + ", it must be a positive integer");
+    }
+    return fetchThreads;
+  }
+
   protected <T> T getParameter(
       NamedList<?> initArgs, String configKey, T defaultValue, StringBuilder sb) {
     T toReturn = defaultValue;
@@ -572,7 +612,11 @@ public class IndexFetcher {
 
       // Create the sync service
       fsyncService =
-          ExecutorUtil.newMDCAwareSingleThreadExecutor(new SolrNamedThreadFactory("fsyncService"));
+          fetchThreads > 1
+              ? ExecutorUtil.newMDCAwareFixedThreadPool(
+                  fetchThreads, new SolrNamedThreadFactory("fsyncService"))
+              : ExecutorUtil.newMDCAwareSingleThreadExecutor(
+                  new SolrNamedThreadFactory("fsyncService"));
       // use a synchronized list because the list is read by other threads (to show details)
       filesDownloaded = Collections.synchronizedList(new ArrayList<Map<String, Object>>());
       // if the generation of leader is older than that of the follower, it means they are not
@@ -820,7 +864,6 @@ public class IndexFetcher {
 
       filesToDownload = filesDownloaded = confFilesDownloaded = confFilesToDownload = null;
       markReplicationStop();
-      dirFileFetcher = null;
       localFileFetcher = null;
       if (fsyncService != null && !ExecutorUtil.isShutdown(fsyncService)) fsyncService.shutdown();
       fsyncService = null;
@@ -981,16 +1024,18 @@ public class IndexFetcher {
       bytesDownloaded += (Long) file.get(SIZE);
     }
 
-    // get size from current file being downloaded
-    Map<String, Object> currentFile = getCurrentFile();
-    if (currentFile != null) {
-      if (currentFile.containsKey("bytesDownloaded")) {
-        bytesDownloaded += (Long) currentFile.get("bytesDownloaded");
-      }
+    // get size from the files being downloaded
+    for (DirectoryFileFetcher fetcher : activeFileFetchers.keySet()) {
+      bytesDownloaded += fetcher.getBytesDownloaded();
     }
     return bytesDownloaded;
   }
 
+  /** Number of index files being downloaded right now. */
+  int getActiveFileDownloads() {
+    return activeFileFetchers.size();
+  }
+
   private StringBuilder readToStringBuilder(long replicationTime, String str) {
     StringBuilder sb = new StringBuilder();
     List<String> l = new ArrayList<>();
@@ -1145,51 +1190,84 @@ public class IndexFetcher {
       deleteFilesInAdvance(indexDir, indexDirPath, totalSpaceRequired, usableSpace);
     }
 
-    for (Map<String, Object> file : filesToDownload) {
-      String filename = (String) file.get(NAME);
-      long size = (Long) file.get(SIZE);
-      CompareResult compareResult =
-          compareFile(indexDir, filename, size, (Long) file.get(CHECKSUM));
-      boolean alwaysDownload = filesToAlwaysDownloadIfNoChecksums(filename, size, compareResult);
-      if (log.isDebugEnabled()) {
-        log.debug(
-            "Downloading file={} size={} checksum={} alwaysDownload={}",
-            filename,
-            size,
-            file.get(CHECKSUM),
-            alwaysDownload);
-      }
-      if (!compareResult.equal || downloadCompleteIndex || alwaysDownload) {
-        Path localFile = Path.of(indexDirPath, filename);
-        if (downloadCompleteIndex
-            && doDifferentialCopy
-            && compareResult.equal
-            && compareResult.checkSummed
-            && Files.exists(localFile)) {
-          if (log.isInfoEnabled()) {
-            log.info(
-                "Don't need to download this file. Local file's path is: {}, checksum is: {}",
-                localFile.toAbsolutePath(),
-                file.get(CHECKSUM));
+    // with fetchThreads > 1 the files are downloaded concurrently, each over its own stream
+    ExecutorService downloadExecutor =
+        fetchThreads > 1
+            ? ExecutorUtil.newMDCAwareFixedThreadPool(
+                fetchThreads, new SolrNamedThreadFactory("indexFetcher"))
+            : null;
+    List<Future<Long>> downloads = new ArrayList<>();
+    AtomicReference<Exception> downloadFailure = new AtomicReference<>();
+    try {
+      for (Map<String, Object> file : filesToDownload) {
+        String filename = (String) file.get(NAME);
+        long size = (Long) file.get(SIZE);
+        CompareResult compareResult =
+            compareFile(indexDir, filename, size, (Long) file.get(CHECKSUM));
+        boolean alwaysDownload = filesToAlwaysDownloadIfNoChecksums(filename, size, compareResult);
+        if (log.isDebugEnabled()) {
+          log.debug(
+              "Downloading file={} size={} checksum={} alwaysDownload={}",
+              filename,
+              size,
+              file.get(CHECKSUM),
+              alwaysDownload);
+        }
+        if (!compareResult.equal || downloadCompleteIndex || alwaysDownload) {
+          Path localFile = Path.of(indexDirPath, filename);
+          if (downloadCompleteIndex
+              && doDifferentialCopy
+              && compareResult.equal
+              && compareResult.checkSummed
+              && Files.exists(localFile)) {
+            if (log.isInfoEnabled()) {
+              log.info(
+                  "Don't need to download this file. Local file's path is: {}, checksum is: {}",
+                  localFile.toAbsolutePath(),
+                  file.get(CHECKSUM));
+            }
+            // A hard link here should survive the eventual directory move, and should be more space
+            // efficient as compared to a file copy. TODO: Maybe we could do a move safely here?
+            Files.createLink(Path.of(tmpIndexDirPath, filename), localFile);
+            bytesSkippedCopying += Files.size(localFile);
+            filesDownloaded.add(new HashMap<>(file));
+          } else if (downloadExecutor == null) {
+            bytesDownloaded += fetchIndexFile(tmpIndexDir, file, latestGeneration);
+          } else {
+            downloads.add(
+                downloadExecutor.submit(
+                    () -> {
+                      try {
+                        return fetchIndexFile(tmpIndexDir, file, latestGeneration);
+                      } catch (Exception e) {
+                        if (downloadFailure.compareAndSet(null, e)) {
+                          // make the other downloads give up at their next packet
+                          stop = true;
+                        }
+                        throw e;
+                      }
+                    }));
           }
-          // A hard link here should survive the eventual directory move, and should be more space
-          // efficient as compared to a file copy. TODO: Maybe we could do a move safely here?
-          Files.createLink(Path.of(tmpIndexDirPath, filename), localFile);
-          bytesSkippedCopying += Files.size(localFile);
         } else {
-          dirFileFetcher =
-              new DirectoryFileFetcher(
-                  tmpIndexDir, file, (String) file.get(NAME), FILE, latestGeneration);
-          currentFile = file;
-          dirFileFetcher.fetchFile();
-          bytesDownloaded += dirFileFetcher.getBytesDownloaded();
+          if (log.isDebugEnabled()) {
+            log.debug("Skipping download for {} because it already exists", file.get(NAME));
+          }
         }
-        filesDownloaded.add(new HashMap<>(file));
-      } else {
-        if (log.isDebugEnabled()) {
-          log.debug("Skipping download for {} because it already exists", file.get(NAME));
+      }
+      for (Future<Long> download : downloads) {
+        try {
+          bytesDownloaded += download.get();
+        } catch (ExecutionException e) {
+          // rethrown below, once every download has stopped
         }
       }
+      if (downloadFailure.get() != null) {
+        throw downloadFailure.get();
+      }
+    } finally {
+      if (downloadExecutor != null) {
+        ExecutorUtil.shutdownAndAwaitTermination(downloadExecutor);
+      }
     }
     log.info(
         "Bytes downloaded: {}, Bytes skipped downloading: {}",
@@ -1198,9 +1276,26 @@ public class IndexFetcher {
     return bytesDownloaded;
   }
 
+  private long fetchIndexFile(
+      Directory tmpIndexDir, Map<String, Object> file, long latestGeneration) throws Exception {
+    DirectoryFileFetcher fetcher =
+        new DirectoryFileFetcher(
+            tmpIndexDir, file, (String) file.get(NAME), FILE, latestGeneration);
+    activeFileFetchers.put(fetcher, file);
+    try {
+      assert testFetchIndexFile.test((String) file.get(NAME));
+      fetcher.fetchFile();
+    } finally {
+      activeFileFetchers.remove(fetcher);
+    }
+    filesDownloaded.add(new HashMap<>(file));
+    return fetcher.getBytesDownloaded();
+  }
+
   // only for testing purposes. do not use this anywhere else
   // -----------START----------------------
   static BooleanSupplier testWait = () -> true;
+  static Predicate<String> testFetchIndexFile = fileName -> true;
   static Function<String, Long> usableDiskSpaceProvider = dir -> getUsableSpace(dir);
 
   // ------------ END---------------------
@@ -1621,14 +1716,29 @@ public class IndexFetcher {
     return tmp == null ? Collections.emptyList() : new ArrayList<>(tmp);
   }
 
-  // TODO: currently does not reflect conf files
+  /**
+   * The index files being downloaded right now, each with its {@code bytesDownloaded} so far. More
+   * than one if fetchThreads &gt; 1.
+   */
+  List<Map<String, Object>> getCurrentFiles() {
+    List<Map<String, Object>> currentFiles = new ArrayList<>();
+    for (Map.Entry<DirectoryFileFetcher, Map<String, Object>> entry :
+        activeFileFetchers.entrySet()) {
+      Map<String, Object> file = new HashMap<>(entry.getValue());
+      file.put("bytesDownloaded", entry.getKey().getBytesDownloaded());
+      currentFiles.add(file);
+    }
+    return currentFiles;
+  }
+
+  // TODO: currently does not reflect the progress of conf files
   Map<String, Object> getCurrentFile() {
+    List<Map<String, Object>> currentFiles = getCurrentFiles();
+    if (!currentFiles.isEmpty()) {
+      return currentFiles.get(0);
+    }
     Map<String, Object> tmp = currentFile;
-    DirectoryFileFetcher tmpFileFetcher = dirFileFetcher;
-    if (tmp == null) return null;
-    tmp = new HashMap<>(tmp);
-    if (tmpFileFetcher != null) tmp.put("bytesDownloaded", tmpFileFetcher.getBytesDownloaded());
-    return tmp;
+    return tmp == null ? null : new HashMap<>(tmp);
   }
 
   private static class ReplicationHandlerException extends InterruptedException {
@@ -1748,7 +1858,7 @@ public class IndexFetcher {
             return 0;
           }
           if (stop) {
-            stop = false;
+            // stop is reset once the whole fetch is over, so that concurrent downloads see it too
             aborted = true;
             throw new ReplicationHandlerException("User aborted replication");
           }
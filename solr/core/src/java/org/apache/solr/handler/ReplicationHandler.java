@@ -56,6 +56,7 @@ import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -76,6 +77,8 @@ import org.apache.solr.api.JerseyResource;
 import org.apache.solr.client.api.model.FileMetaData;
 import org.apache.solr.client.api.model.IndexVersionResponse;
 import org.apache.solr.client.api.model.SolrJerseyResponse;
+import org.apache.solr.cloud.ReplicaCommitNotifier;
+import org.apache.solr.cloud.ZkController;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.params.CoreAdminParams;
@@ -228,6 +231,10 @@ public class ReplicationHandler extends RequestHandlerBase
 
   private volatile ScheduledExecutorService executorService;
 
+  private volatile Runnable pollTask;
+
+  private final AtomicBoolean pollNowPending = new AtomicBoolean();
+
   private volatile long executorStartTime;
 
   private final Map<String, FileInfo> confFileInfoCache = new HashMap<>();
@@ -294,6 +301,13 @@ public class ReplicationHandler extends RequestHandlerBase
       deleteSnapshot(new ModifiableSolrParams(solrParams), rsp);
     } else if (command.equalsIgnoreCase(CMD_FETCH_INDEX)) {
       fetchIndex(solrParams, rsp);
+    } else if (command.equalsIgnoreCase(CMD_NOTIFY_COMMIT)) {
+      ZkController zkController = core.getCoreContainer().getZkController();
+      if (zkController != null && zkController.pollReplicationFromLeader(core.getName())) {
+        rsp.add(STATUS, OK_STATUS);
+      } else {
+        reportErrorOnResponse(rsp, "Core does not replicate from a leader", null);
+      }
     } else if (command.equalsIgnoreCase(CMD_DISABLE_POLL)) {
       disablePoll(rsp);
     } else if (command.equalsIgnoreCase(CMD_ENABLE_POLL)) {
@@ -904,6 +918,11 @@ public class ReplicationHandler extends RequestHandlerBase
         solrMetricsContext.longGaugeMeasurement(
             "solr_core_replication_download_speed", "Download speed in bytes per second");
 
+    ObservableLongMeasurement activeDownloadsMetric =
+        solrMetricsContext.longGaugeMeasurement(
+            "solr_core_replication_active_downloads",
+            "Number of index files being downloaded concurrently");
+
     metricsCallback =
         solrMetricsContext.batchCallback(
             () -> {
@@ -927,6 +946,8 @@ public class ReplicationHandler extends RequestHandlerBase
               if (fetcher != null) {
                 isPollingDisabledMetric.record(isPollingDisabled() ? 1 : 0, replicationAttributes);
                 isReplicatingMetric.record(isReplicating() ? 1 : 0, replicationAttributes);
+                activeDownloadsMetric.record(
+                    fetcher.getActiveFileDownloads(), replicationAttributes);
 
                 long elapsed = fetcher.getReplicationTimeElapsed();
                 long val = fetcher.getTotalBytesDownloaded();
@@ -947,7 +968,8 @@ public class ReplicationHandler extends RequestHandlerBase
             isReplicatingMetric,
             timeElapsedMetric,
             bytesDownloadedMetric,
-            downloadSpeedMetric);
+            downloadSpeedMetric,
+            activeDownloadsMetric);
   }
 
   @Override
@@ -1048,6 +1070,13 @@ public class ReplicationHandler extends RequestHandlerBase
             bytesDownloaded += (Long) file.get(SIZE);
           }
 
+          // add the partial bytes of every index file in flight
+          List<String> currentFiles = new ArrayList<>();
+          for (Map<String, Object> file : fetcher.getCurrentFiles()) {
+            currentFiles.add((String) file.get(NAME));
+            bytesDownloaded += (Long) file.get("bytesDownloaded");
+          }
+
           Map<String, Object> currentFile = fetcher.getCurrentFile();
           String currFile = null;
           long currFileSize = 0, currFileSizeDownloaded = 0;
@@ -1057,7 +1086,6 @@ public class ReplicationHandler extends RequestHandlerBase
             currFileSize = (Long) currentFile.get(SIZE);
             if (currentFile.containsKey("bytesDownloaded")) {
               currFileSizeDownloaded = (Long) currentFile.get("bytesDownloaded");
-              bytesDownloaded += currFileSizeDownloaded;
               if (currFileSize > 0)
                 percentDownloaded = (float) (currFileSizeDownloaded * 100) / currFileSize;
             }
@@ -1082,6 +1110,7 @@ public class ReplicationHandler extends RequestHandlerBase
           if (bytesToDownload > 0) totalPercent = (float) (bytesDownloaded * 100) / bytesToDownload;
           if (elapsed > 0) downloadSpeed = (bytesDownloaded / elapsed);
           if (currFile != null) follower.add("currentFile", currFile);
+          if (currentFiles.size() > 1) follower.add("currentFiles", currentFiles);
           follower.add("currentFileSize", NumberUtils.readableSize(currFileSize));
           follower.add(
               "currentFileSizeDownloaded", NumberUtils.readableSize(currFileSizeDownloaded));
@@ -1247,6 +1276,7 @@ public class ReplicationHandler extends RequestHandlerBase
             ExecutorUtil.setServerThreadFlag(null);
           }
         };
+    pollTask = task;
     executorService =
         Executors.newSingleThreadScheduledExecutor(new SolrNamedThreadFactory("indexFetcher"));
     // Randomize initial delay, with a minimum of 1ms
@@ -1260,6 +1290,33 @@ public class ReplicationHandler extends RequestHandlerBase
         TimeUnit.MILLISECONDS.convert(pollIntervalNs, TimeUnit.NANOSECONDS));
   }
 
+  /**
+   * Runs a follower poll right away on the polling thread, rather than waiting for the next
+   * scheduled one. Calls made while such a poll is still queued are coalesced into it.
+   *
+   * @return false if this handler does not poll
+   */
+  public boolean pollNow() {
+    ScheduledExecutorService executor = executorService;
+    Runnable task = pollTask;
+    if (executor == null || task == null || executor.isShutdown()) {
+      return false;
+    }
+    if (pollNowPending.compareAndSet(false, true)) {
+      try {
+        executor.execute(
+            () -> {
+              pollNowPending.set(false);
+              task.run();
+            });
+      } catch (RejectedExecutionException e) {
+        pollNowPending.set(false);
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   @SuppressWarnings({"resource"})
   public void inform(SolrCore core) {
@@ -1487,6 +1544,14 @@ public class ReplicationHandler extends RequestHandlerBase
         if (getCommit) {
           // IndexCommit oldCommitPoint = indexCommitPoint;
           indexCommitPoint = currentCommitPoint;
+          if (ReplicaCommitNotifier.isEnabled()) {
+            // reading the cluster state and sending the requests must not hold up the commit
+            try {
+              core.runAsync(() -> ReplicaCommitNotifier.notifyReplicas(core));
+            } catch (RejectedExecutionException e) {
+              log.debug("Not notifying replicas of the new commit, the core is closing");
+            }
+          }
 
           // We don't need to save commit points for replication, the SolrDeletionPolicy
           // always saves the last commit point (and the last optimized commit point, if needed)
@@ -1560,6 +1625,9 @@ public class ReplicationHandler extends RequestHandlerBase
 
   public static final String FETCH_FROM_LEADER = "fetchFromLeader";
 
+  /** Number of index files a follower downloads concurrently. */
+  public static final String FETCH_THREADS = "fetchThreads";
+
   // In case of TLOG replica, if leaderVersion = zero, don't do commit
   // otherwise updates from current tlog won't be copied over properly to the new tlog,
   // leading to data loss.
@@ -1583,6 +1651,14 @@ public class ReplicationHandler extends RequestHandlerBase
 
   public static final String CMD_ABORT_FETCH = "abortfetch";
 
+  /**
+   * Sent by a SolrCloud shard leader after a commit, to make its TLOG and PULL replicas fetch the
+   * new commit point without waiting for their next poll.
+   *
+   * @see ReplicaCommitNotifier
+   */
+  public static final String CMD_NOTIFY_COMMIT = "notifycommit";
+
   public static final String CMD_GET_FILE_LIST = "filelist";
 
   public static final String CMD_GET_FILE = "filecontent";
@@ -393,6 +393,26 @@ public class SearchHandler extends RequestHandlerBase
     return false;
   }
 
+  /**
+   * Check the estimated cost of the prepared request against the {@link
+   * org.apache.solr.util.circuitbreaker.QueryCostCircuitBreaker}s, if any. Override this method in
+   * sub classes that do not want to check them.
+   *
+   * @return true if a query cost circuit breaker tripped, false otherwise.
+   */
+  protected boolean checkQueryCostCircuitBreakers(
+      SolrQueryRequest req, SolrQueryResponse rsp, ResponseBuilder rb) throws IOException {
+    if (isInternalShardRequest(req)) {
+      return false;
+    }
+    final CircuitBreakerRegistry circuitBreakerRegistry = req.getCore().getCircuitBreakerRegistry();
+    if (!circuitBreakerRegistry.isEnabled(SolrRequestType.QUERY)) {
+      return false;
+    }
+    return CircuitBreakerUtils.reportErrorIfBreakersTripped(
+        rsp, circuitBreakerRegistry.checkQueryCostTripped(rb));
+  }
+
   protected void processComponents(
       SolrQueryRequest req,
       SolrQueryResponse rsp,
@@ -407,6 +427,10 @@ public class SearchHandler extends RequestHandlerBase
 
     postPrepareComponents(rb);
 
+    if (checkQueryCostCircuitBreakers(req, rsp, rb)) {
+      return; // Query cost circuit breaker tripped, return immediately
+    }
+
     if (shardHandler == null) {
       processComponentsLocal(req, rsp, rb, timer, components);
     } else {
@@ -98,6 +98,8 @@ public class SuggestComponent extends SearchComponent
 
   private AutoCloseable toClose;
 
+  private AutoCloseable offHeapToClose;
+
   /** Container for various labels used in the responses generated by this component */
   private static class SuggesterResultLabels {
     static final String SUGGEST = "suggest";
@@ -398,6 +400,23 @@ public class SuggestComponent extends SearchComponent
               observableLongMeasurement.record(ramBytesUsed(), suggesterAttributes);
             },
             OtelUnit.BYTES);
+    this.offHeapToClose =
+        this.solrMetricsContext.observableLongGauge(
+            "solr_core_suggester_off_heap_size",
+            "Total size in bytes of the memory-mapped files read by suggesters",
+            (observableLongMeasurement) -> {
+              observableLongMeasurement.record(offHeapBytesUsed(), suggesterAttributes);
+            },
+            OtelUnit.BYTES);
+  }
+
+  /** Returns the total size of the memory-mapped files that suggesters read their lookups from. */
+  public long offHeapBytesUsed() {
+    long sizeInBytes = 0;
+    for (SolrSuggester suggester : suggesters.values()) {
+      sizeInBytes += suggester.offHeapBytesUsed();
+    }
+    return sizeInBytes;
   }
 
   @Override
@@ -521,6 +540,7 @@ public class SuggestComponent extends SearchComponent
   @Override
   public void close() throws IOException {
     IOUtils.closeQuietly(toClose);
+    IOUtils.closeQuietly(offHeapToClose);
     super.close();
   }
 
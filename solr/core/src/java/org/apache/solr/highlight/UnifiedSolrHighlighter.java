@@ -18,18 +18,24 @@ package org.apache.solr.highlight;
 
 import java.io.IOException;
 import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TaskExecutor;
 import org.apache.lucene.search.uhighlight.CustomSeparatorBreakIterator;
 import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
 import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
@@ -44,7 +50,9 @@ import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.core.PluginInfo;
+import org.apache.solr.handler.component.ResponseBuilder;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.DocIterator;
@@ -127,8 +135,14 @@ import org.apache.solr.util.plugin.PluginInfoInitialized;
  *   <li>hl.offsetSource (string) specifies which offset source to use, prefers postings, but will
  *       use what's available if not specified
  *   <li>hl.weightMatches (bool) enables Lucene Weight Matches mode
+ *   <li>hl.parallel (bool) highlights the fields, and groups of documents, concurrently on the
+ *       searcher's executor, after loading the stored values of all the documents at once.
+ *       default is false
  * </ul>
  *
+ * <p>With debug timings enabled, the time spent highlighting each field is returned in the {@code
+ * highlightTiming} debug section.
+ *
  * @lucene.experimental
  */
 public class UnifiedSolrHighlighter extends SolrHighlighter implements PluginInfoInitialized {
@@ -160,13 +174,97 @@ public class UnifiedSolrHighlighter extends SolrHighlighter implements PluginInf
     }
 
     UnifiedHighlighter highlighter = getHighlighter(req);
-    Map<String, String[]> snippets =
-        fieldNames.length == 0
-            ? Collections.emptyMap()
-            : highlighter.highlightFields(fieldNames, query, docIDs, maxPassages);
+    SolrRequestInfo info = SolrRequestInfo.getRequestInfo();
+    ResponseBuilder rb = info == null ? null : info.getResponseBuilder();
+    boolean debugTimings = rb != null && rb.isDebugTimings();
+    boolean parallel = params.getBool(HighlightParams.PARALLEL, false);
+    Map<String, String[]> snippets;
+    if (fieldNames.length == 0) {
+      snippets = Collections.emptyMap();
+    } else if ((parallel || debugTimings)
+        && docIDs.length > 0
+        && highlighter instanceof SolrExtendedUnifiedHighlighter solrHighlighter) {
+      TaskExecutor executor =
+          parallel ? req.getSearcher().getTaskExecutor() : new TaskExecutor(Runnable::run);
+      long[] fieldNanos = new long[fieldNames.length];
+      snippets =
+          highlightFieldsSeparately(
+              solrHighlighter, executor, fieldNames, query, docIDs, maxPassages, fieldNanos);
+      if (debugTimings) {
+        NamedList<Object> timing = new SimpleOrderedMap<>();
+        for (int i = 0; i < fieldNames.length; i++) {
+          timing.add(fieldNames[i], fieldNanos[i] / 1_000_000.0);
+        }
+        rb.addDebugInfo("highlightTiming", timing);
+      }
+    } else {
+      snippets = highlighter.highlightFields(fieldNames, query, docIDs, maxPassages);
+    }
     return encodeSnippets(keys, fieldNames, snippets);
   }
 
+  /**
+   * Highlights each field, in groups of documents, as separate tasks of {@code executor}. The
+   * stored values of all the documents are loaded first, so that each document is only read once.
+   * The snippets are the same as those of {@link UnifiedHighlighter#highlightFields(String[],
+   * Query, int[], int[])}, whatever the order in which the tasks run.
+   *
+   * @param fieldNanos receives the time spent highlighting each field, summed over its tasks
+   */
+  protected Map<String, String[]> highlightFieldsSeparately(
+      SolrExtendedUnifiedHighlighter highlighter,
+      TaskExecutor executor,
+      String[] fieldNames,
+      Query query,
+      int[] docIDs,
+      int[] maxPassages,
+      long[] fieldNanos)
+      throws IOException {
+    highlighter.preloadFieldValues(fieldNames, docIDs);
+    // enough tasks to keep the processors busy, but no more, as each one analyzes the query
+    int numTasks = Math.max(Runtime.getRuntime().availableProcessors(), fieldNames.length);
+    int docsPerTask =
+        Math.max(1, (int) Math.ceil((double) docIDs.length * fieldNames.length / numTasks));
+
+    AtomicLongArray nanos = new AtomicLongArray(fieldNames.length);
+    List<Callable<String[]>> tasks = new ArrayList<>();
+    for (int i = 0; i < fieldNames.length; i++) {
+      final int fieldIndex = i;
+      final String[] field = new String[] {fieldNames[i]};
+      final int[] fieldMaxPassages = new int[] {maxPassages[i]};
+      for (int start = 0; start < docIDs.length; start += docsPerTask) {
+        final int[] docs =
+            Arrays.copyOfRange(docIDs, start, Math.min(docIDs.length, start + docsPerTask));
+        tasks.add(
+            () -> {
+              long startNanos = System.nanoTime();
+              try {
+                return highlighter
+                    .highlightFields(field, query, docs, fieldMaxPassages)
+                    .get(field[0]);
+              } finally {
+                nanos.addAndGet(fieldIndex, System.nanoTime() - startNanos);
+              }
+            });
+      }
+    }
+    List<String[]> results = executor.invokeAll(tasks);
+
+    // the results are in the order of the tasks
+    Map<String, String[]> snippets = new HashMap<>();
+    int task = 0;
+    for (int i = 0; i < fieldNames.length; i++) {
+      String[] fieldSnippets = new String[docIDs.length];
+      for (int start = 0; start < docIDs.length; start += docsPerTask) {
+        String[] taskSnippets = results.get(task++);
+        System.arraycopy(taskSnippets, 0, fieldSnippets, start, taskSnippets.length);
+      }
+      snippets.put(fieldNames[i], fieldSnippets);
+      fieldNanos[i] = nanos.get(i);
+    }
+    return snippets;
+  }
+
   /**
    * Creates an instance of the Lucene {@link UnifiedHighlighter}. Provided for subclass extension
    * so that a subclass can return a subclass of {@link SolrExtendedUnifiedHighlighter}.
@@ -246,6 +344,10 @@ public class UnifiedSolrHighlighter extends SolrHighlighter implements PluginInf
     protected final IndexSchema schema;
     protected final RTimerTree loadFieldValuesTimer;
 
+    // field values loaded up front by preloadFieldValues()
+    private Map<String, Integer> preloadedFields;
+    private Map<Integer, CharSequence[]> preloadedValues;
+
     public SolrExtendedUnifiedHighlighter(SolrQueryRequest req) {
       super(req.getSearcher(), req.getSchema().getIndexAnalyzer());
       this.solrIndexSearcher = req.getSearcher();
@@ -404,9 +506,65 @@ public class UnifiedSolrHighlighter extends SolrHighlighter implements PluginInf
       }
     }
 
+    /**
+     * Loads the values of {@code fields} of the given documents at once. Later calls to {@link
+     * #loadFieldValues(String[], DocIdSetIterator, int)} for these fields and documents are served
+     * from memory, and so may be made from several threads.
+     */
+    public void preloadFieldValues(String[] fields, int[] docIDs) throws IOException {
+      int[] sortedDocIDs = docIDs.clone();
+      Arrays.sort(sortedDocIDs);
+      // no threshold, to load all the documents in one go
+      List<CharSequence[]> values =
+          loadFieldValues(fields, new ArrayDocIdSetIterator(sortedDocIDs), Integer.MAX_VALUE);
+      Map<String, Integer> fieldIndexes = new HashMap<>();
+      for (int i = 0; i < fields.length; i++) {
+        fieldIndexes.put(fields[i], i);
+      }
+      Map<Integer, CharSequence[]> valuesByDoc = new HashMap<>();
+      for (int i = 0; i < values.size(); i++) {
+        valuesByDoc.put(sortedDocIDs[i], values.get(i));
+      }
+      preloadedFields = fieldIndexes;
+      preloadedValues = valuesByDoc;
+    }
+
+    private List<CharSequence[]> getPreloadedFieldValues(String[] fields, DocIdSetIterator docIter)
+        throws IOException {
+      int[] fieldIndexes = new int[fields.length];
+      for (int i = 0; i < fields.length; i++) {
+        Integer fieldIndex = preloadedFields.get(fields[i]);
+        if (fieldIndex == null) {
+          return null;
+        }
+        fieldIndexes[i] = fieldIndex;
+      }
+      List<CharSequence[]> docListOfFields = new ArrayList<>();
+      for (int doc = docIter.nextDoc();
+          doc != DocIdSetIterator.NO_MORE_DOCS;
+          doc = docIter.nextDoc()) {
+        CharSequence[] docValues = preloadedValues.get(doc);
+        if (docValues == null) {
+          throw new IllegalStateException("Field values of document " + doc + " weren't loaded");
+        }
+        CharSequence[] valuesByField = new CharSequence[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+          valuesByField[i] = docValues[fieldIndexes[i]];
+        }
+        docListOfFields.add(valuesByField);
+      }
+      return docListOfFields;
+    }
+
     @Override
     protected List<CharSequence[]> loadFieldValues(
         String[] fields, DocIdSetIterator docIter, int cacheCharsThreshold) throws IOException {
+      if (preloadedValues != null) {
+        List<CharSequence[]> values = getPreloadedFieldValues(fields, docIter);
+        if (values != null) {
+          return values;
+        }
+      }
       // Time loading field values.  It can be an expensive part of highlighting.
       loadFieldValuesTimer.resume();
       try {
@@ -460,4 +618,37 @@ public class UnifiedSolrHighlighter extends SolrHighlighter implements PluginInf
       return NOT_REQUIRED_FIELD_MATCH_PREDICATE;
     }
   }
+
+  /** Iterates over sorted doc ids. */
+  private static class ArrayDocIdSetIterator extends DocIdSetIterator {
+    private final int[] docIDs;
+    private int index = -1;
+    private int doc = -1;
+
+    ArrayDocIdSetIterator(int[] docIDs) {
+      this.docIDs = docIDs;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      index++;
+      doc = index < docIDs.length ? docIDs[index] : NO_MORE_DOCS;
+      return doc;
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      return slowAdvance(target);
+    }
+
+    @Override
+    public long cost() {
+      return docIDs.length;
+    }
+  }
 }
@@ -20,6 +20,7 @@ import static org.apache.solr.schema.FieldType.ExternalizeStoredValuesAsObjects;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +30,7 @@ import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.EnvUtils;
 import org.apache.solr.response.transform.DocTransformer;
 import org.apache.solr.schema.BinaryField;
 import org.apache.solr.schema.BoolField;
@@ -83,6 +85,19 @@ public class DocsStreamer implements Iterator<SolrDocument> {
 
   private final SolrReturnFields solrReturnFields;
 
+  /**
+   * Number of upcoming documents whose stored fields are fetched together, in index order, see
+   * {@link SolrDocumentFetcher#solrDocs(int[], SolrReturnFields)}. 1 disables batching.
+   */
+  private static final int PREFETCH_SIZE =
+      Math.max(1, EnvUtils.getPropertyAsInteger("solr.docsStreamer.prefetchSize", 64));
+
+  // runs ahead of docIterator to collect the ids of the next batch
+  private final DocIterator prefetchIterator;
+  private final int[] prefetchIds;
+  private SolrDocument[] prefetched;
+  private int prefetchedPos;
+
   private int idx = -1;
 
   public DocsStreamer(ResultContext rctx) {
@@ -90,6 +105,14 @@ public class DocsStreamer implements Iterator<SolrDocument> {
     this.docs = rctx.getDocList();
     transformer = rctx.getReturnFields().getTransformer();
     docIterator = this.docs.iterator();
+    int prefetchSize = Math.min(PREFETCH_SIZE, docs.size());
+    if (prefetchSize > 1) {
+      prefetchIterator = this.docs.iterator();
+      prefetchIds = new int[prefetchSize];
+    } else {
+      prefetchIterator = null;
+      prefetchIds = null;
+    }
     docFetcher = rctx.getDocFetcher();
     solrReturnFields = (SolrReturnFields) rctx.getReturnFields();
 
@@ -111,7 +134,8 @@ public class DocsStreamer implements Iterator<SolrDocument> {
   public SolrDocument next() {
     int id = docIterator.nextDoc();
     idx++;
-    SolrDocument sdoc = docFetcher.solrDoc(id, solrReturnFields);
+    SolrDocument sdoc =
+        prefetchIterator == null ? docFetcher.solrDoc(id, solrReturnFields) : nextPrefetched();
 
     if (transformer != null) {
       try {
@@ -124,6 +148,21 @@ public class DocsStreamer implements Iterator<SolrDocument> {
     return sdoc;
   }
 
+  private SolrDocument nextPrefetched() {
+    if (prefetched == null || prefetchedPos == prefetched.length) {
+      int n = 0;
+      while (n < prefetchIds.length && prefetchIterator.hasNext()) {
+        prefetchIds[n++] = prefetchIterator.nextDoc();
+      }
+      prefetched =
+          docFetcher.solrDocs(
+              n == prefetchIds.length ? prefetchIds : Arrays.copyOf(prefetchIds, n),
+              solrReturnFields);
+      prefetchedPos = 0;
+    }
+    return prefetched[prefetchedPos++];
+  }
+
   /**
    * This method is less efficient then the 3 arg version because it may convert some fields that
    * are not needed
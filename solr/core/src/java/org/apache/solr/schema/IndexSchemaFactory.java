@@ -21,6 +21,10 @@ import static org.apache.solr.schema.IndexSchema.SCHEMA;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
@@ -53,6 +57,8 @@ import org.xml.sax.SAXException;
 public abstract class IndexSchemaFactory implements NamedListInitializedPlugin {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  private static final String XINCLUDE_NAMESPACE = "http://www.w3.org/2001/XInclude";
+
   public static IndexSchema buildIndexSchema(String resourceName, SolrConfig config) {
     return buildIndexSchema(resourceName, config, null);
   }
@@ -126,10 +132,12 @@ public abstract class IndexSchemaFactory implements NamedListInitializedPlugin {
                 name,
                 loader,
                 () -> {
-                  if (!(configSetService instanceof ZkConfigSetService)) return null;
-                  return ((ZkConfigSetService) configSetService)
-                      .getSolrCloudManager()
-                      .getObjectCache();
+                  if (configSetService instanceof ZkConfigSetService zkConfigSetService) {
+                    return zkConfigSetService.getSolrCloudManager().getObjectCache();
+                  }
+                  return loader.getCoreContainer() == null
+                      ? null
+                      : loader.getCoreContainer().getObjectCache();
                 },
                 () -> loadConfig(schemaInputStream, loader, name))
             .data;
@@ -186,11 +194,55 @@ public abstract class IndexSchemaFactory implements NamedListInitializedPlugin {
         return confCache.computeIfAbsent(res.first(), k -> cfgLoader.get());
       }
     } else {
-      // it's a file system loader, no caching necessary
-      return cfgLoader.get();
+      // cores sharing a configset directory share its parsed config too
+      Path file = getConfigFile(loader, name);
+      ObjectCache objectCache = file == null ? null : objectCacheSupplier.get();
+      if (objectCache == null) return cfgLoader.get();
+      Map<String, FileConfig> confCache =
+          (Map<String, FileConfig>)
+              objectCache.computeIfAbsent(
+                  FileConfig.class.getName(), k -> new ConcurrentHashMap<>());
+      byte[] content;
+      try {
+        content = Files.readAllBytes(file);
+      } catch (IOException e) {
+        return cfgLoader.get();
+      }
+      // the content of XIncluded files is not part of the cache entry
+      if (usesXInclude(content)) return cfgLoader.get();
+      // compare the whole content rather than the mtime, whose granularity may be too coarse, or a
+      // hash, which may collide
+      return confCache.compute(
+              file.toString(),
+              (k, cached) ->
+                  cached != null && Arrays.equals(cached.content, content)
+                      ? cached
+                      : new FileConfig(content, cfgLoader.get()))
+          .config;
+    }
+  }
+
+  /** Whether the XML declares the XInclude namespace, which is needed to include other files. */
+  static boolean usesXInclude(byte[] content) {
+    return new String(content, StandardCharsets.UTF_8).contains(XINCLUDE_NAMESPACE);
+  }
+
+  /**
+   * Returns the file that {@link SolrResourceLoader#openResource(String)} reads {@code name} from,
+   * if it is in the loader's conf directory, otherwise null.
+   */
+  private static Path getConfigFile(SolrResourceLoader loader, String name) {
+    if (loader.getInstancePath() == null) return null;
+    Path instanceDir = loader.getInstancePath().normalize();
+    Path file = instanceDir.resolve("conf").resolve(name).normalize();
+    if (!file.startsWith(instanceDir) || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+      return null;
     }
+    return file;
   }
 
+  private record FileConfig(byte[] content, VersionedConfig config) {}
+
   public static ConfigNode getParsedSchema(InputStream is, SolrResourceLoader loader, String name)
       throws IOException, SAXException, ParserConfigurationException {
     XmlConfigFile schemaConf = null;
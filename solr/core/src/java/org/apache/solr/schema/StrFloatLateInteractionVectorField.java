@@ -42,6 +42,7 @@ import org.apache.solr.search.FunctionQParser;
 import org.apache.solr.search.QParser;
 import org.apache.solr.search.StrParser;
 import org.apache.solr.search.SyntaxError;
+import org.apache.solr.search.function.LateInteractionMaxSimValuesSource;
 import org.apache.solr.uninverting.UninvertingReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,6 +73,10 @@ public class StrFloatLateInteractionVectorField extends FieldType
   private static String MUST_BE_FALSE_MSG =
       " fields require these properties to be false: " + propertiesToString(MUST_BE_FALSE);
 
+  private static final String INVALID_ARGUMENTS_MSG =
+      "Invalid number of arguments. Please provide a field name, a (String) multi-vector,"
+          + " and optionally the maximum number of document tokens to score.";
+
   private int dimension;
   private VectorSimilarityFunction similarityFunction;
   private ScoreFunction scoreFunction;
@@ -139,16 +144,34 @@ public class StrFloatLateInteractionVectorField extends FieldType
   public DoubleValuesSource parseLateInteractionValuesSource(
       final String fieldName, final FunctionQParser fp) throws SyntaxError {
     final String vecStr = fp.parseArg();
-    if (null == vecStr || fp.hasMoreArguments()) {
-      throw new SolrException(
-          SolrException.ErrorCode.BAD_REQUEST,
-          "Invalid number of arguments. Please provide both a field name, and a (String) multi-vector.");
+    if (null == vecStr) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, INVALID_ARGUMENTS_MSG);
+    }
+    int maxDocTokens = Integer.MAX_VALUE;
+    if (fp.hasMoreArguments()) {
+      maxDocTokens = fp.parseInt();
+      if (maxDocTokens <= 0) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "maxDocTokens must be a positive integer: " + maxDocTokens);
+      }
+    }
+    if (fp.hasMoreArguments()) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, INVALID_ARGUMENTS_MSG);
+    }
+    final float[][] queryVectors = stringToMultiFloatVector(dimension, vecStr);
+    if (ScoreFunction.SUM_MAX_SIM != getScoreFunction()) {
+      // only sum_max_sim is computed directly from the packed doc values
+      if (Integer.MAX_VALUE != maxDocTokens) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "maxDocTokens is not supported by scoreFunction: " + getScoreFunction());
+      }
+      return new LateInteractionFloatValuesSource(
+          fieldName, queryVectors, getSimilarityFunction(), getScoreFunction());
     }
-    return new LateInteractionFloatValuesSource(
-        fieldName,
-        stringToMultiFloatVector(dimension, vecStr),
-        getSimilarityFunction(),
-        getScoreFunction());
+    return new LateInteractionMaxSimValuesSource(
+        fieldName, queryVectors, getSimilarityFunction(), maxDocTokens);
   }
 
   @Override
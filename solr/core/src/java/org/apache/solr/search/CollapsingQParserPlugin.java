@@ -711,10 +711,24 @@ public class CollapsingQParserPlugin extends QParserPlugin {
 
     @Override
     public void complete() throws IOException {
-      if (contexts.length == 0) {
-        return;
+      try {
+        if (contexts.length == 0) {
+          return;
+        }
+        collectGroupHeads();
+      } finally {
+        // also when there was nothing to collect or collecting failed
+        ords.release();
+        scores.release();
       }
 
+      if (delegate instanceof DelegatingCollector) {
+        ((DelegatingCollector) delegate).complete();
+      }
+    }
+
+    /** Passes the head of each group to the delegate */
+    private void collectGroupHeads() throws IOException {
       // Handle the boosted docs.
       boostedDocsCollector.purgeGroupsThatHaveBoostedDocs(
           collapsedSet,
@@ -799,10 +813,6 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         dummy.docId = contextDoc;
         leafDelegate.collect(contextDoc);
       }
-
-      if (delegate instanceof DelegatingCollector) {
-        ((DelegatingCollector) delegate).complete();
-      }
     }
   }
 
@@ -1195,10 +1205,23 @@ public class CollapsingQParserPlugin extends QParserPlugin {
 
     @Override
     public void complete() throws IOException {
-      if (contexts.length == 0) {
-        return;
+      try {
+        if (contexts.length == 0) {
+          return;
+        }
+        collectGroupHeads();
+      } finally {
+        // also when there was nothing to collect or collecting failed
+        collapseStrategy.release();
       }
 
+      if (delegate instanceof DelegatingCollector) {
+        ((DelegatingCollector) delegate).complete();
+      }
+    }
+
+    /** Passes the head of each group to the delegate */
+    private void collectGroupHeads() throws IOException {
       int currentContext = 0;
       int currentDocBase = 0;
 
@@ -1274,10 +1297,6 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         dummy.docId = contextDoc;
         leafDelegate.collect(contextDoc);
       }
-
-      if (delegate instanceof DelegatingCollector) {
-        ((DelegatingCollector) delegate).complete();
-      }
     }
   }
 
@@ -2362,6 +2381,14 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     public IntFloatDynamicMap getScores() {
       return scores;
     }
+
+    /** Returns the per-ordinal maps to the pool once collapsing is complete. */
+    public void release() {
+      ords.release();
+      if (scores != null) {
+        scores.release();
+      }
+    }
   }
 
   /*
@@ -2437,6 +2464,12 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         }
       }
     }
+
+    @Override
+    public void release() {
+      super.release();
+      ordVals.release();
+    }
   }
 
   /**
@@ -2516,6 +2549,12 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         }
       }
     }
+
+    @Override
+    public void release() {
+      super.release();
+      ordVals.release();
+    }
   }
 
   /*
@@ -2593,6 +2632,12 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         }
       }
     }
+
+    @Override
+    public void release() {
+      super.release();
+      ordVals.release();
+    }
   }
 
   /*
@@ -2690,6 +2735,12 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         }
       }
     }
+
+    @Override
+    public void release() {
+      super.release();
+      ordVals.release();
+    }
   }
 
   /*
@@ -40,6 +40,12 @@ public class JoinQParserPlugin extends QParserPlugin {
   /** Choose the internal algorithm */
   private static final String METHOD = "method";
 
+  /**
+   * Rule out join keys that are not in the "to" field before any term-level work, see {@link
+   * org.apache.solr.search.join.JoinKeyFilter}
+   */
+  public static final String PREFILTER = "prefilter";
+
   private String routerField;
 
   private Set<String> allowSolrUrls;
@@ -69,6 +75,7 @@ public class JoinQParserPlugin extends QParserPlugin {
         final JoinQuery q =
             new JoinQuery(jParams.fromField, jParams.toField, jParams.fromCore, jParams.fromQuery);
         q.fromCoreOpenTime = jParams.fromCoreOpenTime;
+        q.prefilter = qparser.localParams.getBool(PREFILTER, false);
         return q;
       }
 
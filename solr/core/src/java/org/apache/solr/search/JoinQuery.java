@@ -51,6 +51,7 @@ import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.schema.TrieField;
 import org.apache.solr.search.join.GraphPointsCollector;
+import org.apache.solr.search.join.JoinKeyFilter;
 import org.apache.solr.util.RTimer;
 import org.apache.solr.util.RefCounted;
 import org.apache.solr.util.SolrDefaultScorerSupplier;
@@ -63,6 +64,8 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
   String fromIndex;
   Query q;
   long fromCoreOpenTime;
+  // rule out from terms with the JoinKeyFilter of the to field before intersecting them
+  boolean prefilter;
 
   public JoinQuery(String fromField, String toField, String coreName, Query subQuery) {
     assert null != fromField;
@@ -181,6 +184,9 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
           dbg.add("toTermDirectCount", toTermDirectCount);
           dbg.add("smallSetsDeferred", smallSetsDeferred);
           dbg.add("toSetDocsAdded", resultListDocs);
+          if (prefilter) {
+            dbg.add("fromTermPrefiltered", fromTermPrefiltered);
+          }
 
           // TODO: perhaps synchronize  addDebug in the future...
           rb.addDebug(dbg, "join", JoinQuery.this.toString());
@@ -216,6 +222,8 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
     // number of small sets collected to be used later to intersect w/ bitset or create another
     // small set
     int smallSetsDeferred;
+    // number of times the prefilter ruled out a fromTerm, each time skipping one or more terms
+    int fromTermPrefiltered;
 
     public DocSet getDocSet() throws IOException {
       SchemaField fromSchemaField = fromSearcher.getSchema().getField(fromField);
@@ -277,6 +285,14 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
       Terms terms = fromReader.terms(fromField);
       Terms toTerms = toReader.terms(toField);
       if (terms == null || toTerms == null) return DocSet.empty();
+      JoinKeyFilter toKeys =
+          prefilter
+              ? JoinKeyFilter.build(
+                  toSearcher.getIndexReader(),
+                  toField,
+                  toSearcher.getCore().getJoinKeyFilterCache())
+              : null;
+      if (toKeys != null && toKeys.isEmpty()) return DocSet.empty();
       String prefixStr =
           TrieField.getMainValuePrefix(fromSearcher.getSchema().getFieldType(fromField));
       BytesRef prefix = prefixStr == null ? null : new BytesRef(prefixStr);
@@ -315,6 +331,19 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
       while (term != null) {
         if (prefix != null && !StringHelper.startsWith(term, prefix)) break;
 
+        if (toKeys != null && !toKeys.mightContain(term)) {
+          fromTermPrefiltered++;
+          // seek over the terms that are outside the term ranges of all the "to" segments
+          BytesRef target = toKeys.seekTarget(term);
+          if (target == null) break;
+          if (target.bytesEquals(term)) {
+            term = termsEnum.next();
+          } else {
+            term = termsEnum.seekCeil(target) == TermsEnum.SeekStatus.END ? null : termsEnum.term();
+          }
+          continue;
+        }
+
         fromTermCount++;
 
         boolean intersects = false;
@@ -484,6 +513,7 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
         + " to="
         + toField
         + (fromIndex != null ? " fromIndex=" + fromIndex : "")
+        + (prefilter ? " prefilter=true" : "")
         + "}"
         + q.toString();
   }
@@ -498,7 +528,8 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
         && this.toField.equals(other.toField)
         && this.q.equals(other.q)
         && Objects.equals(fromIndex, other.fromIndex)
-        && this.fromCoreOpenTime == other.fromCoreOpenTime;
+        && this.fromCoreOpenTime == other.fromCoreOpenTime
+        && this.prefilter == other.prefilter;
   }
 
   @Override
@@ -509,6 +540,7 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
     h = h * 31 + q.hashCode();
     h = h * 31 + Objects.hashCode(fromIndex);
     h = h * 31 + (int) fromCoreOpenTime;
+    h = h * 31 + Boolean.hashCode(prefilter);
     return h;
   }
 }
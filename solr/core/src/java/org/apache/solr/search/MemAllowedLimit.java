@@ -164,6 +164,14 @@ public class MemAllowedLimit implements QueryLimit {
     }
   }
 
+  /**
+   * Bytes that may still be allocated before this limit trips, as of the last {@link
+   * #shouldExit()} check. Can be negative once the limit has been exceeded.
+   */
+  public long getRemainingBytes() {
+    return limitBytes - accumulatedMem.get();
+  }
+
   @Override
   public Object currentValue() {
     return exitedAt > 0 ? exitedAt : accumulatedMem.get();
@@ -196,6 +196,16 @@ public final class QueryLimits implements QueryTimeout {
     return Optional.empty();
   }
 
+  /** Returns the active limit of the given type, if one was configured for this request. */
+  public <T extends QueryLimit> Optional<T> getLimit(Class<T> limitClass) {
+    for (QueryLimit limit : limits) {
+      if (limitClass.isInstance(limit)) {
+        return Optional.of(limitClass.cast(limit));
+      }
+    }
+    return Optional.empty();
+  }
+
   /** Return true if there are any limits enabled for the current request. */
   public boolean isLimitsEnabled() {
     return !limits.isEmpty();
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.compress.LZ4;
+import org.apache.solr.core.SolrConfig;
+
+/**
+ * A document cache that is keyed by segment rather than by top-level docid, so that entries stay
+ * valid across searcher reopens for segments that did not change. Unlike the {@code
+ * documentCache}, which holds materialized {@link org.apache.lucene.document.Document}s and is
+ * discarded with its searcher, this cache belongs to the {@link org.apache.solr.core.SolrCore} and
+ * holds each document's stored fields as a compact, LZ4 compressed, binary encoding. It is meant
+ * to be bounded with {@code maxRamMB}.
+ *
+ * <p>Configured in the {@code <query>} section of solrconfig.xml, e.g. {@code
+ * <segmentDocumentCache class="solr.CaffeineCache" maxRamMB="256"/>}.
+ */
+public class SegmentDocumentCache implements Closeable {
+
+  private static final byte TYPE_STRING = 0;
+  private static final byte TYPE_BINARY = 1;
+  private static final byte TYPE_INT = 2;
+  private static final byte TYPE_LONG = 3;
+  private static final byte TYPE_FLOAT = 4;
+  private static final byte TYPE_DOUBLE = 5;
+
+  private final SolrCache<Key, Entry> cache;
+
+  @SuppressWarnings("unchecked")
+  private SegmentDocumentCache(SolrCache<?, ?> cache) {
+    this.cache = (SolrCache<Key, Entry>) cache;
+  }
+
+  /** Returns a new cache for the given config, or null if none is configured. */
+  public static SegmentDocumentCache create(SolrConfig solrConfig) {
+    if (solrConfig.segmentDocumentCacheConfig == null) {
+      return null;
+    }
+    SolrCache<?, ?> cache = solrConfig.segmentDocumentCacheConfig.newInstance();
+    if (cache == null) {
+      return null;
+    }
+    cache.setState(SolrCache.State.LIVE);
+    return new SegmentDocumentCache(cache);
+  }
+
+  public SolrCache<?, ?> getCache() {
+    return cache;
+  }
+
+  /**
+   * Visits the stored fields of the document with the top-level id {@code docId}, serving them from
+   * the cache when possible and populating it from {@code storedFields} otherwise.
+   */
+  public void document(
+      IndexReader reader, StoredFields storedFields, int docId, StoredFieldVisitor visitor)
+      throws IOException {
+    List<LeafReaderContext> leaves = reader.leaves();
+    LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+    IndexReader.CacheHelper cacheHelper = leaf.reader().getCoreCacheHelper();
+    if (cacheHelper == null) {
+      storedFields.document(docId, visitor);
+      return;
+    }
+    Entry entry =
+        cache.computeIfAbsent(
+            new Key(cacheHelper.getKey(), docId - leaf.docBase),
+            k -> encode(storedFields, docId));
+    if (entry == null) {
+      storedFields.document(docId, visitor);
+    } else {
+      decode(entry, leaf.reader().getFieldInfos(), visitor);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    cache.close();
+  }
+
+  private static Entry encode(StoredFields storedFields, int docId) throws IOException {
+    ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+    storedFields.document(
+        docId,
+        new StoredFieldVisitor() {
+          @Override
+          public Status needsField(FieldInfo fieldInfo) {
+            return Status.YES;
+          }
+
+          @Override
+          public void stringField(FieldInfo fieldInfo, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeHeader(fieldInfo, TYPE_STRING);
+            out.writeVInt(bytes.length);
+            out.writeBytes(bytes, bytes.length);
+          }
+
+          @Override
+          public void binaryField(FieldInfo fieldInfo, byte[] value) throws IOException {
+            writeHeader(fieldInfo, TYPE_BINARY);
+            out.writeVInt(value.length);
+            out.writeBytes(value, value.length);
+          }
+
+          @Override
+          public void intField(FieldInfo fieldInfo, int value) throws IOException {
+            writeHeader(fieldInfo, TYPE_INT);
+            out.writeZInt(value);
+          }
+
+          @Override
+          public void longField(FieldInfo fieldInfo, long value) throws IOException {
+            writeHeader(fieldInfo, TYPE_LONG);
+            out.writeZLong(value);
+          }
+
+          @Override
+          public void floatField(FieldInfo fieldInfo, float value) throws IOException {
+            writeHeader(fieldInfo, TYPE_FLOAT);
+            out.writeInt(Float.floatToIntBits(value));
+          }
+
+          @Override
+          public void doubleField(FieldInfo fieldInfo, double value) throws IOException {
+            writeHeader(fieldInfo, TYPE_DOUBLE);
+            out.writeLong(Double.doubleToLongBits(value));
+          }
+
+          private void writeHeader(FieldInfo fieldInfo, byte type) throws IOException {
+            out.writeVInt(fieldInfo.number);
+            out.writeByte(type);
+          }
+        });
+
+    byte[] raw = out.toArrayCopy();
+    if (raw.length == 0) {
+      return new Entry(raw, 0);
+    }
+    ByteBuffersDataOutput compressed = new ByteBuffersDataOutput();
+    LZ4.compress(raw, 0, raw.length, compressed, new LZ4.FastCompressionHashTable());
+    return new Entry(compressed.toArrayCopy(), raw.length);
+  }
+
+  private static void decode(Entry entry, FieldInfos fieldInfos, StoredFieldVisitor visitor)
+      throws IOException {
+    if (entry.length == 0) {
+      return; // no stored fields
+    }
+    byte[] raw = new byte[entry.length];
+    LZ4.decompress(new ByteArrayDataInput(entry.compressed), entry.length, raw, 0);
+    ByteArrayDataInput in = new ByteArrayDataInput(raw);
+    while (!in.eof()) {
+      FieldInfo fieldInfo = fieldInfos.fieldInfo(in.readVInt());
+      byte type = in.readByte();
+      StoredFieldVisitor.Status status = visitor.needsField(fieldInfo);
+      if (status == StoredFieldVisitor.Status.STOP) {
+        return;
+      }
+      boolean needed = status == StoredFieldVisitor.Status.YES;
+      switch (type) {
+        case TYPE_STRING, TYPE_BINARY -> {
+          int len = in.readVInt();
+          if (needed) {
+            if (type == TYPE_STRING) {
+              visitor.stringField(
+                  fieldInfo, new String(raw, in.getPosition(), len, StandardCharsets.UTF_8));
+            } else {
+              byte[] value = new byte[len];
+              System.arraycopy(raw, in.getPosition(), value, 0, len);
+              visitor.binaryField(fieldInfo, value);
+            }
+          }
+          in.skipBytes(len);
+        }
+        case TYPE_INT -> {
+          int value = in.readZInt();
+          if (needed) visitor.intField(fieldInfo, value);
+        }
+        case TYPE_LONG -> {
+          long value = in.readZLong();
+          if (needed) visitor.longField(fieldInfo, value);
+        }
+        case TYPE_FLOAT -> {
+          float value = Float.intBitsToFloat(in.readInt());
+          if (needed) visitor.floatField(fieldInfo, value);
+        }
+        case TYPE_DOUBLE -> {
+          double value = Double.longBitsToDouble(in.readLong());
+          if (needed) visitor.doubleField(fieldInfo, value);
+        }
+        default -> throw new IllegalStateException("Unknown stored field type " + type);
+      }
+    }
+  }
+
+  private record Key(IndexReader.CacheKey coreKey, int docId) implements Accountable {
+    private static final long BASE_RAM_BYTES_USED =
+        RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED;
+    }
+  }
+
+  private record Entry(byte[] compressed, int length) implements Accountable {
+    private static final long BASE_RAM_BYTES_USED =
+        RamUsageEstimator.shallowSizeOfInstance(Entry.class);
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(compressed);
+    }
+  }
+}
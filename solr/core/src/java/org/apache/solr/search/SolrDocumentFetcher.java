@@ -91,6 +91,8 @@ public class SolrDocumentFetcher {
 
   private final SolrCache<Integer, Document> documentCache;
 
+  private final SegmentDocumentCache segmentDocumentCache;
+
   private final Set<String> allStored;
 
   private final Set<String> dvsCanSubstituteStored;
@@ -126,6 +128,7 @@ public class SolrDocumentFetcher {
     this.nLeaves = template.nLeaves;
     this.enableLazyFieldLoading = template.enableLazyFieldLoading;
     this.documentCache = template.documentCache;
+    this.segmentDocumentCache = template.segmentDocumentCache;
     this.nonStoredDVsUsedAsStored = template.nonStoredDVsUsedAsStored;
     this.allNonStoredDVs = template.allNonStoredDVs;
     this.nonStoredDVsWithoutCopyTargets = template.nonStoredDVsWithoutCopyTargets;
@@ -155,8 +158,11 @@ public class SolrDocumentFetcher {
           solrConfig.documentCacheConfig == null
               ? null
               : solrConfig.documentCacheConfig.newInstance();
+      segmentDocumentCache =
+          searcher.getCore() == null ? null : searcher.getCore().getSegmentDocumentCache();
     } else {
       documentCache = null;
+      segmentDocumentCache = null;
     }
 
     // lazy loading makes no sense if we don't have a `documentCache`
@@ -304,7 +310,11 @@ public class SolrDocumentFetcher {
   private Document docNC(int i, Set<String> fields) throws IOException {
     final SolrDocumentStoredFieldVisitor visitor =
         new SolrDocumentStoredFieldVisitor(fields, searcher.getIndexReader(), i);
-    storedFields.document(i, visitor);
+    if (segmentDocumentCache != null) {
+      segmentDocumentCache.document(searcher.getIndexReader(), storedFields, i, visitor);
+    } else {
+      storedFields.document(i, visitor);
+    }
     return visitor.getDocument();
   }
 
@@ -340,6 +350,33 @@ public class SolrDocumentFetcher {
     return solrReturnFields.getFetchOptimizer(rfoSupplier).getSolrDoc(luceneDocId);
   }
 
+  /**
+   * Batch variant of {@link #solrDoc(int, SolrReturnFields)}. The documents are loaded in ascending
+   * docid order, so each segment, and each compressed block of stored fields within it, is visited
+   * once rather than jumping around the index in score order. The result is in the order of {@code
+   * luceneDocIds}.
+   *
+   * @param luceneDocIds the Lucene doc IDs, in any order; not modified
+   * @param solrReturnFields as for {@link #solrDoc(int, SolrReturnFields)}
+   * @return the SolrDocuments, positionally matching {@code luceneDocIds}
+   */
+  public SolrDocument[] solrDocs(int[] luceneDocIds, SolrReturnFields solrReturnFields) {
+    final RetrieveFieldsOptimizer rfo =
+        solrReturnFields.getFetchOptimizer(() -> new RetrieveFieldsOptimizer(solrReturnFields));
+    // pack (docId, position) so a single primitive sort orders by docId
+    final long[] docIdAndPos = new long[luceneDocIds.length];
+    for (int i = 0; i < luceneDocIds.length; i++) {
+      docIdAndPos[i] = ((long) luceneDocIds[i] << 32) | i;
+    }
+    Arrays.sort(docIdAndPos);
+
+    final SolrDocument[] sdocs = new SolrDocument[luceneDocIds.length];
+    for (long entry : docIdAndPos) {
+      sdocs[(int) entry] = rfo.getSolrDoc((int) (entry >>> 32));
+    }
+    return sdocs;
+  }
+
   /**
    * {@link StoredFieldVisitor} which loads the specified fields eagerly (or all if null). If {@link
    * #enableLazyFieldLoading} then the rest get special lazy field entries. Designated "large"
@@ -403,6 +440,8 @@ public class SolrDocumentFetcher {
       // get cached document or retrieve it including all fields (and cache it)
       Document cached = doc(docId);
       visitFromCached(cached, visitor);
+    } else if (segmentDocumentCache != null) {
+      segmentDocumentCache.document(searcher.getIndexReader(), storedFields, docId, visitor);
     } else {
       storedFields.document(docId, visitor);
     }
@@ -1214,10 +1214,13 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
     Query query = pf.filter != null ? pf.filter : MATCH_ALL_DOCS_QUERY;
 
-    search(query, collector);
-
-    if (collector instanceof DelegatingCollector) {
-      ((DelegatingCollector) collector).complete();
+    try {
+      search(query, collector);
+    } finally {
+      // like buildAndRunCollectorChain, so that post filters always release their resources
+      if (collector instanceof DelegatingCollector) {
+        ((DelegatingCollector) collector).complete();
+      }
     }
 
     return DocSetUtil.getDocSet(setCollector, this);
@@ -35,14 +35,12 @@ import org.apache.lucene.queries.function.docvalues.LongDocValues;
 import org.apache.lucene.queries.function.valuesource.ConstNumberSource;
 import org.apache.lucene.queries.function.valuesource.ConstValueSource;
 import org.apache.lucene.queries.function.valuesource.DefFunction;
-import org.apache.lucene.queries.function.valuesource.DivFloatFunction;
 import org.apache.lucene.queries.function.valuesource.DocFreqValueSource;
 import org.apache.lucene.queries.function.valuesource.DoubleConstValueSource;
 import org.apache.lucene.queries.function.valuesource.DualFloatFunction;
 import org.apache.lucene.queries.function.valuesource.IDFValueSource;
 import org.apache.lucene.queries.function.valuesource.IfFunction;
 import org.apache.lucene.queries.function.valuesource.JoinDocFreqValueSource;
-import org.apache.lucene.queries.function.valuesource.LinearFloatFunction;
 import org.apache.lucene.queries.function.valuesource.LiteralValueSource;
 import org.apache.lucene.queries.function.valuesource.MaxDocValueSource;
 import org.apache.lucene.queries.function.valuesource.MaxFloatFunction;
@@ -51,15 +49,12 @@ import org.apache.lucene.queries.function.valuesource.MultiBoolFunction;
 import org.apache.lucene.queries.function.valuesource.MultiValueSource;
 import org.apache.lucene.queries.function.valuesource.NormValueSource;
 import org.apache.lucene.queries.function.valuesource.NumDocsValueSource;
-import org.apache.lucene.queries.function.valuesource.ProductFloatFunction;
 import org.apache.lucene.queries.function.valuesource.QueryValueSource;
 import org.apache.lucene.queries.function.valuesource.RangeMapFloatFunction;
-import org.apache.lucene.queries.function.valuesource.ReciprocalFloatFunction;
 import org.apache.lucene.queries.function.valuesource.ScaleFloatFunction;
 import org.apache.lucene.queries.function.valuesource.SimpleBoolFunction;
 import org.apache.lucene.queries.function.valuesource.SimpleFloatFunction;
 import org.apache.lucene.queries.function.valuesource.SingleFunction;
-import org.apache.lucene.queries.function.valuesource.SumFloatFunction;
 import org.apache.lucene.queries.function.valuesource.SumTotalTermFreqValueSource;
 import org.apache.lucene.queries.function.valuesource.TFValueSource;
 import org.apache.lucene.queries.function.valuesource.TermFreqValueSource;
@@ -101,7 +96,10 @@ import org.apache.solr.search.facet.UniqueAgg;
 import org.apache.solr.search.facet.UniqueBlockFieldAgg;
 import org.apache.solr.search.facet.UniqueBlockQueryAgg;
 import org.apache.solr.search.facet.VarianceAgg;
+import org.apache.solr.search.function.BulkValueSource;
 import org.apache.solr.search.function.CollapseScoreFunction;
+import org.apache.solr.search.function.CompilableValueSource;
+import org.apache.solr.search.function.CompiledValueSource;
 import org.apache.solr.search.function.ConcatStringFunction;
 import org.apache.solr.search.function.DualDoubleFunction;
 import org.apache.solr.search.function.EqualFunction;
@@ -155,6 +153,32 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
     return standardVSParsers.put(p.name(), p);
   }
 
+  /**
+   * The expressions of the functions of {@link DoubleParser}s and {@link Double2Parser}s by name,
+   * for {@link CompiledValueSource}
+   */
+  private static final Map<String, String> EXPRESSIONS =
+      Map.ofEntries(
+          Map.entry("rad", "$1 * " + CompiledValueSource.literal(DistanceUtils.DEGREES_TO_RADIANS)),
+          Map.entry("deg", "$1 * " + CompiledValueSource.literal(DistanceUtils.RADIANS_TO_DEGREES)),
+          Map.entry("sqrt", "sqrt($1)"),
+          Map.entry("log", "log10($1)"),
+          Map.entry("ln", "ln($1)"),
+          Map.entry("exp", "exp($1)"),
+          Map.entry("sin", "sin($1)"),
+          Map.entry("cos", "cos($1)"),
+          Map.entry("tan", "tan($1)"),
+          Map.entry("asin", "asin($1)"),
+          Map.entry("acos", "acos($1)"),
+          Map.entry("atan", "atan($1)"),
+          Map.entry("sinh", "sinh($1)"),
+          Map.entry("cosh", "cosh($1)"),
+          Map.entry("tanh", "tanh($1)"),
+          Map.entry("ceil", "ceil($1)"),
+          Map.entry("floor", "floor($1)"),
+          Map.entry("pow", "pow($1, $2)"),
+          Map.entry("atan2", "atan2($1, $2)"));
+
   private static void alias(String source, String dest) {
     standardVSParsers.put(dest, standardVSParsers.get(source));
   }
@@ -218,6 +242,14 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
             return new ReverseOrdFieldSource(field);
           }
         });
+    addParser(
+        "compile",
+        new ValueSourceParser() {
+          @Override
+          public ValueSource parse(FunctionQParser fp) throws SyntaxError {
+            return CompiledValueSource.compile(fp.parseValueSource());
+          }
+        });
     addParser(
         "top",
         new ValueSourceParser() {
@@ -236,7 +268,7 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
             ValueSource source = fp.parseValueSource();
             float slope = fp.parseFloat();
             float intercept = fp.parseFloat();
-            return new LinearFloatFunction(source, slope, intercept);
+            return BulkValueSource.linear(source, slope, intercept);
           }
         });
     addParser(
@@ -248,7 +280,7 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
             float m = fp.parseFloat();
             float a = fp.parseFloat();
             float b = fp.parseFloat();
-            return new ReciprocalFloatFunction(source, m, a, b);
+            return BulkValueSource.recip(source, m, a, b);
           }
         });
     addParser(
@@ -269,7 +301,7 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
           public ValueSource parse(FunctionQParser fp) throws SyntaxError {
             ValueSource a = fp.parseValueSource();
             ValueSource b = fp.parseValueSource();
-            return new DivFloatFunction(a, b);
+            return BulkValueSource.div(a, b);
           }
         });
     addParser(
@@ -340,7 +372,7 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
           @Override
           public ValueSource parse(FunctionQParser fp) throws SyntaxError {
             List<ValueSource> sources = fp.parseValueSourceList();
-            return new SumFloatFunction(sources.toArray(new ValueSource[0]));
+            return BulkValueSource.sum(sources.toArray(new ValueSource[0]));
           }
         });
     alias("sum", "add");
@@ -351,7 +383,7 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
           @Override
           public ValueSource parse(FunctionQParser fp) throws SyntaxError {
             List<ValueSource> sources = fp.parseValueSourceList();
-            return new ProductFloatFunction(sources.toArray(new ValueSource[0]));
+            return BulkValueSource.product(sources.toArray(new ValueSource[0]));
           }
         });
     alias("product", "mul");
@@ -363,18 +395,21 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
           public ValueSource parse(FunctionQParser fp) throws SyntaxError {
             ValueSource a = fp.parseValueSource();
             ValueSource b = fp.parseValueSource();
-            return new DualFloatFunction(a, b) {
-              @Override
-              protected String name() {
-                return "sub";
-              }
+            return BulkValueSource.sub(
+                new DualFloatFunction(a, b) {
+                  @Override
+                  protected String name() {
+                    return "sub";
+                  }
 
-              @Override
-              protected float func(int doc, FunctionValues aVals, FunctionValues bVals)
-                  throws IOException {
-                return aVals.floatVal(doc) - bVals.floatVal(doc);
-              }
-            };
+                  @Override
+                  protected float func(int doc, FunctionValues aVals, FunctionValues bVals)
+                      throws IOException {
+                    return aVals.floatVal(doc) - bVals.floatVal(doc);
+                  }
+                },
+                a,
+                b);
           }
         });
     addParser(
@@ -1693,7 +1728,7 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
       return new Function(fp.parseValueSource());
     }
 
-    class Function extends SingleFunction {
+    class Function extends SingleFunction implements CompilableValueSource {
       public Function(ValueSource source) {
         super(source);
       }
@@ -1703,6 +1738,16 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
         return DoubleParser.this.name();
       }
 
+      @Override
+      public String getExpression() {
+        return EXPRESSIONS.get(name());
+      }
+
+      @Override
+      public List<ValueSource> getExpressionArgs() {
+        return List.of(source);
+      }
+
       @Override
       public FunctionValues getValues(Map<Object, Object> context, LeafReaderContext readerContext)
           throws IOException {
@@ -1734,7 +1779,7 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
       return new Function(fp.parseValueSource(), fp.parseValueSource());
     }
 
-    class Function extends ValueSource {
+    class Function extends ValueSource implements CompilableValueSource {
       private final ValueSource a;
       private final ValueSource b;
 
@@ -1752,6 +1797,16 @@ public abstract class ValueSourceParser implements NamedListInitializedPlugin {
         return name() + "(" + a.description() + "," + b.description() + ")";
       }
 
+      @Override
+      public String getExpression() {
+        return EXPRESSIONS.get(name());
+      }
+
+      @Override
+      public List<ValueSource> getExpressionArgs() {
+        return List.of(a, b);
+      }
+
       @Override
       public FunctionValues getValues(Map<Object, Object> context, LeafReaderContext readerContext)
           throws IOException {
@@ -18,6 +18,7 @@ package org.apache.solr.search.facet;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -354,6 +355,21 @@ public abstract class FacetProcessor<T extends FacetRequest> {
       return count;
     }
 
+    // accumulators that are faster with the whole set collect it at once, the others collect one
+    // document at a time
+    SlotAcc[] docAccs = accs;
+    if (accs != null && Arrays.stream(accs).anyMatch(SlotAcc::collectsInBulk)) {
+      for (SlotAcc acc : accs) {
+        if (acc.collectsInBulk()) {
+          acc.collect(docs, slot, slotContext);
+        }
+      }
+      docAccs = Arrays.stream(accs).filter(acc -> !acc.collectsInBulk()).toArray(SlotAcc[]::new);
+      if (docAccs.length == 0) {
+        return docs.size();
+      }
+    }
+
     final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
     final Iterator<LeafReaderContext> ctxIt = leaves.iterator();
     LeafReaderContext ctx = null;
@@ -374,10 +390,22 @@ public abstract class FacetProcessor<T extends FacetRequest> {
           adjustedMax = segBase + segMax;
         } while (doc >= adjustedMax);
         assert doc >= ctx.docBase;
-        setNextReader(ctx);
+        if (docAccs == accs) {
+          setNextReader(ctx);
+        } else {
+          for (SlotAcc acc : docAccs) {
+            acc.setNextReader(ctx);
+          }
+        }
       }
       count++;
-      collect(doc - segBase, slot, slotContext); // per-seg collectors
+      if (docAccs == accs) {
+        collect(doc - segBase, slot, slotContext); // per-seg collectors
+      } else {
+        for (SlotAcc acc : docAccs) {
+          acc.collect(doc - segBase, slot, slotContext);
+        }
+      }
     }
     return count;
   }
@@ -35,6 +35,7 @@ import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.function.BulkValueSource;
 
 /**
  * Accumulates statistics separated by a slot number. There is a separate statistic per slot. The
@@ -132,6 +133,14 @@ public abstract class SlotAcc implements Closeable {
     return count;
   }
 
+  /**
+   * Returns true if this accumulator collects a {@link DocSet} faster with {@link #collect(DocSet,
+   * int, IntFunction)} than one document at a time, so that callers should prefer it.
+   */
+  public boolean collectsInBulk() {
+    return false;
+  }
+
   public abstract int compare(int slotA, int slotB);
 
   public abstract Object getValue(int slotNum) throws IOException;
@@ -288,6 +297,64 @@ public abstract class SlotAcc implements Closeable {
       super.setNextReader(readerContext);
       values = valueSource.getValues(fcontext.qcontext, readerContext);
     }
+
+    /**
+     * Collects <code>docs</code> by blocks of documents of the same segment, whose values are
+     * computed at once with {@link BulkValueSource}, and passed to <code>consumer</code>.
+     *
+     * @return the number of documents collected
+     */
+    @SuppressWarnings({"unchecked"})
+    protected int collectBlocks(DocSet docs, BlockConsumer consumer) throws IOException {
+      final int[] block = new int[BLOCK_SIZE];
+      final float[] blockValues = new float[BLOCK_SIZE];
+      final List<LeafReaderContext> leaves = fcontext.searcher.getIndexReader().leaves();
+      BulkValueSource.BulkValues bulkValues = null;
+      int leaf = -1;
+      int segBase = 0;
+      int segEnd = 0;
+      int blockSize = 0;
+      int count = 0;
+      for (DocIterator docsIt = docs.iterator(); docsIt.hasNext(); ) {
+        final int doc = docsIt.nextDoc();
+        if (doc >= segEnd) {
+          if (blockSize > 0) {
+            bulkValues.floatVals(block, blockSize, blockValues);
+            consumer.accept(blockValues, blockSize);
+            blockSize = 0;
+          }
+          LeafReaderContext ctx;
+          do {
+            ctx = leaves.get(++leaf);
+            segBase = ctx.docBase;
+            segEnd = segBase + ctx.reader().maxDoc();
+          } while (doc >= segEnd);
+          setNextReader(ctx);
+          bulkValues = BulkValueSource.getBulkValues(valueSource, fcontext.qcontext, ctx);
+        }
+        block[blockSize++] = doc - segBase;
+        count++;
+        if (blockSize == BLOCK_SIZE) {
+          bulkValues.floatVals(block, blockSize, blockValues);
+          consumer.accept(blockValues, blockSize);
+          blockSize = 0;
+        }
+      }
+      if (blockSize > 0) {
+        bulkValues.floatVals(block, blockSize, blockValues);
+        consumer.accept(blockValues, blockSize);
+      }
+      return count;
+    }
+  }
+
+  /** Number of documents whose values are computed at once by {@link FuncSlotAcc#collectBlocks} */
+  static final int BLOCK_SIZE = 256;
+
+  /** Consumes the values of a block of documents */
+  @FunctionalInterface
+  protected interface BlockConsumer {
+    void accept(float[] values, int count);
   }
 
   // have a version that counts the number of times a Slot has been hit? (for avg... what else?)
@@ -409,6 +476,28 @@ public abstract class SlotAcc implements Closeable {
       super(values, fcontext, numSlots);
     }
 
+    @Override
+    public boolean collectsInBulk() {
+      return valueSource instanceof BulkValueSource;
+    }
+
+    @Override
+    public int collect(DocSet docs, int slot, IntFunction<SlotContext> slotContext)
+        throws IOException {
+      if (!collectsInBulk()) {
+        return super.collect(docs, slot, slotContext);
+      }
+      return collectBlocks(
+          docs,
+          (values, count) -> {
+            double sum = result[slot];
+            for (int i = 0; i < count; i++) {
+              sum += values[i];
+            }
+            result[slot] = sum;
+          });
+    }
+
     @Override
     public void collect(int doc, int slotNum, IntFunction<SlotContext> slotContext)
         throws IOException {
@@ -423,6 +512,29 @@ public abstract class SlotAcc implements Closeable {
       super(values, fcontext, numSlots);
     }
 
+    @Override
+    public boolean collectsInBulk() {
+      return valueSource instanceof BulkValueSource;
+    }
+
+    @Override
+    public int collect(DocSet docs, int slot, IntFunction<SlotContext> slotContext)
+        throws IOException {
+      if (!collectsInBulk()) {
+        return super.collect(docs, slot, slotContext);
+      }
+      return collectBlocks(
+          docs,
+          (values, count) -> {
+            double sum = result[slot];
+            for (int i = 0; i < count; i++) {
+              double val = values[i];
+              sum += val * val;
+            }
+            result[slot] = sum;
+          });
+    }
+
     @Override
     public void collect(int doc, int slotNum, IntFunction<SlotContext> slotContext)
         throws IOException {
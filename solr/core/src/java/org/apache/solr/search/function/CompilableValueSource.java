@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.function;
+
+import java.util.List;
+import org.apache.lucene.queries.function.ValueSource;
+
+/**
+ * A function which can be written as an expression of the values of its arguments, in the syntax of
+ * the Lucene expressions module, so that {@link CompiledValueSource} can compile it.
+ */
+public interface CompilableValueSource {
+
+  /**
+   * Returns this function as an expression in which <code>$1</code>, <code>$2</code>... are the
+   * values of the arguments returned by {@link #getExpressionArgs()}, or null if it can't be
+   * written as an expression.
+   */
+  String getExpression();
+
+  /** Returns the arguments of the expression returned by {@link #getExpression()} */
+  List<ValueSource> getExpressionArgs();
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.function;
+
+import static org.apache.solr.common.SolrException.ErrorCode.SERVER_ERROR;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.lucene.expressions.Expression;
+import org.apache.lucene.expressions.js.JavascriptCompiler;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.queries.function.FunctionValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.docvalues.DoubleDocValues;
+import org.apache.lucene.queries.function.valuesource.ConstNumberSource;
+import org.apache.lucene.queries.function.valuesource.DoubleFieldSource;
+import org.apache.lucene.queries.function.valuesource.FieldCacheSource;
+import org.apache.lucene.queries.function.valuesource.FloatFieldSource;
+import org.apache.lucene.queries.function.valuesource.IntFieldSource;
+import org.apache.lucene.queries.function.valuesource.LongFieldSource;
+import org.apache.lucene.search.DoubleValues;
+import org.apache.lucene.search.DoubleValuesSource;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.solr.common.SolrException;
+
+/**
+ * A function compiled to a single class, like the expressions of {@link
+ * org.apache.solr.search.ExpressionValueSourceParser}: the functions of the tree of {@link
+ * ValueSource}s implementing {@link CompilableValueSource} are translated into an expression, which
+ * the {@link JavascriptCompiler} compiles to bytecode, so that a document goes through one method
+ * instead of a chain of virtual calls.
+ *
+ * <p>The leaves of the expression are the other nodes of the tree: numeric fields are read directly
+ * from their docValues, and the values of the other functions are computed by the functions, as
+ * without compilation. The expression computes with doubles, so its values may differ slightly from
+ * those of functions computing with floats.
+ *
+ * @see #compile(ValueSource)
+ */
+public class CompiledValueSource extends ValueSource {
+
+  /** The compiled expressions by source, which don't depend on the fields or functions they read */
+  private static final Cache<String, Expression> EXPRESSIONS =
+      Caffeine.newBuilder().maximumSize(1000).build();
+
+  private static final Pattern ARG = Pattern.compile("\\$(\\d+)");
+  private static final String VARIABLE = "v";
+
+  private final ValueSource source;
+  private final Expression expression;
+  // the value of each variable of the expression
+  private final ValueSource[] variables;
+  // the docValues of the variables which are numeric fields, null for the others
+  private final DoubleValuesSource[] docValuesSources;
+
+  private CompiledValueSource(ValueSource source, Expression expression, List<ValueSource> leaves) {
+    this.source = source;
+    this.expression = expression;
+    this.variables = new ValueSource[expression.variables.length];
+    this.docValuesSources = new DoubleValuesSource[variables.length];
+    for (int i = 0; i < variables.length; i++) {
+      final String name = expression.variables[i];
+      variables[i] = leaves.get(Integer.parseInt(name.substring(VARIABLE.length())));
+      docValuesSources[i] = getDocValuesSource(variables[i]);
+    }
+  }
+
+  /**
+   * Returns <code>source</code> compiled, or <code>source</code> itself if it has no function to
+   * compile.
+   */
+  public static ValueSource compile(ValueSource source) {
+    final List<ValueSource> leaves = new ArrayList<>();
+    final String text = toExpression(source, leaves);
+    if (leaves.size() == 1 && text.equals(VARIABLE + 0)) {
+      return source;
+    }
+    final Expression expression =
+        EXPRESSIONS.get(
+            text,
+            k -> {
+              try {
+                return JavascriptCompiler.compile(k);
+              } catch (ParseException e) {
+                throw new SolrException(
+                    SERVER_ERROR, "Unable to compile " + source.description() + ": " + k, e);
+              }
+            });
+    return new CompiledValueSource(source, expression, leaves);
+  }
+
+  /**
+   * Returns <code>value</code> as a literal of an expression, or null if it is not finite.
+   *
+   * @see CompilableValueSource#getExpression()
+   */
+  public static String literal(double value) {
+    return Double.isFinite(value) ? "(" + value + ")" : null;
+  }
+
+  private static String toExpression(ValueSource source, List<ValueSource> leaves) {
+    if (source instanceof ConstNumberSource constant) {
+      final String literal = literal(constant.getDouble());
+      if (literal != null) {
+        return literal;
+      }
+    } else if (source instanceof CompilableValueSource function) {
+      final String template = function.getExpression();
+      if (template != null) {
+        final List<ValueSource> args = function.getExpressionArgs();
+        final Matcher matcher = ARG.matcher(template);
+        final StringBuilder sb = new StringBuilder();
+        while (matcher.find()) {
+          final ValueSource arg = args.get(Integer.parseInt(matcher.group(1)) - 1);
+          matcher.appendReplacement(
+              sb, Matcher.quoteReplacement("(" + toExpression(arg, leaves) + ")"));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+      }
+    }
+    int index = leaves.indexOf(source);
+    if (index < 0) {
+      index = leaves.size();
+      leaves.add(source);
+    }
+    return VARIABLE + index;
+  }
+
+  /** Returns the values of a variable, reading the docValues directly for numeric fields */
+  private static DoubleValuesSource getDocValuesSource(ValueSource source) {
+    // not the subclasses, which may compute other values
+    if (source.getClass() == IntFieldSource.class) {
+      return DoubleValuesSource.fromIntField(((FieldCacheSource) source).getField());
+    } else if (source.getClass() == LongFieldSource.class) {
+      return DoubleValuesSource.fromLongField(((FieldCacheSource) source).getField());
+    } else if (source.getClass() == FloatFieldSource.class) {
+      return DoubleValuesSource.fromFloatField(((FieldCacheSource) source).getField());
+    } else if (source.getClass() == DoubleFieldSource.class) {
+      return DoubleValuesSource.fromDoubleField(((FieldCacheSource) source).getField());
+    }
+    return null;
+  }
+
+  /** Returns the compiled function */
+  public ValueSource getSource() {
+    return source;
+  }
+
+  @Override
+  public FunctionValues getValues(Map<Object, Object> context, LeafReaderContext readerContext)
+      throws IOException {
+    final Variable[] values = new Variable[variables.length];
+    for (int i = 0; i < variables.length; i++) {
+      if (docValuesSources[i] != null) {
+        final DoubleValues docValues = docValuesSources[i].getValues(readerContext, null);
+        values[i] =
+            new Variable() {
+              @Override
+              void setDoc(int doc) throws IOException {
+                // 0 for missing values, like the field sources
+                value = docValues.advanceExact(doc) ? docValues.doubleValue() : 0;
+              }
+            };
+      } else {
+        final FunctionValues functionValues = variables[i].getValues(context, readerContext);
+        values[i] =
+            new Variable() {
+              @Override
+              void setDoc(int doc) throws IOException {
+                value = functionValues.doubleVal(doc);
+              }
+            };
+      }
+    }
+    return new DoubleDocValues(this) {
+      @Override
+      public double doubleVal(int doc) throws IOException {
+        for (Variable value : values) {
+          value.setDoc(doc);
+        }
+        return expression.evaluate(values);
+      }
+    };
+  }
+
+  @Override
+  public void createWeight(Map<Object, Object> context, IndexSearcher searcher) throws IOException {
+    for (ValueSource variable : variables) {
+      variable.createWeight(context, searcher);
+    }
+  }
+
+  @Override
+  public String description() {
+    return "compile(" + source.description() + ")";
+  }
+
+  @Override
+  public int hashCode() {
+    return CompiledValueSource.class.hashCode() * 31 + source.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof CompiledValueSource other)) return false;
+    return source.equals(other.source);
+  }
+
+  /** The value of a variable of the expression for the current document */
+  private abstract static class Variable extends DoubleValues {
+    double value;
+
+    abstract void setDoc(int doc) throws IOException;
+
+    @Override
+    public double doubleValue() {
+      return value;
+    }
+
+    @Override
+    public boolean advanceExact(int doc) throws IOException {
+      setDoc(doc);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.function;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import org.apache.lucene.document.LateInteractionField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.DoubleValues;
+import org.apache.lucene.search.DoubleValuesSource;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LateInteractionFloatValuesSource;
+import org.apache.lucene.search.LateInteractionFloatValuesSource.ScoreFunction;
+import org.apache.lucene.util.BitUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.schema.StrFloatLateInteractionVectorField;
+
+/**
+ * Computes the {@link ScoreFunction#SUM_MAX_SIM} score of a query multi-vector against the multi
+ * vectors of a {@link LateInteractionField}, like {@link LateInteractionFloatValuesSource}, but
+ * directly from the doc values bytes.
+ *
+ * <p>The doc values of a {@link LateInteractionField} are packed: the dimension of the token
+ * vectors, followed by the little endian floats of every token vector. Instead of decoding them
+ * into a new <code>float[][]</code> for each document, the token vectors are read one at a time
+ * into a reused buffer, and each of them is compared to all the query vectors while it is hot in
+ * the CPU cache, keeping the maximum similarity of each query vector. The similarities are
+ * computed by {@link VectorSimilarityFunction#compare(float[], float[])}, which uses the SIMD
+ * implementations of Lucene when the Vector API is enabled.
+ *
+ * <p>Optionally, only the first <code>maxDocTokens</code> token vectors of each document are
+ * scored, which bounds the cost of documents with many tokens.
+ */
+public class LateInteractionMaxSimValuesSource extends DoubleValuesSource {
+
+  private final String field;
+  private final float[][] queryVectors;
+  private final VectorSimilarityFunction similarityFunction;
+  private final int maxDocTokens;
+
+  /**
+   * @param field the name of a {@link LateInteractionField}
+   * @param queryVectors the query multi-vector, made of vectors with the dimension of the field
+   * @param similarityFunction compares one query vector with one document token vector
+   * @param maxDocTokens the number of token vectors of each document to score, {@link
+   *     Integer#MAX_VALUE} to score all of them
+   */
+  public LateInteractionMaxSimValuesSource(
+      String field,
+      float[][] queryVectors,
+      VectorSimilarityFunction similarityFunction,
+      int maxDocTokens) {
+    if (queryVectors.length == 0) {
+      throw new IllegalArgumentException("queryVectors must not be empty");
+    }
+    if (maxDocTokens <= 0) {
+      throw new IllegalArgumentException("maxDocTokens must be positive: " + maxDocTokens);
+    }
+    this.field = Objects.requireNonNull(field);
+    this.queryVectors = queryVectors;
+    this.similarityFunction = Objects.requireNonNull(similarityFunction);
+    this.maxDocTokens = maxDocTokens;
+  }
+
+  @Override
+  public DoubleValues getValues(LeafReaderContext ctx, DoubleValues scores) throws IOException {
+    final BinaryDocValues docValues = ctx.reader().getBinaryDocValues(field);
+    if (docValues == null) {
+      return DoubleValues.EMPTY;
+    }
+    return new DoubleValues() {
+      private final float[] token = new float[queryVectors[0].length];
+      private final float[] maxSims = new float[queryVectors.length];
+      private double value;
+
+      @Override
+      public double doubleValue() throws IOException {
+        return value;
+      }
+
+      @Override
+      public boolean advanceExact(int doc) throws IOException {
+        if (!docValues.advanceExact(doc)) {
+          return false;
+        }
+        value = score(docValues.binaryValue(), token, maxSims);
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Returns the score of the multi-vector encoded in <code>bytes</code>
+   *
+   * @param token a buffer for one token vector
+   * @param maxSims a buffer for the maximum similarity of each query vector
+   */
+  private float score(BytesRef bytes, float[] token, float[] maxSims) {
+    final int dimension = token.length;
+    final int length = bytes.length - Integer.BYTES;
+    if (length < 0
+        || length % (dimension * Float.BYTES) != 0
+        || (int) BitUtil.VH_LE_INT.get(bytes.bytes, bytes.offset) != dimension) {
+      // not the layout we know, let the field decode it
+      float[][] docVectors = LateInteractionField.decode(bytes);
+      if (docVectors.length > maxDocTokens) {
+        docVectors = Arrays.copyOf(docVectors, maxDocTokens);
+      }
+      return ScoreFunction.SUM_MAX_SIM.compare(queryVectors, docVectors, similarityFunction);
+    }
+    final FloatBuffer floats =
+        ByteBuffer.wrap(bytes.bytes, bytes.offset + Integer.BYTES, length)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asFloatBuffer();
+    final int numTokens = Math.min(length / (dimension * Float.BYTES), maxDocTokens);
+    if (numTokens == 0) {
+      return 0f;
+    }
+    Arrays.fill(maxSims, Float.NEGATIVE_INFINITY);
+    for (int t = 0; t < numTokens; t++) {
+      floats.get(token);
+      for (int q = 0; q < queryVectors.length; q++) {
+        final float sim = similarityFunction.compare(queryVectors[q], token);
+        if (sim > maxSims[q]) {
+          maxSims[q] = sim;
+        }
+      }
+    }
+    float result = 0f;
+    for (float maxSim : maxSims) {
+      result += maxSim;
+    }
+    return result;
+  }
+
+  @Override
+  public boolean needsScores() {
+    return false;
+  }
+
+  @Override
+  public boolean isCacheable(LeafReaderContext ctx) {
+    return DocValues.isCacheable(ctx, field);
+  }
+
+  @Override
+  public DoubleValuesSource rewrite(IndexSearcher searcher) throws IOException {
+    return this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof LateInteractionMaxSimValuesSource that)) return false;
+    return maxDocTokens == that.maxDocTokens
+        && field.equals(that.field)
+        && similarityFunction == that.similarityFunction
+        && Arrays.deepEquals(queryVectors, that.queryVectors);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Objects.hash(field, similarityFunction, maxDocTokens)
+        + Arrays.deepHashCode(queryVectors);
+  }
+
+  @Override
+  public String toString() {
+    return "lateVector("
+        + field
+        + ","
+        + StrFloatLateInteractionVectorField.multiFloatVectorToString(queryVectors)
+        + ","
+        + similarityFunction
+        + (maxDocTokens == Integer.MAX_VALUE ? "" : ",maxDocTokens=" + maxDocTokens)
+        + ")";
+  }
+}
@@ -18,11 +18,16 @@
 package org.apache.solr.search.join;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
@@ -38,6 +43,7 @@ import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
 import org.apache.solr.client.solrj.io.eq.FieldEqualitor;
@@ -48,6 +54,8 @@ import org.apache.solr.client.solrj.io.stream.TupleStream;
 import org.apache.solr.client.solrj.io.stream.UniqueStream;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionNamedParameter;
+import org.apache.solr.client.solrj.request.schema.SchemaRequest;
+import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.cloud.CloudDescriptor;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.cloud.ClusterState;
@@ -57,15 +65,23 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.schema.FieldType;
+import org.apache.solr.schema.IntPointField;
+import org.apache.solr.schema.LongPointField;
+import org.apache.solr.schema.NumberType;
+import org.apache.solr.schema.StrField;
 import org.apache.solr.search.BitDocSet;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.DocSetUtil;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.SolrSearcherRequirer;
 import org.apache.solr.util.SolrDefaultScorerSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequirer {
 
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
   protected final String query;
   protected final String zkHost;
   protected final String solrUrl;
@@ -73,6 +89,7 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
   protected final String fromField;
   protected final String toField;
   protected final boolean routedByJoinKey;
+  protected final boolean prefilter;
 
   protected final long timestamp;
   protected final int ttl;
@@ -90,6 +107,35 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
       boolean routedByJoinKey,
       int ttl,
       SolrParams otherParams) {
+    this(
+        query,
+        zkHost,
+        solrUrl,
+        collection,
+        fromField,
+        toField,
+        routedByJoinKey,
+        false,
+        ttl,
+        otherParams);
+  }
+
+  /**
+   * @param prefilter whether to restrict the join keys streamed from the other collection to the
+   *     range of the local join keys, and to rule out the other keys with a {@link JoinKeyFilter}
+   *     before looking them up locally
+   */
+  public CrossCollectionJoinQuery(
+      String query,
+      String zkHost,
+      String solrUrl,
+      String collection,
+      String fromField,
+      String toField,
+      boolean routedByJoinKey,
+      boolean prefilter,
+      int ttl,
+      SolrParams otherParams) {
 
     this.query = query;
     this.zkHost = zkHost;
@@ -98,6 +144,7 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
     this.fromField = fromField;
     this.toField = toField;
     this.routedByJoinKey = routedByJoinKey;
+    this.prefilter = prefilter;
 
     this.timestamp = System.nanoTime();
     this.ttl = ttl;
@@ -126,10 +173,14 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
 
     FixedBitSet bitSet;
 
-    public TermsJoinKeyCollector(FieldType fieldType, Terms terms, SolrIndexSearcher searcher)
+    JoinKeyFilter keyFilter;
+
+    public TermsJoinKeyCollector(
+        FieldType fieldType, Terms terms, SolrIndexSearcher searcher, JoinKeyFilter keyFilter)
         throws IOException {
       this.fieldType = fieldType;
       this.searcher = searcher;
+      this.keyFilter = keyFilter;
 
       termsEnum = terms.iterator();
       bytes = new BytesRefBuilder();
@@ -139,7 +190,10 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
 
     @Override
     public void collect(Object value) throws IOException {
-      fieldType.readableToIndexed((String) value, bytes);
+      fieldType.readableToIndexed(value.toString(), bytes);
+      if (keyFilter != null && !keyFilter.mightContain(bytes.get())) {
+        return;
+      }
       if (termsEnum.seekExact(bytes.get())) {
         postingsEnum = termsEnum.postings(postingsEnum, PostingsEnum.NONE);
         bitSet.or(postingsEnum);
@@ -218,13 +272,100 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
       }
     }
 
-    private TupleStream createCloudSolrStream(SolrClientCache solrClientCache) throws IOException {
-      String streamZkHost;
-      if (zkHost != null) {
-        streamZkHost = zkHost;
+    /**
+     * Returns a filter on the "from" field for the range of the local join keys, or null if the
+     * range can't be expressed for the type of the "to" field, or if the "from" field of the other
+     * collection isn't known to be of the same type. A range over the terms of a field of another
+     * type, e.g. an int range over string keys, would not contain all the matching keys.
+     */
+    private String createKeyRangeFq(
+        FieldType fieldType, JoinKeyFilter keyFilter, SolrClientCache solrClientCache)
+        throws IOException {
+      String keyType = getKeyType(fieldType.getClass().getName());
+      if (keyType == null
+          || !keyType.equals(getFromKeyType(solrClientCache))
+          || (!fieldType.isPointField() && (keyFilter == null || keyFilter.isEmpty()))) {
+        return null;
+      }
+      String min;
+      String max;
+      if (fieldType.isPointField()) {
+        long minValue = Long.MAX_VALUE;
+        long maxValue = Long.MIN_VALUE;
+        for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+          PointValues values = ctx.reader().getPointValues(toField);
+          if (values == null || values.size() == 0) {
+            continue;
+          }
+          byte[] minPacked = values.getMinPackedValue();
+          byte[] maxPacked = values.getMaxPackedValue();
+          if (fieldType.getNumberType() == NumberType.INTEGER) {
+            minValue = Math.min(minValue, IntPoint.decodeDimension(minPacked, 0));
+            maxValue = Math.max(maxValue, IntPoint.decodeDimension(maxPacked, 0));
+          } else {
+            minValue = Math.min(minValue, LongPoint.decodeDimension(minPacked, 0));
+            maxValue = Math.max(maxValue, LongPoint.decodeDimension(maxPacked, 0));
+          }
+        }
+        if (minValue > maxValue) {
+          return null;
+        }
+        min = Long.toString(minValue);
+        max = Long.toString(maxValue);
       } else {
-        streamZkHost = searcher.getCore().getCoreContainer().getZkController().getZkServerAddress();
+        // string terms sort the same way here and in the other collection
+        min = ClientUtils.escapeQueryChars(keyFilter.getMin().utf8ToString());
+        max = ClientUtils.escapeQueryChars(keyFilter.getMax().utf8ToString());
+      }
+      return fromField + ":[" + min + " TO " + max + "]";
+    }
+
+    /**
+     * Returns the key type of the "from" field in the other collection, as given by its schema, or
+     * null if it can't be found out.
+     */
+    private String getFromKeyType(SolrClientCache solrClientCache) {
+      SolrClient client =
+          zkHost != null || solrUrl == null
+              ? solrClientCache.getCloudSolrClient(getStreamZkHost())
+              : solrClientCache.getHttpSolrClient(solrUrl);
+      try {
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(CommonParams.FL, fromField);
+        params.set("includeDynamic", true);
+        List<Map<String, Object>> fields =
+            new SchemaRequest.Fields(params).process(client, collection).getFields();
+        if (fields == null || fields.size() != 1) {
+          return null;
+        }
+        String typeName = (String) fields.get(0).get("type");
+        Object className =
+            new SchemaRequest.FieldType(typeName)
+                .process(client, collection)
+                .getFieldType()
+                .getAttributes()
+                .get("class");
+        return className == null ? null : getKeyType(className.toString());
+      } catch (Exception e) {
+        log.warn(
+            "Could not read the type of {} in {}, its range isn't restricted",
+            fromField,
+            collection,
+            e);
+        return null;
       }
+    }
+
+    private String getStreamZkHost() {
+      if (zkHost != null) {
+        return zkHost;
+      }
+      return searcher.getCore().getCoreContainer().getZkController().getZkServerAddress();
+    }
+
+    private TupleStream createCloudSolrStream(SolrClientCache solrClientCache, String keyRangeFq)
+        throws IOException {
+      String streamZkHost = getStreamZkHost();
 
       ModifiableSolrParams params = new ModifiableSolrParams(otherParams);
       params.set(CommonParams.Q, query);
@@ -232,6 +373,9 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
       if (fq != null) {
         params.add(CommonParams.FQ, fq);
       }
+      if (keyRangeFq != null) {
+        params.add(CommonParams.FQ, keyRangeFq);
+      }
       params.set(CommonParams.FL, fromField);
       params.set(CommonParams.SORT, fromField + " asc");
       params.set(CommonParams.QT, "/export");
@@ -246,7 +390,7 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
       return uniqueStream;
     }
 
-    private TupleStream createSolrStream() {
+    private TupleStream createSolrStream(String keyRangeFq) {
       StreamExpression searchExpr =
           new StreamExpression("search")
               .withParameter(collection)
@@ -255,6 +399,9 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
       if (fq != null) {
         searchExpr.withParameter(new StreamExpressionNamedParameter(CommonParams.FQ, fq));
       }
+      if (keyRangeFq != null) {
+        searchExpr.withParameter(new StreamExpressionNamedParameter(CommonParams.FQ, keyRangeFq));
+      }
       searchExpr
           .withParameter(new StreamExpressionNamedParameter(CommonParams.FL, fromField))
           .withParameter(new StreamExpressionNamedParameter(CommonParams.SORT, fromField + " asc"))
@@ -280,15 +427,8 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
     }
 
     private DocSet getDocSet() throws IOException {
-      SolrClientCache solrClientCache = searcher.getCore().getCoreContainer().getSolrClientCache();
-      TupleStream solrStream;
-      if (zkHost != null || solrUrl == null) {
-        solrStream = createCloudSolrStream(solrClientCache);
-      } else {
-        solrStream = createSolrStream();
-      }
-
       FieldType fieldType = searcher.getSchema().getFieldType(toField);
+      JoinKeyFilter keyFilter = null;
       JoinKeyCollector collector;
       if (fieldType.isPointField()) {
         collector = new PointJoinKeyCollector(searcher);
@@ -297,7 +437,21 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
         if (terms == null) {
           return DocSet.empty();
         }
-        collector = new TermsJoinKeyCollector(fieldType, terms, searcher);
+        if (prefilter) {
+          keyFilter =
+              JoinKeyFilter.build(
+                  searcher.getIndexReader(), toField, searcher.getCore().getJoinKeyFilterCache());
+        }
+        collector = new TermsJoinKeyCollector(fieldType, terms, searcher, keyFilter);
+      }
+      SolrClientCache solrClientCache = searcher.getCore().getCoreContainer().getSolrClientCache();
+      String keyRangeFq =
+          prefilter ? createKeyRangeFq(fieldType, keyFilter, solrClientCache) : null;
+      TupleStream solrStream;
+      if (zkHost != null || solrUrl == null) {
+        solrStream = createCloudSolrStream(solrClientCache, keyRangeFq);
+      } else {
+        solrStream = createSolrStream(keyRangeFq);
       }
 
       try {
@@ -345,6 +499,22 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
     }
   }
 
+  /**
+   * Returns the type of the join keys of a field type, given its class name, for the types whose
+   * keys can be restricted to a range, or null for the others. Int and long keys are compatible.
+   */
+  static String getKeyType(String className) {
+    String simpleName = className.substring(className.lastIndexOf('.') + 1);
+    if (simpleName.equals(StrField.class.getSimpleName())) {
+      return "string";
+    }
+    if (simpleName.equals(IntPointField.class.getSimpleName())
+        || simpleName.equals(LongPointField.class.getSimpleName())) {
+      return "long";
+    }
+    return null;
+  }
+
   @Override
   public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost)
       throws IOException {
@@ -367,6 +537,7 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
     result = prime * result + Objects.hashCode(fromField);
     result = prime * result + Objects.hashCode(toField);
     result = prime * result + Boolean.hashCode(routedByJoinKey);
+    result = prime * result + Boolean.hashCode(prefilter);
     result = prime * result + Objects.hashCode(otherParamsString);
     // timestamp and ttl should not be included in hash code
     return result;
@@ -385,6 +556,7 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
         && Objects.equals(fromField, other.fromField)
         && Objects.equals(toField, other.toField)
         && routedByJoinKey == other.routedByJoinKey
+        && prefilter == other.prefilter
         && Objects.equals(otherParamsString, other.otherParamsString)
         && TimeUnit.SECONDS.convert(Math.abs(timestamp - other.timestamp), TimeUnit.NANOSECONDS)
             < Math.min(ttl, other.ttl);
@@ -394,11 +566,12 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
   public String toString(String field) {
     return String.format(
         Locale.ROOT,
-        "{!xcjf collection=%s from=%s to=%s routed=%b ttl=%d}%s",
+        "{!xcjf collection=%s from=%s to=%s routed=%b prefilter=%b ttl=%d}%s",
         collection,
         fromField,
         toField,
         routedByJoinKey,
+        prefilter,
         ttl,
         query.toString());
   }
@@ -55,6 +55,9 @@ abstract class GraphEdgeCollector extends SimpleCollector implements Collector {
 
   int numHits = 0; // number of documents visited
   BitSet bits; // if not null, used to collect documents visited
+  // if not null, used to collect documents visited, with a bit set per leaf (by ord)
+  FixedBitSet[] leafBits;
+  private FixedBitSet currentLeafBits;
 
   int base;
 
@@ -73,6 +76,15 @@ abstract class GraphEdgeCollector extends SimpleCollector implements Collector {
     this.bits = target;
   }
 
+  /**
+   * Collect the documents being visited into a bit set per leaf, that is created when the leaf is
+   * collected. Unlike {@link #setCollectDocs(FixedBitSet)}, this can be shared by collectors that
+   * collect different leaves concurrently.
+   */
+  public void setCollectDocsPerLeaf(FixedBitSet[] leafBits) {
+    this.leafBits = leafBits;
+  }
+
   // the number of docs visited
   public int getNumHits() {
     return numHits;
@@ -88,6 +100,7 @@ abstract class GraphEdgeCollector extends SimpleCollector implements Collector {
     }
 
     if (bits != null) bits.set(doc);
+    if (currentLeafBits != null) currentLeafBits.set(segDoc);
     // increment the hit count so we know how many docs we traversed this time.
     numHits++;
 
@@ -112,10 +125,19 @@ abstract class GraphEdgeCollector extends SimpleCollector implements Collector {
   @Override
   public void doSetNextReader(LeafReaderContext context) throws IOException {
     base = context.docBase;
+    if (leafBits != null) {
+      currentLeafBits = leafBits[context.ord] = new FixedBitSet(context.reader().maxDoc());
+    }
   }
 
   public abstract Query getResultQuery(SchemaField matchField, boolean useAutomaton);
 
+  /** The number of distinct edge ids collected so far. */
+  public abstract int getEdgeCount();
+
+  /** Adds the edge ids and hits collected by {@code other}, of the same type, to this collector. */
+  abstract void merge(GraphEdgeCollector other);
+
   @Override
   public ScoreMode scoreMode() {
     return ScoreMode.COMPLETE_NO_SCORES;
@@ -156,6 +178,21 @@ abstract class GraphEdgeCollector extends SimpleCollector implements Collector {
       }
     }
 
+    @Override
+    public int getEdgeCount() {
+      return collectorTerms.size();
+    }
+
+    @Override
+    void merge(GraphEdgeCollector other) {
+      BytesRefHash otherTerms = ((GraphTermsCollector) other).collectorTerms;
+      BytesRef ref = new BytesRef();
+      for (int i = 0; i < otherTerms.size(); i++) {
+        collectorTerms.add(otherTerms.get(i, ref));
+      }
+      numHits += other.numHits;
+    }
+
     @Override
     public Query getResultQuery(SchemaField matchField, boolean useAutomaton) {
       if (collectorTerms == null || collectorTerms.size() == 0) {
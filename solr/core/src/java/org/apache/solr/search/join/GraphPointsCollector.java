@@ -69,6 +69,17 @@ public class GraphPointsCollector extends GraphEdgeCollector {
     }
   }
 
+  @Override
+  public int getEdgeCount() {
+    return set.size();
+  }
+
+  @Override
+  void merge(GraphEdgeCollector other) {
+    set.addAll(((GraphPointsCollector) other).set);
+    numHits += other.numHits;
+  }
+
   @Override
   public Query getResultQuery(SchemaField matchField, boolean useAutomaton) {
     if (set.isEmpty()) return null;
@@ -18,6 +18,7 @@ package org.apache.solr.search.join;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.TreeSet;
@@ -26,6 +27,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -38,6 +40,7 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefHash;
 import org.apache.lucene.util.FixedBitSet;
@@ -93,6 +96,18 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
    */
   private boolean returnRoot = true;
 
+  /**
+   * If true, the query of each hop runs across the slices of the index in parallel, using the
+   * searcher's executor.
+   */
+  private boolean parallel = false;
+
+  /**
+   * The maximum number of distinct edge ids to traverse from a single hop, -1 means no limit. The
+   * traversal stops at a hop with more edge ids; the documents reached so far are still returned.
+   */
+  private int maxFrontierTerms = -1;
+
   /**
    * Create a graph query q - the starting node query fromField - the field containing the node id
    * toField - the field containing the edge ids
@@ -137,6 +152,8 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
     sb.append("[returnRoot=").append(returnRoot).append(']');
     sb.append("[onlyLeafNodes=").append(onlyLeafNodes).append(']');
     sb.append("[useAutn=").append(useAutn).append(']');
+    sb.append("[parallel=").append(parallel).append(']');
+    sb.append("[maxFrontierTerms=").append(maxFrontierTerms).append(']');
     return sb.toString();
   }
 
@@ -207,20 +224,16 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
           frontierQuery = null;
         } else {
           // when we're not at the max depth level, we need to collect edges
-          // Create the graph result collector for this level
-          GraphEdgeCollector graphResultCollector =
-              collectSchemaField.getType().isPointField()
-                  ? new GraphPointsCollector(
-                      collectSchemaField, new BitDocSet(resultBits), leafNodes)
-                  : new GraphEdgeCollector.GraphTermsCollector(
-                      collectSchemaField, new BitDocSet(resultBits), leafNodes);
-
           fromSet = new BitDocSet(new FixedBitSet(capacity));
-          graphResultCollector.setCollectDocs(fromSet.getBits());
-
-          fromSearcher.search(frontierQuery, graphResultCollector);
+          GraphEdgeCollector graphResultCollector =
+              collectFrontier(frontierQuery, resultBits, leafNodes, fromSet.getBits());
 
-          frontierQuery = graphResultCollector.getResultQuery(matchSchemaField, isUseAutn());
+          if (maxFrontierTerms != -1 && graphResultCollector.getEdgeCount() > maxFrontierTerms) {
+            // the frontier is too large to traverse
+            frontierQuery = null;
+          } else {
+            frontierQuery = graphResultCollector.getResultQuery(matchSchemaField, isUseAutn());
+          }
           // If there is a filter to be used while crawling the graph, add that.
           if (frontierQuery != null && getTraversalFilter() != null) {
             BooleanQuery.Builder builder = new BooleanQuery.Builder();
@@ -254,6 +267,72 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
       }
     }
 
+    /** Create the graph result collector for a level */
+    private GraphEdgeCollector newCollector(FixedBitSet resultBits, DocSet leafNodes) {
+      return collectSchemaField.getType().isPointField()
+          ? new GraphPointsCollector(collectSchemaField, new BitDocSet(resultBits), leafNodes)
+          : new GraphEdgeCollector.GraphTermsCollector(
+              collectSchemaField, new BitDocSet(resultBits), leafNodes);
+    }
+
+    /**
+     * Runs the query of a level, collecting the documents it visits into {@code fromBits}.
+     *
+     * @return a collector with the edges of the visited documents
+     */
+    private GraphEdgeCollector collectFrontier(
+        Query frontierQuery, FixedBitSet resultBits, DocSet leafNodes, FixedBitSet fromBits)
+        throws IOException {
+      if (!parallel) {
+        GraphEdgeCollector graphResultCollector = newCollector(resultBits, leafNodes);
+        graphResultCollector.setCollectDocs(fromBits);
+        fromSearcher.search(frontierQuery, graphResultCollector);
+        return graphResultCollector;
+      }
+
+      // resultBits is only read while the slices are collected. A leaf is collected by a single
+      // slice, so the slices can share the array of per leaf bit sets.
+      List<LeafReaderContext> leaves = fromSearcher.getTopReaderContext().leaves();
+      FixedBitSet[] leafBits = new FixedBitSet[leaves.size()];
+      GraphEdgeCollector graphResultCollector =
+          fromSearcher.search(
+              frontierQuery,
+              new CollectorManager<GraphEdgeCollector, GraphEdgeCollector>() {
+                @Override
+                public GraphEdgeCollector newCollector() {
+                  GraphEdgeCollector collector =
+                      GraphQueryWeight.this.newCollector(resultBits, leafNodes);
+                  collector.setCollectDocsPerLeaf(leafBits);
+                  return collector;
+                }
+
+                @Override
+                public GraphEdgeCollector reduce(Collection<GraphEdgeCollector> collectors) {
+                  GraphEdgeCollector merged = null;
+                  for (GraphEdgeCollector collector : collectors) {
+                    if (merged == null) {
+                      merged = collector;
+                    } else {
+                      merged.merge(collector);
+                    }
+                  }
+                  return merged != null ? merged : newCollector();
+                }
+              });
+
+      for (LeafReaderContext leaf : leaves) {
+        FixedBitSet bits = leafBits[leaf.ord];
+        if (bits == null) {
+          continue;
+        }
+        DocIdSetIterator it = new BitSetIterator(bits, 0);
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+          fromBits.set(leaf.docBase + doc);
+        }
+      }
+      return graphResultCollector;
+    }
+
     private DocSet resolveLeafNodes() throws IOException {
       String field = collectSchemaField.getName();
       BooleanQuery.Builder leafNodeQuery = new BooleanQuery.Builder();
@@ -419,6 +498,28 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
     this.returnRoot = returnRoot;
   }
 
+  /**
+   * @return if true the query of each hop runs across the slices of the index in parallel.
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * @return The maximum number of distinct edge ids to traverse from a single hop, -1 for no limit.
+   */
+  public int getMaxFrontierTerms() {
+    return maxFrontierTerms;
+  }
+
+  public void setMaxFrontierTerms(int maxFrontierTerms) {
+    this.maxFrontierTerms = maxFrontierTerms;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
@@ -431,6 +532,8 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
     result = prime * result + Objects.hashCode(toField);
     result = prime * result + Objects.hashCode(traversalFilter);
     result = prime * result + (useAutn ? 1231 : 1237);
+    result = prime * result + (parallel ? 1231 : 1237);
+    result = prime * result + maxFrontierTerms;
     return result;
   }
 
@@ -445,6 +548,8 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
         && onlyLeafNodes == other.onlyLeafNodes
         && returnRoot == other.returnRoot
         && useAutn == other.useAutn
+        && parallel == other.parallel
+        && maxFrontierTerms == other.maxFrontierTerms
         && Objects.equals(q, other.q)
         && Objects.equals(toField, other.toField)
         && Objects.equals(traversalFilter, other.traversalFilter);
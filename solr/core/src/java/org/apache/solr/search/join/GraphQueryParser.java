@@ -58,6 +58,10 @@ public class GraphQueryParser extends QParser {
     // if true, an automaton will be compiled to issue the next graph hop
     // this avoid having a large number of boolean clauses. (and it's faster too!)
     boolean useAutn = localParams.getBool("useAutn", false);
+    // if true, the query of each hop runs across the index slices in parallel
+    boolean parallel = localParams.getBool("parallel", false);
+    // stop traversing at a hop with more distinct edge ids than this
+    int maxFrontierTerms = localParams.getInt("maxFrontierTerms", -1);
 
     // Construct a graph query object based on parameters passed in.
     GraphQuery gq = new GraphQuery(rootNodeQuery, fromField, toField, traversalFilter);
@@ -66,6 +70,8 @@ public class GraphQueryParser extends QParser {
     gq.setOnlyLeafNodes(onlyLeafNodes);
     gq.setReturnRoot(returnRootNodes);
     gq.setUseAutn(useAutn);
+    gq.setParallel(parallel);
+    gq.setMaxFrontierTerms(maxFrontierTerms);
     // return the parsed graph query.
     return gq;
   }
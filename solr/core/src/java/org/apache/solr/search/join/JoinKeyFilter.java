@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.StringHelper;
+
+/**
+ * A compact, approximate view of the terms of a field in an index, used by joins to rule out join
+ * keys before doing any term-level work. For each segment it holds the range of the field's terms
+ * and a Bloom filter of them. Segment filters are built on first use and kept in the {@link
+ * SegmentCache} of the core, so they are shared by all the searchers that see the segment.
+ *
+ * <p>{@link #mightContain(BytesRef)} has no false negatives: it returns false only for terms that
+ * are in no segment. Deletions are ignored, so it may return true for a term whose documents have
+ * all been deleted.
+ */
+public class JoinKeyFilter {
+
+  /** Bloom filter bits per term, which with {@link #NUM_HASHES} gives about 1% false positives. */
+  static final int BITS_PER_TERM = 10;
+
+  static final int NUM_HASHES = 4;
+
+  private static final int MAX_BITS = 1 << 30;
+
+  private final List<SegmentFilter> segments;
+  private final BytesRef min;
+  private final BytesRef max;
+
+  private JoinKeyFilter(List<SegmentFilter> segments) {
+    this.segments = segments;
+    BytesRef min = null;
+    BytesRef max = null;
+    for (SegmentFilter segment : segments) {
+      if (min == null || segment.min.compareTo(min) < 0) {
+        min = segment.min;
+      }
+      if (max == null || segment.max.compareTo(max) > 0) {
+        max = segment.max;
+      }
+    }
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * Returns the filter of the terms of {@code field} in {@code reader}, reusing the segment filters
+   * in {@code cache}, if not null.
+   */
+  public static JoinKeyFilter build(IndexReader reader, String field, SegmentCache cache)
+      throws IOException {
+    List<SegmentFilter> segments = new ArrayList<>();
+    for (LeafReaderContext ctx : reader.leaves()) {
+      SegmentFilter segment = getSegmentFilter(ctx.reader(), field, cache);
+      if (segment != null) {
+        segments.add(segment);
+      }
+    }
+    return new JoinKeyFilter(segments);
+  }
+
+  private static SegmentFilter getSegmentFilter(
+      LeafReader reader, String field, SegmentCache cache) throws IOException {
+    Terms terms = reader.terms(field);
+    if (terms == null) {
+      return null;
+    }
+    IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+    SegmentFilter segment =
+        cache == null || cacheHelper == null
+            ? SegmentFilter.build(terms)
+            : cache.get(cacheHelper.getKey(), field, terms);
+    return segment.isEmpty() ? null : segment;
+  }
+
+  /** True if the field has no terms at all. */
+  public boolean isEmpty() {
+    return segments.isEmpty();
+  }
+
+  /** The smallest term of the field, or null if it has none. */
+  public BytesRef getMin() {
+    return min;
+  }
+
+  /** The largest term of the field, or null if it has none. */
+  public BytesRef getMax() {
+    return max;
+  }
+
+  /** Returns false if {@code term} is definitely not a term of the field. */
+  public boolean mightContain(BytesRef term) {
+    if (isEmpty() || term.compareTo(min) < 0 || term.compareTo(max) > 0) {
+      return false;
+    }
+    int hash1 = StringHelper.murmurhash3_x86_32(term, 0);
+    int hash2 = StringHelper.murmurhash3_x86_32(term, hash1);
+    for (SegmentFilter segment : segments) {
+      if (segment.mightContain(term, hash1, hash2)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code term} if it is within the range of terms of some segment, otherwise the smallest
+   * term of the segments whose terms are all greater than {@code term}, or null if there is none.
+   * The terms in between can be skipped, as none of them is a term of the field.
+   */
+  public BytesRef seekTarget(BytesRef term) {
+    BytesRef target = null;
+    for (SegmentFilter segment : segments) {
+      if (segment.min.compareTo(term) > 0) {
+        if (target == null || segment.min.compareTo(target) < 0) {
+          target = segment.min;
+        }
+      } else if (segment.max.compareTo(term) >= 0) {
+        return term;
+      }
+    }
+    return target;
+  }
+
+  /**
+   * The filters of the segments of an index, held for as long as their segment is open, and
+   * evicted when they use more than a given amount of memory together.
+   */
+  public static class SegmentCache implements Accountable {
+
+    // the filters of each segment by field, replaced rather than changed so that they are weighed
+    // again whenever a filter is added
+    private final Cache<IndexReader.CacheKey, Map<String, SegmentFilter>> cache;
+
+    public SegmentCache(long maxRamBytes) {
+      cache =
+          Caffeine.newBuilder()
+              .weakKeys()
+              .maximumWeight(maxRamBytes)
+              .weigher(
+                  (IndexReader.CacheKey key, Map<String, SegmentFilter> fields) ->
+                      (int) Math.min(Integer.MAX_VALUE, ramBytesUsed(fields)))
+              .build();
+    }
+
+    SegmentFilter get(IndexReader.CacheKey key, String field, Terms terms) throws IOException {
+      Map<String, SegmentFilter> fields = cache.getIfPresent(key);
+      SegmentFilter segment = fields == null ? null : fields.get(field);
+      if (segment != null) {
+        return segment;
+      }
+      // two threads may both build the filter, which is harmless, and unlike computeIfAbsent()
+      // this doesn't block the threads that look up other fields of the segment meanwhile
+      SegmentFilter built = SegmentFilter.build(terms);
+      Map<String, SegmentFilter> merged =
+          cache
+              .asMap()
+              .merge(
+                  key,
+                  Map.of(field, built),
+                  (existing, added) -> {
+                    if (existing.containsKey(field)) {
+                      return existing;
+                    }
+                    Map<String, SegmentFilter> copy = new HashMap<>(existing);
+                    copy.put(field, built);
+                    return copy;
+                  });
+      return merged.get(field);
+    }
+
+    /** Number of segments that have filters in the cache. */
+    public long size() {
+      cache.cleanUp();
+      return cache.estimatedSize();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      long bytes = 0;
+      for (Map<String, SegmentFilter> fields : cache.asMap().values()) {
+        bytes += ramBytesUsed(fields);
+      }
+      return bytes;
+    }
+
+    private static long ramBytesUsed(Map<String, SegmentFilter> fields) {
+      long bytes = 0;
+      for (SegmentFilter segment : fields.values()) {
+        bytes += segment.ramBytesUsed();
+      }
+      return bytes;
+    }
+  }
+
+  private static class SegmentFilter implements Accountable {
+    private static final long BASE_RAM_BYTES_USED =
+        RamUsageEstimator.shallowSizeOfInstance(SegmentFilter.class);
+
+    final BytesRef min;
+    final BytesRef max;
+    final FixedBitSet bits;
+    final int mask;
+
+    private SegmentFilter(BytesRef min, BytesRef max, FixedBitSet bits) {
+      this.min = min;
+      this.max = max;
+      this.bits = bits;
+      this.mask = bits == null ? 0 : bits.length() - 1;
+    }
+
+    static SegmentFilter build(Terms terms) throws IOException {
+      BytesRef min = terms.getMin();
+      BytesRef max = terms.getMax();
+      if (min == null || max == null) {
+        return new SegmentFilter(null, null, null);
+      }
+      long size = terms.size();
+      if (size < 0) {
+        size = 0;
+        TermsEnum termsEnum = terms.iterator();
+        while (termsEnum.next() != null) {
+          size++;
+        }
+      }
+      // a power of two, so that the hashes can be masked
+      int numBits =
+          (int) Math.min(MAX_BITS, Long.highestOneBit(Math.max(64, size * BITS_PER_TERM - 1)) << 1);
+      FixedBitSet bits = new FixedBitSet(numBits);
+      int mask = numBits - 1;
+      TermsEnum termsEnum = terms.iterator();
+      for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+        int hash1 = StringHelper.murmurhash3_x86_32(term, 0);
+        int hash2 = StringHelper.murmurhash3_x86_32(term, hash1);
+        for (int i = 0; i < NUM_HASHES; i++) {
+          bits.set((hash1 + i * hash2) & mask);
+        }
+      }
+      return new SegmentFilter(BytesRef.deepCopyOf(min), BytesRef.deepCopyOf(max), bits);
+    }
+
+    boolean isEmpty() {
+      return bits == null;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED
+          + (bits == null ? 0 : bits.ramBytesUsed())
+          + (min == null ? 0 : RamUsageEstimator.sizeOf(min.bytes))
+          + (max == null ? 0 : RamUsageEstimator.sizeOf(max.bytes));
+    }
+
+    boolean mightContain(BytesRef term, int hash1, int hash2) {
+      if (term.compareTo(min) < 0 || term.compareTo(max) > 0) {
+        return false;
+      }
+      for (int i = 0; i < NUM_HASHES; i++) {
+        if (!bits.get((hash1 + i * hash2) & mask)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.QParser;
 import org.apache.solr.search.QueryParsing;
 import org.apache.solr.search.QueryUtils;
+import org.apache.solr.search.SolrIndexSearcher.ProcessedFilter;
 import org.apache.solr.search.SyntaxError;
 
 public abstract class AbstractVectorQParserBase extends QParser {
@@ -77,6 +78,17 @@ public abstract class AbstractVectorQParserBase extends QParser {
   }
 
   protected Query getFilterQuery() throws SolrException, SyntaxError {
+    final ProcessedFilter processedFilter = getProcessedFilter();
+    return processedFilter == null ? null : processedFilter.filter;
+  }
+
+  /**
+   * Returns the filters to apply to the vector search, or null if there are none. The {@link
+   * ProcessedFilter#answer} of the filters which all come from the filter cache is their complete
+   * {@link org.apache.solr.search.DocSet}, whose size is the number of documents the vector search
+   * can match.
+   */
+  protected ProcessedFilter getProcessedFilter() throws SolrException, SyntaxError {
 
     // Default behavior of FQ wrapping, and suitability of some local params
     // depends on whether we are a sub-query or not
@@ -146,7 +158,7 @@ public abstract class AbstractVectorQParserBase extends QParser {
         }
       }
       try {
-        return req.getSearcher().getProcessedFilter(preFilterQueries).filter;
+        return req.getSearcher().getProcessedFilter(preFilterQueries);
       } catch (IOException e) {
         throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
       }
@@ -176,7 +188,7 @@ public abstract class AbstractVectorQParserBase extends QParser {
         globalFQs.removeAll(QueryUtils.getTaggedQueries(req, excludedGlobalFQTags));
       }
 
-      return req.getSearcher().getProcessedFilter(globalFQs).filter;
+      return req.getSearcher().getProcessedFilter(globalFQs);
 
     } catch (IOException e) {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
@@ -16,6 +16,7 @@
  */
 package org.apache.solr.search.vector;
 
+import java.util.Arrays;
 import java.util.Optional;
 import org.apache.lucene.index.VectorEncoding;
 import org.apache.lucene.search.BooleanClause;
@@ -27,10 +28,12 @@ import org.apache.lucene.search.join.DiversifyingChildrenFloatKnnVectorQuery;
 import org.apache.lucene.search.join.ToChildBlockJoinQuery;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.schema.DenseVectorField;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.QParser;
+import org.apache.solr.search.SolrIndexSearcher.ProcessedFilter;
 import org.apache.solr.search.SyntaxError;
 import org.apache.solr.search.join.BlockJoinParentQParser;
 import org.apache.solr.util.vector.DenseVectorParser;
@@ -43,6 +46,43 @@ public class KnnQParser extends AbstractVectorQParserBase {
   protected static final String SEED_QUERY = "seedQuery";
   protected static final String FILTERED_SEARCH_THRESHOLD = "filteredSearchThreshold";
 
+  // search topK * oversample candidates, then rescore them with their full precision vectors
+  protected static final String OVERSAMPLE = "oversample";
+
+  // how to apply the filters: one of the FilterStrategy, or "auto" to choose by cost
+  protected static final String FILTER_STRATEGY = "filterStrategy";
+  protected static final String AUTO_FILTER_STRATEGY = "auto";
+  // with "auto", the filters matching at least this fraction of the documents are post filters
+  protected static final double POST_FILTER_MIN_SELECTIVITY = 0.9;
+
+  /** How the filters of the query are applied to the vector search */
+  public enum FilterStrategy {
+    /** The HNSW graph search skips the documents not matching the filters */
+    PRE_FILTER("preFilter"),
+    /** The similarity of every document matching the filters is computed */
+    EXACT("exact"),
+    /**
+     * The HNSW graph is searched without the filters for enough candidates that about topK match
+     * the filters, and the candidates not matching the filters are then removed
+     */
+    POST_FILTER("postFilter");
+
+    private final String param;
+
+    FilterStrategy(String param) {
+      this.param = param;
+    }
+
+    @Override
+    public String toString() {
+      return param;
+    }
+  }
+
+  // the strategy chosen by parse(), and the number of documents matching the filters or -1
+  private FilterStrategy filterStrategy;
+  private int filterCardinality = -1;
+
   // parameters for PatienceKnnVectorQuery, a version of knn vector query that exits early when HNSW
   // queue saturates over a {@code #saturationThreshold} for more than {@code #patience} times.
   protected static final String EARLY_TERMINATION = "earlyTermination";
@@ -128,7 +168,14 @@ public class KnnQParser extends AbstractVectorQParserBase {
           SolrException.ErrorCode.BAD_REQUEST,
           "efSearchScaleFactor (" + efSearchScaleFactor + ") must be >= 1.0");
     }
-    final int efSearch = (int) Math.round(efSearchScaleFactor * topK);
+
+    final Double oversample = localParams.getDouble(OVERSAMPLE);
+    if (oversample != null && (Double.isNaN(oversample) || oversample < 1.0)) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST, "oversample (" + oversample + ") must be >= 1.0");
+    }
+    final int numCandidates = oversample == null ? topK : (int) Math.round(oversample * topK);
+    final int efSearch = (int) Math.round(efSearchScaleFactor * numCandidates);
 
     final Integer filteredSearchThreshold = localParams.getInt(FILTERED_SEARCH_THRESHOLD);
 
@@ -138,6 +185,11 @@ public class KnnQParser extends AbstractVectorQParserBase {
 
     boolean isDiversifyingChildrenKnnQuery = null != parentsFilterQuery || null != allParentsQuery;
     if (isDiversifyingChildrenKnnQuery) {
+      if (oversample != null) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "'oversample' is not supported by diversifying children KNN queries");
+      }
       if (null == allParentsQuery) {
         throw new SolrException(
             SolrException.ErrorCode.BAD_REQUEST,
@@ -172,15 +224,159 @@ public class KnnQParser extends AbstractVectorQParserBase {
       }
     }
 
-    return denseVectorType.getKnnVectorQuery(
+    final ProcessedFilter filter = getProcessedFilter();
+    final Query filterQuery = filter == null ? null : filter.filter;
+    if (filter != null && filter.answer != null) {
+      filterCardinality = filter.answer.size();
+    }
+    filterStrategy = getFilterStrategy(denseVectorType, filterQuery, efSearch);
+    if (denseVectorType.getVectorEncoding() != VectorEncoding.FLOAT32) {
+      // the candidates are rescored with the float vectors
+      if (oversample != null) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "'oversample' is only supported by FLOAT32 vectors. Vector Encoding: "
+                + denseVectorType.getVectorEncoding());
+      }
+      if (filterStrategy != FilterStrategy.PRE_FILTER) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "The '"
+                + filterStrategy
+                + "' filter strategy is only supported by FLOAT32 vectors. Vector Encoding: "
+                + denseVectorType.getVectorEncoding());
+      }
+    }
+
+    final Query knnQuery;
+    switch (filterStrategy) {
+      case EXACT:
+        knnQuery = filterQuery;
+        break;
+      case POST_FILTER:
+        // enough candidates that numCandidates of them match the filters
+        final int numDocs = req.getSearcher().numDocs();
+        final double selectivity = (double) filterCardinality / Math.max(1, numDocs);
+        final int numPostFilterCandidates =
+            (int) Math.max(1, Math.min(numDocs, Math.ceil(numCandidates / selectivity)));
+        knnQuery =
+            new BooleanQuery.Builder()
+                .add(
+                    denseVectorType.getKnnVectorQuery(
+                        schemaField.getName(),
+                        vectorToSearch,
+                        numPostFilterCandidates,
+                        (int) Math.round(efSearchScaleFactor * numPostFilterCandidates),
+                        null,
+                        getSeedQuery(),
+                        getEarlyTerminationParams(),
+                        filteredSearchThreshold),
+                    BooleanClause.Occur.MUST)
+                .add(filterQuery, BooleanClause.Occur.FILTER)
+                .build();
+        break;
+      default:
+        knnQuery =
+            denseVectorType.getKnnVectorQuery(
+                schemaField.getName(),
+                vectorToSearch,
+                numCandidates,
+                efSearch,
+                filterQuery,
+                getSeedQuery(),
+                getEarlyTerminationParams(),
+                filteredSearchThreshold);
+        if (oversample == null) {
+          return knnQuery;
+        }
+    }
+    return new RescoreKnnVectorQuery(
         schemaField.getName(),
-        vectorToSearch,
+        denseVectorType
+            .getVectorBuilder(vectorToSearch, DenseVectorParser.BuilderPhase.QUERY)
+            .getFloatVector(),
         topK,
-        efSearch,
-        getFilterQuery(),
-        getSeedQuery(),
-        getEarlyTerminationParams(),
-        filteredSearchThreshold);
+        knnQuery);
+  }
+
+  /**
+   * Returns the strategy of the {@link #FILTER_STRATEGY} param. With "auto", the strategy is chosen
+   * from the number of documents matching the filters, when they all come from the filter cache:
+   *
+   * <ul>
+   *   <li>{@link FilterStrategy#EXACT} when it is less than the number of vectors a pre-filtered
+   *       HNSW search visits, which we estimate as <code>efSearch * log2(numDocs)</code> divided by
+   *       the fraction of the documents matching the filters, since the graph search traverses
+   *       the documents not matching the filters too,
+   *   <li>{@link FilterStrategy#POST_FILTER} when the filters match at least {@link
+   *       #POST_FILTER_MIN_SELECTIVITY} of the documents, so that few more candidates are needed,
+   *       and the filters needn't be checked during the graph search,
+   *   <li>{@link FilterStrategy#PRE_FILTER} otherwise, or when the number of documents matching
+   *       the filters is unknown.
+   * </ul>
+   */
+  private FilterStrategy getFilterStrategy(
+      DenseVectorField denseVectorType, Query filterQuery, int efSearch) {
+    final String param = localParams.get(FILTER_STRATEGY);
+    if (param == null) {
+      return FilterStrategy.PRE_FILTER;
+    }
+    FilterStrategy strategy = null;
+    for (FilterStrategy value : FilterStrategy.values()) {
+      if (value.toString().equals(param)) {
+        strategy = value;
+      }
+    }
+    if (strategy == null && !AUTO_FILTER_STRATEGY.equals(param)) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "Unknown "
+              + FILTER_STRATEGY
+              + ": "
+              + param
+              + ", expected one of "
+              + AUTO_FILTER_STRATEGY
+              + ", "
+              + Arrays.toString(FilterStrategy.values()));
+    }
+    if (filterQuery == null) {
+      return FilterStrategy.PRE_FILTER;
+    }
+    if (strategy == FilterStrategy.POST_FILTER && filterCardinality < 0) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "The '"
+              + strategy
+              + "' filter strategy requires filters which all come from the filter cache");
+    }
+    if (strategy != null) {
+      return strategy;
+    }
+
+    if (filterCardinality < 0 || denseVectorType.getVectorEncoding() != VectorEncoding.FLOAT32) {
+      return FilterStrategy.PRE_FILTER;
+    }
+    final int numDocs = req.getSearcher().numDocs();
+    final double selectivity = (double) filterCardinality / Math.max(1, numDocs);
+    final double log2NumDocs = Math.log(Math.max(2, numDocs)) / Math.log(2);
+    if (filterCardinality <= efSearch * log2NumDocs / selectivity) {
+      return FilterStrategy.EXACT;
+    }
+    if (selectivity >= POST_FILTER_MIN_SELECTIVITY) {
+      return FilterStrategy.POST_FILTER;
+    }
+    return FilterStrategy.PRE_FILTER;
+  }
+
+  @Override
+  public void addDebugInfo(NamedList<Object> debugInfo) {
+    super.addDebugInfo(debugInfo);
+    if (filterStrategy != null) {
+      debugInfo.add("knnFilterStrategy", filterStrategy.toString());
+      if (filterCardinality >= 0) {
+        debugInfo.add("knnFilterCardinality", filterCardinality);
+      }
+    }
   }
 
   private BooleanQuery getParentsFilter(String parentsFilterQuery) throws SyntaxError {
@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.vector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FloatVectorValues;
+import org.apache.lucene.index.KnnVectorValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.Weight;
+import org.apache.solr.util.SolrDefaultScorerSupplier;
+
+/**
+ * The second phase of a knn search with oversampling: the candidates matched by a knn query, which
+ * typically searches a quantized HNSW graph for more than <code>topK</code> vectors, are rescored
+ * with the exact similarity of their full precision vectors, and the <code>topK</code> best are
+ * kept. With the filters of the search as candidates, this is an exact search.
+ *
+ * <p>The full precision vectors are read from the {@link FloatVectorValues} of the field, which the
+ * quantized formats keep in their own file next to the quantized vectors, so that they are read
+ * from the memory-mapped index for the candidates only, rather than held on the heap.
+ */
+public class RescoreKnnVectorQuery extends Query {
+
+  private static final Comparator<ScoreDoc> BY_SCORE =
+      Comparator.<ScoreDoc>comparingDouble(scoreDoc -> -scoreDoc.score)
+          .thenComparingInt(scoreDoc -> scoreDoc.doc);
+
+  private final String field;
+  private final float[] target;
+  private final int topK;
+  private final Query candidatesQuery;
+
+  /**
+   * @param field the vector field
+   * @param target the vector to search
+   * @param topK the number of nearest neighbors to keep
+   * @param candidatesQuery the knn query matching the candidates to rescore
+   */
+  public RescoreKnnVectorQuery(String field, float[] target, int topK, Query candidatesQuery) {
+    this.field = Objects.requireNonNull(field);
+    this.target = Objects.requireNonNull(target);
+    this.topK = topK;
+    this.candidatesQuery = Objects.requireNonNull(candidatesQuery);
+  }
+
+  public Query getCandidatesQuery() {
+    return candidatesQuery;
+  }
+
+  public int getTopK() {
+    return topK;
+  }
+
+  @Override
+  public Query rewrite(IndexSearcher searcher) throws IOException {
+    final Weight weight =
+        searcher.createWeight(
+            searcher.rewrite(candidatesQuery), ScoreMode.COMPLETE_NO_SCORES, 1.0f);
+    final List<ScoreDoc> candidates = new ArrayList<>();
+    for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+      final Scorer scorer = weight.scorer(context);
+      final FieldInfo fieldInfo = context.reader().getFieldInfos().fieldInfo(field);
+      final FloatVectorValues vectorValues = context.reader().getFloatVectorValues(field);
+      if (scorer == null || fieldInfo == null || vectorValues == null) {
+        continue;
+      }
+      final KnnVectorValues.DocIndexIterator vectors = vectorValues.iterator();
+      final DocIdSetIterator iterator = scorer.iterator();
+      for (int doc = iterator.nextDoc();
+          doc != DocIdSetIterator.NO_MORE_DOCS;
+          doc = iterator.nextDoc()) {
+        if (vectors.docID() < doc) {
+          vectors.advance(doc);
+        }
+        if (vectors.docID() != doc) {
+          continue;
+        }
+        final float score =
+            fieldInfo
+                .getVectorSimilarityFunction()
+                .compare(target, vectorValues.vectorValue(vectors.index()));
+        candidates.add(new ScoreDoc(context.docBase + doc, score));
+      }
+    }
+
+    candidates.sort(BY_SCORE);
+    final List<ScoreDoc> topDocs = candidates.subList(0, Math.min(topK, candidates.size()));
+    topDocs.sort(Comparator.comparingInt(scoreDoc -> scoreDoc.doc));
+    final int[] docs = new int[topDocs.size()];
+    final float[] scores = new float[topDocs.size()];
+    for (int i = 0; i < docs.length; i++) {
+      docs[i] = topDocs.get(i).doc;
+      scores[i] = topDocs.get(i).score;
+    }
+    return new RescoredDocsQuery(
+        this, docs, scores, searcher.getIndexReader().getContext().id());
+  }
+
+  @Override
+  public void visit(QueryVisitor visitor) {
+    if (visitor.acceptField(field)) {
+      candidatesQuery.visit(visitor.getSubVisitor(BooleanClause.Occur.MUST, this));
+    }
+  }
+
+  @Override
+  public String toString(String field) {
+    return getClass().getSimpleName()
+        + "("
+        + candidatesQuery.toString(field)
+        + ")["
+        + topK
+        + "]";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return sameClassAs(obj) && equalsTo(getClass().cast(obj));
+  }
+
+  private boolean equalsTo(RescoreKnnVectorQuery other) {
+    return field.equals(other.field)
+        && Arrays.equals(target, other.target)
+        && topK == other.topK
+        && candidatesQuery.equals(other.candidatesQuery);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = classHash();
+    h = 31 * h + field.hashCode();
+    h = 31 * h + Arrays.hashCode(target);
+    h = 31 * h + Integer.hashCode(topK);
+    h = 31 * h + candidatesQuery.hashCode();
+    return h;
+  }
+
+  /** The rescored nearest neighbors of a reader, with their exact similarity as score */
+  private static class RescoredDocsQuery extends Query {
+    private final RescoreKnnVectorQuery query;
+    // the sorted doc ids in the reader, and their scores
+    private final int[] docs;
+    private final float[] scores;
+    // the reader the doc ids are from
+    private final Object contextIdentity;
+
+    RescoredDocsQuery(
+        RescoreKnnVectorQuery query, int[] docs, float[] scores, Object contextIdentity) {
+      this.query = query;
+      this.docs = docs;
+      this.scores = scores;
+      this.contextIdentity = contextIdentity;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost)
+        throws IOException {
+      if (searcher.getIndexReader().getContext().id() != contextIdentity) {
+        throw new IllegalStateException("This query was created for a different reader");
+      }
+      return new Weight(this) {
+        /** Returns the index of the first doc of the segment, or of the next segments */
+        private int first(LeafReaderContext context) {
+          final int index = Arrays.binarySearch(docs, context.docBase);
+          return index < 0 ? -1 - index : index;
+        }
+
+        private int last(LeafReaderContext context) {
+          final int index = Arrays.binarySearch(docs, context.docBase + context.reader().maxDoc());
+          return index < 0 ? -1 - index : index;
+        }
+
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) {
+          final int index = Arrays.binarySearch(docs, context.docBase + doc);
+          if (index < 0) {
+            return Explanation.noMatch("not in the top " + query.topK + " rescored vectors");
+          }
+          return Explanation.match(
+              scores[index] * boost,
+              "exact similarity of the full precision vector of " + query.field);
+        }
+
+        @Override
+        public ScorerSupplier scorerSupplier(LeafReaderContext context) {
+          final int first = first(context);
+          final int last = last(context);
+          if (first == last) {
+            return null;
+          }
+          float maxScore = Float.NEGATIVE_INFINITY;
+          for (int i = first; i < last; i++) {
+            maxScore = Math.max(maxScore, scores[i] * boost);
+          }
+          return new SolrDefaultScorerSupplier(
+              new RescoredDocsScorer(context.docBase, first, last, maxScore, boost));
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+          return true;
+        }
+      };
+    }
+
+    /** Iterates over the rescored docs of a segment */
+    private class RescoredDocsScorer extends Scorer {
+      private final int docBase;
+      private final int first;
+      private final int last;
+      private final float maxScore;
+      private final float boost;
+      private int index;
+
+      RescoredDocsScorer(int docBase, int first, int last, float maxScore, float boost) {
+        this.docBase = docBase;
+        this.first = first;
+        this.last = last;
+        this.maxScore = maxScore;
+        this.boost = boost;
+        this.index = first - 1;
+      }
+
+      @Override
+      public int docID() {
+        if (index < first) {
+          return -1;
+        } else if (index >= last) {
+          return DocIdSetIterator.NO_MORE_DOCS;
+        }
+        return docs[index] - docBase;
+      }
+
+      @Override
+      public DocIdSetIterator iterator() {
+        return new DocIdSetIterator() {
+          @Override
+          public int docID() {
+            return RescoredDocsScorer.this.docID();
+          }
+
+          @Override
+          public int nextDoc() {
+            index++;
+            return docID();
+          }
+
+          @Override
+          public int advance(int target) throws IOException {
+            return slowAdvance(target);
+          }
+
+          @Override
+          public long cost() {
+            return last - first;
+          }
+        };
+      }
+
+      @Override
+      public float getMaxScore(int upTo) {
+        return maxScore;
+      }
+
+      @Override
+      public float score() {
+        return scores[index] * boost;
+      }
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+      visitor.visitLeaf(this);
+    }
+
+    @Override
+    public String toString(String field) {
+      return "RescoredDocs(" + query.toString(field) + ")";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return sameClassAs(obj) && equalsTo(getClass().cast(obj));
+    }
+
+    private boolean equalsTo(RescoredDocsQuery other) {
+      return contextIdentity == other.contextIdentity
+          && Arrays.equals(docs, other.docs)
+          && Arrays.equals(scores, other.scores);
+    }
+
+    @Override
+    public int hashCode() {
+      int h = classHash();
+      h = 31 * h + System.identityHashCode(contextIdentity);
+      h = 31 * h + Arrays.hashCode(docs);
+      h = 31 * h + Arrays.hashCode(scores);
+      return h;
+    }
+  }
+}
@@ -71,6 +71,7 @@ import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.CommandOperation;
 import org.apache.solr.common.util.ContentStream;
+import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.JsonSchemaValidator;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
@@ -125,6 +126,7 @@ public class HttpSolrCall {
   protected SolrCore core = null;
   protected SolrQueryRequest solrReq = null;
   private boolean mustClearSolrRequestInfo = false;
+  private RequestRateLimiter.SlotReservation tenantReservation = null;
   protected SolrRequestHandler handler = null;
   protected SolrParams queryParams;
   protected String path;
@@ -467,6 +469,9 @@ public class HttpSolrCall {
           sendRemoteProxy();
           return RETURN;
         case PROCESS:
+          if (!schedule()) {
+            return RETURN;
+          }
           final Method reqMethod = Method.getMethod(req.getMethod());
           HttpCacheHeaderUtil.setCacheControlHeader(config, resp, reqMethod);
           // unless we have been explicitly told not to, do cache validation
@@ -534,6 +539,31 @@ public class HttpSolrCall {
     }
   }
 
+  /**
+   * Waits for the {@link TenantRequestScheduler}, if {@link RateLimitFilter} has one, to admit the
+   * request. Sends an error and returns false if the request is rejected.
+   */
+  private boolean schedule() throws IOException {
+    TenantRequestScheduler scheduler =
+        (TenantRequestScheduler) req.getAttribute(TenantRequestScheduler.class.getName());
+    if (scheduler == null) {
+      return true;
+    }
+    try {
+      tenantReservation =
+          scheduler.handleRequest(
+              req, solrReq.getParams(), cores.getAuthenticationPlugin() != null);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(ErrorCode.SERVER_ERROR, e.getMessage());
+    }
+    if (tenantReservation == null) {
+      sendError(ErrorCode.TOO_MANY_REQUESTS.code, TenantRequestScheduler.ERROR_MESSAGE);
+      return false;
+    }
+    return true;
+  }
+
   /**
    * Handle a request whose "type" could not be discerned in advance and may be either "admin" or
    * "remoteproxy".
@@ -614,6 +644,7 @@ public class HttpSolrCall {
 
   void destroy() {
     try {
+      IOUtils.closeQuietly(tenantReservation);
       if (solrReq != null) {
         log.debug("Closing out SolrRequest: {}", solrReq);
         solrReq.close();
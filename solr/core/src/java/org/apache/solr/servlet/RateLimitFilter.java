@@ -25,9 +25,12 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.apache.solr.metrics.SolrMetricsContext;
 
 public class RateLimitFilter extends CoreContainerAwareHttpFilter {
   private RateLimitManager rateLimitManager;
+  private TenantRequestScheduler tenantScheduler;
 
   @Override
   public void init(FilterConfig config) throws ServletException {
@@ -35,6 +38,11 @@ public class RateLimitFilter extends CoreContainerAwareHttpFilter {
     RateLimitManager.Builder builder = new RateLimitManager.Builder();
     builder.withZk(getCores().getZkController());
     this.rateLimitManager = builder.build();
+    this.tenantScheduler = TenantRequestScheduler.fromSystemProperties();
+    if (tenantScheduler != null) {
+      tenantScheduler.initializeMetrics(
+          new SolrMetricsContext(getCores().getMetricManager(), SolrMetricManager.NODE_REGISTRY));
+    }
   }
 
   @Override
@@ -47,6 +55,10 @@ public class RateLimitFilter extends CoreContainerAwareHttpFilter {
             SolrException.ErrorCode.TOO_MANY_REQUESTS.code, RateLimitManager.ERROR_MESSAGE);
         return;
       }
+      if (tenantScheduler != null) {
+        // scheduled by HttpSolrCall, once the parameters of the request are parsed
+        req.setAttribute(TenantRequestScheduler.class.getName(), tenantScheduler);
+      }
       chain.doFilter(req, res);
     } catch (InterruptedException e1) {
       Thread.currentThread().interrupt();
@@ -58,6 +70,15 @@ public class RateLimitFilter extends CoreContainerAwareHttpFilter {
     return rateLimitManager;
   }
 
+  public TenantRequestScheduler getTenantScheduler() {
+    return tenantScheduler;
+  }
+
+  @VisibleForTesting
+  void setTenantScheduler(TenantRequestScheduler tenantScheduler) {
+    this.tenantScheduler = tenantScheduler;
+  }
+
   @VisibleForTesting
   void setRateLimitManager(RateLimitManager rateLimitManager) {
     this.rateLimitManager = rateLimitManager;
@@ -0,0 +1,491 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.servlet;
+
+import static org.apache.solr.common.params.CommonParams.SOLR_REQUEST_CONTEXT_PARAM;
+import static org.apache.solr.common.params.CommonParams.SOLR_REQUEST_TYPE_PARAM;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.EnvUtils;
+import org.apache.solr.core.RateLimiterConfig;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.apache.solr.metrics.otel.OtelUnit;
+import org.apache.solr.security.PKIAuthenticationPlugin;
+import org.apache.solr.util.ThreadCpuTimer;
+
+/**
+ * Schedules the requests to collections so that one busy tenant cannot take all the request slots
+ * of a node. The tenant of a request is the value of its {@value #TENANT_HEADER} header, if it is
+ * one of the tenants listed in {@value #WEIGHTS_PROP}, or else the collection (or core) it is sent
+ * to.
+ *
+ * <p>At most {@value #MAX_CONCURRENT_PROP} requests run at a time, and at most {@value
+ * #MAX_CONCURRENT_PER_TENANT_PROP} of them for the same tenant. The others wait in a queue per
+ * tenant and are admitted in weighted-fair order: each tenant is charged the CPU time (wall clock
+ * time if thread CPU time is not supported) of its requests divided by its weight, and a freed
+ * slot goes to the waiting tenant that has been charged the least. Requests in a higher {@link
+ * Priority} lane, chosen with the {@value #PRIORITY_HEADER} header, are always admitted first. A
+ * request that waits longer than {@value #MAX_QUEUE_TIME_PROP} milliseconds is rejected.
+ *
+ * <p>Internal requests between Solr nodes are never queued, as a distributed request could
+ * otherwise wait for its own shard requests. {@link HttpSolrCall} schedules the requests once it
+ * has parsed their parameters, which tell the shard requests apart.
+ *
+ * <p>Disabled unless the {@value #ENABLED_PROP} system property is set to true.
+ */
+@ThreadSafe
+public class TenantRequestScheduler {
+
+  public static final String ENABLED_PROP = "solr.scheduler.tenants.enabled";
+  public static final String MAX_CONCURRENT_PROP = "solr.scheduler.tenants.maxConcurrentRequests";
+  public static final String MAX_CONCURRENT_PER_TENANT_PROP =
+      "solr.scheduler.tenants.maxConcurrentRequestsPerTenant";
+  public static final String MAX_QUEUE_TIME_PROP = "solr.scheduler.tenants.maxQueueTimeMs";
+
+  /** Comma separated {@code tenant:weight} pairs; tenants that are not listed have weight 1. */
+  public static final String WEIGHTS_PROP = "solr.scheduler.tenants.weights";
+
+  public static final String TENANT_HEADER = "Solr-Tenant";
+  public static final String PRIORITY_HEADER = "Solr-Request-Priority";
+
+  public static final String ERROR_MESSAGE =
+      "Too many requests for this tenant. Please try after some time or increase the quota for this tenant";
+
+  // handlers that only search, used for requests that do not tell their type
+  private static final Set<String> QUERY_HANDLERS =
+      Set.of(
+          "select", "query", "get", "export", "graph", "sql", "stream", "terms", "suggest",
+          "spell", "tvrh");
+
+  private static final AttributeKey<String> TENANT_ATTR = AttributeKey.stringKey("tenant");
+  private static final AttributeKey<String> PRIORITY_ATTR = AttributeKey.stringKey("priority");
+
+  /** Admission lanes; requests in a lane are admitted before any request of the lanes below it. */
+  public enum Priority {
+    HIGH,
+    NORMAL,
+    LOW
+  }
+
+  private final int maxConcurrent;
+  private final int maxConcurrentPerTenant;
+  private final long maxQueueTimeNanos;
+  private final Map<String, Integer> weights;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  // guarded by lock; tenants are removed once they have no running or waiting requests
+  private final Map<String, Tenant> tenants = new HashMap<>();
+  private int running;
+  private double virtualClock;
+
+  private LongHistogram queueTime;
+  private LongCounter cpuTime;
+  private LongCounter rejected;
+
+  public TenantRequestScheduler(
+      int maxConcurrent,
+      int maxConcurrentPerTenant,
+      long maxQueueTimeMs,
+      Map<String, Integer> weights) {
+    if (maxConcurrent <= 0 || maxConcurrentPerTenant <= 0) {
+      throw new IllegalArgumentException("Request limits must be positive");
+    }
+    this.maxConcurrent = maxConcurrent;
+    this.maxConcurrentPerTenant = Math.min(maxConcurrent, maxConcurrentPerTenant);
+    this.maxQueueTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueTimeMs);
+    this.weights = Map.copyOf(weights);
+  }
+
+  /** Returns a scheduler configured from system properties, or null if it is disabled. */
+  public static TenantRequestScheduler fromSystemProperties() {
+    if (!EnvUtils.getPropertyAsBool(ENABLED_PROP, false)) {
+      return null;
+    }
+    int maxConcurrent =
+        EnvUtils.getPropertyAsInteger(
+            MAX_CONCURRENT_PROP, RateLimiterConfig.DEFAULT_CONCURRENT_REQUESTS);
+    return new TenantRequestScheduler(
+        maxConcurrent,
+        EnvUtils.getPropertyAsInteger(MAX_CONCURRENT_PER_TENANT_PROP, maxConcurrent),
+        EnvUtils.getPropertyAsLong(MAX_QUEUE_TIME_PROP, 30000L),
+        parseWeights(EnvUtils.getProperty(WEIGHTS_PROP)));
+  }
+
+  static Map<String, Integer> parseWeights(String spec) {
+    Map<String, Integer> weights = new HashMap<>();
+    if (spec == null || spec.isBlank()) {
+      return weights;
+    }
+    for (String pair : spec.split(",")) {
+      int idx = pair.lastIndexOf(':');
+      try {
+        int weight = idx <= 0 ? -1 : Integer.parseInt(pair.substring(idx + 1).trim());
+        if (weight <= 0) {
+          throw new NumberFormatException();
+        }
+        weights.put(pair.substring(0, idx).trim(), weight);
+      } catch (NumberFormatException e) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            "Invalid tenant weight '" + pair + "' in " + WEIGHTS_PROP);
+      }
+    }
+    return weights;
+  }
+
+  public void initializeMetrics(SolrMetricsContext solrMetricsContext) {
+    queueTime =
+        solrMetricsContext.longHistogram(
+            "solr_node_tenant_queue_time",
+            "Time requests waited to be scheduled, per tenant",
+            OtelUnit.MILLISECONDS);
+    cpuTime =
+        solrMetricsContext.longCounter(
+            "solr_node_tenant_cpu_time",
+            "CPU time used by scheduled requests, per tenant",
+            OtelUnit.NANOSECONDS);
+    rejected =
+        solrMetricsContext.longCounter(
+            "solr_node_tenant_rejected_requests",
+            "Requests rejected after waiting too long to be scheduled, per tenant");
+  }
+
+  /**
+   * Schedules a request, waiting until it may run. Returns a reservation that must be closed when
+   * the request is done, or null if the request should be rejected.
+   *
+   * @param params the parameters of the request, including those sent in a form body
+   * @param authenticated whether an authentication plugin has checked the request, and thus the
+   *     PKI header of the requests between nodes
+   */
+  public RequestRateLimiter.SlotReservation handleRequest(
+      HttpServletRequest request, SolrParams params, boolean authenticated)
+      throws InterruptedException {
+    String typeOfRequest = request.getHeader(SOLR_REQUEST_TYPE_PARAM);
+    if (isInternalRequest(request, params, authenticated)
+        || !isQuery(typeOfRequest, ServletUtils.getPathAfterContext(request))) {
+      return RequestRateLimiter.UNLIMITED;
+    }
+    String tenant = getTenant(request);
+    if (tenant == null) {
+      return RequestRateLimiter.UNLIMITED;
+    }
+    return acquire(tenant, getPriority(request));
+  }
+
+  /**
+   * Whether a request is sent by another Solr node. The shard requests of a distributed search send
+   * {@value ShardParams#IS_SHARD} in their form body, so the parameters must have been parsed.
+   */
+  static boolean isInternalRequest(
+      HttpServletRequest request, SolrParams params, boolean authenticated) {
+    if (params.getBool(ShardParams.IS_SHARD, false)
+        || SolrRequest.SolrClientContext.SERVER
+            .toString()
+            .equals(request.getHeader(SOLR_REQUEST_CONTEXT_PARAM))) {
+      return true;
+    }
+    // without an authentication plugin, nothing checks that a PKI header is genuine
+    return authenticated
+        && (request.getHeader(PKIAuthenticationPlugin.HEADER) != null
+            || request.getHeader(PKIAuthenticationPlugin.HEADER_V2) != null);
+  }
+
+  /**
+   * Whether a request is a search. Clients that do not send the request type header are classified
+   * by the handler the request is sent to, so that e.g. their updates are never queued.
+   */
+  static boolean isQuery(String typeOfRequest, String path) {
+    if (typeOfRequest != null) {
+      return SolrRequest.SolrRequestType.QUERY.toString().equals(typeOfRequest);
+    }
+    String handler = getHandler(path);
+    return handler != null && QUERY_HANDLERS.contains(handler);
+  }
+
+  /**
+   * Returns the tenant of a request: the value of its {@value #TENANT_HEADER} header if it is one
+   * of the tenants given a weight, or else the collection the request is sent to. Other header
+   * values are ignored, as a client could otherwise get a fresh quota with each new tenant name.
+   */
+  String getTenant(HttpServletRequest request) {
+    String tenant = request.getHeader(TENANT_HEADER);
+    if (tenant != null && weights.containsKey(tenant.trim())) {
+      return tenant.trim();
+    }
+    return getCollection(ServletUtils.getPathAfterContext(request));
+  }
+
+  /** Returns the collection or core a request path is sent to, or null if there is none. */
+  static String getCollection(String path) {
+    if (path == null) {
+      return null;
+    }
+    String[] parts = path.split("/");
+    // parts[0] is the empty string before the leading '/'
+    int idx = 1;
+    if (parts.length > 3
+        && "api".equals(parts[1])
+        && ("collections".equals(parts[2]) || "c".equals(parts[2]) || "cores".equals(parts[2]))) {
+      idx = 3;
+    } else if (parts.length < 3 || "admin".equals(parts[1]) || "api".equals(parts[1])) {
+      // not a request to a handler of a collection
+      return null;
+    }
+    return parts[idx].isEmpty() ? null : parts[idx];
+  }
+
+  /**
+   * Returns the first path segment of the handler a request to a collection or core is sent to, or
+   * null if there is none.
+   */
+  static String getHandler(String path) {
+    String collection = getCollection(path);
+    if (collection == null) {
+      return null;
+    }
+    String[] parts = path.split("/");
+    int idx = "api".equals(parts[1]) ? 4 : 2;
+    return idx < parts.length && !parts[idx].isEmpty() ? parts[idx] : null;
+  }
+
+  static Priority getPriority(HttpServletRequest request) {
+    String priority = request.getHeader(PRIORITY_HEADER);
+    if (priority == null) {
+      return Priority.NORMAL;
+    }
+    try {
+      return Priority.valueOf(priority.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return Priority.NORMAL;
+    }
+  }
+
+  /**
+   * Waits until a request of {@code tenantName} may run. Returns a reservation that must be closed
+   * when the request is done, or null if it waited longer than the maximum queue time.
+   */
+  public RequestRateLimiter.SlotReservation acquire(String tenantName, Priority priority)
+      throws InterruptedException {
+    long start = System.nanoTime();
+    Waiter waiter;
+    lock.lock();
+    try {
+      Tenant tenant = tenants.computeIfAbsent(tenantName, this::newTenant);
+      waiter = new Waiter(tenant, lock.newCondition());
+      tenant.queues[priority.ordinal()].add(waiter);
+      tenant.waiting++;
+      dispatch();
+      long remaining = maxQueueTimeNanos - (System.nanoTime() - start);
+      while (!waiter.granted) {
+        if (remaining <= 0) {
+          dequeue(waiter, priority);
+          if (rejected != null) {
+            rejected.add(1L, Attributes.of(TENANT_ATTR, tenantName));
+          }
+          return null;
+        }
+        try {
+          remaining = waiter.condition.awaitNanos(remaining);
+        } catch (InterruptedException e) {
+          if (waiter.granted) {
+            release(tenant, 0L);
+          } else {
+            dequeue(waiter, priority);
+          }
+          throw e;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (queueTime != null) {
+      queueTime.record(
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+          Attributes.of(TENANT_ATTR, tenantName, PRIORITY_ATTR, priority.name()));
+    }
+    return new TenantReservation(waiter.tenant);
+  }
+
+  private Tenant newTenant(String name) {
+    // a tenant that (re)starts sending requests competes from the current virtual time on, rather
+    // than with the credit it would have built up while idle
+    return new Tenant(name, weights.getOrDefault(name, 1), virtualClock);
+  }
+
+  // called with the lock held
+  private void dequeue(Waiter waiter, Priority priority) {
+    Tenant tenant = waiter.tenant;
+    tenant.queues[priority.ordinal()].remove(waiter);
+    tenant.waiting--;
+    removeIfIdle(tenant);
+  }
+
+  // called with the lock held
+  private void release(Tenant tenant, long cost) {
+    tenant.running--;
+    running--;
+    tenant.virtualTime += (double) cost / tenant.weight;
+    dispatch();
+    removeIfIdle(tenant);
+  }
+
+  // called with the lock held
+  private void removeIfIdle(Tenant tenant) {
+    if (tenant.running == 0 && tenant.waiting == 0) {
+      tenants.remove(tenant.name, tenant);
+    }
+  }
+
+  // called with the lock held; admits waiting requests while there are free slots
+  private void dispatch() {
+    while (running < maxConcurrent) {
+      Waiter next = null;
+      for (Priority priority : Priority.values()) {
+        Tenant best = null;
+        for (Tenant tenant : tenants.values()) {
+          if (tenant.running < maxConcurrentPerTenant
+              && !tenant.queues[priority.ordinal()].isEmpty()
+              && (best == null || tenant.virtualTime < best.virtualTime)) {
+            best = tenant;
+          }
+        }
+        if (best != null) {
+          next = best.queues[priority.ordinal()].poll();
+          break;
+        }
+      }
+      if (next == null) {
+        return;
+      }
+      Tenant tenant = next.tenant;
+      tenant.waiting--;
+      tenant.running++;
+      running++;
+      virtualClock = Math.max(virtualClock, tenant.virtualTime);
+      next.granted = true;
+      next.condition.signal();
+    }
+  }
+
+  /** Number of requests that are currently running. */
+  public int getRunning() {
+    lock.lock();
+    try {
+      return running;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Number of requests that are currently waiting to be scheduled. */
+  public int getWaiting() {
+    lock.lock();
+    try {
+      int waiting = 0;
+      for (Tenant tenant : tenants.values()) {
+        waiting += tenant.waiting;
+      }
+      return waiting;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static class Tenant {
+    final String name;
+    final int weight;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    final ArrayDeque<Waiter>[] queues = new ArrayDeque[Priority.values().length];
+
+    int running;
+    int waiting;
+    // cost charged to this tenant so far, divided by its weight
+    double virtualTime;
+
+    Tenant(String name, int weight, double virtualTime) {
+      this.name = name;
+      this.weight = weight;
+      this.virtualTime = virtualTime;
+      for (int i = 0; i < queues.length; i++) {
+        queues[i] = new ArrayDeque<>();
+      }
+    }
+  }
+
+  private static class Waiter {
+    final Tenant tenant;
+    final Condition condition;
+    boolean granted;
+
+    Waiter(Tenant tenant, Condition condition) {
+      this.tenant = tenant;
+      this.condition = condition;
+    }
+  }
+
+  private class TenantReservation implements RequestRateLimiter.SlotReservation {
+    private final Tenant tenant;
+    private final long startNanos = System.nanoTime();
+    private final long startCpuNanos = ThreadCpuTimer.readCurrentThreadNS().orElse(-1L);
+    private boolean closed;
+
+    TenantReservation(Tenant tenant) {
+      this.tenant = tenant;
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      // the reservation is closed on the thread that ran the request
+      long cost =
+          startCpuNanos < 0
+              ? System.nanoTime() - startNanos
+              : ThreadCpuTimer.readCurrentThreadNS().orElse(startCpuNanos) - startCpuNanos;
+      if (cpuTime != null && startCpuNanos >= 0) {
+        cpuTime.add(Math.max(0L, cost), Attributes.of(TENANT_ATTR, tenant.name));
+      }
+      lock.lock();
+      try {
+        release(tenant, Math.max(0L, cost));
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Query;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.CursorMarkParams;
 import org.apache.solr.common.params.DisMaxParams;
@@ -36,13 +37,30 @@ import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.handler.component.QueryComponent;
 import org.apache.solr.handler.component.ResponseBuilder;
 import org.apache.solr.handler.component.SearchComponent;
+import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.search.DocSet;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.QParserPlugin;
 import org.apache.solr.search.QueryLimits;
+import org.apache.solr.search.QueryParsing;
+import org.apache.solr.search.QueryUtils;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.SyntaxError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class SpellCheckCollator {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * Name of an optional user cache, declared in solrconfig.xml, holding the number of hits of the
+   * collations tested against the index, so that recurring misspellings don't re-run the same
+   * queries until the next searcher is opened.
+   */
+  public static final String COLLATION_CACHE = "spellcheckCollationCache";
+
   private int maxCollations = 1;
   private int maxCollationTries = 0;
   private int maxCollationEvaluations = 10000;
@@ -84,6 +102,12 @@ public class SpellCheckCollator {
       maxDocId = reader.maxDoc();
     }
     QueryLimits queryLimits = QueryLimits.getCurrentLimits();
+    SolrIndexSearcher searcher = ultimateResponse.req.getSearcher();
+    @SuppressWarnings("unchecked")
+    SolrCache<CollationCacheKey, Long> collationCache = searcher.getCache(COLLATION_CACHE);
+    // with exact hit counts, the filters are intersected once and the collations are counted
+    // against that set, rather than searched one by one
+    DocSet filterDocSet = null;
 
     int tryNo = 0;
     int collNo = 0;
@@ -147,35 +171,57 @@ public class SpellCheckCollator {
         params.remove("expand");
 
         // creating a request here... make sure to close it!
-        ResponseBuilder checkResponse =
-            new ResponseBuilder(
-                ultimateResponse.req.subRequest(params),
-                new SolrQueryResponse(),
-                Arrays.asList(queryComponent));
-        checkResponse.setQparser(ultimateResponse.getQparser());
-        checkResponse.setFilters(ultimateResponse.getFilters());
-        checkResponse.setQueryString(collationQueryStr);
-        checkResponse.components = Arrays.asList(queryComponent);
-        checkResponse.rsp.addResponseHeader(new SimpleOrderedMap<>());
-
+        SolrQueryRequest checkRequest = ultimateResponse.req.subRequest(params);
+        CollationCacheKey cacheKey =
+            collationCache == null
+                ? null
+                : new CollationCacheKey(params.toString(), ultimateResponse.getFilters());
+        Long cachedHits = cacheKey == null ? null : collationCache.get(cacheKey);
         try {
-          queryComponent.prepare(checkResponse);
-          queryComponent.process(checkResponse);
-          hits =
-              ((Number)
-                      checkResponse
-                          .rsp
-                          .getResponseHeader()
-                          .getOrDefault(
-                              SolrQueryResponse.RESPONSE_HEADER_APPROXIMATE_TOTAL_HITS_KEY,
-                              checkResponse.rsp.getToLog().get("hits")))
-                  .longValue();
+          if (cachedHits != null) {
+            hits = cachedHits;
+          } else if (docCollectionLimit == 0) {
+            if (filterDocSet == null) {
+              filterDocSet = searcher.getDocSet(getFilters(checkRequest, ultimateResponse));
+            }
+            String defType = params.get(QueryParsing.DEFTYPE, QParserPlugin.DEFAULT_QTYPE);
+            Query query = QParser.getParser(collationQueryStr, defType, checkRequest).getQuery();
+            hits = query == null ? 0 : searcher.numDocs(query, filterDocSet);
+            if (cacheKey != null) {
+              collationCache.put(cacheKey, hits);
+            }
+          } else {
+            ResponseBuilder checkResponse =
+                new ResponseBuilder(
+                    checkRequest, new SolrQueryResponse(), Arrays.asList(queryComponent));
+            checkResponse.setQparser(ultimateResponse.getQparser());
+            checkResponse.setFilters(ultimateResponse.getFilters());
+            checkResponse.setQueryString(collationQueryStr);
+            checkResponse.components = Arrays.asList(queryComponent);
+            checkResponse.rsp.addResponseHeader(new SimpleOrderedMap<>());
+
+            queryComponent.prepare(checkResponse);
+            queryComponent.process(checkResponse);
+            hits =
+                ((Number)
+                        checkResponse
+                            .rsp
+                            .getResponseHeader()
+                            .getOrDefault(
+                                SolrQueryResponse.RESPONSE_HEADER_APPROXIMATE_TOTAL_HITS_KEY,
+                                checkResponse.rsp.getToLog().get("hits")))
+                    .longValue();
+            if (cacheKey != null
+                && !SolrQueryResponse.isPartialResults(checkResponse.rsp.getResponseHeader())) {
+              collationCache.put(cacheKey, hits);
+            }
+          }
         } catch (Exception e) {
           log.warn(
               "Exception trying to re-query to check if a spell check possibility would return any hits.",
               e);
         } finally {
-          checkResponse.req.close();
+          checkRequest.close();
         }
       }
       if (hits > 0 || !verifyCandidateWithQuery) {
@@ -205,6 +251,27 @@ public class SpellCheckCollator {
     return collations;
   }
 
+  /**
+   * Returns the filters of the request, along with the filter queries of the collation check
+   * request, as {@link QueryComponent} would.
+   */
+  private static List<Query> getFilters(SolrQueryRequest checkRequest, ResponseBuilder rb)
+      throws SyntaxError {
+    List<Query> filters = new ArrayList<>();
+    if (rb.getFilters() != null) {
+      filters.addAll(rb.getFilters());
+    }
+    filters.addAll(QueryUtils.parseFilterQueries(checkRequest));
+    return filters;
+  }
+
+  /** The parameters and filters of a collation check, which determine its number of hits. */
+  private record CollationCacheKey(String params, List<Query> filters) {
+    CollationCacheKey {
+      filters = filters == null ? List.of() : List.copyOf(filters);
+    }
+  }
+
   private String getCollation(String origQuery, List<SpellCheckCorrection> corrections) {
     StringBuilder collation = new StringBuilder(origQuery);
     int offset = 0;
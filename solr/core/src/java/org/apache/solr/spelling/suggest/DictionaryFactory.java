@@ -17,6 +17,7 @@
 package org.apache.solr.spelling.suggest;
 
 import java.io.IOException;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.search.spell.Dictionary;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrCore;
@@ -43,4 +44,25 @@ public abstract class DictionaryFactory {
    * </code>, in case of index based dictionaries
    */
   public abstract Dictionary create(SolrCore core, SolrIndexSearcher searcher) throws IOException;
+
+  /**
+   * Whether {@link #create(SolrCore, SolrIndexSearcher, LeafReader)} is supported, which is
+   * required by suggesters that are built per segment. This is only possible for dictionaries
+   * whose entries each come from a single document.
+   */
+  public boolean supportsPerSegment() {
+    return false;
+  }
+
+  /**
+   * Create a Dictionary of the live documents of <code>segment</code> only, a segment of <code>
+   * searcher</code>, for suggesters that are built per segment. The default implementation throws
+   * an {@link UnsupportedOperationException}, sub classes that override it must also override
+   * {@link #supportsPerSegment()}.
+   */
+  public Dictionary create(SolrCore core, SolrIndexSearcher searcher, LeafReader segment)
+      throws IOException {
+    throw new UnsupportedOperationException(
+        getClass().getSimpleName() + " can't create a dictionary per segment");
+  }
 }
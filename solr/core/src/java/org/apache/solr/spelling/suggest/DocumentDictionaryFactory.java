@@ -17,6 +17,8 @@
 package org.apache.solr.spelling.suggest;
 
 import java.io.IOException;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.search.spell.Dictionary;
 import org.apache.lucene.search.suggest.DocumentDictionary;
 import org.apache.solr.core.SolrCore;
@@ -35,6 +37,20 @@ public class DocumentDictionaryFactory extends DictionaryFactory {
 
   @Override
   public Dictionary create(SolrCore core, SolrIndexSearcher searcher) throws IOException {
+    return create(searcher.getIndexReader());
+  }
+
+  @Override
+  public boolean supportsPerSegment() {
+    return true;
+  }
+
+  @Override
+  public Dictionary create(SolrCore core, SolrIndexSearcher searcher, LeafReader segment) {
+    return create(segment);
+  }
+
+  private Dictionary create(IndexReader reader) {
     if (params == null) {
       // should not happen; implies setParams was not called
       throw new IllegalStateException("Value of params not set");
@@ -48,7 +64,6 @@ public class DocumentDictionaryFactory extends DictionaryFactory {
       throw new IllegalArgumentException(FIELD + " is a mandatory parameter");
     }
 
-    return new DocumentDictionary(
-        searcher.getIndexReader(), field, weightField, payloadField, contextField);
+    return new DocumentDictionary(reader, field, weightField, payloadField, contextField);
   }
 }
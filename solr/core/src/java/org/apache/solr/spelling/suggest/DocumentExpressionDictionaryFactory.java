@@ -23,6 +23,8 @@ import java.util.Set;
 import org.apache.lucene.expressions.Expression;
 import org.apache.lucene.expressions.SimpleBindings;
 import org.apache.lucene.expressions.js.JavascriptCompiler;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.search.DoubleValuesSource;
 import org.apache.lucene.search.LongValuesSource;
 import org.apache.lucene.search.SortField;
@@ -48,6 +50,20 @@ public class DocumentExpressionDictionaryFactory extends DictionaryFactory {
 
   @Override
   public Dictionary create(SolrCore core, SolrIndexSearcher searcher) throws IOException {
+    return create(core, searcher.getIndexReader());
+  }
+
+  @Override
+  public boolean supportsPerSegment() {
+    return true;
+  }
+
+  @Override
+  public Dictionary create(SolrCore core, SolrIndexSearcher searcher, LeafReader segment) {
+    return create(core, segment);
+  }
+
+  private Dictionary create(SolrCore core, IndexReader reader) {
     if (params == null) {
       // should not happen; implies setParams was not called
       throw new IllegalStateException("Value of params not set");
@@ -74,7 +90,7 @@ public class DocumentExpressionDictionaryFactory extends DictionaryFactory {
         });
 
     return new DocumentValueSourceDictionary(
-        searcher.getIndexReader(),
+        reader,
         field,
         fromExpression(weightExpression, sortFields),
         payloadField);
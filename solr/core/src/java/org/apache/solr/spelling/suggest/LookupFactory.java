@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import org.apache.lucene.search.suggest.Lookup;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IndexInput;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.spelling.suggest.fst.FSTLookupFactory;
@@ -39,6 +40,16 @@ public abstract class LookupFactory {
    */
   public abstract String storeFileName();
 
+  /**
+   * Opens a Lookup that reads its data in place from <code>input</code>, a memory-mapped copy of
+   * the file written by {@link Lookup#store}, instead of loading it onto the heap. The input must
+   * stay open as long as the returned Lookup is used. Returns null if the Lookup can't be read in
+   * place, which is the default.
+   */
+  public Lookup openOffHeap(IndexInput input, NamedList<?> params) throws IOException {
+    return null;
+  }
+
   /** Non-null if this sugggester created a temp dir, needed only during build */
   private static FSDirectory tmpBuildDir;
 
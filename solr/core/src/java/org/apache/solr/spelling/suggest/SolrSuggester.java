@@ -24,11 +24,19 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.queryparser.flexible.core.QueryNodeException;
 import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
 import org.apache.lucene.search.BooleanClause;
@@ -38,13 +46,20 @@ import org.apache.lucene.search.spell.Dictionary;
 import org.apache.lucene.search.suggest.Lookup;
 import org.apache.lucene.search.suggest.Lookup.LookupResult;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.IOUtils;
 import org.apache.solr.analysis.TokenizerChain;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.CloseHook;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.update.SolrCoreState;
+import org.apache.solr.util.RefCounted;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,12 +89,25 @@ public class SolrSuggester implements Accountable {
    */
   public static final String STORE_DIR = "storeDir";
 
+  /**
+   * If true, a lookup is built for each segment of the index when the segment appears, or when
+   * documents of the segment are deleted, and suggestions are merged from all the segments. This
+   * requires a document based dictionary and a lookup implementation that lives in memory.
+   */
+  public static final String BUILD_PER_SEGMENT = "buildPerSegment";
+
+  /**
+   * If true, the lookup stored in {@link #STORE_DIR} is memory-mapped and read in place instead of
+   * being loaded onto the heap, when the lookup implementation supports it.
+   */
+  public static final String OFF_HEAP = "offHeap";
+
   static SuggesterResult EMPTY_RESULT = new SuggesterResult();
 
   private String sourceLocation;
   private Path storeDir;
   private Dictionary dictionary;
-  private Lookup lookup;
+  private volatile Lookup lookup;
   private String lookupImpl;
   private String dictionaryImpl;
   private String name;
@@ -88,6 +116,18 @@ public class SolrSuggester implements Accountable {
   private DictionaryFactory dictionaryFactory;
   private Analyzer contextFilterQueryAnalyzer;
 
+  private boolean buildPerSegment;
+  private NamedList<?> config;
+  private volatile List<SegmentLookup> segmentLookups = Collections.emptyList();
+
+  private boolean offHeap;
+  // the mapped file the off-heap lookup reads, with one reference for being the current lookup
+  // and one for each request reading it, so that it is closed once the last of them is done
+  private volatile RefCounted<IndexInput> offHeapInput;
+
+  /** The lookup of a segment, built when the segment had {@code numDeletedDocs} deletions. */
+  private record SegmentLookup(IndexReader.CacheKey key, int numDeletedDocs, Lookup lookup) {}
+
   /**
    * Uses the <code>config</code> and the <code>core</code> to initialize the underlying Lucene
    * suggester
@@ -101,6 +141,9 @@ public class SolrSuggester implements Accountable {
     lookupImpl = (String) config.get(LOOKUP_IMPL);
     dictionaryImpl = (String) config.get(DICTIONARY_IMPL);
     String store = (String) config.get(STORE_DIR);
+    buildPerSegment = Boolean.parseBoolean(String.valueOf(config.get(BUILD_PER_SEGMENT)));
+    offHeap = Boolean.parseBoolean(String.valueOf(config.get(OFF_HEAP)));
+    this.config = config;
 
     if (lookupImpl == null) {
       lookupImpl = LookupFactory.DEFAULT_FILE_BASED_DICT;
@@ -114,6 +157,44 @@ public class SolrSuggester implements Accountable {
     factory = core.getResourceLoader().newInstance(lookupImpl, LookupFactory.class);
     lookup = factory.create(config, core);
 
+    // dictionary configuration
+    if (dictionaryImpl == null) {
+      dictionaryImpl =
+          (sourceLocation == null)
+              ? DictionaryFactory.DEFAULT_INDEX_BASED_DICT
+              : DictionaryFactory.DEFAULT_FILE_BASED_DICT;
+      log.info("No {} parameter was provided falling back to {}", DICTIONARY_IMPL, dictionaryImpl);
+    }
+
+    dictionaryFactory =
+        core.getResourceLoader().newInstance(dictionaryImpl, DictionaryFactory.class);
+    dictionaryFactory.setParams(config);
+    log.info("Dictionary loaded with params: {}", config);
+
+    if (buildPerSegment) {
+      if (sourceLocation != null) {
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            BUILD_PER_SEGMENT + " requires an index based dictionary, not " + LOCATION);
+      }
+      if (lookup instanceof Closeable) {
+        // such lookups keep an index of their own, which can't be shared by several lookups
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            BUILD_PER_SEGMENT + " isn't supported by " + lookupImpl);
+      }
+      if (!dictionaryFactory.supportsPerSegment()) {
+        // the dictionary of a segment is created with create(core, searcher, segment)
+        throw new SolrException(
+            SolrException.ErrorCode.SERVER_ERROR,
+            BUILD_PER_SEGMENT + " isn't supported by " + dictionaryImpl);
+      }
+      if (store != null && !store.isEmpty()) {
+        log.warn("{} is ignored by suggester {} as it is built per segment", STORE_DIR, name);
+        store = null;
+      }
+    }
+
     if (lookup instanceof Closeable) {
       core.addCloseHook(
           new CloseHook() {
@@ -128,6 +209,16 @@ public class SolrSuggester implements Accountable {
           });
     }
 
+    if (offHeap) {
+      core.addCloseHook(
+          new CloseHook() {
+            @Override
+            public void postClose(SolrCore core) {
+              closeOffHeapInput();
+            }
+          });
+    }
+
     // if store directory is provided make it or load up the lookup with its content
     if (store != null && !store.isEmpty()) {
       storeDir = Path.of(store);
@@ -142,27 +233,13 @@ public class SolrSuggester implements Accountable {
       if (Files.exists(storeFile)) {
         log.debug("attempt reload of the stored lookup from file {}", storeFile);
         try {
-          lookup.load(Files.newInputStream(storeFile));
+          load(storeFile);
         } catch (IOException e) {
           log.warn("Loading stored lookup data failed, possibly not cached yet");
         }
       }
     }
 
-    // dictionary configuration
-    if (dictionaryImpl == null) {
-      dictionaryImpl =
-          (sourceLocation == null)
-              ? DictionaryFactory.DEFAULT_INDEX_BASED_DICT
-              : DictionaryFactory.DEFAULT_FILE_BASED_DICT;
-      log.info("No {} parameter was provided falling back to {}", DICTIONARY_IMPL, dictionaryImpl);
-    }
-
-    dictionaryFactory =
-        core.getResourceLoader().newInstance(dictionaryImpl, DictionaryFactory.class);
-    dictionaryFactory.setParams(config);
-    log.info("Dictionary loaded with params: {}", config);
-
     return name;
   }
 
@@ -170,7 +247,119 @@ public class SolrSuggester implements Accountable {
   public void build(SolrCore core, SolrIndexSearcher searcher) throws IOException {
     log.info("SolrSuggester.build({})", name);
 
+    if (buildPerSegment) {
+      buildPerSegment(core, searcher);
+      return;
+    }
     dictionary = dictionaryFactory.create(core, searcher);
+    if (offHeap && offHeapInput != null) {
+      // build on a fresh lookup rather than on the one reading the mapped file
+      Lookup built = factory.create(config, core);
+      build(built, dictionary);
+      setLookup(built, null);
+    } else {
+      build(lookup, dictionary);
+    }
+    if (storeDir != null) {
+      Path target = getStoreFile();
+      // the mapped file is replaced rather than overwritten, as it may still be read
+      Path output = offHeap ? target.resolveSibling(target.getFileName() + ".tmp") : target;
+      if (!lookup.store(Files.newOutputStream(output))) {
+        log.error("Store Lookup build failed");
+        if (offHeap) {
+          Files.deleteIfExists(output);
+        }
+      } else {
+        if (offHeap) {
+          Files.move(
+              output, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          // read the stored lookup in place, so that the built one can be garbage collected
+          load(target);
+        }
+        if (log.isInfoEnabled()) {
+          log.info("Stored suggest data to: {}", target.toAbsolutePath());
+        }
+      }
+    }
+  }
+
+  /**
+   * Loads the stored lookup, or opens it in place from a memory-mapped file if {@link #OFF_HEAP}
+   * is set and the lookup implementation supports it.
+   */
+  private void load(Path storeFile) throws IOException {
+    if (offHeap) {
+      IndexInput input;
+      try (Directory directory = new MMapDirectory(storeFile.getParent())) {
+        // the input stays valid once the directory is closed
+        input = directory.openInput(storeFile.getFileName().toString(), IOContext.DEFAULT);
+      }
+      Lookup offHeapLookup;
+      try {
+        offHeapLookup = factory.openOffHeap(input, config);
+      } catch (IOException | RuntimeException e) {
+        IOUtils.closeWhileHandlingException(input);
+        throw e;
+      }
+      if (offHeapLookup != null) {
+        setLookup(offHeapLookup, input);
+        return;
+      }
+      input.close();
+      log.warn("{} can't be read off-heap, loading suggester {} on heap", lookupImpl, name);
+    }
+    lookup.load(Files.newInputStream(storeFile));
+  }
+
+  /**
+   * Replaces the lookup, and the mapped file it reads if any. The previous file is closed once the
+   * requests that still read it are done.
+   */
+  private void setLookup(Lookup newLookup, IndexInput newInput) {
+    RefCounted<IndexInput> previousInput;
+    synchronized (this) {
+      previousInput = offHeapInput;
+      offHeapInput = newInput == null ? null : newRefCountedInput(newInput);
+      lookup = newLookup;
+    }
+    if (previousInput != null) {
+      previousInput.decref();
+    }
+  }
+
+  private RefCounted<IndexInput> newRefCountedInput(IndexInput input) {
+    RefCounted<IndexInput> refCounted =
+        new RefCounted<>(input) {
+          @Override
+          protected void close() {
+            try {
+              resource.close();
+            } catch (IOException e) {
+              log.warn("Could not close the off-heap lookup of suggester {}", name, e);
+            }
+          }
+        };
+    return refCounted.incref();
+  }
+
+  private void closeOffHeapInput() {
+    RefCounted<IndexInput> input;
+    synchronized (this) {
+      input = offHeapInput;
+      offHeapInput = null;
+    }
+    if (input != null) {
+      input.decref();
+    }
+  }
+
+  /** Returns the size in bytes of the memory-mapped file the lookup is read from, or 0. */
+  public long offHeapBytesUsed() {
+    RefCounted<IndexInput> input = offHeapInput;
+    return input == null ? 0 : input.get().length();
+  }
+
+  private static void build(Lookup lookup, Dictionary dictionary) throws IOException {
     try {
       lookup.build(dictionary);
     } catch (AlreadyClosedException e) {
@@ -180,26 +369,50 @@ public class SolrSuggester implements Accountable {
       e2.initCause(e);
       throw e2;
     }
-    if (storeDir != null) {
-      Path target = getStoreFile();
-      if (!lookup.store(Files.newOutputStream(target))) {
-        log.error("Store Lookup build failed");
-      } else {
-        if (log.isInfoEnabled()) {
-          log.info("Stored suggest data to: {}", target.toAbsolutePath());
-        }
+  }
+
+  /**
+   * Builds the lookups of the segments of <code>searcher</code> that are new, or that have new
+   * deletions, and reuses the others.
+   */
+  private synchronized void buildPerSegment(SolrCore core, SolrIndexSearcher searcher)
+      throws IOException {
+    Map<IndexReader.CacheKey, SegmentLookup> previousLookups = new HashMap<>();
+    for (SegmentLookup segmentLookup : segmentLookups) {
+      previousLookups.put(segmentLookup.key(), segmentLookup);
+    }
+    List<SegmentLookup> lookups = new ArrayList<>();
+    int built = 0;
+    for (LeafReaderContext context : searcher.getTopReaderContext().leaves()) {
+      LeafReader reader = context.reader();
+      if (reader.numDocs() == 0) {
+        continue;
+      }
+      IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+      IndexReader.CacheKey key = cacheHelper == null ? null : cacheHelper.getKey();
+      SegmentLookup segmentLookup = key == null ? null : previousLookups.get(key);
+      if (segmentLookup == null || segmentLookup.numDeletedDocs() != reader.numDeletedDocs()) {
+        Lookup segment = factory.create(config, core);
+        build(segment, dictionaryFactory.create(core, searcher, reader));
+        segmentLookup = new SegmentLookup(key, reader.numDeletedDocs(), segment);
+        built++;
       }
+      lookups.add(segmentLookup);
+    }
+    segmentLookups = lookups;
+    if (log.isInfoEnabled()) {
+      log.info("Built the lookups of {} of {} segments for {}", built, lookups.size(), name);
     }
   }
 
   /** Reloads the underlying Lucene Suggester */
   public void reload() throws IOException {
     log.info("SolrSuggester.reload({})", name);
-    if (dictionary == null && storeDir != null) {
+    if (!buildPerSegment && dictionary == null && storeDir != null) {
       Path lookupFile = getStoreFile();
       if (Files.exists(lookupFile)) {
         // this may be a firstSearcher event, try loading it
-        lookup.load(Files.newInputStream(lookupFile));
+        load(lookupFile);
       } else {
         log.info("lookup file doesn't exist");
       }
@@ -228,6 +441,40 @@ public class SolrSuggester implements Accountable {
 
     SuggesterResult res = new SuggesterResult();
     List<LookupResult> suggestions;
+    if (buildPerSegment) {
+      List<List<LookupResult>> segmentSuggestions = new ArrayList<>();
+      for (SegmentLookup segmentLookup : segmentLookups) {
+        segmentSuggestions.add(getSuggestions(segmentLookup.lookup(), options));
+      }
+      suggestions = mergeSuggestions(segmentSuggestions, options.count);
+    } else if (offHeap) {
+      // hold on to the mapped file, which a concurrent build or reload may replace meanwhile
+      Lookup current;
+      RefCounted<IndexInput> input;
+      synchronized (this) {
+        current = lookup;
+        input = offHeapInput;
+        if (input != null) {
+          input.incref();
+        }
+      }
+      try {
+        suggestions = getSuggestions(current, options);
+      } finally {
+        if (input != null) {
+          input.decref();
+        }
+      }
+    } else {
+      suggestions = getSuggestions(lookup, options);
+    }
+    res.add(getName(), options.token.toString(), suggestions);
+    return res;
+  }
+
+  private List<LookupResult> getSuggestions(Lookup lookup, SuggesterOptions options)
+      throws IOException {
+    List<LookupResult> suggestions;
     if (options.contextFilterQuery == null) {
       // TODO: this path needs to be fixed to accept query params to override configs such as
       // allTermsRequired, highlight
@@ -246,8 +493,31 @@ public class SolrSuggester implements Accountable {
         suggestions = lookup.lookup(options.token, false, options.count);
       }
     }
-    res.add(getName(), options.token.toString(), suggestions);
-    return res;
+    return suggestions;
+  }
+
+  /**
+   * Merges the top suggestions of each segment into the top <code>count</code> suggestions, by
+   * decreasing weight. A suggestion found in several segments is kept once, with its highest
+   * weight.
+   */
+  static List<LookupResult> mergeSuggestions(
+      List<List<LookupResult>> segmentSuggestions, int count) {
+    Map<String, LookupResult> suggestionsByKey = new HashMap<>();
+    for (List<LookupResult> suggestions : segmentSuggestions) {
+      for (LookupResult suggestion : suggestions) {
+        suggestionsByKey.merge(
+            suggestion.key.toString(),
+            suggestion,
+            (current, other) -> other.value > current.value ? other : current);
+      }
+    }
+    List<LookupResult> merged = new ArrayList<>(suggestionsByKey.values());
+    merged.sort(
+        Comparator.comparingLong((LookupResult suggestion) -> suggestion.value)
+            .reversed()
+            .thenComparing(suggestion -> suggestion.key.toString()));
+    return merged.size() > count ? merged.subList(0, count) : merged;
   }
 
   private BooleanQuery parseContextFilterQuery(String contextFilter) {
@@ -276,11 +546,25 @@ public class SolrSuggester implements Accountable {
 
   @Override
   public long ramBytesUsed() {
+    if (buildPerSegment) {
+      long ramBytesUsed = 0;
+      for (SegmentLookup segmentLookup : segmentLookups) {
+        ramBytesUsed += segmentLookup.lookup().ramBytesUsed();
+      }
+      return ramBytesUsed;
+    }
     return lookup.ramBytesUsed();
   }
 
   @Override
   public Collection<Accountable> getChildResources() {
+    if (buildPerSegment) {
+      List<Accountable> lookups = new ArrayList<>();
+      for (SegmentLookup segmentLookup : segmentLookups) {
+        lookups.add(segmentLookup.lookup());
+      }
+      return lookups;
+    }
     return lookup.getChildResources();
   }
 
@@ -301,8 +585,14 @@ public class SolrSuggester implements Accountable {
         + "dictionaryImpl="
         + dictionaryImpl
         + ", "
+        + "buildPerSegment="
+        + buildPerSegment
+        + ", "
         + "sizeInBytes="
         + ((lookup != null) ? String.valueOf(ramBytesUsed()) : "0")
+        + ", "
+        + "offHeapSizeInBytes="
+        + offHeapBytesUsed()
         + " ]";
   }
 }
@@ -16,8 +16,15 @@
  */
 package org.apache.solr.spelling.suggest.fst;
 
+import java.io.IOException;
 import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.search.suggest.fst.FSTCompletion;
 import org.apache.lucene.search.suggest.fst.FSTCompletionLookup;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.NoOutputs;
+import org.apache.lucene.util.fst.OffHeapFSTStore;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.spelling.suggest.LookupFactory;
@@ -52,12 +59,44 @@ public class FSTLookupFactory extends LookupFactory {
             ? Integer.parseInt(params.get(WEIGHT_BUCKETS).toString())
             : 10;
 
-    boolean exactMatchFirst =
-        params.get(EXACT_MATCH_FIRST) != null
-            ? Boolean.valueOf(params.get(EXACT_MATCH_FIRST).toString())
-            : true;
+    return new FSTCompletionLookup(getTempDir(), "suggester", buckets, exactMatchFirst(params));
+  }
+
+  /** Opens the stored automaton through an {@link OffHeapFSTStore}, without copying it. */
+  @Override
+  public Lookup openOffHeap(IndexInput input, NamedList<?> params) throws IOException {
+    // FSTCompletionLookup stores the number of entries ahead of the automaton
+    long count = input.readVLong();
+    FST.FSTMetadata<Object> metadata = FST.readMetadata(input, NoOutputs.getSingleton());
+    FST<Object> fst =
+        new FST<>(metadata, new OffHeapFSTStore(input, input.getFilePointer(), metadata));
+    return new OffHeapFSTCompletionLookup(
+        getTempDir(), new FSTCompletion(fst), exactMatchFirst(params), count);
+  }
+
+  /**
+   * An {@link FSTCompletionLookup} created from an automaton that was read elsewhere, which only
+   * gets the number of entries when it loads or builds the automaton itself.
+   */
+  private static class OffHeapFSTCompletionLookup extends FSTCompletionLookup {
+    private final long count;
+
+    OffHeapFSTCompletionLookup(
+        Directory tempDir, FSTCompletion completion, boolean exactMatchFirst, long count) {
+      super(tempDir, "suggester", completion, exactMatchFirst);
+      this.count = count;
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+  }
 
-    return new FSTCompletionLookup(getTempDir(), "suggester", buckets, exactMatchFirst);
+  private static boolean exactMatchFirst(NamedList<?> params) {
+    return params.get(EXACT_MATCH_FIRST) != null
+        ? Boolean.valueOf(params.get(EXACT_MATCH_FIRST).toString())
+        : true;
   }
 
   @Override
@@ -21,6 +21,7 @@ import com.carrotsearch.hppc.IntObjectHashMap;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -47,21 +48,24 @@ public class UpdateLocks {
   // Here we have a Map keyed by hash and a pool of locks to re-use.  Synchronization is needed 2x.
   //   Note:  ConcurrentHashMap was also explored but HPPC came out on top, probably because
   //          we can use a hashcode directly as the key, and it's GC friendly (zero-allocation).
+  // The map is itself striped by hash so that updates to unrelated IDs don't all serialize on one
+  //   monitor; the per-doc locks are still exact (not shared between IDs of the same stripe).
 
-  /** Maps a ID hashcode to a lock. Synchronize to manipulate. */
-  private final IntObjectHashMap<LockAndCondition> hashToLock =
-      new IntObjectHashMap<>(32) {
-        @Override
-        protected int hashKey(int key) {
-          return key; // our keys are themselves hash-codes
-        }
-      };
+  private static final int NUM_STRIPES = 16; // power of 2
+
+  private final LockStripe[] stripes = new LockStripe[NUM_STRIPES];
+
+  /** Number of doc lock acquisitions that had to wait for another update of the same ID. */
+  private final LongAdder contendedCount = new LongAdder();
 
-  /** A pool of locks to avoid creating & GC'ing them too much. Must synchronize on hashToLock. */
-  private final ArrayDeque<LockAndCondition> lockPool = new ArrayDeque<>(16);
+  /** Total time spent waiting for contended doc locks. */
+  private final LongAdder contendedWaitNanos = new LongAdder();
 
   public UpdateLocks(long docLockTimeoutMs) {
     this.docLockTimeoutMs = docLockTimeoutMs;
+    for (int i = 0; i < NUM_STRIPES; i++) {
+      stripes[i] = new LockStripe();
+    }
   }
 
   /**
@@ -78,20 +82,21 @@ public class UpdateLocks {
       //   OrderedExecutor.SparseStripedLock over here, which is also a mechanism invented for
       //   per-doc locking.
 
-      // hashToLock isn't concurrent, but we synchronize on it briefly twice to do cheap work
+      // a stripe's map isn't concurrent, but we synchronize on it briefly twice to do cheap work
 
       final int hash = id.hashCode();
+      final LockStripe stripe = stripes[(hash ^ (hash >>> 16)) & (NUM_STRIPES - 1)];
       final LockAndCondition lock;
       // get or insert lock, increment refcount
-      synchronized (hashToLock) {
-        final int idx = hashToLock.indexOf(hash);
-        if (hashToLock.indexExists(idx)) {
-          lock = hashToLock.indexGet(idx);
+      synchronized (stripe) {
+        final int idx = stripe.hashToLock.indexOf(hash);
+        if (stripe.hashToLock.indexExists(idx)) {
+          lock = stripe.hashToLock.indexGet(idx);
           assert lock.refCount >= 1;
           lock.refCount++;
         } else {
-          lock = borrowLock();
-          hashToLock.indexInsert(idx, hash, lock);
+          lock = stripe.borrowLock();
+          stripe.hashToLock.indexInsert(idx, hash, lock);
         }
       }
 
@@ -100,11 +105,11 @@ public class UpdateLocks {
         return runWithLockInternal(id, function, lock, startTimeNanos);
       } finally {
         // decrement refcount, remove lock if unreferenced
-        synchronized (hashToLock) {
+        synchronized (stripe) {
           assert lock.refCount > 0; // because we incremented it
           if (--lock.refCount == 0) { // typical
-            hashToLock.remove(hash);
-            returnLock(lock);
+            stripe.hashToLock.remove(hash);
+            stripe.returnLock(lock);
           }
         }
       }
@@ -114,21 +119,14 @@ public class UpdateLocks {
     }
   }
 
-  private LockAndCondition borrowLock() {
-    assert Thread.holdsLock(hashToLock);
-    if (lockPool.isEmpty()) {
-      return new LockAndCondition();
-    } else {
-      return lockPool.removeLast();
-    }
+  /** Number of doc lock acquisitions that had to wait for a concurrent update of the same ID. */
+  public long getContendedCount() {
+    return contendedCount.sum();
   }
 
-  private void returnLock(LockAndCondition lock) {
-    assert Thread.holdsLock(hashToLock);
-    if (lockPool.size() < 16) {
-      lockPool.add(lock);
-      lock.refCount = 1; // ready for next use
-    }
+  /** Total milliseconds spent waiting for doc locks held by a concurrent update of the same ID. */
+  public long getContendedWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(contendedWaitNanos.sum());
   }
 
   private <R> R runWithLockInternal(
@@ -136,6 +134,12 @@ public class UpdateLocks {
       throws IOException {
     // Acquire the lock
     try {
+      // fast path: uncontended. A zero timeout, unlike tryLock(), honors the lock's fairness
+      if (lock.lock.tryLock(0, TimeUnit.NANOSECONDS)) {
+        return runLocked(function, lock);
+      }
+      contendedCount.increment();
+      final long waitStartNanos = System.nanoTime();
       if (docLockTimeoutMs == 0) {
         lock.lock.lockInterruptibly();
       } else {
@@ -143,15 +147,22 @@ public class UpdateLocks {
             TimeUnit.MILLISECONDS.toNanos(docLockTimeoutMs) - (System.nanoTime() - startTimeNanos);
         boolean timedOut = !lock.lock.tryLock(remainingNs, TimeUnit.NANOSECONDS);
         if (timedOut) {
+          contendedWaitNanos.add(System.nanoTime() - waitStartNanos);
           throw new SolrException(
               ErrorCode.SERVER_ERROR,
               "Unable to lock doc " + id + " in " + docLockTimeoutMs + " ms");
         }
       }
+      contendedWaitNanos.add(System.nanoTime() - waitStartNanos);
     } catch (InterruptedException e) {
       // don't set interrupt status; we're ending the request
       throw new SolrException(ErrorCode.SERVER_ERROR, "Unable to lock doc " + id, e);
     }
+    return runLocked(function, lock);
+  }
+
+  private static <R> R runLocked(IOFunction<Condition, R> function, LockAndCondition lock)
+      throws IOException {
     // try-finally ensuring we unlock
     try {
       // We have the lock; do stuff with it
@@ -162,10 +173,41 @@ public class UpdateLocks {
     }
   }
 
+  /** A map of ID hashcode to lock, plus a pool of locks. Synchronize on the stripe to use. */
+  private static class LockStripe {
+    final IntObjectHashMap<LockAndCondition> hashToLock =
+        new IntObjectHashMap<>(8) {
+          @Override
+          protected int hashKey(int key) {
+            return key; // our keys are themselves hash-codes
+          }
+        };
+
+    /** A pool of locks to avoid creating & GC'ing them too much. */
+    final ArrayDeque<LockAndCondition> lockPool = new ArrayDeque<>(4);
+
+    LockAndCondition borrowLock() {
+      assert Thread.holdsLock(this);
+      if (lockPool.isEmpty()) {
+        return new LockAndCondition();
+      } else {
+        return lockPool.removeLast();
+      }
+    }
+
+    void returnLock(LockAndCondition lock) {
+      assert Thread.holdsLock(this);
+      if (lockPool.size() < 4) {
+        lockPool.add(lock);
+        lock.refCount = 1; // ready for next use
+      }
+    }
+  }
+
   private static class LockAndCondition {
     final Lock lock;
     final Condition condition;
-    int refCount; // only access when synchronized on hashToLock
+    int refCount; // only access when synchronized on the owning LockStripe
 
     LockAndCondition() {
       lock = new ReentrantLock(true); // fair
@@ -659,6 +659,24 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
             }),
             OtelUnit.BYTES));
 
+    observables.add(
+        solrMetricsContext.observableLongCounter(
+            "solr_core_update_log_doc_lock_contended",
+            "Total number of updates that waited for a concurrent update of the same id",
+            (observableLongMeasurement -> {
+              observableLongMeasurement.record(updateLocks.getContendedCount(), baseAttributes);
+            })));
+
+    observables.add(
+        solrMetricsContext.observableLongCounter(
+            "solr_core_update_log_doc_lock_wait",
+            "Total time updates waited for a concurrent update of the same id",
+            (observableLongMeasurement -> {
+              observableLongMeasurement.record(
+                  updateLocks.getContendedWaitMillis(), baseAttributes);
+            }),
+            OtelUnit.MILLISECONDS));
+
     toClose = Collections.unmodifiableList(observables);
 
     observables.add(
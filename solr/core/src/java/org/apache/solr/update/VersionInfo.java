@@ -20,12 +20,16 @@ import static org.apache.solr.common.params.CommonParams.VERSION_FIELD;
 
 import java.io.IOException;
 import java.util.Map;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.queries.function.FunctionValues;
 import org.apache.lucene.queries.function.ValueSource;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.SuppressForbidden;
 import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.NumberType;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.util.RefCounted;
@@ -41,6 +45,9 @@ public class VersionInfo {
 
   private final SchemaField versionField;
 
+  /** Whether the version can be read straight from the field's numeric docValues. */
+  private final boolean versionDocValues;
+
   /**
    * Gets and returns the {@link org.apache.solr.common.params.CommonParams#VERSION_FIELD} from the
    * specified schema, after verifying that it is indexed, stored, and single-valued. If any of
@@ -81,6 +88,10 @@ public class VersionInfo {
     this.ulog = ulog;
     IndexSchema schema = ulog.uhandler.core.getLatestSchema();
     versionField = getAndCheckVersionField(schema);
+    // Trie and Point long fields both keep the raw value in NUMERIC docValues
+    versionDocValues =
+        versionField.hasDocValues()
+            && versionField.getType().getNumberType() == NumberType.LONG;
   }
 
   public SchemaField getVersionField() {
@@ -155,11 +166,19 @@ public class VersionInfo {
       long lookup = searcher.lookupId(idBytes);
       if (lookup < 0) return null; // this means the doc doesn't exist in the index yet
 
+      LeafReaderContext leaf = searcher.getTopReaderContext().leaves().get((int) (lookup >> 32));
+      if (versionDocValues) {
+        // read the single value directly instead of going through a ValueSource and its Weight
+        NumericDocValues dv = DocValues.getNumeric(leaf.reader(), versionField.getName());
+        if (dv.advanceExact((int) lookup)) {
+          return dv.longValue();
+        }
+      }
+
       ValueSource vs = versionField.getType().getValueSource(versionField, null);
       Map<Object, Object> context = ValueSource.newContext(searcher);
       vs.createWeight(context, searcher);
-      FunctionValues fv =
-          vs.getValues(context, searcher.getTopReaderContext().leaves().get((int) (lookup >> 32)));
+      FunctionValues fv = vs.getValues(context, leaf);
       long ver = fv.longVal((int) lookup);
       return ver;
 
@@ -17,6 +17,9 @@
 
 package org.apache.solr.util;
 
+import org.apache.solr.search.MemAllowedLimit;
+import org.apache.solr.search.QueryLimits;
+
 /**
  * An efficient map for storing keys as integer in range from 0..n with n can be estimated up-front.
  * By automatically switching from a hashMap (which is memory efficient) to an array (which is
@@ -51,4 +54,15 @@ public interface DynamicMap {
     // +2 let's us not to worry about which comparison operator to choose
     return threshold(expectedKeyMax) + 2;
   }
+
+  /**
+   * Whether allocating the array based form ({@code arrayBytes} bytes) fits within what is left of
+   * the current request's {@code memAllowed} budget, if any.
+   */
+  default boolean fitsMemoryBudget(long arrayBytes) {
+    return QueryLimits.getCurrentLimits()
+        .getLimit(MemAllowedLimit.class)
+        .map(limit -> arrayBytes <= limit.getRemainingBytes())
+        .orElse(true);
+  }
 }
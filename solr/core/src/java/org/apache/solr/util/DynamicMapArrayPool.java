@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.util;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.solr.common.util.EnvUtils;
+
+/**
+ * A bounded, node-wide pool of the dense arrays backing {@link IntIntDynamicMap}, {@link
+ * IntFloatDynamicMap} and {@link IntLongDynamicMap}.
+ *
+ * <p>The array based form of a {@link DynamicMap} is sized to the key space, which for collapsing
+ * on a high cardinality field means one huge array per request. Those arrays have the same length
+ * for every request against the same searcher (the ordinal count of the collapse field), so
+ * recycling them instead of leaving them to the GC avoids repeated large allocations. Arrays are
+ * matched by exact type and length; the pool holds at most {@code solr.dynamicMap.pool.maxBytes}
+ * bytes (0, the default, disables pooling).
+ *
+ * @lucene.internal
+ */
+public final class DynamicMapArrayPool {
+  public static final String MAX_BYTES_PROP = "solr.dynamicMap.pool.maxBytes";
+
+  private static final DynamicMapArrayPool INSTANCE =
+      new DynamicMapArrayPool(EnvUtils.getPropertyAsLong(MAX_BYTES_PROP, 0L));
+
+  private final long maxBytes;
+  private final Map<Key, ArrayDeque<Object>> pooled = new HashMap<>();
+  private long pooledBytes;
+
+  DynamicMapArrayPool(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public static DynamicMapArrayPool getInstance() {
+    return INSTANCE;
+  }
+
+  /** Returns a pooled array of exactly {@code length}, or a newly allocated one. */
+  public int[] takeInts(int length) {
+    int[] arr = pollInts(length);
+    return arr != null ? arr : new int[length];
+  }
+
+  /** Returns a pooled array of exactly {@code length}, or null if there is none. */
+  public int[] pollInts(int length) {
+    return (int[]) poll(int.class, length);
+  }
+
+  /** Returns a pooled array of exactly {@code length}, or a newly allocated one. */
+  public float[] takeFloats(int length) {
+    float[] arr = pollFloats(length);
+    return arr != null ? arr : new float[length];
+  }
+
+  /** Returns a pooled array of exactly {@code length}, or null if there is none. */
+  public float[] pollFloats(int length) {
+    return (float[]) poll(float.class, length);
+  }
+
+  /** Returns a pooled array of exactly {@code length}, or a newly allocated one. */
+  public long[] takeLongs(int length) {
+    long[] arr = pollLongs(length);
+    return arr != null ? arr : new long[length];
+  }
+
+  /** Returns a pooled array of exactly {@code length}, or null if there is none. */
+  public long[] pollLongs(int length) {
+    return (long[]) poll(long.class, length);
+  }
+
+  /**
+   * Offers an array back to the pool. The caller must not use the array afterwards. Contents are
+   * not cleared; takers are expected to initialize the array themselves.
+   */
+  public void release(int[] arr) {
+    offer(int.class, arr, arr.length);
+  }
+
+  public void release(float[] arr) {
+    offer(float.class, arr, arr.length);
+  }
+
+  public void release(long[] arr) {
+    offer(long.class, arr, arr.length);
+  }
+
+  /** Number of bytes currently held by the pool. */
+  public synchronized long getPooledBytes() {
+    return pooledBytes;
+  }
+
+  private synchronized Object poll(Class<?> componentType, int length) {
+    if (maxBytes <= 0) {
+      return null;
+    }
+    ArrayDeque<Object> queue = pooled.get(new Key(componentType, length));
+    if (queue == null || queue.isEmpty()) {
+      return null;
+    }
+    Object arr = queue.poll();
+    pooledBytes -= bytesOf(componentType, length);
+    return arr;
+  }
+
+  private synchronized void offer(Class<?> componentType, Object arr, int length) {
+    long bytes = bytesOf(componentType, length);
+    if (bytes > maxBytes) {
+      return;
+    }
+    if (pooledBytes + bytes > maxBytes) {
+      // arrays of other lengths are typically left over from a previous searcher; drop them
+      pooled.clear();
+      pooledBytes = 0;
+    }
+    pooled.computeIfAbsent(new Key(componentType, length), k -> new ArrayDeque<>()).push(arr);
+    pooledBytes += bytes;
+  }
+
+  private static long bytesOf(Class<?> componentType, int length) {
+    if (componentType == long.class) {
+      return (long) length * Long.BYTES;
+    }
+    return (long) length * Integer.BYTES; // int and float
+  }
+
+  private record Key(Class<?> componentType, int length) {}
+}
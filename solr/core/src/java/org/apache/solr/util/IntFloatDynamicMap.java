@@ -29,6 +29,7 @@ public class IntFloatDynamicMap implements DynamicMap {
   private float[] keyValues;
   private float emptyValue;
   private int threshold;
+  private final DynamicMapArrayPool pool;
 
   /**
    * Create map with expected max value of key. Although the map will automatically do resizing to
@@ -36,6 +37,11 @@ public class IntFloatDynamicMap implements DynamicMap {
    * expectedKeyMax} is discourage since it can leads to use LOT OF memory.
    */
   public IntFloatDynamicMap(int expectedKeyMax, float emptyValue) {
+    this(expectedKeyMax, emptyValue, DynamicMapArrayPool.getInstance());
+  }
+
+  IntFloatDynamicMap(int expectedKeyMax, float emptyValue, DynamicMapArrayPool pool) {
+    this.pool = pool;
     this.threshold = threshold(expectedKeyMax);
     this.maxSize = expectedKeyMax;
     this.emptyValue = emptyValue;
@@ -47,8 +53,10 @@ public class IntFloatDynamicMap implements DynamicMap {
   }
 
   private void upgradeToArray() {
-    keyValues = new float[maxSize];
-    if (emptyValue != 0.0f) {
+    float[] pooled = pool.pollFloats(maxSize);
+    keyValues = pooled != null ? pooled : new float[maxSize];
+    if (pooled != null || emptyValue != 0) {
+      // a new array is already filled with zeros
       Arrays.fill(keyValues, emptyValue);
     }
     if (hashMap != null) {
@@ -78,7 +86,12 @@ public class IntFloatDynamicMap implements DynamicMap {
       this.hashMap.put(key, value);
       this.maxSize = Math.max(key + 1, maxSize);
       if (this.hashMap.size() >= threshold) {
-        upgradeToArray();
+        if (fitsMemoryBudget((long) maxSize * Float.BYTES)) {
+          upgradeToArray();
+        } else {
+          // stay hash based and grow gradually rather than allocating the whole key space at once
+          threshold = Integer.MAX_VALUE;
+        }
       }
     }
   }
@@ -113,4 +126,16 @@ public class IntFloatDynamicMap implements DynamicMap {
       hashMap.remove(key);
     }
   }
+
+  /**
+   * Hands the backing array, if any, back to the {@link DynamicMapArrayPool} so a later request can
+   * reuse it. The map must not be used afterwards.
+   */
+  public void release() {
+    if (keyValues != null) {
+      pool.release(keyValues);
+      keyValues = null;
+    }
+    hashMap = null;
+  }
 }
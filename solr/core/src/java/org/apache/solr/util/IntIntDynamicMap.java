@@ -30,6 +30,7 @@ public class IntIntDynamicMap implements DynamicMap {
   private int[] keyValues;
   private int emptyValue;
   private int threshold;
+  private final DynamicMapArrayPool pool;
 
   /**
    * Create map with expected max value of key. Although the map will automatically do resizing to
@@ -37,6 +38,11 @@ public class IntIntDynamicMap implements DynamicMap {
    * expectedKeyMax} is discourage since it can leads to use LOT OF memory.
    */
   public IntIntDynamicMap(int expectedKeyMax, int emptyValue) {
+    this(expectedKeyMax, emptyValue, DynamicMapArrayPool.getInstance());
+  }
+
+  IntIntDynamicMap(int expectedKeyMax, int emptyValue, DynamicMapArrayPool pool) {
+    this.pool = pool;
     this.threshold = threshold(expectedKeyMax);
     this.maxSize = expectedKeyMax;
     this.emptyValue = emptyValue;
@@ -48,8 +54,10 @@ public class IntIntDynamicMap implements DynamicMap {
   }
 
   private void upgradeToArray() {
-    keyValues = new int[maxSize];
-    if (emptyValue != 0) {
+    int[] pooled = pool.pollInts(maxSize);
+    keyValues = pooled != null ? pooled : new int[maxSize];
+    if (pooled != null || emptyValue != 0) {
+      // a new array is already filled with zeros
       Arrays.fill(keyValues, emptyValue);
     }
     if (hashMap != null) {
@@ -79,7 +87,12 @@ public class IntIntDynamicMap implements DynamicMap {
       this.maxSize = Math.max(key + 1, maxSize);
       this.hashMap.put(key, value);
       if (this.hashMap.size() >= threshold) {
-        upgradeToArray();
+        if (fitsMemoryBudget((long) maxSize * Integer.BYTES)) {
+          upgradeToArray();
+        } else {
+          // stay hash based and grow gradually rather than allocating the whole key space at once
+          threshold = Integer.MAX_VALUE;
+        }
       }
     }
   }
@@ -114,4 +127,16 @@ public class IntIntDynamicMap implements DynamicMap {
       hashMap.remove(key);
     }
   }
+
+  /**
+   * Hands the backing array, if any, back to the {@link DynamicMapArrayPool} so a later request can
+   * reuse it. The map must not be used afterwards.
+   */
+  public void release() {
+    if (keyValues != null) {
+      pool.release(keyValues);
+      keyValues = null;
+    }
+    hashMap = null;
+  }
 }
@@ -95,6 +95,20 @@ public class ThreadCpuTimer {
     }
   }
 
+  /**
+   * Get the total number of nanoseconds of CPU time used by <strong>this thread</strong> so far.
+   * Unlike {@link #readNSAndReset(String)} this does not touch any timing context, so it can be
+   * used across {@link #reset()}.
+   *
+   * @return An optional long which is empty if thread CPU time is unsupported.
+   */
+  public static Optional<Long> readCurrentThreadNS() {
+    if (THREAD_MX_BEAN == null) {
+      return Optional.empty();
+    }
+    return Optional.of(THREAD_MX_BEAN.getCurrentThreadCpuTime());
+  }
+
   /**
    * Discard any accumulated time for a given context since the last invocation.
    *
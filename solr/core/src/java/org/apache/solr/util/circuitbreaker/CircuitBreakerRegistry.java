@@ -36,6 +36,7 @@ import org.apache.solr.client.solrj.SolrRequest.SolrRequestType;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.EnvUtils;
 import org.apache.solr.core.CoreContainer;
+import org.apache.solr.handler.component.ResponseBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,7 +55,7 @@ public class CircuitBreakerRegistry implements Closeable {
   private static final Map<SolrRequestType, List<CircuitBreaker>> globalCircuitBreakerMap =
       new ConcurrentHashMap<>();
   private static final Pattern SYSPROP_REGEX =
-      Pattern.compile("solr.circuitbreaker\\.(update|query)\\.(cpu|mem|loadavg)");
+      Pattern.compile("solr.circuitbreaker\\.(update|query)\\.(cpu|mem|loadavg|cost)");
   public static final String SYSPROP_PREFIX = "solr.circuitbreaker.";
   public static final String SYSPROP_UPDATE_CPU = SYSPROP_PREFIX + "update.cpu";
   public static final String SYSPROP_UPDATE_MEM = SYSPROP_PREFIX + "update.mem";
@@ -62,6 +63,7 @@ public class CircuitBreakerRegistry implements Closeable {
   public static final String SYSPROP_QUERY_CPU = SYSPROP_PREFIX + "query.cpu";
   public static final String SYSPROP_QUERY_MEM = SYSPROP_PREFIX + "query.mem";
   public static final String SYSPROP_QUERY_LOADAVG = SYSPROP_PREFIX + "query.loadavg";
+  public static final String SYSPROP_QUERY_COST = SYSPROP_PREFIX + "query.cost";
   public static final String SYSPROP_WARN_ONLY_SUFFIX = ".warnonly";
 
   public CircuitBreakerRegistry(CoreContainer coreContainer) {
@@ -75,8 +77,8 @@ public class CircuitBreakerRegistry implements Closeable {
     final var parsedBreakers = new ArrayList<CircuitBreaker>();
     EnvUtils.getProperties().keySet().stream()
         .map(SYSPROP_REGEX::matcher)
-        .filter(Matcher::matches) // 0=solr.circuitbreaker.(update|query).(cpu|mem|loadavg),
-        // 1=update|query, 2=cpu|mem|loadavg
+        .filter(Matcher::matches) // 0=solr.circuitbreaker.(update|query).(cpu|mem|loadavg|cost),
+        // 1=update|query, 2=cpu|mem|loadavg|cost
         .collect(Collectors.groupingBy(m -> buildCircuitBreakerKey(m.group(2), m.group(0))))
         .forEach(
             (breakerAndValue, breakers) -> {
@@ -101,6 +103,11 @@ public class CircuitBreakerRegistry implements Closeable {
                       new LoadAverageCircuitBreaker()
                           .setThreshold(Double.parseDouble(breakerAndValueArr[1]));
                   break;
+                case "cost":
+                  breaker =
+                      new QueryCostCircuitBreaker()
+                          .setMaxCost(Long.parseLong(breakerAndValueArr[1]));
+                  break;
                 default:
                   throw new IllegalArgumentException(
                       "Unknown circuit breaker type: " + breakerAndValueArr[0]);
@@ -204,6 +211,33 @@ public class CircuitBreakerRegistry implements Closeable {
     return triggeredCircuitBreakers;
   }
 
+  /**
+   * Check the estimated cost of a prepared search request against the registered {@link
+   * QueryCostCircuitBreaker}s, which may downgrade the request instead of tripping.
+   *
+   * @param rb the {@link ResponseBuilder} of the request, after its components were prepared.
+   * @return QueryCostCircuitBreakers which have triggered, null otherwise.
+   */
+  public List<CircuitBreaker> checkQueryCostTripped(ResponseBuilder rb) throws IOException {
+    final List<CircuitBreaker> breakersOfType = getCombinedMap().get(SolrRequestType.QUERY);
+    if (breakersOfType == null) {
+      return null;
+    }
+    List<CircuitBreaker> triggeredCircuitBreakers = null;
+    for (CircuitBreaker circuitBreaker : breakersOfType) {
+      if (circuitBreaker instanceof QueryCostCircuitBreaker queryCostCircuitBreaker
+          && queryCostCircuitBreaker.isTripped(rb)) {
+        if (triggeredCircuitBreakers == null) {
+          triggeredCircuitBreakers = new ArrayList<>();
+        }
+
+        triggeredCircuitBreakers.add(circuitBreaker);
+      }
+    }
+
+    return triggeredCircuitBreakers;
+  }
+
   /**
    * Construct the final error message to be printed when circuit breakers trip.
    *
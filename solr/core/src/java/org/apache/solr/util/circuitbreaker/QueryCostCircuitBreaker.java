@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.util.circuitbreaker;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Locale;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.handler.component.ResponseBuilder;
+import org.apache.solr.search.SortSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rejects, or downgrades, search requests whose estimated cost exceeds a budget. The cost is
+ * estimated by a {@link QueryCostEstimator} once the request has been parsed, so unlike the other
+ * circuit breakers this one does not trip on the state of the node alone: {@link #isTripped()}
+ * always returns false, and the search handler checks each request with {@link
+ * #isTripped(ResponseBuilder)}.
+ *
+ * <p>The budget is {@code maxCost} while the system load average is at most half the number of
+ * processors, and shrinks in proportion to the load above that, e.g. to a quarter of {@code
+ * maxCost} when the load average is twice the number of processors.
+ *
+ * <p>With {@code action} set to {@code downgrade}, an expensive request is not rejected but runs
+ * without faceting, highlighting and stats, returning at most {@code downgradeRows} documents.
+ */
+public class QueryCostCircuitBreaker extends CircuitBreaker {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final OperatingSystemMXBean operatingSystemMXBean =
+      ManagementFactory.getOperatingSystemMXBean();
+
+  public static final String ACTION_REJECT = "reject";
+  public static final String ACTION_DOWNGRADE = "downgrade";
+
+  /** Response header set on downgraded requests. */
+  public static final String DOWNGRADED = "queryCostDowngraded";
+
+  private long maxCost;
+  private boolean loadAware = true;
+  private String action = ACTION_REJECT;
+  private int downgradeRows = 10;
+
+  // Assumption -- the value of these parameters will be set correctly before invoking
+  // getErrorMessage()
+  private static final ThreadLocal<String> seenCost = ThreadLocal.withInitial(() -> "");
+
+  private static final ThreadLocal<Long> allowedCost = ThreadLocal.withInitial(() -> 0L);
+
+  public QueryCostCircuitBreaker() {
+    super();
+  }
+
+  @Override
+  public void init(NamedList<?> args) {
+    super.init(args);
+    if (maxCost <= 0) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "maxCost must be set to a positive value");
+    }
+  }
+
+  /** Always false, as the cost can only be checked for a given request. */
+  @Override
+  public boolean isTripped() {
+    return false;
+  }
+
+  /**
+   * Check if the estimated cost of the prepared request of {@code rb} exceeds the budget. If it
+   * does and the action is {@code downgrade}, the request is downgraded and this returns false.
+   */
+  public boolean isTripped(ResponseBuilder rb) throws IOException {
+    long budget = getBudget();
+    QueryCostEstimator estimator = new QueryCostEstimator(budget);
+    if (estimator.estimate(rb) <= budget) {
+      return false;
+    }
+    if (ACTION_DOWNGRADE.equals(action) && !isWarnOnly()) {
+      if (log.isInfoEnabled()) {
+        log.info("Downgrading request with estimated cost over {}: {}", budget, estimator);
+      }
+      downgrade(rb);
+      return false;
+    }
+    allowedCost.set(budget);
+    seenCost.set(estimator.toString());
+    return true;
+  }
+
+  private void downgrade(ResponseBuilder rb) {
+    rb.doFacets = false;
+    rb.doHighlights = false;
+    rb.doStats = false;
+    rb.doExpand = false;
+    SortSpec sortSpec = rb.getSortSpec();
+    if (sortSpec != null && sortSpec.getCount() > downgradeRows) {
+      sortSpec.setCount(downgradeRows);
+    }
+    if (rb.rsp.getResponseHeader() != null) {
+      rb.rsp.getResponseHeader().add(DOWNGRADED, true);
+    }
+  }
+
+  /** The cost budget, given the current load of the node. */
+  public long getBudget() {
+    if (!loadAware) {
+      return maxCost;
+    }
+    double loadPerProcessor =
+        operatingSystemMXBean.getSystemLoadAverage()
+            / operatingSystemMXBean.getAvailableProcessors();
+    // a negative load average means it is not available
+    if (loadPerProcessor <= 0.5) {
+      return maxCost;
+    }
+    return (long) (maxCost / (2 * loadPerProcessor));
+  }
+
+  @Override
+  public String getErrorMessage() {
+    return "Query Cost Circuit Breaker triggered as the estimated cost of the request is above "
+        + "the allowed budget. Estimated cost ("
+        + seenCost.get()
+        + ") and allowed budget "
+        + allowedCost.get();
+  }
+
+  public QueryCostCircuitBreaker setMaxCost(long maxCost) {
+    if (maxCost <= 0) {
+      throw new IllegalStateException("maxCost cannot be less than or equal to zero");
+    }
+    this.maxCost = maxCost;
+    return this;
+  }
+
+  public long getMaxCost() {
+    return maxCost;
+  }
+
+  public void setLoadAware(boolean loadAware) {
+    this.loadAware = loadAware;
+  }
+
+  public void setAction(String action) {
+    String normalized = action.toLowerCase(Locale.ROOT);
+    if (!ACTION_REJECT.equals(normalized) && !ACTION_DOWNGRADE.equals(normalized)) {
+      throw new IllegalArgumentException("Unknown query cost circuit breaker action: " + action);
+    }
+    this.action = normalized;
+  }
+
+  public void setDowngradeRows(int downgradeRows) {
+    this.downgradeRows = downgradeRows;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "%s(maxCost=%d, action=%s, warnOnly=%b)",
+        getClass().getSimpleName(),
+        maxCost,
+        action,
+        isWarnOnly());
+  }
+}
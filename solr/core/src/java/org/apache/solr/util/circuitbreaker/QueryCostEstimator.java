@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.util.circuitbreaker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.handler.component.ResponseBuilder;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.SortSpec;
+import org.apache.solr.search.grouping.GroupingSpecification;
+
+/**
+ * Estimates the cost of a search request after its components have been prepared, i.e. once its
+ * query and filters have been parsed, and before it runs. The cost is the number of items the
+ * request is expected to go through:
+ *
+ * <ul>
+ *   <li>the terms that multi-term queries (wildcard, prefix, regexp, fuzzy and range queries)
+ *       expand to, counted in the term dictionaries,
+ *   <li>the documents requested, i.e. {@code start + rows}, times the documents per group when
+ *       grouping,
+ *   <li>the buckets of {@code facet.field} and {@code facet.pivot} facets, from the number of
+ *       distinct values of the fields. A pivot facet costs the product of its fields' values.
+ * </ul>
+ *
+ * Field cardinalities come from per-segment index statistics, so they are cheap to get but only a
+ * lower bound. Counting stops as soon as the cost exceeds the given limit, so estimating the cost
+ * of a pathological request is cheap too.
+ */
+public class QueryCostEstimator {
+
+  private final long limit;
+  private long expandedTerms;
+  private long requestedDocs;
+  private long facetBuckets;
+
+  /**
+   * @param limit the cost above which the estimate may stop counting
+   */
+  public QueryCostEstimator(long limit) {
+    this.limit = limit;
+  }
+
+  /** Estimates the cost of the prepared request of {@code rb}, and returns it. */
+  public long estimate(ResponseBuilder rb) throws IOException {
+    estimateRequestedDocs(rb);
+    if (getCost() <= limit && rb.doFacets) {
+      estimateFacetBuckets(rb.req.getParams(), rb.req.getSearcher());
+    }
+    if (getCost() <= limit) {
+      estimateExpandedTerms(rb.getQuery(), rb.req.getSearcher());
+      if (rb.getFilters() != null) {
+        for (Query filter : rb.getFilters()) {
+          estimateExpandedTerms(filter, rb.req.getSearcher());
+        }
+      }
+    }
+    return getCost();
+  }
+
+  /** The estimated cost so far. */
+  public long getCost() {
+    return saturatedAdd(saturatedAdd(expandedTerms, requestedDocs), facetBuckets);
+  }
+
+  private void estimateRequestedDocs(ResponseBuilder rb) {
+    SortSpec sortSpec = rb.getSortSpec();
+    if (sortSpec == null) {
+      return;
+    }
+    long docs = saturatedAdd(Math.max(0, sortSpec.getOffset()), Math.max(0, sortSpec.getCount()));
+    GroupingSpecification groupingSpec = rb.getGroupingSpec();
+    if (groupingSpec != null && groupingSpec.getWithinGroupSortSpec() != null) {
+      SortSpec withinGroup = groupingSpec.getWithinGroupSortSpec();
+      long docsPerGroup =
+          saturatedAdd(Math.max(0, withinGroup.getOffset()), Math.max(0, withinGroup.getCount()));
+      docs = saturatedMultiply(docs, Math.max(1, docsPerGroup));
+    }
+    requestedDocs = docs;
+  }
+
+  private void estimateFacetBuckets(SolrParams params, SolrIndexSearcher searcher)
+      throws IOException {
+    if (!params.getBool(FacetParams.FACET, false)) {
+      return;
+    }
+    String[] facetFields = params.getParams(FacetParams.FACET_FIELD);
+    if (facetFields != null) {
+      for (String facetField : facetFields) {
+        facetBuckets = saturatedAdd(facetBuckets, getCardinality(searcher, facetField));
+      }
+    }
+    String[] pivots = params.getParams(FacetParams.FACET_PIVOT);
+    if (pivots != null) {
+      for (String pivot : pivots) {
+        long buckets = 1;
+        for (String field : stripLocalParams(pivot).split(",")) {
+          buckets = saturatedMultiply(buckets, Math.max(1, getCardinality(searcher, field)));
+        }
+        facetBuckets = saturatedAdd(facetBuckets, buckets);
+      }
+    }
+  }
+
+  private static String stripLocalParams(String param) {
+    if (param.startsWith("{!")) {
+      int end = param.indexOf('}');
+      if (end > 0) {
+        return param.substring(end + 1);
+      }
+    }
+    return param;
+  }
+
+  /**
+   * Returns the largest number of distinct values that {@code field} has in a segment, or 0 if
+   * that isn't known from the index statistics.
+   */
+  static long getCardinality(SolrIndexSearcher searcher, String field) throws IOException {
+    field = stripLocalParams(field).trim();
+    long cardinality = 0;
+    for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+      LeafReader reader = ctx.reader();
+      FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+      if (fieldInfo == null) {
+        continue;
+      }
+      long leafCardinality = -1;
+      if (fieldInfo.getDocValuesType() == DocValuesType.SORTED) {
+        leafCardinality = reader.getSortedDocValues(field).getValueCount();
+      } else if (fieldInfo.getDocValuesType() == DocValuesType.SORTED_SET) {
+        leafCardinality = reader.getSortedSetDocValues(field).getValueCount();
+      }
+      if (leafCardinality < 0) {
+        Terms terms = reader.terms(field);
+        leafCardinality = terms == null ? -1 : terms.size();
+      }
+      cardinality = Math.max(cardinality, leafCardinality);
+    }
+    return cardinality;
+  }
+
+  private void estimateExpandedTerms(Query query, SolrIndexSearcher searcher) throws IOException {
+    if (query == null) {
+      return;
+    }
+    try {
+      query.visit(
+          new QueryVisitor() {
+            @Override
+            public void consumeTermsMatching(
+                Query query, String field, Supplier<ByteRunAutomaton> automaton) {
+              if (query instanceof MultiTermQuery multiTermQuery && getCost() <= limit) {
+                try {
+                  countTerms(multiTermQuery, field, searcher);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              }
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void countTerms(MultiTermQuery query, String field, SolrIndexSearcher searcher)
+      throws IOException {
+    for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+      Terms terms = ctx.reader().terms(field);
+      if (terms == null) {
+        continue;
+      }
+      TermsEnum termsEnum = query.getTermsEnum(terms);
+      while (termsEnum.next() != null) {
+        expandedTerms++;
+        if (getCost() > limit) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static long saturatedAdd(long a, long b) {
+    long r = a + b;
+    return r < 0 ? Long.MAX_VALUE : r;
+  }
+
+  private static long saturatedMultiply(long a, long b) {
+    long hi = Math.multiplyHigh(a, b);
+    long lo = a * b;
+    return hi != 0 || lo < 0 ? Long.MAX_VALUE : lo;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "expandedTerms=%d, requestedDocs=%d, facetBuckets=%d",
+        expandedTerms,
+        requestedDocs,
+        facetBuckets);
+  }
+}
@@ -302,6 +302,21 @@ public class TestJoin extends SolrTestCaseJ4 {
     assertJQ(
         req(p, "q", "{!join from=title to=title}name:dave", "fl", "id"),
         "/response=={'numFound':2,'start':0,'numFoundExact':true,'docs':[{'id':'3'},{'id':'4'}]}");
+
+    // ruling out from terms with the prefilter doesn't change the results
+    assertJQ(
+        req(p, "q", "{!join from=title to=title prefilter=true}name:dave", "fl", "id"),
+        "/response=={'numFound':2,'start':0,'numFoundExact':true,'docs':[{'id':'3'},{'id':'4'}]}");
+    assertJQ(
+        req(
+            p,
+            "q",
+            "{!join from=dept_ss_dv to=dept_id_indexed_sdv prefilter=true}title:MTS",
+            "fl",
+            "id",
+            "debugQuery",
+            "true"),
+        "/debug/join/{!join from=dept_ss_dv to=dept_id_indexed_sdv prefilter=true}title:MTS=={'_MATCH_':'fromSetSize,toSetSize', 'fromSetSize':2, 'toSetSize':3}");
   }
 
   @Test
@@ -480,7 +495,10 @@ public class TestJoin extends SolrTestCaseJ4 {
       case 0: // No explicit method specified
         return "{!join " + allProvidedParams + " }";
       case 1: // method=persegment
-        return "{!join " + allProvidedParams + " method=index}";
+        return "{!join "
+            + allProvidedParams
+            + " method=index"
+            + (random().nextBoolean() ? " prefilter=true}" : "}");
       case 2: // method=score
         return "{!join " + allProvidedParams + " method=dvWithScore score=none}";
       default: // method=toplevel
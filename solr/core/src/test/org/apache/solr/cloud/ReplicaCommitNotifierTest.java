@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.cloud;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.SolrQuery;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.TimeSource;
+import org.apache.solr.handler.ReplicationHandler;
+import org.apache.solr.util.TimeOut;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests that TLOG and PULL replicas fetch a new leader commit as soon as they are notified. */
+public class ReplicaCommitNotifierTest extends SolrCloudTestCase {
+
+  private static final String COLLECTION = "notify_commit";
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    // the replicas poll every minute (half the autoCommit maxTime), so only a notification
+    // makes them fetch a commit within the few seconds these tests wait for
+    System.setProperty("solr.autoCommit.maxTime", "120000");
+    System.setProperty("managed.schema.mutable", "false");
+    System.setProperty(ReplicaCommitNotifier.ENABLED_PROP, "true");
+    configureCluster(2).addConfig("conf", configset("cloud-managed-autocommit")).configure();
+
+    // jetty.testMode forces a one second poll interval on the replicas created meanwhile
+    String testMode = System.getProperty("jetty.testMode");
+    System.clearProperty("jetty.testMode");
+    try {
+      CollectionAdminRequest.createCollection(COLLECTION, "conf", 1, 0, 2, 1)
+          .process(cluster.getSolrClient());
+      cluster.waitForActiveCollection(COLLECTION, 1, 3);
+    } finally {
+      if (testMode != null) {
+        System.setProperty("jetty.testMode", testMode);
+      }
+    }
+  }
+
+  @AfterClass
+  public static void clearProperties() {
+    System.clearProperty("solr.autoCommit.maxTime");
+    System.clearProperty("managed.schema.mutable");
+    System.clearProperty(ReplicaCommitNotifier.ENABLED_PROP);
+  }
+
+  @Test
+  public void testReplicasFetchRightAfterLeaderCommit() throws Exception {
+    Slice shard = getCollectionState(COLLECTION).getSlice("shard1");
+    // a single scheduled poll could catch one of the commits, but not all of them
+    for (int i = 0; i < 3; i++) {
+      String id = "commit-" + i;
+      cluster.getSolrClient().add(COLLECTION, sdoc("id", id));
+      cluster.getSolrClient().commit(COLLECTION);
+
+      for (Replica replica : shard.getReplicas(EnumSet.of(Replica.Type.TLOG, Replica.Type.PULL))) {
+        if (replica.getName().equals(shard.getLeader().getName())) {
+          continue;
+        }
+        try (SolrClient client = getHttpSolrClient(replica)) {
+          new TimeOut(15, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+              .waitFor(
+                  replica.getType() + " replica " + replica.getName() + " did not fetch " + id,
+                  () -> numFound(client, id) == 1);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNotifyCommitCommand() throws Exception {
+    Slice shard = getCollectionState(COLLECTION).getSlice("shard1");
+
+    Replica pull = shard.getReplicas(EnumSet.of(Replica.Type.PULL)).get(0);
+    try (SolrClient client = getHttpSolrClient(pull)) {
+      assertEquals("OK", notifyCommit(client).get("status"));
+    }
+
+    // the leader does not replicate from anyone
+    try (SolrClient client = getHttpSolrClient(shard.getLeader())) {
+      NamedList<Object> response = notifyCommit(client);
+      assertEquals("ERROR", response.get("status"));
+      assertEquals("Core does not replicate from a leader", response.get("message"));
+    }
+
+    ZkController zkController = cluster.getJettySolrRunner(0).getCoreContainer().getZkController();
+    assertFalse(zkController.pollReplicationFromLeader("no_such_core"));
+  }
+
+  private static NamedList<Object> notifyCommit(SolrClient client) throws Exception {
+    return client
+        .query(
+            new SolrQuery()
+                .add("qt", ReplicationHandler.PATH)
+                .add("command", ReplicationHandler.CMD_NOTIFY_COMMIT))
+        .getResponse();
+  }
+
+  private static long numFound(SolrClient client, String id) {
+    try {
+      return client
+          .query(new SolrQuery("id:" + id).add("distrib", "false"))
+          .getResults()
+          .getNumFound();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -27,8 +27,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.commons.io.file.PathUtils;
 import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.schema.IndexSchemaFactory;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.RuleChain;
@@ -88,6 +90,70 @@ public class TestConfigSets extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testCoresShareParsedConfig() {
+    LongAdder configMisses = new LongAdder();
+    LongAdder schemaMisses = new LongAdder();
+    CoreContainer container = null;
+    try {
+      container = setupContainer(TEST_PATH().resolve("configsets").toString());
+      IndexSchemaFactory.CACHE_MISS_LISTENER =
+          s -> {
+            if ("solrconfig.xml".equals(s)) configMisses.increment();
+            if ("schema.xml".equals(s)) schemaMisses.increment();
+          };
+      container.create("core1", Map.of("configSet", "configset-2"));
+      container.create("core2", Map.of("configSet", "configset-2"));
+      assertEquals(1, configMisses.longValue());
+      assertEquals(1, schemaMisses.longValue());
+    } finally {
+      IndexSchemaFactory.CACHE_MISS_LISTENER = null;
+      if (container != null) container.shutdown();
+    }
+  }
+
+  @Test
+  public void testEditedOrXIncludingConfigIsNotShared() throws IOException {
+    Path configSets = createTempDir();
+    PathUtils.copyDirectory(
+        TEST_PATH().resolve("configsets").resolve("configset-2"),
+        configSets.resolve("configset-2"));
+    Path conf = configSets.resolve("configset-2").resolve("conf");
+    // declaring the XInclude namespace is enough for the schema not to be cached
+    Path schema = conf.resolve("schema.xml");
+    Files.writeString(
+        schema,
+        Files.readString(schema)
+            .replace("<schema ", "<schema xmlns:xi=\"http://www.w3.org/2001/XInclude\" "));
+    Path solrConfig = conf.resolve("solrconfig.xml");
+    String config = Files.readString(solrConfig);
+
+    LongAdder configMisses = new LongAdder();
+    LongAdder schemaMisses = new LongAdder();
+    CoreContainer container = null;
+    try {
+      container = setupContainer(configSets.toString());
+      IndexSchemaFactory.CACHE_MISS_LISTENER =
+          s -> {
+            if ("solrconfig.xml".equals(s)) configMisses.increment();
+            if ("schema.xml".equals(s)) schemaMisses.increment();
+          };
+      container.create("core1", Map.of("configSet", "configset-2"));
+      // an edit that keeps the length of the file
+      String edited = config.replace("<str name=\"df\">text</str>", "<str name=\"df\">body</str>");
+      assertEquals(config.length(), edited.length());
+      Files.writeString(solrConfig, edited);
+      container.create("core2", Map.of("configSet", "configset-2"));
+      container.create("core3", Map.of("configSet", "configset-2"));
+
+      assertEquals(2, configMisses.longValue());
+      assertEquals(3, schemaMisses.longValue());
+    } finally {
+      IndexSchemaFactory.CACHE_MISS_LISTENER = null;
+      if (container != null) container.shutdown();
+    }
+  }
+
   @Test
   public void testNonExistentConfigSetThrowsException() {
     final CoreContainer container =
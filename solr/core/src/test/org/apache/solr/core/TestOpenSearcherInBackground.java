@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.TimeSource;
+import org.apache.solr.util.TimeOut;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+public class TestOpenSearcherInBackground extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty(SolrCore.OPEN_SEARCHER_IN_BACKGROUND_PROP, "true");
+    initCore("solrconfig.xml", "schema.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty(SolrCore.OPEN_SEARCHER_IN_BACKGROUND_PROP);
+  }
+
+  public void testSearchAndReload() throws Exception {
+    SolrCore core = h.getCore();
+    // whether or not the background open has finished, a search gets a searcher
+    assertQ(req("q", "*:*"), "//result[@numFound='0']");
+
+    // loaded with the container, so the constructor left the first searcher to the background
+    new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+        .waitFor(
+            "the first searcher was not opened in the background",
+            core::isFirstSearcherOpenedInBackground);
+
+    assertU(adoc("id", "1"));
+    assertU(commit());
+    assertQ(req("q", "id:1"), "//result[@numFound='1']");
+
+    // a reload is not a startup load and opens its searcher right away
+    h.getCoreContainer().reload(h.getCore().getName());
+    assertNotSame(core, h.getCore());
+    assertFalse(h.getCore().isFirstSearcherOpenedInBackground());
+    assertQ(req("q", "id:1"), "//result[@numFound='1']");
+  }
+}
@@ -109,6 +109,9 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
     super.setUp();
     systemSetPropertyEnableUrlAllowList(false);
     System.setProperty("solr.directoryFactory", "solr.StandardDirectoryFactory");
+    // exercise both the serial and the concurrent file download
+    System.setProperty(
+        IndexFetcher.FETCH_THREADS_PROP, Integer.toString(random().nextBoolean() ? 1 : 4));
     // For manual testing only
     // useFactory(null); // force an FS factory.
     leader = new SolrInstance(createTempDir("solr-instance"), "leader", null);
@@ -141,6 +144,7 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
   public void tearDown() throws Exception {
     super.tearDown();
     systemClearPropertySolrEnableUrlAllowList();
+    System.clearProperty(IndexFetcher.FETCH_THREADS_PROP);
     if (null != leaderJetty) {
       leaderJetty.stop();
       leaderJetty = null;
@@ -1514,6 +1518,17 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
         resp.get("status"));
   }
 
+  @Test
+  public void testNotifyCommitShouldReportErrorOutsideSolrCloud() throws Exception {
+    // a user-managed follower polls on its own schedule, there is no SolrCloud leader to follow
+    SolrQuery q = new SolrQuery();
+    q.add("qt", "/replication").add("wt", "json").add("command", "notifycommit");
+    NamedList<Object> resp = followerClient.query(q).getResponse();
+    assertNotNull(resp);
+    assertEquals("ERROR", resp.get("status"));
+    assertEquals("Core does not replicate from a leader", resp.get("message"));
+  }
+
   @Test
   public void testShouldReportErrorWhenRequiredCommandArgMissing() {
     SolrQuery q = new SolrQuery();
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.handler;
+
+import static org.apache.solr.handler.ReplicationHandler.CMD_FETCH_INDEX;
+import static org.apache.solr.handler.ReplicationTestHelper.invokeReplicationCommand;
+import static org.apache.solr.handler.TestReplicationHandler.createAndStartJetty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.request.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.embedded.JettySolrRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests a follower that downloads several index files at the same time. */
+@SolrTestCaseJ4.SuppressSSL
+public class TestReplicationHandlerConcurrentFetch extends SolrTestCaseJ4 {
+
+  private static final int FETCH_THREADS = 4;
+
+  Predicate<String> originalTestFetchIndexFile = null;
+
+  JettySolrRunner leaderJetty, followerJetty;
+  SolrClient leaderClient, followerClient;
+  ReplicationTestHelper.SolrInstance leader = null, follower = null;
+
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    originalTestFetchIndexFile = IndexFetcher.testFetchIndexFile;
+
+    super.setUp();
+    systemSetPropertyEnableUrlAllowList(false);
+    System.setProperty("solr.directoryFactory", "solr.StandardDirectoryFactory");
+    System.setProperty(IndexFetcher.FETCH_THREADS_PROP, Integer.toString(FETCH_THREADS));
+    leader = new ReplicationTestHelper.SolrInstance(createTempDir("solr-instance"), "leader", null);
+    leader.setUp();
+    leaderJetty = createAndStartJetty(leader);
+    leaderClient =
+        ReplicationTestHelper.createNewSolrClient(
+            TestReplicationHandler.buildUrl(leaderJetty.getLocalPort()), DEFAULT_TEST_CORENAME);
+
+    follower =
+        new ReplicationTestHelper.SolrInstance(
+            createTempDir("solr-instance"), "follower", leaderJetty.getLocalPort());
+    follower.setUp();
+    followerJetty = createAndStartJetty(follower);
+    followerClient =
+        ReplicationTestHelper.createNewSolrClient(
+            TestReplicationHandler.buildUrl(followerJetty.getLocalPort()), DEFAULT_TEST_CORENAME);
+    invokeReplicationCommand(
+        TestReplicationHandler.buildUrl(followerJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME,
+        "disablepoll");
+  }
+
+  @Override
+  @After
+  public void tearDown() throws Exception {
+    super.tearDown();
+    systemClearPropertySolrEnableUrlAllowList();
+    System.clearProperty(IndexFetcher.FETCH_THREADS_PROP);
+    if (null != leaderJetty) {
+      leaderJetty.stop();
+      leaderJetty = null;
+    }
+    if (null != followerJetty) {
+      followerJetty.stop();
+      followerJetty = null;
+    }
+    leader = follower = null;
+    if (null != leaderClient) {
+      leaderClient.close();
+      leaderClient = null;
+    }
+    if (null != followerClient) {
+      followerClient.close();
+      followerClient = null;
+    }
+
+    IndexFetcher.testFetchIndexFile = originalTestFetchIndexFile;
+  }
+
+  @Test
+  public void testParseFetchThreads() {
+    assertEquals(FETCH_THREADS, IndexFetcher.parseFetchThreads(null));
+    assertEquals(2, IndexFetcher.parseFetchThreads("2"));
+    assertEquals(3, IndexFetcher.parseFetchThreads(3));
+    for (Object invalid : List.of("0", -1, "two")) {
+      SolrException e =
+          expectThrows(SolrException.class, () -> IndexFetcher.parseFetchThreads(invalid));
+      assertTrue(e.getMessage(), e.getMessage().contains("it must be a positive integer"));
+    }
+  }
+
+  @Test
+  public void testConcurrentFullFetch() throws Exception {
+    int numDocs = indexDocsInSegments();
+
+    // the first two downloads wait for each other, which only works if they run concurrently
+    CyclicBarrier bothDownloading = new CyclicBarrier(2);
+    AtomicInteger downloads = new AtomicInteger();
+    Set<String> fetchedFiles = ConcurrentHashMap.newKeySet();
+    List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+    IndexFetcher.testFetchIndexFile =
+        fileName -> {
+          fetchedFiles.add(fileName);
+          if (downloads.incrementAndGet() <= 2) {
+            try {
+              bothDownloading.await(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+              failures.add(e);
+            }
+          }
+          return true;
+        };
+
+    assertEquals("OK", fetchIndex()._getStr("status"));
+    assertEquals("downloads did not overlap", Collections.emptyList(), failures);
+    assertTrue(fetchedFiles.toString(), fetchedFiles.size() > 2);
+    assertEquals(numDocs, numFound(followerClient));
+    ReplicationTestHelper.assertVersions(leaderClient, followerClient);
+  }
+
+  @Test
+  public void testFailedDownloadAbortsFetch() throws Exception {
+    int numDocs = indexDocsInSegments();
+
+    AtomicInteger downloads = new AtomicInteger();
+    IndexFetcher.testFetchIndexFile =
+        fileName -> {
+          if (downloads.incrementAndGet() == 2) {
+            throw new IllegalStateException("injected failure downloading " + fileName);
+          }
+          return true;
+        };
+
+    QueryResponse response = fetchIndex();
+    assertEquals("ERROR", response._getStr("status"));
+    assertEquals("the follower must keep its old index", 0, numFound(followerClient));
+    QueryResponse details =
+        followerClient.query(
+            new SolrQuery()
+                .add("qt", "/replication")
+                .add("command", ReplicationHandler.CMD_DETAILS));
+    assertEquals("false", details._getStr("details/follower/isReplicating"));
+
+    // the abort left nothing behind: the next fetch starts over and succeeds
+    IndexFetcher.testFetchIndexFile = fileName -> true;
+    assertEquals("OK", fetchIndex()._getStr("status"));
+    assertEquals(numDocs, numFound(followerClient));
+    ReplicationTestHelper.assertVersions(leaderClient, followerClient);
+  }
+
+  /** Indexes a few commits on the leader, so that a full fetch has many files to download. */
+  private int indexDocsInSegments() throws Exception {
+    int numDocs = 0;
+    for (int commit = 0; commit < 3; commit++) {
+      for (int i = 0; i < 20; i++) {
+        ReplicationTestHelper.index(leaderClient, "id", numDocs, "name", "name = " + numDocs);
+        numDocs++;
+      }
+      leaderClient.commit(true, true);
+    }
+    return numDocs;
+  }
+
+  private QueryResponse fetchIndex() throws Exception {
+    return followerClient.query(
+        new SolrQuery()
+            .add("qt", "/replication")
+            .add("command", CMD_FETCH_INDEX)
+            .add("wait", "true"));
+  }
+
+  private static long numFound(SolrClient client) throws Exception {
+    return client.query(new SolrQuery().setQuery("*:*").setRows(0)).getResults().getNumFound();
+  }
+}
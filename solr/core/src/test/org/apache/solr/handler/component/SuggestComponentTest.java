@@ -16,10 +16,20 @@
  */
 package org.apache.solr.handler.component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.lucene.util.CharsRef;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrCore;
+import org.apache.solr.spelling.suggest.SolrSuggester;
+import org.apache.solr.spelling.suggest.SuggesterOptions;
 import org.apache.solr.spelling.suggest.SuggesterParams;
+import org.apache.solr.spelling.suggest.SuggesterResult;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -103,6 +113,159 @@ public class SuggestComponentTest extends SolrTestCaseJ4 {
         "//lst[@name='suggest']/lst[@name='suggest_fuzzy_doc_dict']/lst[@name='Rad']/arr[@name='suggestions']/lst[2]/long[@name='weight'][.='30']");
   }
 
+  @Test
+  public void testDocumentBasedPerSegment() throws Exception {
+    final String path =
+        "//lst[@name='suggest']/lst[@name='suggest_fuzzy_doc_dict_per_segment']/lst[@name='exampel']";
+    assertQ(
+        req(
+            "qt",
+            rh,
+            SuggesterParams.SUGGEST_DICT,
+            "suggest_fuzzy_doc_dict_per_segment",
+            SuggesterParams.SUGGEST_Q,
+            "exampel",
+            SuggesterParams.SUGGEST_COUNT,
+            "5"),
+        path + "/int[@name='numFound'][.='2']",
+        path + "/arr[@name='suggestions']/lst[1]/str[@name='term'][.='example inputdata']",
+        path + "/arr[@name='suggestions']/lst[1]/long[@name='weight'][.='45']",
+        path + "/arr[@name='suggestions']/lst[2]/str[@name='term'][.='example data']",
+        path + "/arr[@name='suggestions']/lst[2]/long[@name='weight'][.='40']");
+
+    // new segments and deletions are picked up on commit, without an explicit build
+    assertU(adoc("id", "11", "cat", "example data extra", "price", "60", "weight", "40"));
+    assertU(delI("8"));
+    assertU(commit());
+    waitForWarming();
+    assertQ(
+        req(
+            "qt",
+            rh,
+            SuggesterParams.SUGGEST_DICT,
+            "suggest_fuzzy_doc_dict_per_segment",
+            SuggesterParams.SUGGEST_Q,
+            "exampel",
+            SuggesterParams.SUGGEST_COUNT,
+            "5"),
+        path + "/int[@name='numFound'][.='2']",
+        path + "/arr[@name='suggestions']/lst[1]/str[@name='term'][.='example data extra']",
+        path + "/arr[@name='suggestions']/lst[1]/long[@name='weight'][.='60']",
+        path + "/arr[@name='suggestions']/lst[2]/str[@name='term'][.='example data']",
+        path + "/arr[@name='suggestions']/lst[2]/long[@name='weight'][.='40']");
+  }
+
+  @Test
+  public void testPerSegmentRequiresDocumentDictionary() {
+    final NamedList<Object> config = new NamedList<>();
+    config.add(CommonParams.NAME, "suggest_high_freq_per_segment");
+    config.add(SolrSuggester.LOOKUP_IMPL, "FuzzyLookupFactory");
+    config.add(SolrSuggester.DICTIONARY_IMPL, "HighFrequencyDictionaryFactory");
+    config.add("field", "cat");
+    config.add("suggestAnalyzerFieldType", "text");
+    config.add(SolrSuggester.BUILD_PER_SEGMENT, "true");
+    // rejected on startup, rather than failing on each build
+    SolrException e =
+        expectThrows(SolrException.class, () -> new SolrSuggester().init(config, h.getCore()));
+    assertEquals(SolrException.ErrorCode.SERVER_ERROR.code, e.code());
+    assertTrue(e.getMessage(), e.getMessage().contains("HighFrequencyDictionaryFactory"));
+  }
+
+  @Test
+  public void testOffHeap() throws Exception {
+    final String suggester = "suggest_fst_doc_dict_off_heap";
+    final String path = "//lst[@name='suggest']/lst[@name='" + suggester + "']/lst[@name='exa']";
+    assertQ(
+        req(
+            "qt",
+            rh,
+            SuggesterParams.SUGGEST_DICT,
+            suggester,
+            SuggesterParams.SUGGEST_BUILD,
+            "true",
+            SuggesterParams.SUGGEST_Q,
+            "exa",
+            SuggesterParams.SUGGEST_COUNT,
+            "5"),
+        path + "/int[@name='numFound'][.='2']");
+    assertTrue(getSuggester(suggester).offHeapBytesUsed() > 0);
+
+    // the stored lookup is mapped again when the core is reloaded
+    reloadCore(false);
+    assertTrue(getSuggester(suggester).offHeapBytesUsed() > 0);
+    assertQ(
+        req(
+            "qt",
+            rh,
+            SuggesterParams.SUGGEST_DICT,
+            suggester,
+            SuggesterParams.SUGGEST_Q,
+            "exa",
+            SuggesterParams.SUGGEST_COUNT,
+            "5"),
+        path + "/int[@name='numFound'][.='2']");
+  }
+
+  @Test
+  public void testOffHeapLookupsWhileRebuilding() throws Exception {
+    final String suggester = "suggest_fst_doc_dict_off_heap";
+    assertQ(
+        req(
+            "qt",
+            rh,
+            SuggesterParams.SUGGEST_DICT,
+            suggester,
+            SuggesterParams.SUGGEST_BUILD,
+            "true"),
+        "//str[@name='command'][.='build']");
+
+    // each rebuild maps a new file, while the lookups may still read the previous one
+    final SuggesterOptions options =
+        new SuggesterOptions(new CharsRef("exa"), 5, null, false, false);
+    final AtomicBoolean done = new AtomicBoolean();
+    final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+    final Thread[] readers = new Thread[4];
+    for (int i = 0; i < readers.length; i++) {
+      readers[i] =
+          new Thread(
+              () -> {
+                try {
+                  while (!done.get()) {
+                    SuggesterResult result = getSuggester(suggester).getSuggestions(options);
+                    assertEquals(2, result.getLookupResult(suggester, "exa").size());
+                  }
+                } catch (Throwable t) {
+                  failures.add(t);
+                }
+              });
+      readers[i].start();
+    }
+    try {
+      for (int i = 0; i < 10; i++) {
+        assertQ(
+            req(
+                "qt",
+                rh,
+                SuggesterParams.SUGGEST_DICT,
+                suggester,
+                SuggesterParams.SUGGEST_BUILD,
+                "true"),
+            "//str[@name='command'][.='build']");
+      }
+    } finally {
+      done.set(true);
+      for (Thread reader : readers) {
+        reader.join();
+      }
+    }
+    assertEquals(Collections.emptyList(), failures);
+    assertTrue(getSuggester(suggester).offHeapBytesUsed() > 0);
+  }
+
+  private SolrSuggester getSuggester(String name) {
+    return ((SuggestComponent) h.getCore().getSearchComponent("suggest")).suggesters.get(name);
+  }
+
   @Test
   public void testExpressionBased() {
     assertQ(
@@ -276,6 +276,31 @@ public class TestUnifiedSolrHighlighter extends SolrTestCaseJ4 {
         "//lst[@name='highlighting']/lst[@name='102']/arr[@name='text3']/str='crappier <em>document</em>'");
   }
 
+  public void testTwoFieldsParallel() {
+    assertQ(
+        "highlighting text and text3 concurrently",
+        req(
+            "q",
+            "text:document text3:document",
+            "sort",
+            "id asc",
+            "hl",
+            "true",
+            "hl.fl",
+            "text,text3",
+            "hl.parallel",
+            "true",
+            "debug",
+            "timing"),
+        "count(//lst[@name='highlighting']/*)=2",
+        "//lst[@name='highlighting']/lst[@name='101']/arr[@name='text']/str='<em>document</em> one'",
+        "//lst[@name='highlighting']/lst[@name='101']/arr[@name='text3']/str='crappy <em>document</em>'",
+        "//lst[@name='highlighting']/lst[@name='102']/arr[@name='text']/str='second <em>document</em>'",
+        "//lst[@name='highlighting']/lst[@name='102']/arr[@name='text3']/str='crappier <em>document</em>'",
+        "//lst[@name='debug']/lst[@name='highlightTiming']/double[@name='text']",
+        "//lst[@name='debug']/lst[@name='highlightTiming']/double[@name='text3']");
+  }
+
   // SOLR-5127
   public void testMultipleFieldsViaWildcard() {
     assertQ(
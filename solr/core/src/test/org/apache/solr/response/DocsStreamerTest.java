@@ -20,7 +20,10 @@ import java.util.Arrays;
 import java.util.List;
 import org.apache.lucene.index.IndexableField;
 import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrDocument;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.SolrDocumentFetcher;
+import org.apache.solr.search.SolrReturnFields;
 import org.junit.BeforeClass;
 
 public class DocsStreamerTest extends SolrTestCaseJ4 {
@@ -41,4 +44,41 @@ public class DocsStreamerTest extends SolrTestCaseJ4 {
       assertEquals(values.get(idx - 1), value);
     }
   }
+
+  public void testBatchFetchKeepsRequestedOrder() throws Exception {
+    clearIndex();
+    for (int i = 0; i < 20; i++) {
+      assertU(adoc("id", Integer.toString(i), "name", "name" + i));
+      if (i % 7 == 0) {
+        assertU(commit()); // several segments
+      }
+    }
+    assertU(commit());
+
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              int[] ids = new int[searcher.maxDoc()];
+              for (int i = 0; i < ids.length; i++) {
+                ids[i] = ids.length - 1 - i;
+              }
+              SolrDocumentFetcher docFetcher = searcher.getDocFetcher();
+              SolrDocument[] batch = docFetcher.solrDocs(ids, new SolrReturnFields());
+              SolrReturnFields single = new SolrReturnFields();
+              for (int i = 0; i < ids.length; i++) {
+                SolrDocument expected = docFetcher.solrDoc(ids[i], single);
+                assertEquals(
+                    expected.getFieldValue("id").toString(),
+                    batch[i].getFieldValue("id").toString());
+              }
+              return null;
+            });
+
+    // the streamed response must still follow the sort order
+    assertQ(
+        req("q", "*:*", "fl", "id", "sort", "id desc", "rows", "20"),
+        "//result/doc[1]/str[@name='id'][.='9']",
+        "//result/doc[2]/str[@name='id'][.='8']",
+        "//result/doc[20]/str[@name='id'][.='0']");
+  }
 }
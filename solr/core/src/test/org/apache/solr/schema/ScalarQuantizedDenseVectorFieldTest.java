@@ -160,4 +160,29 @@ public class ScalarQuantizedDenseVectorFieldTest extends AbstractBadConfigTestBa
       deleteCore();
     }
   }
+
+  @Test
+  public void query_oversampled_shouldRescoreWithFullPrecisionVectors() throws Exception {
+    try {
+      initCore("solrconfig_codec.xml", "schema-densevector-quantized.xml");
+
+      assertU(adoc("id", "1", "v_scalar_default", "[1.0, 2.0, 3.0, 4.0]"));
+      assertU(adoc("id", "2", "v_scalar_default", "[1.5, 2.5, 3.5, 4.5]"));
+      assertU(adoc("id", "3", "v_scalar_default", "[30.0, 22.0, 35.0, 20.0]"));
+      assertU(adoc("id", "4", "v_scalar_default", "[1.4, 2.4, 3.4, 4.4]"));
+      assertU(adoc("id", "5", "v_scalar_default", "[120.0, 60.0, 30.0, 15.0]"));
+      assertU(adoc("id", "6", "v_scalar_default", "[1.8, 2.5, 3.7, 4.9]"));
+      assertU(commit());
+
+      // the cosine similarities to the full precision vectors are 1.0, 0.999, 0.998 and 0.997
+      assertQ(
+          req("q", "{!knn f=v_scalar_default topK=3 oversample=2}[1.0, 2.0, 3.0, 4.0]", "fl", "id"),
+          "//result[@numFound='3']",
+          "//result/doc[1]/str[@name='id'][.='1']",
+          "//result/doc[2]/str[@name='id'][.='4']",
+          "//result/doc[3]/str[@name='id'][.='2']");
+    } finally {
+      deleteCore();
+    }
+  }
 }
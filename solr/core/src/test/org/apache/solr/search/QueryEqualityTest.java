@@ -862,6 +862,11 @@ public class QueryEqualityTest extends SolrTestCaseJ4 {
     assertFuncEquals("top(sum(3,foo_i))");
   }
 
+  public void testFuncCompile() throws Exception {
+    assertFuncEquals("compile(sum(3,foo_i))", "compile(sum(3, foo_i))");
+    assertFuncEquals("compile(sqrt(recip(foo_i,1,2,3)))", "compile(sqrt(recip(foo_i, 1,2,3)))");
+  }
+
   public void testFuncLinear() throws Exception {
     SolrQueryRequest req = req("someVar", "27");
     try {
@@ -1030,6 +1035,11 @@ public class QueryEqualityTest extends SolrTestCaseJ4 {
           "lateVector($f, '[[1,2,3,4],[4,5,6,7]]')",
           "lateVector(late_vec_4, '[[1.0,2.0,3.0,4.0],[4.0,5.0,6.0,7.0]]')",
           "lateVector(late_vec_4, ' [[ 1, 2, 3, 4.0] ,[4,5,6,7]] ')");
+      assertFuncEquals(
+          req,
+          "lateVector(late_vec_4, $v1, 2)",
+          "lateVector($f, $v1, 2)",
+          "lateVector($f, '[[1,2,3,4],[4,5,6,7]]', 2)");
     }
   }
 
@@ -31,6 +31,7 @@ import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.search.LateInteractionFloatValuesSource.ScoreFunction;
 import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.schema.StrFloatLateInteractionVectorField;
@@ -270,6 +271,77 @@ public class TestLateInteractionVectors extends SolrTestCaseJ4 {
         "//*[@numFound='1']");
   }
 
+  public void testRandomScores() throws Exception {
+    final int numDocs = atLeast(20);
+    final float[][][] docs = new float[numDocs][][];
+    for (int i = 0; i < numDocs; i++) {
+      docs[i] = randomMultiVector(4);
+      assertU(adoc("id", Integer.toString(i), "lv_4_def", multiFloatVectorToString(docs[i])));
+      if (random().nextInt(5) == 0) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    final float[][] q = randomMultiVector(4);
+    final String qs = multiFloatVectorToString(q);
+    for (int i = 0; i < numDocs; i++) {
+      // the scores computed from the packed doc values are those of Lucene
+      final float expected = SUM_MAX_SIM.compare(q, docs[i], VectorSimilarityFunction.EUCLIDEAN);
+      assertQ(
+          req("q", "id:" + i, "fl", "sim:lateVector(lv_4_def,'" + qs + "')"),
+          "//float[@name='sim'][.=" + expected + "]");
+    }
+  }
+
+  public void testMaxDocTokens() throws Exception {
+    final float[][] d3 = new float[][] {{0.1F, 0.2F, 0.3F}, {0.5F, -0.6F, 0.7F}, {0.1F, 0F, 0F}};
+    assertU(adoc("id", "xxx", "lv_3_def", multiFloatVectorToString(d3)));
+    assertU(commit());
+
+    final float[][] q3 = new float[][] {{0.1F, 0.3F, 0.4F}, {0.1F, 0F, 0.1F}};
+    final String q3s = multiFloatVectorToString(q3);
+    final float all = SUM_MAX_SIM.compare(q3, d3, VectorSimilarityFunction.EUCLIDEAN);
+    final float first =
+        SUM_MAX_SIM.compare(q3, Arrays.copyOf(d3, 1), VectorSimilarityFunction.EUCLIDEAN);
+    // only the first token vectors of the document are scored
+    assertNotEquals(all, first);
+    assertQ(
+        req(
+            "q", "id:xxx",
+            "fl", "first:lateVector(lv_3_def,'" + q3s + "',1)",
+            "fl", "two:lateVector(lv_3_def,'" + q3s + "',2)",
+            "fl", "all:lateVector(lv_3_def,'" + q3s + "',3)",
+            "fl", "more:lateVector(lv_3_def,'" + q3s + "',100)"),
+        "//float[@name='first'][.=" + first + "]",
+        "//float[@name='two'][.="
+            + SUM_MAX_SIM.compare(q3, Arrays.copyOf(d3, 2), VectorSimilarityFunction.EUCLIDEAN)
+            + "]",
+        "//float[@name='all'][.=" + all + "]",
+        "//float[@name='more'][.=" + all + "]");
+
+    assertQEx(
+        "maxDocTokens must be positive",
+        "maxDocTokens must be a positive integer: 0",
+        req("q", "{!func}lateVector(lv_3_def,'" + q3s + "',0)"),
+        SolrException.ErrorCode.BAD_REQUEST);
+    assertQEx(
+        "too many arguments",
+        "Invalid number of arguments",
+        req("q", "{!func}lateVector(lv_3_def,'" + q3s + "',1,2)"),
+        SolrException.ErrorCode.BAD_REQUEST);
+  }
+
+  private static float[][] randomMultiVector(final int dimension) {
+    final float[][] result = new float[1 + random().nextInt(10)][dimension];
+    for (float[] vec : result) {
+      for (int v = 0; v < dimension; v++) {
+        vec[v] = random().nextFloat() * 2 - 1;
+      }
+    }
+    return result;
+  }
+
   public void testReRank() throws Exception {
     final int numDocs = atLeast(10);
     // NOTE start at '1' and stop at '<'; we add one more doc after the loop
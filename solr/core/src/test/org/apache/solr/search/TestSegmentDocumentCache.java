@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.junit.BeforeClass;
+
+public class TestSegmentDocumentCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty("filterCache.enabled", "false");
+    System.setProperty("queryResultCache.enabled", "false");
+    System.setProperty("documentCache.enabled", "false");
+    System.setProperty("segmentDocumentCache.enabled", "true");
+    System.setProperty("solr.index.updatelog.enabled", "false");
+    // entries are per segment, so keep the segments stable
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig-cache-enable-disable.xml", "schema12.xml");
+  }
+
+  public void testSurvivesReopen() throws Exception {
+    SegmentDocumentCache segmentCache = h.getCore().getSegmentDocumentCache();
+    assertNotNull(segmentCache);
+    SolrCache<?, ?> cache = segmentCache.getCache();
+
+    assertU(adoc("id", "1", "name", "one", "a_i", "1", "a_l", "10", "a_f", "1.5", "a_d", "2.5"));
+    assertU(adoc("id", "2", "name", "two", "a_i", "2", "a_s", "x", "a_s", "y"));
+    assertU(commit());
+
+    String[] doc1 = {
+      "//result[@numFound='1']",
+      "//doc/str[@name='id'][.='1']",
+      "//doc/str[@name='name'][.='one']",
+      "//doc/int[@name='a_i'][.='1']",
+      "//doc/long[@name='a_l'][.='10']",
+      "//doc/float[@name='a_f'][.='1.5']",
+      "//doc/double[@name='a_d'][.='2.5']"
+    };
+    assertQ(req("q", "id:1"), doc1);
+    assertQ(
+        req("q", "id:2", "fl", "id,a_s"),
+        "//doc/arr[@name='a_s']/str[1][.='x']",
+        "//doc/arr[@name='a_s']/str[2][.='y']",
+        "count(//doc/str[@name='name'])=0");
+    assertEquals(2, cache.size());
+
+    // a new segment doesn't invalidate the entries of the existing one
+    assertU(adoc("id", "3", "name", "three"));
+    assertU(commit());
+    assertEquals(2, cache.size());
+    assertQ(req("q", "id:1"), doc1);
+    assertQ(req("q", "id:3"), "//doc/str[@name='name'][.='three']");
+    assertEquals(3, cache.size());
+
+    // an updated document lives in a new segment, so the stale entry is never returned
+    assertU(adoc("id", "1", "name", "uno"));
+    assertU(commit());
+    assertQ(req("q", "id:1"), "//result[@numFound='1']", "//doc/str[@name='name'][.='uno']");
+  }
+}
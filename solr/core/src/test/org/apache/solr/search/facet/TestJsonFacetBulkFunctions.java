@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.queries.function.FunctionQuery;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.FunctionQParserPlugin;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.function.BulkValueSource;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares sum and sumsq over functions collected in blocks of documents, by query facets and the
+ * top level stats, with the same stats collected one document at a time, by a terms facet whose
+ * single bucket holds all the documents of the domain.
+ */
+public class TestJsonFacetBulkFunctions extends SolrTestCaseJ4 {
+
+  private static final String[] FUNCTIONS = {
+    "recip(x_f,1,2,3)", "div(x_f,y_i)", "sum(x_f,y_i,recip(y_i,2,1,1))"
+  };
+
+  private static final int NUM_SEGMENTS = 4;
+  private static final int SEGMENT_SIZE = 300;
+  private static final long NUM_LIVE_DOCS =
+      NUM_SEGMENTS * SEGMENT_SIZE - SEGMENT_SIZE / 2 - 60 - 1;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // several segments, with more documents than a block
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig-tlog.xml", "schema_latest.xml");
+
+    for (int seg = 0; seg < NUM_SEGMENTS; seg++) {
+      for (int i = 0; i < SEGMENT_SIZE; i++) {
+        final int id = seg * SEGMENT_SIZE + i;
+        if (id % 7 == 0) {
+          // documents without x_f have a value of 0 for it
+          assertU(
+              adoc(
+                  "id",
+                  Integer.toString(id),
+                  "n_i",
+                  Integer.toString(id),
+                  "group_s",
+                  "all",
+                  "y_i",
+                  "1"));
+        } else {
+          assertU(
+              adoc(
+                  "id",
+                  Integer.toString(id),
+                  "n_i",
+                  Integer.toString(id),
+                  "group_s",
+                  "all",
+                  "x_f",
+                  Float.toString(random().nextFloat() * 100 - 50),
+                  "y_i",
+                  Integer.toString(1 + random().nextInt(10))));
+        }
+      }
+      assertU(commit());
+    }
+    // deleted documents in some of the segments
+    assertU(delQ("n_i:[0 TO " + (SEGMENT_SIZE / 2 - 1) + "]"));
+    assertU(delQ("n_i:[" + (3 * SEGMENT_SIZE) + " TO " + (3 * SEGMENT_SIZE + 59) + "]"));
+    assertU(delI(Integer.toString(SEGMENT_SIZE + 1)));
+    assertU(commit());
+  }
+
+  private static String stats() {
+    final StringBuilder stats = new StringBuilder();
+    for (int i = 0; i < FUNCTIONS.length; i++) {
+      stats.append(i == 0 ? "" : ",");
+      stats.append("sum").append(i).append(":'sum(").append(FUNCTIONS[i]).append(")',");
+      stats.append("sumsq").append(i).append(":'sumsq(").append(FUNCTIONS[i]).append(")'");
+    }
+    return stats.toString();
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private static Map<String, Object> facets(String q, String jsonFacet) throws Exception {
+    final String response = JQ(req("q", q, "rows", "0", "json.facet", jsonFacet));
+    return (Map<String, Object>)
+        ((Map<String, Object>) Utils.fromJSONString(response)).get("facets");
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private static Map<String, Object> singleBucket(Map<String, Object> facets, String name) {
+    final List<Map<String, Object>> buckets =
+        (List<Map<String, Object>>) ((Map<String, Object>) facets.get(name)).get("buckets");
+    assertEquals(1, buckets.size());
+    return buckets.get(0);
+  }
+
+  private static void assertSameStats(Map<String, Object> expected, Map<String, Object> actual) {
+    assertEquals(expected.get("count"), actual.get("count"));
+    for (int i = 0; i < FUNCTIONS.length; i++) {
+      for (String stat : new String[] {"sum" + i, "sumsq" + i}) {
+        final double expectedValue = ((Number) expected.get(stat)).doubleValue();
+        final double actualValue = ((Number) actual.get(stat)).doubleValue();
+        assertEquals(FUNCTIONS[i] + " " + stat, expectedValue, actualValue, 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void testFunctionsAreCollectedInBulk() throws Exception {
+    try (SolrQueryRequest req = req()) {
+      for (String function : FUNCTIONS) {
+        final FunctionQuery query =
+            (FunctionQuery) QParser.getParser(function, FunctionQParserPlugin.NAME, req).getQuery();
+        assertTrue(function, query.getValueSource() instanceof BulkValueSource);
+      }
+    }
+  }
+
+  @Test
+  public void testBulkStatsMatchPerDocumentStats() throws Exception {
+    final String stats = stats();
+    final Map<String, Object> facets =
+        facets(
+            "*:*",
+            "{"
+                + stats
+                + ",bulk:{type:query, q:'*:*', facet:{"
+                + stats
+                + "}}"
+                + ",perDoc:{type:terms, field:group_s, facet:{"
+                + stats
+                + "}}"
+                + ",bulkFiltered:{type:query, q:'y_i:[1 TO 5]', facet:{"
+                + stats
+                + "}}"
+                + ",perDocFiltered:{type:terms, field:group_s, domain:{filter:'y_i:[1 TO 5]'},"
+                + " facet:{"
+                + stats
+                + "}}"
+                + "}");
+
+    final Map<String, Object> perDoc = singleBucket(facets, "perDoc");
+    assertEquals(NUM_LIVE_DOCS, perDoc.get("count"));
+    assertSameStats(perDoc, facets);
+    @SuppressWarnings({"unchecked"})
+    final Map<String, Object> bulk = (Map<String, Object>) facets.get("bulk");
+    assertSameStats(perDoc, bulk);
+
+    @SuppressWarnings({"unchecked"})
+    final Map<String, Object> bulkFiltered = (Map<String, Object>) facets.get("bulkFiltered");
+    assertSameStats(singleBucket(facets, "perDocFiltered"), bulkFiltered);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.function;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FloatDocValuesField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.queries.function.FunctionValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.valuesource.ConstValueSource;
+import org.apache.lucene.queries.function.valuesource.DualFloatFunction;
+import org.apache.lucene.queries.function.valuesource.FloatFieldSource;
+import org.apache.lucene.queries.function.valuesource.IntFieldSource;
+import org.apache.lucene.queries.function.valuesource.SimpleFloatFunction;
+import org.apache.lucene.store.Directory;
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class TestBulkValueSource extends SolrTestCase {
+
+  // shared with TestCompiledValueSource, which compares functions with their compiled form
+  static final ValueSource A = new FloatFieldSource("a");
+  static final ValueSource B = new IntFieldSource("b");
+
+  /** A function without bulk values, which can't be compiled either */
+  static final ValueSource SQUARE =
+      new SimpleFloatFunction(A) {
+        @Override
+        protected String name() {
+          return "square";
+        }
+
+        @Override
+        protected float func(int doc, FunctionValues vals) throws IOException {
+          return vals.floatVal(doc) * vals.floatVal(doc);
+        }
+      };
+
+  private static final ValueSource SUB =
+      BulkValueSource.sub(
+          new DualFloatFunction(A, B) {
+            @Override
+            protected String name() {
+              return "sub";
+            }
+
+            @Override
+            protected float func(int doc, FunctionValues aVals, FunctionValues bVals)
+                throws IOException {
+              return aVals.floatVal(doc) - bVals.floatVal(doc);
+            }
+          },
+          A,
+          B);
+
+  /**
+   * Returns a new index of random documents in several segments, with a float field {@code a} and
+   * an int field {@code b}, each missing in some of the documents.
+   */
+  static Directory newRandomIndex() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; i++) {
+      final Document doc = new Document();
+      if (random().nextInt(10) != 0) {
+        doc.add(new FloatDocValuesField("a", random().nextFloat() * 100 - 50));
+      }
+      if (random().nextInt(10) != 0) {
+        doc.add(new NumericDocValuesField("b", random().nextInt(1000)));
+      }
+      w.addDocument(doc);
+      if (random().nextInt(100) == 0) {
+        w.commit();
+      }
+    }
+    w.close();
+    return dir;
+  }
+
+  @Test
+  public void testBulkValues() throws IOException {
+    final Directory dir = newRandomIndex();
+
+    final List<ValueSource> sources =
+        List.of(
+            BulkValueSource.sum(new ValueSource[] {A, B, new ConstValueSource(3f)}),
+            BulkValueSource.product(new ValueSource[] {A, B}),
+            BulkValueSource.linear(A, 2f, -1f),
+            BulkValueSource.recip(B, 3.16e-11f, 1f, 1f),
+            BulkValueSource.div(A, B),
+            SUB,
+            BulkValueSource.sum(
+                new ValueSource[] {
+                  BulkValueSource.recip(BulkValueSource.product(new ValueSource[] {A, B}), 1, 2, 3),
+                  SQUARE
+                }));
+
+    try (DirectoryReader reader = DirectoryReader.open(dir)) {
+      for (ValueSource source : sources) {
+        assertTrue(source instanceof BulkValueSource);
+        for (LeafReaderContext context : reader.leaves()) {
+          final Map<Object, Object> fcontext = new HashMap<>();
+          final FunctionValues values = source.getValues(fcontext, context);
+          final BulkValueSource.BulkValues bulkValues =
+              BulkValueSource.getBulkValues(source, fcontext, context);
+          final int maxDoc = context.reader().maxDoc();
+          final int[] docs = new int[maxDoc];
+          final float[] bulk = new float[maxDoc];
+          int doc = random().nextInt(3);
+          while (doc < maxDoc) {
+            // random blocks of random documents
+            int count = 0;
+            final int blockSize = 1 + random().nextInt(100);
+            for (; count < blockSize && doc < maxDoc; doc += 1 + random().nextInt(3)) {
+              docs[count++] = doc;
+            }
+            bulkValues.floatVals(docs, count, bulk);
+            for (int i = 0; i < count; i++) {
+              assertEquals(
+                  source.description() + " doc " + docs[i],
+                  Float.floatToIntBits(values.floatVal(docs[i])),
+                  Float.floatToIntBits(bulk[i]));
+            }
+          }
+        }
+      }
+    }
+    dir.close();
+  }
+
+  @Test
+  public void testEquality() {
+    final ValueSource source = BulkValueSource.recip(A, 1f, 2f, 3f);
+    assertEquals(source, BulkValueSource.recip(A, 1f, 2f, 3f));
+    assertEquals(source.hashCode(), BulkValueSource.recip(A, 1f, 2f, 3f).hashCode());
+    assertNotEquals(source, BulkValueSource.recip(A, 1f, 2f, 4f));
+    assertEquals(((BulkValueSource) source).getDelegate().description(), source.description());
+  }
+}
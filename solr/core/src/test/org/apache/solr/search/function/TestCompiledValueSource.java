@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.function;
+
+import static org.apache.solr.search.function.TestBulkValueSource.A;
+import static org.apache.solr.search.function.TestBulkValueSource.B;
+import static org.apache.solr.search.function.TestBulkValueSource.SQUARE;
+import static org.apache.solr.search.function.TestBulkValueSource.newRandomIndex;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.queries.function.FunctionValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.valuesource.ConstValueSource;
+import org.apache.lucene.store.Directory;
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class TestCompiledValueSource extends SolrTestCase {
+
+  @Test
+  public void testCompiledValues() throws IOException {
+    final Directory dir = newRandomIndex();
+
+    final List<ValueSource> sources =
+        List.of(
+            BulkValueSource.sum(new ValueSource[] {A, B, new ConstValueSource(3f)}),
+            BulkValueSource.product(new ValueSource[] {A, B, A}),
+            BulkValueSource.linear(A, 2f, -1f),
+            BulkValueSource.recip(B, 3.16e-11f, 1f, 1f),
+            BulkValueSource.div(A, B),
+            BulkValueSource.sum(
+                new ValueSource[] {
+                  BulkValueSource.recip(BulkValueSource.product(new ValueSource[] {A, A}), 1, 2, 3),
+                  SQUARE,
+                  BulkValueSource.linear(SQUARE, 0.5f, 0f)
+                }));
+
+    try (DirectoryReader reader = DirectoryReader.open(dir)) {
+      for (ValueSource source : sources) {
+        final ValueSource compiled = CompiledValueSource.compile(source);
+        assertTrue(compiled instanceof CompiledValueSource);
+        for (LeafReaderContext context : reader.leaves()) {
+          final Map<Object, Object> fcontext = new HashMap<>();
+          final FunctionValues values = source.getValues(fcontext, context);
+          final FunctionValues compiledValues = compiled.getValues(fcontext, context);
+          final int maxDoc = context.reader().maxDoc();
+          for (int doc = random().nextInt(3); doc < maxDoc; doc += 1 + random().nextInt(3)) {
+            final double expected = values.doubleVal(doc);
+            // the functions compute with floats, the compiled expression with doubles
+            assertEquals(
+                compiled.description() + " doc " + doc,
+                expected,
+                compiledValues.doubleVal(doc),
+                Math.max(1, Math.abs(expected)) * 1e-5);
+          }
+        }
+      }
+    }
+    dir.close();
+  }
+
+  @Test
+  public void testNothingToCompile() {
+    assertSame(A, CompiledValueSource.compile(A));
+    assertSame(SQUARE, CompiledValueSource.compile(SQUARE));
+    // infinite constants can't be written as literals
+    final ValueSource linear = BulkValueSource.linear(A, Float.POSITIVE_INFINITY, 0f);
+    assertSame(linear, CompiledValueSource.compile(linear));
+  }
+
+  @Test
+  public void testEquality() {
+    final ValueSource source = BulkValueSource.div(A, B);
+    final ValueSource compiled = CompiledValueSource.compile(source);
+    assertEquals(compiled, CompiledValueSource.compile(BulkValueSource.div(A, B)));
+    assertEquals(compiled.hashCode(), CompiledValueSource.compile(source).hashCode());
+    assertNotEquals(compiled, source);
+    assertNotEquals(compiled, CompiledValueSource.compile(BulkValueSource.div(B, A)));
+    assertEquals("compile(" + source.description() + ")", compiled.description());
+  }
+}
@@ -1087,6 +1087,24 @@ public class TestFunctionQuery extends SolrTestCaseJ4 {
         "/response/docs/[0]=={ 'a': 74.0, 'b':32.0 }");
   }
 
+  @Test
+  public void testCompiledFunctions() throws Exception {
+    clearIndex();
+
+    assertU(adoc("id", "1", "yak_i", "32"));
+    assertU(adoc("id", "2"));
+    assertU(commit());
+
+    // max(...) is not compiled, but computed by the compiled function
+    final String fl =
+        "id,a:compile(sum(yak_i,1)),b:compile(sqrt(product(yak_i,2))),"
+            + "c:compile(sub(pow(yak_i,2),max(yak_i,1)))";
+    assertJQ(
+        req("q", "*:*", "fl", fl, "sort", "id asc"),
+        "/response/docs/[0]=={'id':'1', 'a':33.0, 'b':8.0, 'c':992.0}",
+        "/response/docs/[1]=={'id':'2', 'a':1.0, 'b':0.0, 'c':-1.0}");
+  }
+
   @Test
   public void testMissingFieldFunctionBehavior() {
     clearIndex();
@@ -198,6 +198,22 @@ public class CrossCollectionJoinQueryTest extends SolrCloudTestCase {
               client.getClusterStateProvider().getQuorumHosts()),
           true);
 
+      // Restricting the join keys to the local ones doesn't change the results
+      testCcJoinQuery(
+          "{!join method=crossCollection fromIndex=products from=product_id_i to=product_id_i prefilter=true}size_s:M",
+          true);
+      testCcJoinQuery(
+          "{!join method=crossCollection fromIndex=products from=product_id_s to=product_id_s prefilter=true}size_s:M",
+          true);
+      // the remote int keys are compared with the local string keys, whose string range ("0" to
+      // "99") doesn't contain all the int keys, so it must not be passed on
+      testCcJoinQuery(
+          "{!join method=crossCollection fromIndex=products from=product_id_i to=product_id_s}size_s:M",
+          true);
+      testCcJoinQuery(
+          "{!join method=crossCollection fromIndex=products from=product_id_i to=product_id_s prefilter=true}size_s:M",
+          true);
+
       // Test the ability to set other parameters on crossCollection join and have them passed
       // through
       assertResultCount(
@@ -305,6 +321,16 @@ public class CrossCollectionJoinQueryTest extends SolrCloudTestCase {
     }
   }
 
+  @Test
+  public void testGetKeyType() {
+    assertEquals("string", CrossCollectionJoinQuery.getKeyType("solr.StrField"));
+    assertEquals("long", CrossCollectionJoinQuery.getKeyType("solr.IntPointField"));
+    assertEquals(
+        "long", CrossCollectionJoinQuery.getKeyType("org.apache.solr.schema.LongPointField"));
+    assertNull(CrossCollectionJoinQuery.getKeyType("solr.TextField"));
+    assertNull(CrossCollectionJoinQuery.getKeyType("solr.EnumFieldType"));
+  }
+
   public void testCcJoinQuery(String query, boolean expectFullResults) throws Exception {
     assertResultCount("parts", query, NUM_PRODUCTS / 2, expectFullResults);
   }
@@ -140,6 +140,28 @@ public class GraphQueryTest extends SolrTestCaseJ4 {
     assertJQ(
         req(p, "q", "{!graph from=${node_id} to=${edge_id} returnRoot=false maxDepth=1}id:doc_1"),
         "/response/numFound==1");
+
+    // each hop across the index slices in parallel
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} parallel=true}id:doc_1"),
+        "/response/numFound==7");
+    assertJQ(
+        req(
+            p,
+            "q",
+            "{!graph from=${node_id} to=${edge_id} parallel=true returnRoot=false returnOnlyLeaf=true}id:doc_8"),
+        "/response/numFound==2");
+
+    // doc_8 has 2 edges, and the documents they lead to (doc_1, doc_2) have 3
+    assertJQ(
+        req(p, "q", "{!graph from=${node_id} to=${edge_id} maxFrontierTerms=1}id:doc_8"),
+        "/response/numFound==1");
+    assertJQ(
+        req(
+            p,
+            "q",
+            "{!graph from=${node_id} to=${edge_id} maxFrontierTerms=2 parallel=true}id:doc_8"),
+        "/response/numFound==3");
   }
 
   @Test
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.SolrTestCase;
+
+public class TestJoinKeyFilter extends SolrTestCase {
+
+  public void testSegmentCache() throws Exception {
+    try (Directory dir = new ByteBuffersDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+      // two segments, with the keys 0-99 and 200-299
+      for (int segment = 0; segment < 2; segment++) {
+        for (int i = 0; i < 100; i++) {
+          Document doc = new Document();
+          doc.add(new StringField("key", Integer.toString(segment * 200 + i), Field.Store.NO));
+          writer.addDocument(doc);
+        }
+        writer.commit();
+      }
+
+      try (DirectoryReader reader = DirectoryReader.open(writer)) {
+        assertEquals(2, reader.leaves().size());
+        JoinKeyFilter.SegmentCache cache = new JoinKeyFilter.SegmentCache(1024 * 1024);
+        JoinKeyFilter filter = JoinKeyFilter.build(reader, "key", cache);
+        for (int i = 0; i < 100; i++) {
+          assertTrue(filter.mightContain(new BytesRef(Integer.toString(i))));
+          assertTrue(filter.mightContain(new BytesRef(Integer.toString(200 + i))));
+        }
+        assertEquals(2, cache.size());
+        assertTrue(cache.ramBytesUsed() > 0);
+
+        JoinKeyFilter.build(reader, "key", cache);
+        JoinKeyFilter.build(reader, "no_such_field", cache);
+        assertEquals(2, cache.size());
+
+        // a cache that can't hold the filters of a single segment keeps none of them
+        JoinKeyFilter.SegmentCache tiny = new JoinKeyFilter.SegmentCache(1);
+        filter = JoinKeyFilter.build(reader, "key", tiny);
+        assertTrue(filter.mightContain(new BytesRef("42")));
+        assertEquals(0, tiny.size());
+        assertEquals(0, tiny.ramBytesUsed());
+      }
+    }
+  }
+}
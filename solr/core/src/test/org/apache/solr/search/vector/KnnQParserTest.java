@@ -237,6 +237,146 @@ public class KnnQParserTest extends SolrTestCaseJ4 {
         "//result/doc[3]/str[@name='id'][.='2']");
   }
 
+  @Test
+  public void oversample_shouldRescoreTopKCandidates() {
+    String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
+
+    assertQ(
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=5 oversample=2}" + vectorToSearch,
+            "fl",
+            "id",
+            "debugQuery",
+            "true"),
+        "//result[@numFound='5']",
+        "//result/doc[1]/str[@name='id'][.='1']",
+        "//result/doc[2]/str[@name='id'][.='4']",
+        "//result/doc[3]/str[@name='id'][.='2']",
+        "//result/doc[4]/str[@name='id'][.='10']",
+        "//result/doc[5]/str[@name='id'][.='3']",
+        "//str[@name='parsedquery'][.='RescoreKnnVectorQuery(RescoreKnnVectorQuery(SolrKnnFloatVectorQuery:vector[1.0,...][10])[5])']");
+  }
+
+  @Test
+  public void oversampleLessThanOne_shouldThrowException() {
+    String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
+
+    assertQEx(
+        "oversample < 1.0 should throw Exception",
+        "oversample (0.5) must be >= 1.0",
+        req(CommonParams.Q, "{!knn f=vector topK=5 oversample=0.5}" + vectorToSearch, "fl", "id"),
+        SolrException.ErrorCode.BAD_REQUEST);
+  }
+
+  @Test
+  public void oversampleByteVectors_shouldThrowException() {
+    String vectorToSearch = "[2, 2, 1, 3]";
+
+    assertQEx(
+        "oversample with byte vectors should throw Exception",
+        "'oversample' is only supported by FLOAT32 vectors",
+        req(
+            CommonParams.Q,
+            "{!knn f=vector_byte_encoding topK=3 oversample=2}" + vectorToSearch,
+            "fl",
+            "id"),
+        SolrException.ErrorCode.BAD_REQUEST);
+  }
+
+  @Test
+  public void exactFilterStrategy_shouldComputeTheSimilarityOfTheFilteredDocuments() {
+    String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
+
+    assertQ(
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=3 filterStrategy=exact}" + vectorToSearch,
+            "fq",
+            "id:(1 2 3 7)",
+            "fl",
+            "id",
+            "debugQuery",
+            "true"),
+        "//result[@numFound='3']",
+        "//result/doc[1]/str[@name='id'][.='1']",
+        "//result/doc[2]/str[@name='id'][.='2']",
+        "//result/doc[3]/str[@name='id'][.='3']",
+        "//lst[@name='debug']/str[@name='knnFilterStrategy'][.='exact']",
+        "//lst[@name='debug']/int[@name='knnFilterCardinality'][.='4']");
+  }
+
+  @Test
+  public void postFilterStrategy_shouldFilterOversampledCandidates() {
+    String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
+
+    assertQ(
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=3 filterStrategy=postFilter}" + vectorToSearch,
+            "fq",
+            "-id:4",
+            "fl",
+            "id",
+            "debugQuery",
+            "true"),
+        "//result[@numFound='3']",
+        "//result/doc[1]/str[@name='id'][.='1']",
+        "//result/doc[2]/str[@name='id'][.='2']",
+        "//result/doc[3]/str[@name='id'][.='10']",
+        "//lst[@name='debug']/str[@name='knnFilterStrategy'][.='postFilter']",
+        "//lst[@name='debug']/int[@name='knnFilterCardinality'][.='12']");
+  }
+
+  @Test
+  public void autoFilterStrategy_shouldChooseByFilterCardinality() {
+    String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
+
+    // scanning a few documents is cheaper than searching the graph
+    assertQ(
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=3 filterStrategy=auto}" + vectorToSearch,
+            "fq",
+            "id:(1 2 3 7)",
+            "fl",
+            "id",
+            "debugQuery",
+            "true"),
+        "//result[@numFound='3']",
+        "//result/doc[1]/str[@name='id'][.='1']",
+        "//result/doc[2]/str[@name='id'][.='2']",
+        "//result/doc[3]/str[@name='id'][.='3']",
+        "//lst[@name='debug']/str[@name='knnFilterStrategy'][.='exact']");
+
+    // without filters, there is nothing to choose
+    assertQ(
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=3 filterStrategy=auto}" + vectorToSearch,
+            "fl",
+            "id",
+            "debugQuery",
+            "true"),
+        "//result[@numFound='3']",
+        "//lst[@name='debug']/str[@name='knnFilterStrategy'][.='preFilter']");
+  }
+
+  @Test
+  public void unknownFilterStrategy_shouldThrowException() {
+    String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
+
+    assertQEx(
+        "an unknown filterStrategy should throw Exception",
+        "Unknown filterStrategy: brute",
+        req(
+            CommonParams.Q,
+            "{!knn f=vector topK=3 filterStrategy=brute}" + vectorToSearch,
+            "fq",
+            "id:(1 2 3 7)"),
+        SolrException.ErrorCode.BAD_REQUEST);
+  }
+
   @Test
   public void incorrectVectorFieldType_shouldThrowException() {
     String vectorToSearch = "[1.0, 2.0, 3.0, 4.0]";
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.security.PKIAuthenticationPlugin;
+import org.apache.solr.servlet.TenantRequestScheduler.Priority;
+import org.mockito.Mockito;
+
+public class TestTenantRequestScheduler extends SolrTestCase {
+
+  private static final SolrParams NO_PARAMS = new ModifiableSolrParams();
+
+  public void testGetCollection() {
+    assertEquals("coll1", TenantRequestScheduler.getCollection("/coll1/select"));
+    assertEquals("coll1", TenantRequestScheduler.getCollection("/api/collections/coll1/select"));
+    assertEquals("coll1", TenantRequestScheduler.getCollection("/api/c/coll1/select"));
+    assertNull(TenantRequestScheduler.getCollection("/admin/cores"));
+    assertNull(TenantRequestScheduler.getCollection("/api/node/system"));
+    assertNull(TenantRequestScheduler.getCollection("/favicon.ico"));
+  }
+
+  public void testGetHandler() {
+    assertEquals("select", TenantRequestScheduler.getHandler("/coll1/select"));
+    assertEquals("update", TenantRequestScheduler.getHandler("/coll1/update/json/docs"));
+    assertEquals("select", TenantRequestScheduler.getHandler("/api/collections/coll1/select"));
+    assertNull(TenantRequestScheduler.getHandler("/coll1/"));
+    assertNull(TenantRequestScheduler.getHandler("/admin/cores"));
+  }
+
+  public void testIsQuery() {
+    assertTrue(TenantRequestScheduler.isQuery("QUERY", "/coll1/update"));
+    assertFalse(TenantRequestScheduler.isQuery("UPDATE", "/coll1/select"));
+    // without the request type header, the handler decides
+    assertTrue(TenantRequestScheduler.isQuery(null, "/coll1/select"));
+    assertTrue(TenantRequestScheduler.isQuery(null, "/api/c/coll1/get"));
+    assertFalse(TenantRequestScheduler.isQuery(null, "/coll1/update"));
+    assertFalse(TenantRequestScheduler.isQuery(null, "/coll1/update/json"));
+    assertFalse(TenantRequestScheduler.isQuery(null, "/admin/collections"));
+  }
+
+  public void testHeaderlessUpdateIsNotScheduled() throws Exception {
+    // a single slot, taken by a running search, and no time to wait for it
+    TenantRequestScheduler scheduler = new TenantRequestScheduler(1, 1, 10, Map.of());
+    RequestRateLimiter.SlotReservation search = handle(scheduler, "/select");
+    assertNotNull(search);
+    assertNotSame(RequestRateLimiter.UNLIMITED, search);
+    assertEquals(1, scheduler.getRunning());
+
+    assertSame(RequestRateLimiter.UNLIMITED, handle(scheduler, "/update"));
+    assertSame(RequestRateLimiter.UNLIMITED, handle(scheduler, "/update/json"));
+    assertEquals(1, scheduler.getRunning());
+    // while a headerless search still has to wait, and times out
+    assertNull(handle(scheduler, "/select"));
+
+    search.close();
+    assertEquals(0, scheduler.getRunning());
+  }
+
+  public void testIsInternalRequest() {
+    HttpServletRequest req = newRequest("/select");
+    assertFalse(TenantRequestScheduler.isInternalRequest(req, NO_PARAMS, false));
+    // the shard requests send isShard in their form body, which the parsed params include
+    SolrParams shardParams = new ModifiableSolrParams().set(ShardParams.IS_SHARD, true);
+    assertTrue(TenantRequestScheduler.isInternalRequest(req, shardParams, false));
+
+    HttpServletRequest pki = newRequest("/select");
+    Mockito.when(pki.getHeader(PKIAuthenticationPlugin.HEADER_V2)).thenReturn("node token");
+    assertTrue(TenantRequestScheduler.isInternalRequest(pki, NO_PARAMS, true));
+    // nothing checked the header
+    assertFalse(TenantRequestScheduler.isInternalRequest(pki, NO_PARAMS, false));
+  }
+
+  public void testOnlyWeightedTenantsMayBeChosen() {
+    TenantRequestScheduler scheduler = new TenantRequestScheduler(1, 1, 10, Map.of("gold", 3));
+    HttpServletRequest gold = newRequest("/select");
+    Mockito.when(gold.getHeader(TenantRequestScheduler.TENANT_HEADER)).thenReturn(" gold ");
+    assertEquals("gold", scheduler.getTenant(gold));
+    // an unknown tenant name does not get a quota of its own
+    HttpServletRequest other = newRequest("/select");
+    Mockito.when(other.getHeader(TenantRequestScheduler.TENANT_HEADER)).thenReturn("fresh-1");
+    assertEquals("coll1", scheduler.getTenant(other));
+  }
+
+  private static RequestRateLimiter.SlotReservation handle(
+      TenantRequestScheduler scheduler, String pathInfo) throws InterruptedException {
+    return scheduler.handleRequest(newRequest(pathInfo), NO_PARAMS, false);
+  }
+
+  private static HttpServletRequest newRequest(String pathInfo) {
+    // a request from a client that sends none of the Solr request headers
+    HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(req.getServletPath()).thenReturn("/coll1");
+    Mockito.when(req.getPathInfo()).thenReturn(pathInfo);
+    return req;
+  }
+
+  public void testParseWeights() {
+    assertEquals(Map.of(), TenantRequestScheduler.parseWeights(null));
+    assertEquals(Map.of("a", 2, "b", 1), TenantRequestScheduler.parseWeights("a:2, b:1"));
+    expectThrows(Exception.class, () -> TenantRequestScheduler.parseWeights("a:0"));
+    expectThrows(Exception.class, () -> TenantRequestScheduler.parseWeights("a"));
+  }
+
+  public void testPerTenantLimitAndTimeout() throws Exception {
+    TenantRequestScheduler scheduler = new TenantRequestScheduler(2, 1, 50, Map.of());
+    RequestRateLimiter.SlotReservation a1 = scheduler.acquire("a", Priority.NORMAL);
+    assertNotNull(a1);
+    // "a" is at its own limit, and times out although a slot is free
+    assertNull(scheduler.acquire("a", Priority.NORMAL));
+    // while another tenant still gets the free slot
+    RequestRateLimiter.SlotReservation b1 = scheduler.acquire("b", Priority.NORMAL);
+    assertNotNull(b1);
+    assertEquals(2, scheduler.getRunning());
+    assertEquals(0, scheduler.getWaiting());
+    a1.close();
+    a1.close(); // closing twice must not free a second slot
+    b1.close();
+    assertEquals(0, scheduler.getRunning());
+  }
+
+  public void testHighPriorityGoesFirst() throws Exception {
+    TenantRequestScheduler scheduler =
+        new TenantRequestScheduler(1, 1, TimeUnit.SECONDS.toMillis(30), Map.of());
+    RequestRateLimiter.SlotReservation running = scheduler.acquire("busy", Priority.NORMAL);
+
+    List<String> order = new CopyOnWriteArrayList<>();
+    Thread busy = waitFor(scheduler, "busy", Priority.NORMAL, order, 1);
+    Thread quiet = waitFor(scheduler, "quiet", Priority.NORMAL, order, 2);
+    Thread urgent = waitFor(scheduler, "urgent", Priority.HIGH, order, 3);
+
+    running.close();
+    busy.join();
+    quiet.join();
+    urgent.join();
+    // the high priority lane goes first, although it queued last
+    assertEquals("urgent", order.get(0));
+    assertEquals(3, order.size());
+    assertEquals(0, scheduler.getRunning());
+  }
+
+  private static Thread waitFor(
+      TenantRequestScheduler scheduler,
+      String tenant,
+      Priority priority,
+      List<String> order,
+      int expectedWaiting)
+      throws InterruptedException {
+    Thread t =
+        new Thread(
+            () -> {
+              try (RequestRateLimiter.SlotReservation r = scheduler.acquire(tenant, priority)) {
+                assertNotNull(r);
+                order.add(tenant);
+              } catch (Exception e) {
+                throw new RuntimeException(e);
+              }
+            });
+    t.start();
+    while (scheduler.getWaiting() < expectedWaiting) {
+      Thread.sleep(5);
+    }
+    return t;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.SolrQuery;
+import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.embedded.JettySolrRunner;
+import org.apache.solr.servlet.TenantRequestScheduler.Priority;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests that the shard requests of a distributed search are not queued behind the search. */
+public class TestTenantRequestSchedulerCloud extends SolrCloudTestCase {
+
+  private static final String COLLECTION = "tenants";
+  private static final int NUM_SHARDS = 4;
+  private static final int NUM_DOCS = 40;
+  private static final long MAX_QUEUE_TIME_MS = TimeUnit.SECONDS.toMillis(30);
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    configureCluster(2).addConfig("conf", configset("cloud-minimal")).configure();
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", NUM_SHARDS, 1)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, NUM_SHARDS, NUM_SHARDS);
+
+    List<SolrInputDocument> docs = new ArrayList<>();
+    for (int i = 0; i < NUM_DOCS; i++) {
+      docs.add(sdoc("id", Integer.toString(i)));
+    }
+    cluster.getSolrClient().add(COLLECTION, docs);
+    cluster.getSolrClient().commit(COLLECTION);
+  }
+
+  @Test
+  public void testFewerSlotsThanShards() throws Exception {
+    // a single slot per node, which a distributed search holds while it waits for its shard
+    // requests, several of which are sent to the same node
+    LongAdder scheduled = new LongAdder();
+    for (JettySolrRunner jetty : cluster.getJettySolrRunners()) {
+      jetty
+          .getSolrRateLimitFilter()
+          .setTenantScheduler(
+              new TenantRequestScheduler(1, 1, MAX_QUEUE_TIME_MS, Map.of()) {
+                @Override
+                public RequestRateLimiter.SlotReservation acquire(
+                    String tenantName, Priority priority) throws InterruptedException {
+                  scheduled.increment();
+                  return super.acquire(tenantName, priority);
+                }
+              });
+    }
+
+    int numQueries = 8;
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(4, new SolrNamedThreadFactory("tenant-queries"));
+    try {
+      List<Future<Long>> numFound = new ArrayList<>();
+      for (int i = 0; i < numQueries; i++) {
+        // the shard requests are sent with POST, their parameters in a form body
+        SolrRequest.METHOD method = i % 2 == 0 ? SolrRequest.METHOD.GET : SolrRequest.METHOD.POST;
+        numFound.add(
+            executor.submit(
+                () ->
+                    new QueryRequest(new SolrQuery("*:*"), method)
+                        .process(cluster.getSolrClient(), COLLECTION)
+                        .getResults()
+                        .getNumFound()));
+      }
+      for (Future<Long> found : numFound) {
+        // a queued shard request would only be rejected after the maximum queue time
+        assertEquals(NUM_DOCS, (long) found.get(MAX_QUEUE_TIME_MS / 2, TimeUnit.MILLISECONDS));
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+      for (JettySolrRunner jetty : cluster.getJettySolrRunners()) {
+        jetty.getSolrRateLimitFilter().setTenantScheduler(null);
+      }
+    }
+    // only the top level searches were scheduled
+    assertEquals(numQueries, scheduled.intValue());
+  }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.solr.spelling;
 
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -357,7 +358,7 @@ public class SpellCheckCollatorTest extends SolrTestCaseJ4 {
 
   @Test
   @SuppressWarnings({"unchecked", "rawtypes"})
-  public void testExtendedCollate() {
+  public void testExtendedCollate() throws Exception {
     SolrCore core = h.getCore();
     SearchComponent speller = core.getSearchComponent("spellcheck");
     assertNotNull("speller is null and it shouldn't be", speller);
@@ -463,6 +464,24 @@ public class SpellCheckCollatorTest extends SolrTestCaseJ4 {
       assertEquals("hope", correctionForHome);
       assertTrue(correctionForLoane.equals("love") || correctionForLoane.equals("loaves"));
     }
+
+    // The hits of the collations tested are cached, and served again from the cache.
+    int cachedCollations = collationCacheSize(core);
+    assertTrue(cachedCollations > 0);
+    rsp = new SolrQueryResponse();
+    rsp.addResponseHeader(new SimpleOrderedMap());
+    req = new LocalSolrQueryRequest(core, params);
+    handler.handleRequest(req, rsp);
+    req.close();
+    spellCheck = (NamedList) rsp.getValues().get("spellcheck");
+    collationHolder = (NamedList) spellCheck.get("collations");
+    assertEquals(expandedCollationList, collationHolder.getAll("collation"));
+    assertEquals(cachedCollations, collationCacheSize(core));
+  }
+
+  private static int collationCacheSize(SolrCore core) throws IOException {
+    return core.withSearcher(
+        searcher -> searcher.getCache(SpellCheckCollator.COLLATION_CACHE).size());
   }
 
   @Test
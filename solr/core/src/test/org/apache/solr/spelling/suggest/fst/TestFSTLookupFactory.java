@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.spelling.suggest.fst;
+
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.lucene.search.suggest.FileDictionary;
+import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.util.NamedList;
+
+public class TestFSTLookupFactory extends SolrTestCase {
+
+  public void testOpenOffHeap() throws Exception {
+    FSTLookupFactory factory = new FSTLookupFactory();
+    NamedList<Object> params = new NamedList<>();
+    Lookup built = factory.create(params, null);
+    String entries = "example data\t40\nexample inputdata\t45\nfox\t5\n";
+    built.build(new FileDictionary(new StringReader(entries)));
+
+    Path dir = createTempDir();
+    try (OutputStream out = Files.newOutputStream(dir.resolve(factory.storeFileName()))) {
+      assertTrue(built.store(out));
+    }
+
+    try (Directory directory = new MMapDirectory(dir);
+        IndexInput input = directory.openInput(factory.storeFileName(), IOContext.DEFAULT)) {
+      Lookup offHeap = factory.openOffHeap(input, params);
+      // the number of entries is read from the stored file, as by a heap load
+      assertEquals(3, offHeap.getCount());
+      assertEquals(built.getCount(), offHeap.getCount());
+      assertEquals(2, offHeap.lookup("exa", false, 5).size());
+    }
+  }
+}
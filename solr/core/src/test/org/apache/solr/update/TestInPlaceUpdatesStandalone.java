@@ -661,6 +661,23 @@ public class TestInPlaceUpdatesStandalone extends SolrTestCaseJ4 {
             + "}}");
   }
 
+  @Test
+  public void testVersionFromIndexDocValues() throws Exception {
+    long version1 = addAndGetVersion(sdoc("id", "1", "title_s", "first"), null);
+    // an in-place update only rewrites the docValues of _version_
+    version1 = addAndAssertVersion(version1, "id", "1", "inplace_updatable_float", map("set", 1));
+    assertU(commit("softCommit", "false"));
+
+    VersionInfo versionInfo = h.getCore().getUpdateHandler().getUpdateLog().getVersionInfo();
+    // docValues only, so the version is read from the segment's NumericDocValues
+    assertTrue(versionInfo.getVersionField().hasDocValues());
+    assertFalse(versionInfo.getVersionField().stored());
+    IndexSchema schema = h.getCore().getLatestSchema();
+    assertEquals(
+        Long.valueOf(version1), versionInfo.getVersionFromIndex(schema.indexableUniqueKey("1")));
+    assertNull(versionInfo.getVersionFromIndex(schema.indexableUniqueKey("2")));
+  }
+
   @Test
   public void testUpdateWithValueNull() throws Exception {
     long doc =
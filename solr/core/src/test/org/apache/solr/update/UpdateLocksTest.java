@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.util.TimeSource;
+import org.apache.solr.util.TimeOut;
+
+public class UpdateLocksTest extends SolrTestCase {
+
+  public void testUncontended() throws Exception {
+    UpdateLocks locks = new UpdateLocks(0);
+    for (int i = 0; i < 100; i++) {
+      int expected = i;
+      assertEquals(
+          expected,
+          (int) locks.runWithLock(new BytesRef(Integer.toString(i)), condition -> expected));
+    }
+    assertEquals(0, locks.getContendedCount());
+  }
+
+  public void testSameIdIsSerializedAndCounted() throws Exception {
+    UpdateLocks locks = new UpdateLocks(0);
+    BytesRef id = new BytesRef("hot");
+    CountDownLatch holding = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger inside = new AtomicInteger();
+
+    Thread holder =
+        new Thread(
+            () -> {
+              try {
+                locks.runWithLock(
+                    id,
+                    condition -> {
+                      inside.incrementAndGet();
+                      holding.countDown();
+                      try {
+                        release.await(10, TimeUnit.SECONDS);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return inside.decrementAndGet();
+                    });
+              } catch (Exception e) {
+                throw new RuntimeException(e);
+              }
+            });
+    holder.start();
+    assertTrue(holding.await(10, TimeUnit.SECONDS));
+
+    Thread waiter =
+        new Thread(
+            () -> {
+              try {
+                locks.runWithLock(
+                    id,
+                    condition -> {
+                      assertEquals(0, inside.get());
+                      return null;
+                    });
+              } catch (Exception e) {
+                throw new RuntimeException(e);
+              }
+            });
+    waiter.start();
+
+    // a different id must not be blocked by the held lock
+    assertEquals("other", locks.runWithLock(new BytesRef("other"), condition -> "other"));
+
+    new TimeOut(10, TimeUnit.SECONDS, TimeSource.NANO_TIME)
+        .waitFor(
+            "the waiter never contended for the held lock", () -> locks.getContendedCount() > 0);
+    release.countDown();
+    holder.join();
+    waiter.join();
+    assertEquals(1, locks.getContendedCount());
+  }
+}
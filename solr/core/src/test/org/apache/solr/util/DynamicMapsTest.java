@@ -21,6 +21,12 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.MapSolrParams;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequestBase;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.SolrQueryResponse;
 
 public class DynamicMapsTest extends SolrTestCase {
 
@@ -86,4 +92,130 @@ public class DynamicMapsTest extends SolrTestCase {
     assertEquals(-1, map.get(101));
     assertEquals(-1, map.get(0));
   }
+
+  public void testArrayPool() {
+    DynamicMapArrayPool pool = new DynamicMapArrayPool(1024);
+    int[] ints = pool.takeInts(64);
+    ints[3] = 42;
+    pool.release(ints);
+    assertEquals(64 * Integer.BYTES, pool.getPooledBytes());
+    assertSame(ints, pool.takeInts(64));
+    assertEquals(0, pool.getPooledBytes());
+    assertNotSame(ints, pool.takeInts(64));
+
+    // arrays that can never fit are not retained
+    pool.release(new long[1024]);
+    assertEquals(0, pool.getPooledBytes());
+
+    // stale lengths are dropped to make room
+    pool.release(new float[200]);
+    pool.release(new float[100]);
+    assertEquals(100 * Float.BYTES, pool.getPooledBytes());
+    assertNotNull(pool.takeFloats(100));
+    assertEquals(0, pool.getPooledBytes());
+
+    DynamicMapArrayPool disabled = new DynamicMapArrayPool(0);
+    int[] other = disabled.takeInts(8);
+    disabled.release(other);
+    assertNotSame(other, disabled.takeInts(8));
+  }
+
+  public void testReleasedArrayIsReset() {
+    DynamicMapArrayPool pool = new DynamicMapArrayPool(1 << 20);
+
+    IntIntDynamicMap intMap = new IntIntDynamicMap(128, -1, pool);
+    for (int i = 0; i < 128; i++) {
+      intMap.put(i, i);
+    }
+    intMap.release();
+    assertEquals(128 * Integer.BYTES, pool.getPooledBytes());
+    // the maps start hash based in tests, enough keys switch them to the array based form
+    IntIntDynamicMap reusedInts = new IntIntDynamicMap(128, -1, pool);
+    reusedInts.put(0, 7);
+    reusedInts.put(1, 7);
+    reusedInts.put(2, 7);
+    // the released array was recycled, and reset
+    assertEquals(0, pool.getPooledBytes());
+    for (int i = 3; i < 128; i++) {
+      assertEquals(-1, reusedInts.get(i));
+    }
+    reusedInts.release();
+
+    // with zero as the empty value too
+    IntIntDynamicMap zeroInts = new IntIntDynamicMap(128, 0, pool);
+    zeroInts.put(0, 7);
+    zeroInts.put(1, 7);
+    zeroInts.put(2, 7);
+    assertEquals(0, pool.getPooledBytes());
+    for (int i = 3; i < 128; i++) {
+      assertEquals(0, zeroInts.get(i));
+    }
+
+    IntLongDynamicMap longMap = new IntLongDynamicMap(128, 0L, pool);
+    for (int i = 0; i < 128; i++) {
+      longMap.put(i, i + 1L);
+    }
+    longMap.release();
+    assertEquals(128 * Long.BYTES, pool.getPooledBytes());
+    IntLongDynamicMap reusedLongs = new IntLongDynamicMap(128, 0L, pool);
+    reusedLongs.put(0, 7L);
+    reusedLongs.put(1, 7L);
+    reusedLongs.put(2, 7L);
+    assertEquals(0, pool.getPooledBytes());
+    for (int i = 3; i < 128; i++) {
+      assertEquals(0L, reusedLongs.get(i));
+    }
+
+    IntFloatDynamicMap floatMap = new IntFloatDynamicMap(128, -1f, pool);
+    for (int i = 0; i < 128; i++) {
+      floatMap.put(i, i);
+    }
+    floatMap.release();
+    assertEquals(128 * Float.BYTES, pool.getPooledBytes());
+    IntFloatDynamicMap reusedFloats = new IntFloatDynamicMap(128, -1f, pool);
+    reusedFloats.put(0, 7f);
+    reusedFloats.put(1, 7f);
+    reusedFloats.put(2, 7f);
+    assertEquals(0, pool.getPooledBytes());
+    for (int i = 3; i < 128; i++) {
+      assertEquals(-1f, reusedFloats.get(i), 0f);
+    }
+  }
+
+  public void testMemAllowedKeepsMapHashBased() {
+    DynamicMapArrayPool pool = new DynamicMapArrayPool(1 << 20);
+    pool.release(new int[4096]);
+
+    // far less than the 16k of the array based form
+    MapSolrParams params = new MapSolrParams(Map.of(CommonParams.MEM_ALLOWED, "0.001"));
+    SolrQueryRequest req = new SolrQueryRequestBase(null, params) {};
+    try {
+      SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, new SolrQueryResponse()));
+    } catch (IllegalArgumentException e) {
+      assumeNoException("memAllowed is not supported by this JVM", e);
+    }
+    try {
+      IntIntDynamicMap map = new IntIntDynamicMap(4096, -1, pool);
+      for (int i = 0; i < 100; i++) {
+        map.put(i, i);
+      }
+      assertEquals("the map must not take the array", 4096 * Integer.BYTES, pool.getPooledBytes());
+      for (int i = 0; i < 100; i++) {
+        assertEquals(i, map.get(i));
+      }
+      assertEquals(-1, map.get(100));
+    } finally {
+      SolrRequestInfo.clearRequestInfo();
+      req.close();
+    }
+
+    // without the limit, the map switches to the array
+    IntIntDynamicMap map = new IntIntDynamicMap(4096, -1, pool);
+    for (int i = 0; i < 100; i++) {
+      map.put(i, i);
+    }
+    assertEquals(0, pool.getPooledBytes());
+    map.release();
+    assertEquals(4096 * Integer.BYTES, pool.getPooledBytes());
+  }
 }
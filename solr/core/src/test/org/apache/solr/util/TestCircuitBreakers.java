@@ -42,6 +42,7 @@ import org.apache.solr.util.circuitbreaker.CircuitBreaker;
 import org.apache.solr.util.circuitbreaker.CircuitBreakerRegistry;
 import org.apache.solr.util.circuitbreaker.LoadAverageCircuitBreaker;
 import org.apache.solr.util.circuitbreaker.MemoryCircuitBreaker;
+import org.apache.solr.util.circuitbreaker.QueryCostCircuitBreaker;
 import org.junit.After;
 import org.junit.BeforeClass;
 import org.slf4j.Logger;
@@ -243,6 +244,43 @@ public class TestCircuitBreakers extends SolrTestCaseJ4 {
                 "<add><doc><field name=\"id\">1</field><field name=\"name\">john smith</field></doc></add>"));
   }
 
+  public void testQueryCostCircuitBreaker() {
+    removeAllExistingCircuitBreakers();
+    for (int i = 0; i < 200; i++) {
+      assertU(adoc("id", "cost" + i, "name", "cost" + i, "cat", "cat" + i));
+    }
+    assertU(commit());
+    try {
+      QueryCostCircuitBreaker breaker = new QueryCostCircuitBreaker().setMaxCost(100);
+      breaker.setLoadAware(false);
+      h.getCore().getCircuitBreakerRegistry().register(breaker);
+
+      assertQ(req("q", "name:cost1", "rows", "10"), "//result[@numFound='1']");
+      // too many requested documents
+      expectThrows(SolrException.class, () -> h.query(req("q", "name:cost1", "rows", "1000")));
+      // the prefix expands to 200 terms
+      expectThrows(SolrException.class, () -> h.query(req("q", "name:cost*", "rows", "0")));
+      // the facet has 200 buckets
+      expectThrows(
+          SolrException.class,
+          () -> h.query(req("q", "name:cost1", "facet", "true", "facet.field", "cat")));
+
+      breaker.setAction(QueryCostCircuitBreaker.ACTION_DOWNGRADE);
+      assertQ(
+          req("q", "name:cost*", "rows", "1000", "facet", "true", "facet.field", "cat"),
+          "//result[@numFound='200']",
+          "count(//result/doc)=10",
+          "count(//lst[@name='facet_counts'])=0",
+          "//lst[@name='responseHeader']/bool[@name='"
+              + QueryCostCircuitBreaker.DOWNGRADED
+              + "'][.='true']");
+    } finally {
+      removeAllExistingCircuitBreakers();
+      assertU(delQ("id:cost*"));
+      assertU(commit());
+    }
+  }
+
   public void testBadRequestType() {
 
     expectThrows(
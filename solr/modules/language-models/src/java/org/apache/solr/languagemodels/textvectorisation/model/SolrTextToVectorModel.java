@@ -17,11 +17,13 @@
 package org.apache.solr.languagemodels.textvectorisation.model;
 
 import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import org.apache.lucene.util.Accountable;
@@ -142,6 +144,32 @@ public class SolrTextToVectorModel implements Accountable {
     return vector.vector();
   }
 
+  /**
+   * Vectorises all the texts with a single call to the model
+   *
+   * @return the vectors of the texts, in the same order
+   */
+  public List<float[]> vectorise(List<String> texts) {
+    List<TextSegment> segments = new ArrayList<>(texts.size());
+    for (String text : texts) {
+      segments.add(TextSegment.from(text));
+    }
+    List<Embedding> embeddings = textToVector.embedAll(segments).content();
+    if (embeddings == null || embeddings.size() != texts.size()) {
+      throw new IllegalStateException(
+          "The model returned "
+              + (embeddings == null ? 0 : embeddings.size())
+              + " vectors for "
+              + texts.size()
+              + " texts");
+    }
+    List<float[]> vectors = new ArrayList<>(embeddings.size());
+    for (Embedding embedding : embeddings) {
+      vectors.add(embedding.vector());
+    }
+    return vectors;
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "(name=" + getName() + ")";
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.languagemodels.textvectorisation.update.processor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.solr.common.util.Hash;
+import org.apache.solr.languagemodels.textvectorisation.model.SolrTextToVectorModel;
+
+/**
+ * A LRU cache of the vectors of the texts vectorised by a {@link TextToVectorUpdateProcessor}, so
+ * re-indexing documents with unchanged texts does not call the model again.
+ *
+ * <p>The texts are not kept: the vectors are cached by a 128 bits hash of the texts. A cached
+ * vector is only returned for the model instance that computed it, so the vectors computed by a
+ * model that was since updated in the model store are never used.
+ */
+class TextToVectorCache {
+
+  private record TextHash(long hash1, long hash2, int length) {}
+
+  private record CachedVector(SolrTextToVectorModel model, float[] vector) {}
+
+  private final Map<TextHash, CachedVector> vectors;
+
+  TextToVectorCache(int maxSize) {
+    this.vectors =
+        Collections.synchronizedMap(
+            new LinkedHashMap<TextHash, CachedVector>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<TextHash, CachedVector> eldest) {
+                return size() > maxSize;
+              }
+            });
+  }
+
+  /** Returns the vector of <code>text</code> computed by <code>model</code>, or null */
+  float[] get(SolrTextToVectorModel model, String text) {
+    CachedVector cached = vectors.get(hash(text));
+    return cached != null && cached.model() == model ? cached.vector() : null;
+  }
+
+  void put(SolrTextToVectorModel model, String text, float[] vector) {
+    vectors.put(hash(text), new CachedVector(model, vector));
+  }
+
+  int size() {
+    return vectors.size();
+  }
+
+  private static TextHash hash(String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    Hash.LongPair hash = new Hash.LongPair();
+    Hash.murmurhash3_x64_128(bytes, 0, bytes.length, 0, hash);
+    return new TextHash(hash.val1, hash.val2, bytes.length);
+  }
+}
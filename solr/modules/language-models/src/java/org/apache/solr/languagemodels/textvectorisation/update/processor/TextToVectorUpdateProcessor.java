@@ -19,8 +19,15 @@ package org.apache.solr.languagemodels.textvectorisation.update.processor;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
 import org.apache.solr.languagemodels.textvectorisation.model.SolrTextToVectorModel;
@@ -28,10 +35,28 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.DeleteUpdateCommand;
+import org.apache.solr.update.MergeIndexesCommand;
+import org.apache.solr.update.RollbackUpdateCommand;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Vectorises the input field of each document with a {@link SolrTextToVectorModel}.
+ *
+ * <p>When <code>batchSize</code> is greater than 1, the documents of an update request are
+ * collected into batches, and the texts of each batch are vectorised with a single call to the
+ * model, by the <code>executor</code>, while the next batch is collected. At most <code>
+ * maxConcurrentBatches</code> batches of a request are waiting for the executor or being
+ * vectorised at the same time. The documents are passed to the next processor in the order of the
+ * request, once their batch is vectorised, and before any other command, so the order of the
+ * updates is preserved.
+ *
+ * <p>If the next processor fails on a document of a batch, the other documents of the batch are
+ * still passed on, and the first failure is thrown once the whole batch has been passed on.
+ */
 class TextToVectorUpdateProcessor extends UpdateRequestProcessor {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -39,6 +64,16 @@ class TextToVectorUpdateProcessor extends UpdateRequestProcessor {
   private final String inputField;
   private final String outputField;
   private SolrTextToVectorModel textToVector;
+  private final int batchSize;
+  private final int maxConcurrentBatches;
+  private final ExecutorService executor;
+  private final TextToVectorCache cache;
+
+  /** The batch being collected */
+  private Batch batch = new Batch();
+
+  /** The batches being vectorised, in the order of the request */
+  private final Deque<Batch> vectorising = new ArrayDeque<>();
 
   public TextToVectorUpdateProcessor(
       String inputField,
@@ -46,11 +81,34 @@ class TextToVectorUpdateProcessor extends UpdateRequestProcessor {
       SolrTextToVectorModel textToVector,
       SolrQueryRequest req,
       UpdateRequestProcessor next) {
+    this(inputField, outputField, textToVector, 1, 1, null, null, req, next);
+  }
+
+  /**
+   * @param batchSize the number of documents of a batch, 1 to vectorise each document on its own
+   * @param maxConcurrentBatches the maximum number of batches of the request being vectorised
+   * @param executor vectorises the batches, if null they are vectorised by the update thread
+   * @param cache the vectors of the texts already vectorised, may be null
+   */
+  public TextToVectorUpdateProcessor(
+      String inputField,
+      String outputField,
+      SolrTextToVectorModel textToVector,
+      int batchSize,
+      int maxConcurrentBatches,
+      ExecutorService executor,
+      TextToVectorCache cache,
+      SolrQueryRequest req,
+      UpdateRequestProcessor next) {
     super(next);
     this.schema = req.getSchema();
     this.inputField = inputField;
     this.outputField = outputField;
     this.textToVector = textToVector;
+    this.batchSize = batchSize;
+    this.maxConcurrentBatches = maxConcurrentBatches;
+    this.executor = executor;
+    this.cache = cache;
   }
 
   /**
@@ -61,29 +119,160 @@ class TextToVectorUpdateProcessor extends UpdateRequestProcessor {
   public void processAdd(AddUpdateCommand cmd) throws IOException {
     SolrInputDocument doc = cmd.getSolrInputDocument();
     SolrInputField inputFieldContent = doc.get(inputField);
+    String textToVectorise = null;
     if (!isNullOrEmpty(inputFieldContent)) {
+      textToVectorise = inputFieldContent.getValue().toString();
+      float[] cached = cache == null ? null : cache.get(textToVector, textToVectorise);
+      if (cached != null) {
+        setVector(doc, cached);
+        textToVectorise = null;
+      }
+    }
+    if (batchSize <= 1) {
+      if (textToVectorise != null) {
+        vectorise(doc, textToVectorise);
+      }
+      super.processAdd(cmd);
+      return;
+    }
+    // the loaders reuse the command for the next document of the request
+    batch.add((AddUpdateCommand) cmd.clone(), textToVectorise);
+    if (batch.commands.size() >= batchSize) {
+      submitBatch();
+    }
+  }
+
+  @Override
+  public void processDelete(DeleteUpdateCommand cmd) throws IOException {
+    flush();
+    super.processDelete(cmd);
+  }
+
+  @Override
+  public void processMergeIndexes(MergeIndexesCommand cmd) throws IOException {
+    flush();
+    super.processMergeIndexes(cmd);
+  }
+
+  @Override
+  public void processCommit(CommitUpdateCommand cmd) throws IOException {
+    flush();
+    super.processCommit(cmd);
+  }
+
+  @Override
+  public void processRollback(RollbackUpdateCommand cmd) throws IOException {
+    flush();
+    super.processRollback(cmd);
+  }
+
+  @Override
+  public void finish() throws IOException {
+    flush();
+    super.finish();
+  }
+
+  @Override
+  protected void doClose() {
+    // the request failed before finish(), the documents still being vectorised are dropped
+    for (Batch unfinished : vectorising) {
+      unfinished.future.cancel(true);
+    }
+    vectorising.clear();
+    super.doClose();
+  }
+
+  /** Starts vectorising the batch being collected */
+  private void submitBatch() throws IOException {
+    if (batch.commands.isEmpty()) {
+      return;
+    }
+    final Batch toVectorise = batch;
+    batch = new Batch();
+    if (toVectorise.texts.isEmpty()) {
+      toVectorise.future = CompletableFuture.completedFuture(null);
+    } else if (executor == null) {
+      toVectorise.vectorise();
+      toVectorise.future = CompletableFuture.completedFuture(null);
+    } else {
+      toVectorise.future = executor.submit(toVectorise::vectorise);
+    }
+    vectorising.add(toVectorise);
+    // passes on the vectorised batches, waiting for the oldest ones if too many are in progress
+    while (!vectorising.isEmpty()
+        && (vectorising.size() > maxConcurrentBatches || vectorising.peek().future.isDone())) {
+      processBatch(vectorising.poll());
+    }
+  }
+
+  /** Waits for all the documents of the request to be vectorised, and passes them on */
+  private void flush() throws IOException {
+    submitBatch();
+    while (!vectorising.isEmpty()) {
+      processBatch(vectorising.poll());
+    }
+  }
+
+  /** Waits for a batch to be vectorised, and passes its documents to the next processor */
+  private void processBatch(Batch vectorised) throws IOException {
+    try {
+      vectorised.future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Interrupted while vectorising documents", e);
+    } catch (ExecutionException e) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Could not vectorise documents", e.getCause());
+    }
+    // a failed document doesn't keep the others of its batch from being passed on
+    Exception failure = null;
+    for (AddUpdateCommand cmd : vectorised.commands) {
       try {
-        String textToVectorise = inputFieldContent.getValue().toString();
-        float[] vector = textToVector.vectorise(textToVectorise);
-        List<Float> vectorAsList = new ArrayList<Float>(vector.length);
-        for (float f : vector) {
-          vectorAsList.add(f);
-        }
-        doc.setField(outputField, vectorAsList);
-      } catch (RuntimeException vectorisationFailure) {
-        if (log.isErrorEnabled()) {
-          SchemaField uniqueKeyField = schema.getUniqueKeyField();
-          String uniqueKeyFieldName = uniqueKeyField.getName();
-          log.error(
-              "Could not vectorise: {} for the document with {}: {}",
-              inputField,
-              uniqueKeyFieldName,
-              doc.getFieldValue(uniqueKeyFieldName),
-              vectorisationFailure);
+        super.processAdd(cmd);
+      } catch (IOException | RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
         }
       }
     }
-    super.processAdd(cmd);
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure != null) {
+      throw (RuntimeException) failure;
+    }
+  }
+
+  /** Vectorises the text of one document, logging failures */
+  private void vectorise(SolrInputDocument doc, String textToVectorise) {
+    try {
+      float[] vector = textToVector.vectorise(textToVectorise);
+      if (cache != null) {
+        cache.put(textToVector, textToVectorise, vector);
+      }
+      setVector(doc, vector);
+    } catch (RuntimeException vectorisationFailure) {
+      if (log.isErrorEnabled()) {
+        SchemaField uniqueKeyField = schema.getUniqueKeyField();
+        String uniqueKeyFieldName = uniqueKeyField.getName();
+        log.error(
+            "Could not vectorise: {} for the document with {}: {}",
+            inputField,
+            uniqueKeyFieldName,
+            doc.getFieldValue(uniqueKeyFieldName),
+            vectorisationFailure);
+      }
+    }
+  }
+
+  private void setVector(SolrInputDocument doc, float[] vector) {
+    List<Float> vectorAsList = new ArrayList<Float>(vector.length);
+    for (float f : vector) {
+      vectorAsList.add(f);
+    }
+    doc.setField(outputField, vectorAsList);
   }
 
   protected boolean isNullOrEmpty(SolrInputField inputFieldContent) {
@@ -91,4 +280,44 @@ class TextToVectorUpdateProcessor extends UpdateRequestProcessor {
         || inputFieldContent.getValue() == null
         || inputFieldContent.getValue().toString().isEmpty());
   }
+
+  /** Documents of a request, and the texts of those which need to be vectorised */
+  private class Batch {
+    final List<AddUpdateCommand> commands = new ArrayList<>();
+    final List<SolrInputDocument> docs = new ArrayList<>();
+    final List<String> texts = new ArrayList<>();
+    Future<?> future;
+
+    void add(AddUpdateCommand cmd, String textToVectorise) {
+      commands.add(cmd);
+      if (textToVectorise != null) {
+        docs.add(cmd.getSolrInputDocument());
+        texts.add(textToVectorise);
+      }
+    }
+
+    void vectorise() {
+      final List<float[]> vectors;
+      try {
+        vectors = textToVector.vectorise(texts);
+      } catch (RuntimeException batchFailure) {
+        if (log.isWarnEnabled()) {
+          log.warn(
+              "Could not vectorise a batch of {} documents, vectorising them one by one",
+              texts.size(),
+              batchFailure);
+        }
+        for (int i = 0; i < texts.size(); i++) {
+          TextToVectorUpdateProcessor.this.vectorise(docs.get(i), texts.get(i));
+        }
+        return;
+      }
+      for (int i = 0; i < texts.size(); i++) {
+        if (cache != null) {
+          cache.put(textToVector, texts.get(i), vectors.get(i));
+        }
+        setVector(docs.get(i), vectors.get(i));
+      }
+    }
+  }
 }
@@ -17,10 +17,14 @@
 
 package org.apache.solr.languagemodels.textvectorisation.update.processor;
 
+import java.util.concurrent.ExecutorService;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.RequiredSolrParams;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.CloseHook;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.SolrResourceLoader;
 import org.apache.solr.languagemodels.textvectorisation.model.SolrTextToVectorModel;
@@ -33,6 +37,7 @@ import org.apache.solr.schema.DenseVectorField;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.update.processor.TolerantUpdateProcessorFactory;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
 import org.apache.solr.update.processor.UpdateRequestProcessorFactory;
 import org.apache.solr.util.plugin.SolrCoreAware;
@@ -47,21 +52,38 @@ import org.apache.solr.util.plugin.SolrCoreAware;
  *   &lt;str name=&quot;inputField&quot;&gt;textualField&lt;/str&gt;
  *   &lt;str name=&quot;outputField&quot;&gt;vectorField&lt;/str&gt;
  *   &lt;str name=&quot;model&quot;&gt;textToVectorModel&lt;/str&gt;
+ *   &lt;int name=&quot;batchSize&quot;&gt;32&lt;/int&gt;
+ *   &lt;int name=&quot;maxConcurrentBatches&quot;&gt;4&lt;/int&gt;
+ *   &lt;int name=&quot;cacheSize&quot;&gt;10000&lt;/int&gt;
  * &lt;/processor&gt;
  * </pre>
  *
- * *
+ * <p>The optional <code>batchSize</code> (default 1) is the number of documents of an update
+ * request vectorised with a single call to the model. The batches are vectorised by a pool of
+ * <code>maxConcurrentBatches</code> (default 1) background threads, which is shared by all the
+ * requests that use this factory, and each request has at most <code>maxConcurrentBatches</code>
+ * batches in flight. In a chain with a {@link TolerantUpdateProcessorFactory}, the documents are
+ * vectorised one by one, so that the errors are reported for the documents that caused them. The
+ * optional <code>cacheSize</code> (default 0, disabled) is the maximum number of vectors kept in a
+ * LRU cache of the texts already vectorised.
  */
 public class TextToVectorUpdateProcessorFactory extends UpdateRequestProcessorFactory
     implements SolrCoreAware, ManagedResourceObserver {
   private static final String INPUT_FIELD_PARAM = "inputField";
   private static final String OUTPUT_FIELD_PARAM = "outputField";
   private static final String MODEL_NAME = "model";
+  private static final String BATCH_SIZE_PARAM = "batchSize";
+  private static final String MAX_CONCURRENT_BATCHES_PARAM = "maxConcurrentBatches";
+  private static final String CACHE_SIZE_PARAM = "cacheSize";
   private ManagedTextToVectorModelStore modelStore = null;
 
   private String inputField;
   private String outputField;
   private String modelName;
+  private int batchSize;
+  private int maxConcurrentBatches;
+  private TextToVectorCache cache;
+  private ExecutorService executor;
   private SolrParams params;
 
   @Override
@@ -71,12 +93,42 @@ public class TextToVectorUpdateProcessorFactory extends UpdateRequestProcessorFa
     inputField = required.get(INPUT_FIELD_PARAM);
     outputField = required.get(OUTPUT_FIELD_PARAM);
     modelName = required.get(MODEL_NAME);
+    batchSize = getPositiveInt(BATCH_SIZE_PARAM, 1);
+    maxConcurrentBatches = getPositiveInt(MAX_CONCURRENT_BATCHES_PARAM, 1);
+    int cacheSize = params.getInt(CACHE_SIZE_PARAM, 0);
+    if (cacheSize < 0) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR,
+          CACHE_SIZE_PARAM + " must not be negative: " + cacheSize);
+    }
+    cache = cacheSize == 0 ? null : new TextToVectorCache(cacheSize);
+  }
+
+  private int getPositiveInt(String name, int defaultValue) {
+    int value = params.getInt(name, defaultValue);
+    if (value <= 0) {
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, name + " must be a positive integer: " + value);
+    }
+    return value;
   }
 
   @Override
   public void inform(SolrCore core) {
     final SolrResourceLoader solrResourceLoader = core.getResourceLoader();
     ManagedTextToVectorModelStore.registerManagedTextToVectorModelStore(solrResourceLoader, this);
+    if (batchSize > 1) {
+      executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              maxConcurrentBatches, new SolrNamedThreadFactory("textToVector"));
+      core.addCloseHook(
+          new CloseHook() {
+            @Override
+            public void preClose(SolrCore core) {
+              ExecutorUtil.shutdownAndAwaitTermination(executor);
+            }
+          });
+    }
   }
 
   @Override
@@ -115,7 +167,29 @@ public class TextToVectorUpdateProcessorFactory extends UpdateRequestProcessorFa
               + ManagedTextToVectorModelStore.REST_END_POINT);
     }
 
-    return new TextToVectorUpdateProcessor(inputField, outputField, textToVector, req, next);
+    // a batched document's error would be thrown while a later document is processed, which the
+    // tolerant processor would report for that later document
+    boolean batched = batchSize > 1 && !isTolerant(req);
+    return new TextToVectorUpdateProcessor(
+        inputField,
+        outputField,
+        textToVector,
+        batched ? batchSize : 1,
+        maxConcurrentBatches,
+        batched ? executor : null,
+        cache,
+        req,
+        next);
+  }
+
+  private static boolean isTolerant(SolrQueryRequest req) {
+    for (UpdateRequestProcessorFactory factory :
+        req.getCore().getUpdateProcessorChain(req.getParams()).getProcessors()) {
+      if (factory instanceof TolerantUpdateProcessorFactory) {
+        return true;
+      }
+    }
+    return false;
   }
 
   protected void assertIsDenseVectorField(SchemaField schemaField) {
@@ -139,4 +213,12 @@ public class TextToVectorUpdateProcessorFactory extends UpdateRequestProcessorFa
   public String getModelName() {
     return modelName;
   }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public int getMaxConcurrentBatches() {
+    return maxConcurrentBatches;
+  }
 }
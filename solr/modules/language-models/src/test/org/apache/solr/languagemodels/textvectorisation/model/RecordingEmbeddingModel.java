@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.languagemodels.textvectorisation.model;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stub model recording its calls, which vectorises a text to <code>[length, 1, 2, 3]</code> so
+ * the vector of each document can be checked.
+ */
+public class RecordingEmbeddingModel implements EmbeddingModel {
+  public static final AtomicInteger embedCalls = new AtomicInteger();
+  public static final AtomicInteger embedAllCalls = new AtomicInteger();
+  public static final AtomicInteger vectorisedTexts = new AtomicInteger();
+
+  public static void reset() {
+    embedCalls.set(0);
+    embedAllCalls.set(0);
+    vectorisedTexts.set(0);
+  }
+
+  private static Embedding vectorise(String text) {
+    vectorisedTexts.incrementAndGet();
+    return new Embedding(new float[] {text.length(), 1, 2, 3});
+  }
+
+  @Override
+  public Response<Embedding> embed(String text) {
+    embedCalls.incrementAndGet();
+    return new Response<Embedding>(vectorise(text));
+  }
+
+  @Override
+  public Response<Embedding> embed(TextSegment textSegment) {
+    return embed(textSegment.text());
+  }
+
+  @Override
+  public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+    embedAllCalls.incrementAndGet();
+    List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+    for (TextSegment textSegment : textSegments) {
+      embeddings.add(vectorise(textSegment.text()));
+    }
+    return new Response<List<Embedding>>(embeddings);
+  }
+
+  @Override
+  public int dimension() {
+    return 4;
+  }
+
+  public static RecordingEmbeddingModelBuilder builder() {
+    return new RecordingEmbeddingModelBuilder();
+  }
+
+  public static class RecordingEmbeddingModelBuilder {
+
+    public RecordingEmbeddingModelBuilder() {}
+
+    public RecordingEmbeddingModel build() {
+      return new RecordingEmbeddingModel();
+    }
+  }
+}
@@ -70,6 +70,40 @@ public class TextToVectorUpdateProcessorFactoryTest extends TestLanguageModelBas
     assertEquals("model1", factoryToTest.getModelName());
   }
 
+  @Test
+  public void init_batchArgs_shouldInitBatchParams() {
+    NamedList<Object> args = new NamedList<>();
+    args.add("inputField", "_text_");
+    args.add("outputField", "vector");
+    args.add("model", "model1");
+
+    TextToVectorUpdateProcessorFactory factoryToTest = new TextToVectorUpdateProcessorFactory();
+    factoryToTest.init(args);
+    assertEquals(1, factoryToTest.getBatchSize());
+    assertEquals(1, factoryToTest.getMaxConcurrentBatches());
+
+    args.add("batchSize", 32);
+    args.add("maxConcurrentBatches", 4);
+    args.add("cacheSize", 1000);
+    factoryToTest.init(args);
+    assertEquals(32, factoryToTest.getBatchSize());
+    assertEquals(4, factoryToTest.getMaxConcurrentBatches());
+  }
+
+  @Test
+  public void init_invalidBatchSize_shouldThrowExceptionWithDetailedMessage() {
+    NamedList<Object> args = new NamedList<>();
+    args.add("inputField", "_text_");
+    args.add("outputField", "vector");
+    args.add("model", "model1");
+    args.add("batchSize", 0);
+
+    TextToVectorUpdateProcessorFactory factoryToTest = new TextToVectorUpdateProcessorFactory();
+
+    SolrException e = assertThrows(SolrException.class, () -> factoryToTest.init(args));
+    assertEquals("batchSize must be a positive integer: 0", e.getMessage());
+  }
+
   @Test
   public void init_nullInputField_shouldThrowExceptionWithDetailedMessage() {
     NamedList<String> args = new NamedList<>();
@@ -17,16 +17,26 @@
 package org.apache.solr.languagemodels.textvectorisation.update.processor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import org.apache.solr.client.solrj.RemoteSolrException;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.request.SolrQuery;
 import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.core.SolrCore;
 import org.apache.solr.languagemodels.TestLanguageModelBase;
+import org.apache.solr.languagemodels.textvectorisation.model.RecordingEmbeddingModel;
 import org.apache.solr.languagemodels.textvectorisation.store.rest.ManagedTextToVectorModelStore;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequestBase;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessor;
 import org.junit.After;
 import org.junit.AfterClass;
+import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -47,6 +57,14 @@ public class TextToVectorUpdateProcessorTest extends TestLanguageModelBase {
     restTestHarness.delete(ManagedTextToVectorModelStore.REST_END_POINT + "/dummy-1");
     restTestHarness.delete(
         ManagedTextToVectorModelStore.REST_END_POINT + "/exception-throwing-model"); // clean
+    restTestHarness.delete(ManagedTextToVectorModelStore.REST_END_POINT + "/recording-1");
+    assertU(delQ("*:*"));
+    assertU(commit());
+  }
+
+  @Before
+  public void beforeEachTest() {
+    RecordingEmbeddingModel.reset();
   }
 
   @Test
@@ -231,6 +249,146 @@ public class TextToVectorUpdateProcessorTest extends TestLanguageModelBase {
     restTestHarness.delete(ManagedTextToVectorModelStore.REST_END_POINT + "/dummy-1");
   }
 
+  @Test
+  public void processAdd_batches_shouldVectoriseEachDocumentInOrder() throws Exception {
+    loadModel("recording-model.json");
+    UpdateRequest req = new UpdateRequest();
+    req.add(sdoc("id", "1", "string_field", "a"));
+    req.add(sdoc("id", "2", "string_field", "bb"));
+    req.add(sdoc("id", "3", "string_field", "ccc"));
+    req.add(sdoc("id", "4", "string_field", "dddd"));
+    req.add(sdoc("id", "5", "string_field", "eeeee"));
+    req.add(sdoc("id", "6"));
+    // the same document again, the last version must win
+    req.add(sdoc("id", "1", "string_field", "ffffff"));
+    req.setParam("update.chain", "batchedTextToVector");
+    solrTestRule.getSolrClient("collection1").request(req);
+    assertU(commit());
+
+    // batches of 2 documents, the third one has only 1 text to vectorise
+    assertEquals(4, RecordingEmbeddingModel.embedAllCalls.get());
+    assertEquals(0, RecordingEmbeddingModel.embedCalls.get());
+    assertEquals(6, RecordingEmbeddingModel.vectorisedTexts.get());
+
+    final SolrQuery query = getSolrQuery();
+    query.setSort("id", SolrQuery.ORDER.asc);
+
+    assertJQ(
+        "/query" + query.toQueryString(),
+        "/response/numFound==6]",
+        "/response/docs/[0]/id=='1'",
+        "/response/docs/[0]/vector==[6.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[1]/vector==[2.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[2]/vector==[3.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[3]/vector==[4.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[4]/vector==[5.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[5]/id=='6'",
+        "!/response/docs/[5]/vector==");
+  }
+
+  @Test
+  public void processAdd_cache_shouldNotVectoriseUnchangedTexts() throws Exception {
+    loadModel("recording-model.json");
+    addWithChain(sdoc("id", "1", "string_field", "Vegeta"), "cachedTextToVector");
+    addWithChain(sdoc("id", "2", "string_field", "Vegeta"), "cachedTextToVector");
+    // reindexing the same text
+    addWithChain(sdoc("id", "1", "string_field", "Vegeta"), "cachedTextToVector");
+    addWithChain(sdoc("id", "3", "string_field", "Kakaroth"), "cachedTextToVector");
+    assertU(commit());
+
+    assertEquals(2, RecordingEmbeddingModel.vectorisedTexts.get());
+
+    final SolrQuery query = getSolrQuery();
+    query.setSort("id", SolrQuery.ORDER.asc);
+
+    assertJQ(
+        "/query" + query.toQueryString(),
+        "/response/numFound==3]",
+        "/response/docs/[0]/vector==[6.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[1]/vector==[6.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[2]/vector==[8.0, 1.0, 2.0, 3.0]");
+
+    // the cached vectors of a replaced model are not used
+    restTestHarness.delete(ManagedTextToVectorModelStore.REST_END_POINT + "/recording-1");
+    loadModel("recording-model.json");
+    addWithChain(sdoc("id", "1", "string_field", "Vegeta"), "cachedTextToVector");
+    assertEquals(3, RecordingEmbeddingModel.vectorisedTexts.get());
+  }
+
+  @Test
+  public void processAdd_batches_failingDocumentShouldNotStopTheOthers() throws Exception {
+    loadModel("recording-model.json");
+    List<String> passedOn = new ArrayList<>();
+    UpdateRequestProcessor failingOnSecondDoc =
+        new UpdateRequestProcessor(null) {
+          @Override
+          public void processAdd(AddUpdateCommand cmd) {
+            String id = cmd.getSolrInputDocument().getFieldValue("id").toString();
+            passedOn.add(id);
+            if ("2".equals(id)) {
+              throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "failing doc " + id);
+            }
+          }
+        };
+
+    try (SolrCore core = solrTestRule.getCoreContainer().getCore(COLLECTION)) {
+      SolrQueryRequest req = new SolrQueryRequestBase(core, params()) {};
+      TextToVectorUpdateProcessor processor =
+          new TextToVectorUpdateProcessor(
+              "string_field",
+              "vector",
+              ManagedTextToVectorModelStore.getManagedModelStore(core).getModel("recording-1"),
+              3,
+              1,
+              null,
+              null,
+              req,
+              failingOnSecondDoc);
+      AddUpdateCommand cmd = new AddUpdateCommand(req);
+      for (String id : List.of("1", "2")) {
+        cmd.solrDoc = sdoc("id", id, "string_field", "text " + id);
+        processor.processAdd(cmd);
+      }
+      assertTrue("the batch is not complete yet", passedOn.isEmpty());
+
+      cmd.solrDoc = sdoc("id", "3", "string_field", "text 3");
+      SolrException e = expectThrows(SolrException.class, () -> processor.processAdd(cmd));
+      assertEquals("failing doc 2", e.getMessage());
+      assertEquals(List.of("1", "2", "3"), passedOn);
+      assertEquals(1, RecordingEmbeddingModel.embedAllCalls.get());
+
+      processor.finish();
+      processor.close();
+      req.close();
+    }
+  }
+
+  @Test
+  public void processAdd_tolerantChain_shouldVectoriseOneByOne() throws Exception {
+    loadModel("recording-model.json");
+    UpdateRequest req = new UpdateRequest();
+    req.add(sdoc("id", "1", "string_field", "a"));
+    req.add(sdoc("id", "2", "string_field", "bb"));
+    req.add(sdoc("id", "3", "string_field", "ccc"));
+    req.setParam("update.chain", "tolerantBatchedTextToVector");
+    solrTestRule.getSolrClient("collection1").request(req);
+    assertU(commit());
+
+    // the errors of each document must be reported with its own id
+    assertEquals(0, RecordingEmbeddingModel.embedAllCalls.get());
+    assertEquals(3, RecordingEmbeddingModel.embedCalls.get());
+
+    final SolrQuery query = getSolrQuery();
+    query.setSort("id", SolrQuery.ORDER.asc);
+
+    assertJQ(
+        "/query" + query.toQueryString(),
+        "/response/numFound==3]",
+        "/response/docs/[0]/vector==[1.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[1]/vector==[2.0, 1.0, 2.0, 3.0]",
+        "/response/docs/[2]/vector==[3.0, 1.0, 2.0, 3.0]");
+  }
+
   void addWithChain(SolrInputDocument document, String updateChain)
       throws SolrServerException, IOException {
     UpdateRequest req = new UpdateRequest();
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.core.CloseHook;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.ltr.feature.Feature;
+
+/**
+ * Caches the values of document-static features, i.e. features whose {@link
+ * Feature.FeatureWeight#isCacheable(LeafReaderContext)} is true, such as field values and field
+ * lengths. The values of such a feature are computed for all the documents of a segment the first
+ * time the feature is needed for the segment, and then served from memory by all the requests, and
+ * all the searchers, that see the segment. Entries are keyed by the segment reader, rather than its
+ * core, as some features (e.g. a {@link org.apache.solr.ltr.feature.SolrFeature} filter) depend on
+ * the deleted documents. They never go stale and are dropped when the segment reader is closed.
+ *
+ * <p>The cache holds at most {@code maxRamBytes}. Once it is full, the features of new segments
+ * are computed as if there was no cache, until merges free some space.
+ *
+ * <p>Example configuration:
+ *
+ * <pre>
+ * &lt;queryParser name="ltr" class="org.apache.solr.ltr.search.LTRQParserPlugin"&gt;
+ *   &lt;double name="featureValueCacheRamMB"&gt;256&lt;/double&gt;
+ * &lt;/queryParser&gt;
+ * </pre>
+ */
+public class FeatureValueCache {
+
+  private final long maxRamBytes;
+  private final AtomicLong ramBytesUsed = new AtomicLong();
+  private final AtomicBoolean closeHookRegistered = new AtomicBoolean();
+  private final Map<IndexReader.CacheKey, Map<Feature, Column>> cache = new ConcurrentHashMap<>();
+
+  public FeatureValueCache(long maxRamBytes) {
+    this.maxRamBytes = maxRamBytes;
+  }
+
+  /** Clears the cache when {@code core} is closed, as a reloaded core may share its segments. */
+  public void registerCloseHook(SolrCore core) {
+    if (closeHookRegistered.compareAndSet(false, true)) {
+      core.addCloseHook(
+          new CloseHook() {
+            @Override
+            public void postClose(SolrCore core) {
+              clear();
+            }
+          });
+    }
+  }
+
+  /**
+   * Returns the scorer of {@code weight} for the segment of {@code context}, served from the cache
+   * if the feature is document-static and fits in the cache.
+   */
+  public Feature.FeatureWeight.FeatureScorer featureScorer(
+      Feature.FeatureWeight weight, LeafReaderContext context) throws IOException {
+    final IndexReader.CacheHelper cacheHelper = context.reader().getReaderCacheHelper();
+    if (cacheHelper == null || !weight.isCacheable(context)) {
+      return weight.featureScorer(context);
+    }
+    Map<Feature, Column> columns = cache.get(cacheHelper.getKey());
+    if (columns == null) {
+      final Map<Feature, Column> newColumns = new ConcurrentHashMap<>();
+      columns = cache.putIfAbsent(cacheHelper.getKey(), newColumns);
+      if (columns == null) {
+        columns = newColumns;
+        cacheHelper.addClosedListener(this::evict);
+      }
+    }
+    final Feature feature = (Feature) weight.getQuery();
+    Column column = columns.get(feature);
+    if (column == null) {
+      final long bytes = Column.ramBytesUsed(context.reader().maxDoc());
+      if (ramBytesUsed.addAndGet(bytes) > maxRamBytes) {
+        ramBytesUsed.addAndGet(-bytes);
+        return weight.featureScorer(context);
+      }
+      // two threads may both compute the column, which is harmless, and unlike computeIfAbsent()
+      // this doesn't block the threads that look up other features of the segment meanwhile
+      final Column existing;
+      try {
+        column = Column.build(weight, context);
+        existing = columns.putIfAbsent(feature, column);
+      } catch (IOException | RuntimeException e) {
+        ramBytesUsed.addAndGet(-bytes);
+        throw e;
+      }
+      if (existing != null) {
+        ramBytesUsed.addAndGet(-bytes);
+        column = existing;
+      }
+    }
+    return column.numDocs == 0 ? null : new CachedFeatureScorer(weight, column);
+  }
+
+  private void evict(IndexReader.CacheKey key) {
+    final Map<Feature, Column> columns = cache.remove(key);
+    if (columns != null) {
+      for (Column column : columns.values()) {
+        ramBytesUsed.addAndGet(-Column.ramBytesUsed(column.values.length));
+      }
+    }
+  }
+
+  /** Removes all the entries. */
+  public void clear() {
+    for (IndexReader.CacheKey key : cache.keySet()) {
+      evict(key);
+    }
+  }
+
+  /** The estimated memory used by the cached feature values, in bytes. */
+  public long ramBytesUsed() {
+    return ramBytesUsed.get();
+  }
+
+  /** The values of a feature for all the documents of a segment. */
+  private static class Column {
+    /** The value of the feature for each document, or 0 if it has none */
+    final float[] values;
+
+    /** The documents for which the feature has a value */
+    final FixedBitSet docs;
+
+    final int numDocs;
+
+    private Column(float[] values, FixedBitSet docs) {
+      this.values = values;
+      this.docs = docs;
+      this.numDocs = docs.cardinality();
+    }
+
+    static long ramBytesUsed(int maxDoc) {
+      return RamUsageEstimator.sizeOf(new float[0])
+          + (long) Float.BYTES * maxDoc
+          + RamUsageEstimator.sizeOf(new long[FixedBitSet.bits2words(maxDoc)]);
+    }
+
+    static Column build(Feature.FeatureWeight weight, LeafReaderContext context)
+        throws IOException {
+      final int maxDoc = context.reader().maxDoc();
+      final float[] values = new float[maxDoc];
+      final FixedBitSet docs = new FixedBitSet(maxDoc);
+      final Feature.FeatureWeight.FeatureScorer scorer = weight.featureScorer(context);
+      if (scorer != null) {
+        // document-static features don't look at the DocInfo, but may expect one to be set
+        scorer.setDocInfo(new DocInfo());
+        final DocIdSetIterator iterator = scorer.iterator();
+        // some feature scorers iterate beyond maxDoc, up to NO_MORE_DOCS
+        for (int doc = iterator.nextDoc(); doc < maxDoc; doc = iterator.nextDoc()) {
+          values[doc] = scorer.score();
+          docs.set(doc);
+        }
+      }
+      return new Column(values, docs);
+    }
+  }
+
+  private static class CachedFeatureScorer extends Feature.FeatureWeight.FeatureScorer {
+    private final float[] values;
+
+    CachedFeatureScorer(Feature.FeatureWeight weight, Column column) {
+      super(weight, new BitSetIterator(column.docs, column.numDocs));
+      this.values = column.values;
+    }
+
+    @Override
+    public float score() {
+      return values[itr.docID()];
+    }
+
+    @Override
+    public float getMaxScore(int upTo) {
+      return Float.POSITIVE_INFINITY;
+    }
+  }
+}
@@ -166,6 +166,8 @@ public class LTRRescorer extends Rescorer {
     LTRScoringQuery.ModelWeight.ModelScorer scorer = null;
     int hitPosition = 0;
 
+    // extract the features of all the hits first, and then score them all at once
+    final float[][] featureMatrix = modelWeight.newFeatureMatrix(hits.length);
     while (hitPosition < hits.length) {
       final ScoreDoc hit = hits[hitPosition];
       LeafReaderContext readerContext = null;
@@ -179,9 +181,37 @@ public class LTRRescorer extends Rescorer {
         docBase = readerContext.docBase;
         scorer = modelWeight.modelScorer(readerContext);
       }
-      scoreSingleHit(docsToRerank, docBase, hitPosition, hit, scorer, reranked);
+      extractFeatures(docBase, hitPosition, hit, scorer, featureMatrix);
       hitPosition++;
     }
+
+    final float[] scores = new float[hits.length];
+    modelWeight.score(featureMatrix, hits.length, scores);
+    for (hitPosition = 0; hitPosition < hits.length; hitPosition++) {
+      final ScoreDoc hit = hits[hitPosition];
+      hit.score = scores[hitPosition];
+      addToReranked(docsToRerank, hitPosition, hit, reranked);
+    }
+  }
+
+  /** Extracts the normalized features of a single document into a column of the matrix. */
+  protected void extractFeatures(
+      int docBase,
+      int hitPosition,
+      ScoreDoc hit,
+      LTRScoringQuery.ModelWeight.ModelScorer scorer,
+      float[][] featureMatrix)
+      throws IOException {
+    // see scoreSingleHit() as to why the scorer is never null
+    assert (scorer != null);
+    final int targetDoc = hit.doc - docBase;
+    scorer.docID();
+    scorer.iterator().advance(targetDoc);
+
+    scorer.getDocInfo().setOriginalDocScore(hit.score);
+    scorer.getDocInfo().setOriginalDocId(hit.doc);
+    scorer.fillNormalizedFeatures(featureMatrix, hitPosition);
+    checkQueryLimits();
   }
 
   /** Scores a single document. */
@@ -208,6 +238,11 @@ public class LTRRescorer extends Rescorer {
     scorer.getDocInfo().setOriginalDocScore(hit.score);
     scorer.getDocInfo().setOriginalDocId(hit.doc);
     hit.score = scorer.score();
+    checkQueryLimits();
+    addToReranked(docsToRerank, hitPosition, hit, reranked);
+  }
+
+  private static void checkQueryLimits() {
     if (QueryLimits.getCurrentLimits()
         .maybeExitWithPartialResults(
             "Learning To Rank rescoring -"
@@ -215,6 +250,11 @@ public class LTRRescorer extends Rescorer {
                 + " If partial results are tolerated the reranking got reverted and all documents preserved their original score and ranking.")) {
       throw new IncompleteRerankingException();
     }
+  }
+
+  /** Adds a scored document to the top {@code docsToRerank} documents, kept in a heap. */
+  protected static void addToReranked(
+      int docsToRerank, int hitPosition, ScoreDoc hit, ScoreDoc[] reranked) {
     if (hitPosition < docsToRerank) {
       reranked[hitPosition] = hit;
     } else if (hitPosition == docsToRerank) {
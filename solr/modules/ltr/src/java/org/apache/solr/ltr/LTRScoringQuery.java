@@ -76,6 +76,8 @@ public class LTRScoringQuery extends Query implements Accountable {
   private Query originalQuery;
   // Original solr request
   private SolrQueryRequest request;
+  // optional cache of the values of document-static features
+  private FeatureValueCache featureValueCache;
 
   private Feature.FeatureWeight[] extractedFeatureWeights;
 
@@ -137,6 +139,14 @@ public class LTRScoringQuery extends Query implements Accountable {
     return request;
   }
 
+  public void setFeatureValueCache(FeatureValueCache featureValueCache) {
+    this.featureValueCache = featureValueCache;
+  }
+
+  public FeatureValueCache getFeatureValueCache() {
+    return featureValueCache;
+  }
+
   public Feature.FeatureWeight[] getExtractedFeatureWeights() {
     return extractedFeatureWeights;
   }
@@ -437,6 +447,24 @@ public class LTRScoringQuery extends Query implements Accountable {
       ltrScoringModel.normalizeFeaturesInPlace(modelFeatureValuesNormalized);
     }
 
+    /**
+     * Creates a matrix for the normalized feature values of {@code numDocs} documents, to be
+     * filled by {@link ModelScorer#fillNormalizedFeatures(float[][], int)} and scored by {@link
+     * #score(float[][], int, float[])}.
+     */
+    public float[][] newFeatureMatrix(int numDocs) {
+      return new float[modelFeatureWeights.length][numDocs];
+    }
+
+    /**
+     * Scores a batch of documents with the model.
+     *
+     * @see LTRScoringModel#score(float[][], int, float[])
+     */
+    public void score(float[][] featureMatrix, int numDocs, float[] scores) {
+      ltrScoringModel.score(featureMatrix, numDocs, scores);
+    }
+
     @Override
     public Explanation explain(LeafReaderContext context, int doc) throws IOException {
 
@@ -468,7 +496,10 @@ public class LTRScoringQuery extends Query implements Accountable {
       final List<Feature.FeatureWeight.FeatureScorer> featureScorers =
           new ArrayList<Feature.FeatureWeight.FeatureScorer>(extractedFeatureWeights.length);
       for (final Feature.FeatureWeight featureWeight : extractedFeatureWeights) {
-        final Feature.FeatureWeight.FeatureScorer scorer = featureWeight.featureScorer(context);
+        final Feature.FeatureWeight.FeatureScorer scorer =
+            featureValueCache == null
+                ? featureWeight.featureScorer(context)
+                : featureValueCache.featureScorer(featureWeight, context);
         if (scorer != null) {
           featureScorers.add(scorer);
         }
@@ -554,6 +585,20 @@ public class LTRScoringQuery extends Query implements Accountable {
       public void fillFeaturesInfo() throws IOException {
         featureTraversalScorer.fillFeaturesInfo();
       }
+
+      /**
+       * Extracts the features of the current document, like {@link #score()}, but instead of
+       * scoring it stores the normalized feature values in {@code featureMatrix[i][doc]}, for
+       * scoring a batch of documents at once with {@link ModelWeight#score(float[][], int,
+       * float[])}.
+       */
+      public void fillNormalizedFeatures(float[][] featureMatrix, int doc) throws IOException {
+        featureTraversalScorer.fillFeaturesInfo();
+        normalizeFeatures();
+        for (int i = 0; i < modelFeatureValuesNormalized.length; i++) {
+          featureMatrix[i][doc] = modelFeatureValuesNormalized[i];
+        }
+      }
     }
   }
 }
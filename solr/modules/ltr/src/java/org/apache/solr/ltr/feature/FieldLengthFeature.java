@@ -113,6 +113,12 @@ public class FieldLengthFeature extends Feature {
       super(FieldLengthFeature.this, searcher, request, originalQuery, efi);
     }
 
+    /** Norms can't be updated, so the length of a field is static. */
+    @Override
+    public boolean isCacheable(LeafReaderContext ctx) {
+      return true;
+    }
+
     @Override
     public FeatureScorer featureScorer(LeafReaderContext context) throws IOException {
       NumericDocValues norms = context.reader().getNormValues(field);
@@ -141,6 +141,25 @@ public class FieldValueFeature extends Feature {
       return val;
     }
 
+    /**
+     * The docValues of a field are static, unless they have been updated in place, or a sub class
+     * transforms them with {@link #readNumericDocValuesDate(long)}, e.g. relative to now. Stored
+     * fields are not cached, as loading all the stored documents of a segment would be too slow.
+     */
+    @Override
+    public boolean isCacheable(LeafReaderContext ctx) {
+      if (getClass() != FieldValueFeatureWeight.class) {
+        return false;
+      }
+      return usesDocValues() && DocValues.isCacheable(ctx, field);
+    }
+
+    private boolean usesDocValues() {
+      return schemaField != null
+          && (!schemaField.stored() || useDocValuesForStored)
+          && schemaField.hasDocValues();
+    }
+
     /**
      * Return a FeatureScorer that uses docValues or storedFields if no docValues are present
      *
@@ -150,9 +169,7 @@ public class FieldValueFeature extends Feature {
      */
     @Override
     public FeatureScorer featureScorer(LeafReaderContext context) throws IOException {
-      if (schemaField != null
-          && (!schemaField.stored() || useDocValuesForStored)
-          && schemaField.hasDocValues()) {
+      if (usesDocValues()) {
 
         final FieldInfo fieldInfo = context.reader().getFieldInfos().fieldInfo(field);
         final DocValuesType docValuesType =
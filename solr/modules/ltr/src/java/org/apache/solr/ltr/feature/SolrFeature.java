@@ -131,9 +131,17 @@ public class SolrFeature extends Feature {
     }
   }
 
+  /** True if the value of {@code param} does not depend on efi parameters or on the time. */
+  private static boolean isStaticParam(String param) {
+    return param == null || (!param.contains("${") && !param.contains("NOW"));
+  }
+
   /** Weight for a SolrFeature */
   public class SolrFeatureWeight extends FeatureWeight {
     private final Weight solrQueryWeight;
+    // the filters of a feature without q, efi parameters or NOW, whose value may be static
+    private List<Query> staticFilterQueries;
+    private volatile List<Weight> staticFilterWeights;
 
     public SolrFeatureWeight(
         SolrIndexSearcher searcher,
@@ -188,6 +196,9 @@ public class SolrFeature extends Feature {
             }
           }
 
+          if (scoreQuery == null && fq.stream().allMatch(SolrFeature::isStaticParam)) {
+            staticFilterQueries = filterQueries;
+          }
           DocSet filtersDocSet = searcher.getDocSet(filterQueries); // execute
           if (filtersDocSet != searcher.getLiveDocSet()) {
             filterDocSetQuery = filtersDocSet.makeQuery();
@@ -224,6 +235,41 @@ public class SolrFeature extends Feature {
       }
     }
 
+    /**
+     * A feature with filters only has the same value for all the documents that match them, so it
+     * is static if the filters only depend on the segment.
+     */
+    @Override
+    public boolean isCacheable(LeafReaderContext ctx) {
+      if (staticFilterQueries == null) {
+        return false;
+      }
+      try {
+        for (Weight weight : getStaticFilterWeights()) {
+          if (!weight.isCacheable(ctx)) {
+            return false;
+          }
+        }
+      } catch (IOException e) {
+        return false;
+      }
+      return true;
+    }
+
+    private List<Weight> getStaticFilterWeights() throws IOException {
+      List<Weight> weights = staticFilterWeights;
+      if (weights == null) {
+        weights = new ArrayList<>(staticFilterQueries.size());
+        for (Query filterQuery : staticFilterQueries) {
+          weights.add(
+              searcher.createWeight(
+                  searcher.rewrite(filterQuery), ScoreMode.COMPLETE_NO_SCORES, 1));
+        }
+        staticFilterWeights = weights;
+      }
+      return weights;
+    }
+
     @Override
     public FeatureScorer featureScorer(LeafReaderContext context) throws IOException {
       Scorer solrScorer = solrQueryWeight.scorer(context);
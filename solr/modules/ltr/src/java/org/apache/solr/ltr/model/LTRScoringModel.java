@@ -253,6 +253,26 @@ public abstract class LTRScoringModel implements Accountable {
    */
   public abstract float score(float[] modelFeatureValuesNormalized);
 
+  /**
+   * Scores a batch of documents, e.g. the whole rerank window, at once. The matrix is laid out
+   * feature by feature so that models can go through the values of a feature for all the documents
+   * in tight loops. The default implementation calls {@link #score(float[])} for each document.
+   *
+   * @param featureMatrix Normalized feature values: {@code featureMatrix[i][j]} is the value of
+   *     the feature with id {@code i} for the {@code j}-th document
+   * @param numDocs Number of documents to score, which may be less than the length of the rows
+   * @param scores Receives the final score of the {@code j}-th document in {@code scores[j]}
+   */
+  public void score(float[][] featureMatrix, int numDocs, float[] scores) {
+    final float[] modelFeatureValuesNormalized = new float[featureMatrix.length];
+    for (int doc = 0; doc < numDocs; ++doc) {
+      for (int idx = 0; idx < featureMatrix.length; ++idx) {
+        modelFeatureValuesNormalized[idx] = featureMatrix[idx][doc];
+      }
+      scores[doc] = score(modelFeatureValuesNormalized);
+    }
+  }
+
   /**
    * Similar to the score() function, except it returns an explanation of how the features were used
    * to calculate the score.
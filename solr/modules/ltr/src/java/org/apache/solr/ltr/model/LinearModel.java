@@ -17,6 +17,7 @@
 package org.apache.solr.ltr.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import org.apache.lucene.index.LeafReaderContext;
@@ -132,6 +133,20 @@ public class LinearModel extends LTRScoringModel {
     return score;
   }
 
+  @Override
+  public void score(float[][] featureMatrix, int numDocs, float[] scores) {
+    Arrays.fill(scores, 0, numDocs, 0f);
+    // feature by feature, adding to the scores of all the documents in a loop that the JIT can
+    // vectorize, and in the same order as score(float[]) so that the scores are the same
+    for (int i = 0; i < featureMatrix.length; ++i) {
+      final float[] featureValues = featureMatrix[i];
+      final float weight = featureToWeight[i];
+      for (int doc = 0; doc < numDocs; ++doc) {
+        scores[doc] += featureValues[doc] * weight;
+      }
+    }
+  }
+
   @Override
   public Explanation explain(
       LeafReaderContext context, int doc, float finalScore, List<Explanation> featureExplanations) {
@@ -17,6 +17,7 @@
 package org.apache.solr.ltr.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import org.apache.lucene.index.LeafReaderContext;
@@ -114,6 +115,30 @@ public class NeuralNetworkModel extends LTRScoringModel {
   public interface Layer {
     public float[] calculateOutput(float[] inputVec);
 
+    /**
+     * Calculates the outputs of the layer for a batch of documents, with the inputs and outputs of
+     * each unit for all the documents in a row, see {@link LTRScoringModel#score(float[][], int,
+     * float[])}. The default implementation calls {@link #calculateOutput(float[])} for each
+     * document.
+     */
+    public default float[][] calculateOutput(float[][] inputMatrix, int numDocs) {
+      float[][] outputMatrix = null;
+      final float[] inputVec = new float[inputMatrix.length];
+      for (int doc = 0; doc < numDocs; doc++) {
+        for (int j = 0; j < inputMatrix.length; j++) {
+          inputVec[j] = inputMatrix[j][doc];
+        }
+        final float[] outputVec = calculateOutput(inputVec);
+        if (outputMatrix == null) {
+          outputMatrix = new float[outputVec.length][numDocs];
+        }
+        for (int i = 0; i < outputVec.length; i++) {
+          outputMatrix[i][doc] = outputVec[i];
+        }
+      }
+      return outputMatrix;
+    }
+
     public int validate(int inputDim) throws ModelException;
 
     public String describe();
@@ -228,6 +253,31 @@ public class NeuralNetworkModel extends LTRScoringModel {
       return outputVec;
     }
 
+    @Override
+    public float[][] calculateOutput(float[][] inputMatrix, int numDocs) {
+
+      float[][] outputMatrix = new float[this.matrixRows][numDocs];
+
+      // the inner loops go through all the documents, so that the JIT can vectorize them, and add
+      // in the same order as calculateOutput(float[]) so that the outputs are the same
+      for (int i = 0; i < this.matrixRows; i++) {
+        final float[] outputRow = outputMatrix[i];
+        Arrays.fill(outputRow, this.biasVector[i]);
+        for (int j = 0; j < this.matrixCols; j++) {
+          final float weight = this.weightMatrix[i][j];
+          final float[] inputRow = inputMatrix[j];
+          for (int doc = 0; doc < numDocs; doc++) {
+            outputRow[doc] += weight * inputRow[doc];
+          }
+        }
+        for (int doc = 0; doc < numDocs; doc++) {
+          outputRow[doc] = this.activation.apply(outputRow[doc]);
+        }
+      }
+
+      return outputMatrix;
+    }
+
     @Override
     public int validate(int inputDim) throws ModelException {
       if (this.numUnits != this.matrixRows) {
@@ -355,6 +405,21 @@ public class NeuralNetworkModel extends LTRScoringModel {
     return outputVec[0];
   }
 
+  @Override
+  public void score(float[][] featureMatrix, int numDocs, float[] scores) {
+    if (numDocs == 0) {
+      return;
+    }
+
+    float[][] outputMatrix = featureMatrix;
+
+    for (Layer layer : layers) {
+      outputMatrix = layer.calculateOutput(outputMatrix, numDocs);
+    }
+
+    System.arraycopy(outputMatrix[0], 0, scores, 0, numDocs);
+  }
+
   @Override
   public Explanation explain(
       LeafReaderContext context, int doc, float finalScore, List<Explanation> featureExplanations) {
@@ -28,6 +28,7 @@ import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrResourceLoader;
 import org.apache.solr.ltr.FeatureLogger;
+import org.apache.solr.ltr.FeatureValueCache;
 import org.apache.solr.ltr.LTRScoringQuery;
 import org.apache.solr.ltr.LTRThreadModule;
 import org.apache.solr.ltr.SolrQueryRequestContextUtils;
@@ -66,6 +67,8 @@ public class LTRQParserPlugin extends QParserPlugin
 
   private LTRThreadModule threadManager = null;
 
+  private FeatureValueCache featureValueCache = null;
+
   /** query parser plugin: the name of the attribute for setting the model */
   public static final String MODEL = "model";
 
@@ -88,6 +91,20 @@ public class LTRQParserPlugin extends QParserPlugin
     SolrPluginUtils.invokeSetters(this, args);
   }
 
+  /**
+   * Enables the cache of the values of document-static features, holding at most the given number
+   * of megabytes.
+   *
+   * @see FeatureValueCache
+   */
+  public void setFeatureValueCacheRamMB(double featureValueCacheRamMB) {
+    if (featureValueCacheRamMB > 0) {
+      featureValueCache = new FeatureValueCache((long) (featureValueCacheRamMB * 1024 * 1024));
+    } else {
+      featureValueCache = null;
+    }
+  }
+
   @Override
   public QParser createParser(
       String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
@@ -149,6 +166,9 @@ public class LTRQParserPlugin extends QParserPlugin
         threadManager.setExecutor(
             req.getCoreContainer().getUpdateShardHandler().getUpdateExecutor());
       }
+      if (featureValueCache != null) {
+        featureValueCache.registerCloseHook(req.getCore());
+      }
       // ReRanking Model
       final String[] modelNames = localParams.getParams(LTRQParserPlugin.MODEL);
       if ((modelNames == null) || (modelNames.length != 1 && modelNames.length != 2)) {
@@ -222,6 +242,7 @@ public class LTRQParserPlugin extends QParserPlugin
 
         // External features
         rerankingQuery.setRequest(req);
+        rerankingQuery.setFeatureValueCache(featureValueCache);
       }
 
       int reRankDocs = localParams.getInt(RERANK_DOCS, DEFAULT_RERANK_DOCS);
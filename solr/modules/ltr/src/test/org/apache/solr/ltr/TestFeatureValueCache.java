@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.feature.FieldLengthFeature;
+import org.apache.solr.ltr.feature.ValueFeature;
+import org.junit.Test;
+
+public class TestFeatureValueCache extends SolrTestCase {
+
+  private static Feature.FeatureWeight createWeight(
+      String className, Map<String, Object> params, IndexSearcher searcher) throws IOException {
+    final Feature f =
+        Feature.getInstance(TestLTRScoringQuery.solrResourceLoader, className, "f", params);
+    return f.createWeight(searcher, false, null, null, new HashMap<>());
+  }
+
+  static Map<Integer, Float> values(Feature.FeatureWeight.FeatureScorer scorer, Bits live)
+      throws IOException {
+    final Map<Integer, Float> values = new HashMap<>();
+    if (scorer != null) {
+      scorer.setDocInfo(new DocInfo());
+      final DocIdSetIterator iterator = scorer.iterator();
+      for (int doc = iterator.nextDoc(); doc < 100; doc = iterator.nextDoc()) {
+        if (live == null || live.get(doc)) {
+          values.put(doc, scorer.score());
+        }
+      }
+    }
+    return values;
+  }
+
+  @Test
+  public void testFeatureValueCache() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    for (int i = 0; i < 20; i++) {
+      final Document doc = new Document();
+      doc.add(newStringField("id", Integer.toString(i), Field.Store.YES));
+      if (i % 3 != 0) {
+        doc.add(newTextField("title", "w1 w2 w3".substring(0, 2 + 3 * (i % 3)), Field.Store.NO));
+      }
+      w.addDocument(doc);
+      if (i == 10) {
+        w.commit();
+      }
+    }
+    w.deleteDocuments(new Term("id", "4"));
+    w.close();
+
+    final DirectoryReader reader = DirectoryReader.open(dir);
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    final Feature.FeatureWeight fieldLength =
+        createWeight(FieldLengthFeature.class.getName(), Map.of("field", "title"), searcher);
+    final Feature.FeatureWeight value =
+        createWeight(ValueFeature.class.getName(), Map.of("value", 1), searcher);
+
+    final FeatureValueCache cache = new FeatureValueCache(Long.MAX_VALUE);
+    final FeatureValueCache fullCache = new FeatureValueCache(0);
+    for (LeafReaderContext context : reader.leaves()) {
+      assertTrue(fieldLength.isCacheable(context));
+      assertFalse(value.isCacheable(context));
+
+      final Bits live = context.reader().getLiveDocs();
+      final Map<Integer, Float> expected = values(fieldLength.featureScorer(context), live);
+      assertFalse(expected.isEmpty());
+      final long ramBytesUsed = cache.ramBytesUsed();
+      assertEquals(expected, values(cache.featureScorer(fieldLength, context), live));
+      assertTrue(cache.ramBytesUsed() > ramBytesUsed);
+      // served from the cache
+      assertEquals(expected, values(cache.featureScorer(fieldLength, context), live));
+      // features that aren't document-static are not cached
+      final long ramBytesUsedWithColumn = cache.ramBytesUsed();
+      assertEquals(
+          values(value.featureScorer(context), live),
+          values(cache.featureScorer(value, context), live));
+      assertEquals(ramBytesUsedWithColumn, cache.ramBytesUsed());
+      // nor are features that don't fit
+      assertEquals(expected, values(fullCache.featureScorer(fieldLength, context), live));
+      assertEquals(0, fullCache.ramBytesUsed());
+    }
+
+    // entries are dropped when their segment is closed
+    reader.close();
+    assertEquals(0, cache.ramBytesUsed());
+    dir.close();
+  }
+}
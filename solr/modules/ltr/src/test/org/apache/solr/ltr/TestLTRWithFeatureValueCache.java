@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Bits;
+import org.apache.solr.client.solrj.request.SolrQuery;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.feature.FieldLengthFeature;
+import org.apache.solr.ltr.feature.FieldValueFeature;
+import org.apache.solr.ltr.feature.SolrFeature;
+import org.apache.solr.ltr.model.LinearModel;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestLTRWithFeatureValueCache extends TestRerankBase {
+
+  private static final int NUM_DOCS = 30;
+
+  @Before
+  public void before() throws Exception {
+    setupFeatureValueCacheTest(false);
+
+    for (int i = 0; i < NUM_DOCS; i++) {
+      assertU(doc(i, i));
+      // several segments
+      if (i % 10 == 9) {
+        assertU(commit());
+      }
+    }
+    assertU(delI("3"));
+    assertU(delI("14"));
+    assertU(commit());
+  }
+
+  @After
+  public void after() throws Exception {
+    aftertest();
+  }
+
+  private static String doc(int id, int popularity) {
+    return adoc(
+        "id",
+        Integer.toString(id),
+        "popularity",
+        Integer.toString(popularity),
+        "dvIntPopularity",
+        Integer.toString(popularity),
+        "noDvFloatField",
+        Float.toString(popularity / 2f),
+        "title",
+        "w1 w2 w3 w4 w5".substring(0, 2 + 3 * (id % 5)));
+  }
+
+  private static Feature.FeatureWeight createWeight(
+      Feature feature, SolrQueryRequest req, Map<String, String[]> efi) throws Exception {
+    return feature.createWeight(req.getSearcher(), false, req, null, efi);
+  }
+
+  private static Feature.FeatureWeight createWeight(
+      String className, Map<String, Object> params, SolrQueryRequest req) throws Exception {
+    final Feature feature = Feature.getInstance(solrResourceLoader, className, "f", params);
+    return createWeight(feature, req, new HashMap<>());
+  }
+
+  private static void assertCachedValues(
+      FeatureValueCache cache, Feature.FeatureWeight weight, SolrQueryRequest req)
+      throws Exception {
+    for (LeafReaderContext context : req.getSearcher().getIndexReader().leaves()) {
+      final Bits live = context.reader().getLiveDocs();
+      assertEquals(
+          TestFeatureValueCache.values(weight.featureScorer(context), live),
+          TestFeatureValueCache.values(cache.featureScorer(weight, context), live));
+    }
+  }
+
+  private static boolean isCacheable(Feature.FeatureWeight weight, SolrQueryRequest req) {
+    final List<LeafReaderContext> leaves = req.getSearcher().getIndexReader().leaves();
+    assertFalse(leaves.isEmpty());
+    return leaves.stream().allMatch(weight::isCacheable);
+  }
+
+  @Test
+  public void testFieldValueFeature() throws Exception {
+    final FeatureValueCache cache = new FeatureValueCache(Long.MAX_VALUE);
+    try (SolrCore core = solrTestRule.getCoreContainer().getCore(DEFAULT_TEST_CORENAME);
+        SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams())) {
+      final Feature.FeatureWeight docValues =
+          createWeight(FieldValueFeature.class.getName(), Map.of("field", "dvIntPopularity"), req);
+      assertTrue(isCacheable(docValues, req));
+      assertCachedValues(cache, docValues, req);
+      assertTrue(cache.ramBytesUsed() > 0);
+
+      // stored fields would have to be loaded for all the documents of the segment
+      final long ramBytesUsed = cache.ramBytesUsed();
+      final Feature.FeatureWeight stored =
+          createWeight(FieldValueFeature.class.getName(), Map.of("field", "noDvFloatField"), req);
+      assertFalse(isCacheable(stored, req));
+      assertCachedValues(cache, stored, req);
+      assertEquals(ramBytesUsed, cache.ramBytesUsed());
+    }
+  }
+
+  @Test
+  public void testSolrFeature() throws Exception {
+    final FeatureValueCache cache = new FeatureValueCache(Long.MAX_VALUE);
+    final Feature filter =
+        Feature.getInstance(
+            solrResourceLoader,
+            SolrFeature.class.getName(),
+            "popular",
+            Map.of("fq", List.of("popularity:[10 TO *]")));
+    try (SolrCore core = solrTestRule.getCoreContainer().getCore(DEFAULT_TEST_CORENAME)) {
+      try (SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams())) {
+        final Feature.FeatureWeight weight = createWeight(filter, req, new HashMap<>());
+        assertTrue(isCacheable(weight, req));
+        assertCachedValues(cache, weight, req);
+
+        // filters that depend on the request are not cached
+        final long ramBytesUsed = cache.ramBytesUsed();
+        final Feature efiFilter =
+            Feature.getInstance(
+                solrResourceLoader,
+                SolrFeature.class.getName(),
+                "efi",
+                Map.of("fq", List.of("{!terms f=popularity}${user_query}")));
+        final Feature.FeatureWeight efiWeight =
+            createWeight(efiFilter, req, Map.of("user_query", new String[] {"12"}));
+        assertFalse(isCacheable(efiWeight, req));
+        assertCachedValues(cache, efiWeight, req);
+        final Feature.FeatureWeight query =
+            createWeight(SolrFeature.class.getName(), Map.of("q", "{!func}popularity"), req);
+        assertFalse(isCacheable(query, req));
+        assertCachedValues(cache, query, req);
+        assertEquals(ramBytesUsed, cache.ramBytesUsed());
+      }
+
+      // the filter is executed against the searcher, so its values change with the deletes
+      assertU(delI("12"));
+      assertU(delI("25"));
+      assertU(doc(5, 50));
+      assertU(commit());
+      try (SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams())) {
+        assertCachedValues(cache, createWeight(filter, req, new HashMap<>()), req);
+      }
+    }
+  }
+
+  private static Map<String, Object> scores(String rq) throws Exception {
+    final SolrQuery query = new SolrQuery();
+    query.setQuery("*:*");
+    query.add("fl", "id,score");
+    query.add("rows", Integer.toString(NUM_DOCS));
+    query.add("rq", rq);
+    final String res = restTestHarness.query("/query" + query.toQueryString());
+    @SuppressWarnings({"unchecked"})
+    final Map<String, Object> response =
+        (Map<String, Object>) ((Map<String, Object>) Utils.fromJSONString(res)).get("response");
+    @SuppressWarnings({"unchecked"})
+    final List<Map<String, Object>> docs = (List<Map<String, Object>>) response.get("docs");
+    final Map<String, Object> scores = new HashMap<>();
+    for (Map<String, Object> doc : docs) {
+      scores.put((String) doc.get("id"), doc.get("score"));
+    }
+    return scores;
+  }
+
+  private static void assertSameScoresWithAndWithoutCache(int numFound) throws Exception {
+    final String params = " model=cachedModel reRankDocs=" + NUM_DOCS + "}";
+    final Map<String, Object> expected = scores("{!ltrNoCache" + params);
+    assertEquals(numFound, expected.size());
+    // computes the values of the cached features, then reads them from the cache
+    assertEquals(expected, scores("{!ltr" + params));
+    assertEquals(expected, scores("{!ltr" + params));
+  }
+
+  @Test
+  public void testSameScoresWithAndWithoutCache() throws Exception {
+    loadFeature("popularity", FieldValueFeature.class.getName(), "{\"field\":\"dvIntPopularity\"}");
+    loadFeature(
+        "storedPopularity", FieldValueFeature.class.getName(), "{\"field\":\"noDvFloatField\"}");
+    loadFeature("titleLength", FieldLengthFeature.class.getName(), "{\"field\":\"title\"}");
+    loadFeature("isPopular", SolrFeature.class.getName(), "{\"fq\":[\"popularity:[10 TO *]\"]}");
+    loadModel(
+        "cachedModel",
+        LinearModel.class.getName(),
+        new String[] {"popularity", "storedPopularity", "titleLength", "isPopular"},
+        "{\"weights\":{\"popularity\":1.0,\"storedPopularity\":0.5,"
+            + "\"titleLength\":2.0,\"isPopular\":10.0}}");
+
+    assertSameScoresWithAndWithoutCache(NUM_DOCS - 2);
+
+    // new readers for the segments with deletes, the other segments are read from the cache
+    assertU(delI("12"));
+    assertU(delI("25"));
+    assertU(doc(5, 50));
+    assertU(commit());
+    assertSameScoresWithAndWithoutCache(NUM_DOCS - 4);
+  }
+}
@@ -122,6 +122,12 @@ public class TestRerankBase extends RestTestBase {
     if (bulkIndex) bulkIndex();
   }
 
+  protected static void setupFeatureValueCacheTest(boolean bulkIndex) throws Exception {
+    chooseDefaultFeatureFormat();
+    setuptest("solrconfig-ltr-featurevaluecache.xml", "schema.xml");
+    if (bulkIndex) bulkIndex();
+  }
+
   public static ManagedFeatureStore getManagedFeatureStore() {
     try (SolrCore core = solrTestRule.getCoreContainer().getCore(DEFAULT_TEST_CORENAME)) {
       return ManagedFeatureStore.getManagedFeatureStore(core);
@@ -342,6 +348,49 @@ public class TestRerankBase extends RestTestBase {
     return (Map<String, Object>) parsedJson;
   }
 
+  /**
+   * Returns a random matrix of feature values, laid out as for {@link
+   * LTRScoringModel#score(float[][], int, float[])}, with one document more than {@code numDocs}
+   * in each row. Values are picked among {@code specialValues}, e.g. the thresholds of a model or
+   * {@link Float#NaN} for missing values, as often as at random.
+   */
+  public static float[][] randomFeatureMatrix(
+      int numFeatures, int numDocs, float... specialValues) {
+    final float[][] featureMatrix = new float[numFeatures][numDocs + 1];
+    for (float[] featureValues : featureMatrix) {
+      for (int doc = 0; doc < featureValues.length; doc++) {
+        featureValues[doc] =
+            specialValues.length > 0 && random().nextBoolean()
+                ? specialValues[random().nextInt(specialValues.length)]
+                : random().nextFloat() * 20 - 10;
+      }
+    }
+    return featureMatrix;
+  }
+
+  /**
+   * Asserts that scoring the first {@code numDocs} documents of {@code featureMatrix} in one batch
+   * gives the same scores as scoring them one at a time, and leaves the other scores alone.
+   */
+  public static void assertBatchScoresMatchPerDocumentScores(
+      LTRScoringModel model, float[][] featureMatrix, int numDocs) {
+    final float[] scores = new float[numDocs + 1];
+    scores[numDocs] = 42f;
+    model.score(featureMatrix, numDocs, scores);
+    for (int doc = 0; doc < numDocs; doc++) {
+      final float[] featureVector = new float[featureMatrix.length];
+      for (int feature = 0; feature < featureMatrix.length; feature++) {
+        featureVector[feature] = featureMatrix[feature][doc];
+      }
+      assertEquals(
+          "document " + doc + ": " + Arrays.toString(featureVector),
+          model.score(featureVector),
+          scores[doc],
+          0f);
+    }
+    assertEquals(42f, scores[numDocs], 0f);
+  }
+
   public static void loadFeatures(String fileName) throws Exception {
     final URL url = TestRerankBase.class.getResource("/featureExamples/" + fileName);
     final String multipleFeatures = Files.readString(Path.of(url.toURI()), StandardCharsets.UTF_8);
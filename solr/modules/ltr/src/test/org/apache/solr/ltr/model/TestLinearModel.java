@@ -107,6 +107,31 @@ public class TestLinearModel extends TestRerankBase {
     assertEquals(ltrScoringModel, m);
   }
 
+  @Test
+  public void batchScoreTest() throws Exception {
+    final List<Feature> features =
+        getFeatures(new String[] {"constant1", "constant2", "constant3", "constant4"});
+    final List<Normalizer> norms =
+        new ArrayList<>(Collections.nCopies(features.size(), IdentityNormalizer.INSTANCE));
+    final Map<String, Object> weights = new HashMap<>();
+    weights.put("constant1", 1.5d);
+    weights.put("constant2", -0.25d);
+    weights.put("constant3", 0d);
+    weights.put("constant4", 3d);
+    final Map<String, Object> params = new HashMap<>();
+    params.put("weights", weights);
+    final LTRScoringModel ltrScoringModel =
+        createLinearModel("batch", features, norms, "test", fstore.getFeatures(), params);
+
+    for (int numDocs : new int[] {1, 1 + random().nextInt(100)}) {
+      // missing values, which are NaN, make the scores NaN in both cases
+      assertBatchScoresMatchPerDocumentScores(
+          ltrScoringModel,
+          randomFeatureMatrix(features.size(), numDocs, 0f, -0f, Float.NaN, Float.MAX_VALUE),
+          numDocs);
+    }
+  }
+
   @Test
   public void nullFeatureWeightsTest() {
     final ModelException expectedException =
@@ -118,6 +118,30 @@ public class TestMultipleAdditiveTreesModel extends TestRerankBase {
     assertThat(qryResult, containsString(" Go Left "));
   }
 
+  @Test
+  public void testBatchScore() throws Exception {
+    final int numDocs = 1 + random().nextInt(100);
+
+    // a missing value takes the right branch
+    final LTRScoringModel model =
+        createModelFromFiles(
+            "multipleadditivetreesmodel.json", "multipleadditivetreesmodel_features.json");
+    assertBatchScoresMatchPerDocumentScores(
+        model, randomFeatureMatrix(2, numDocs, 0.5f, 10f, Float.NaN), numDocs);
+
+    // with isNullSameAsZero=false, a missing value takes the branch of the node's "missing"
+    final LTRScoringModel modelWithNulls =
+        createModelFromFiles(
+            "multipleadditivetreesmodel_with_missing_branch.json",
+            "multipleadditivetreesmodel_features_with_missing_branch.json");
+    assertBatchScoresMatchPerDocumentScores(
+        modelWithNulls, randomFeatureMatrix(3, numDocs, 0f, 0.5f, 10f, Float.NaN), numDocs);
+
+    // a tree that looks for a feature that isn't in the vector scores 0
+    assertBatchScoresMatchPerDocumentScores(
+        modelWithNulls, randomFeatureMatrix(2, numDocs, 0.5f, 10f, Float.NaN), numDocs);
+  }
+
   @Test
   public void multipleAdditiveTreesTestNoParams() throws Exception {
     final ModelException expectedException =
@@ -248,6 +248,11 @@ public class TestNeuralNetworkModel extends TestRerankBase {
       float score = ltrScoringModel.score(testVec);
       assertEquals(expectedScore, score, 0.001);
     }
+
+    // scoring a batch of documents gives the same scores as scoring them one at a time
+    final int numDocs = 1 + random().nextInt(20);
+    assertBatchScoresMatchPerDocumentScores(
+        ltrScoringModel, randomFeatureMatrix(4, numDocs, 0f, 1f), numDocs);
   }
 
   @Test